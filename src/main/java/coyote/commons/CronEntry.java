@@ -11,8 +11,17 @@
 package coyote.commons;
 
 import java.text.ParseException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.List;
 import java.util.TreeSet;
 
 
@@ -34,9 +43,11 @@ import java.util.TreeSet;
  * 
  * see https://en.wikipedia.org/wiki/Cron#CRON_expression
  * 
- * <p>Note: TreeSet is used only for helping in development and debugging
- * when using the {@code dump()} method. It can be safely replaced with 
- * HashSet.</p>
+ * <p>Each range is compiled into a bit mask when it is set, bit {@code n} 
+ * being set if the value {@code n} is allowed. Checking a time is then a few 
+ * bit tests and the next allowed value of a range is found with a single bit 
+ * scan, so the next time is calculated directly, a field at a time, rather 
+ * than by stepping a calendar.</p>
  */
 public class CronEntry {
   private static final String ANY = "*";
@@ -69,11 +80,17 @@ public class CronEntry {
   static final protected int MAX_MONTHS_IN_YEAR = 12;
   static final protected int MAX_DAYS_IN_MONTH = 31;
 
-  private TreeSet<String> minutes = new TreeSet<String>();
-  private TreeSet<String> hours = new TreeSet<String>();
-  private TreeSet<String> day = new TreeSet<String>();
-  private TreeSet<String> month = new TreeSet<String>();
-  private TreeSet<String> weekday = new TreeSet<String>();
+  /**
+   * How many years ahead to look for the next time; combinations such as 
+   * February 29th on a Monday only recur every 28 years.
+   */
+  static final int SEARCH_YEARS = 400;
+
+  private long minutes = 0;
+  private long hours = 0;
+  private long day = 0;
+  private long month = 0;
+  private long weekday = 0;
   private String configLine = "";
 
   private String minutePattern = ANY;
@@ -274,6 +291,65 @@ public class CronEntry {
 
 
 
+  /**
+   * Compile a time map into a bit mask.
+   * 
+   * @param timemap the values of a range, as returned by 
+   *        {@link #parseRangeParam(String, int, int)}
+   * 
+   * @return a mask with the bit of each value in the map set
+   */
+  static long toMask( TreeSet<String> timemap ) {
+    long retval = 0;
+    for ( String value : timemap ) {
+      retval |= 1L << Integer.parseInt( value );
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * List the values set in a bit mask, for display.
+   */
+  static TreeSet<Integer> toValues( long mask ) {
+    TreeSet<Integer> retval = new TreeSet<Integer>();
+    for ( int bit = nextBit( mask, 0 ); bit >= 0; bit = nextBit( mask, bit + 1 ) ) {
+      retval.add( bit );
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Find the lowest bit set in a mask at or above a position.
+   * 
+   * @param mask the mask to search
+   * @param from the lowest bit to consider
+   * 
+   * @return the position of the bit, -1 if there is none
+   */
+  static int nextBit( long mask, int from ) {
+    if ( from > 63 ) {
+      return -1;
+    }
+    long remaining = mask & ( -1L << Math.max( 0, from ) );
+    return ( remaining == 0 ) ? -1 : Long.numberOfTrailingZeros( remaining );
+  }
+
+
+
+
+  private static boolean isSet( long mask, int bit ) {
+    return bit >= 0 && bit < 64 && ( ( mask >>> bit ) & 1 ) != 0;
+  }
+
+
+
+
   /**
    * Check the current calendar object to see if it is included in the 
    * currently sent time pattern.
@@ -288,19 +364,21 @@ public class CronEntry {
     int dayOfWeek = cal.get( Calendar.DAY_OF_WEEK ) - 1;
     int hourOfDay = cal.get( Calendar.HOUR_OF_DAY );
     int minuteOfHour = cal.get( Calendar.MINUTE );
+    return minutePasses( minuteOfHour ) && hourPasses( hourOfDay ) && dayPasses( dayOfMonth ) && monthPasses( monthOfYear ) && weekDayPasses( dayOfWeek );
+  }
 
-    if ( minutes.contains( Integer.toString( minuteOfHour ) ) ) {
-      if ( hours.contains( Integer.toString( hourOfDay ) ) ) {
-        if ( day.contains( Integer.toString( dayOfMonth ) ) ) {
-          if ( month.contains( Integer.toString( monthOfYear ) ) ) {
-            if ( weekday.contains( Integer.toString( dayOfWeek ) ) ) {
-              return true;
-            }
-          }
-        }
-      }
-    }
-    return false;
+
+
+
+  /**
+   * Check if the given time is included in this cron entry.
+   * 
+   * @param time the date and time to check
+   * 
+   * @return true if the time can run according to this cron entry, false otherwise.
+   */
+  public boolean mayRunAt( LocalDateTime time ) {
+    return minutePasses( time.getMinute() ) && hourPasses( time.getHour() ) && dayPasses( time.getDayOfMonth() ) && monthPasses( time.getMonthValue() ) && weekDayPasses( toCron( time.getDayOfWeek() ) );
   }
 
 
@@ -323,108 +401,158 @@ public class CronEntry {
 
 
 
-  // Return the next time specified by this cron entry 
+  /**
+   * Return the next time allowed by this cron entry after the given time.
+   * 
+   * @param start the time after which to look, in the time zone of the 
+   *        calendar
+   * 
+   * @return the epoch time in milliseconds of the start of the next minute 
+   *         allowed, or {@code Long.MAX_VALUE} if the entry allows no time 
+   *         (e.g. February 30th)
+   */
   public long getNextTime( Calendar start ) {
+    ZonedDateTime retval = getNextTime( ZonedDateTime.ofInstant( Instant.ofEpochMilli( start.getTimeInMillis() ), start.getTimeZone().toZoneId() ) );
+    return ( retval != null ) ? retval.toInstant().toEpochMilli() : Long.MAX_VALUE;
+  }
 
-    long retval = -1;
-    int next, monthOfYear, dayOfMonth, dayOfWeek, hourOfDay, minuteOfHour = 0;
 
-    // // System.out.println( "=============================================" );
-    // // System.out.println( "NEXTTIME:  " + toPattern( start ) );
-    Calendar cal = new GregorianCalendar();
-    cal.setTimeInMillis( start.getTimeInMillis() );
 
-    cal.add( Calendar.MINUTE, +1 ); // nudge to the next increment of time
-    cal.set( Calendar.SECOND, 0 ); // set to top of minute
-    cal.set( Calendar.MILLISECOND, 0 ); // set to top of second
-    // // System.out.println( "PRIMED:    " + toPattern( cal ) );
 
-    int loopcount = 0;
-    while ( retval < 0 ) {
-      if ( loopcount++ > 100 ) {
-        System.err.println( "GetNext failed to get the next value starting from " + start + "; possibly conflicting values" );
-        return Long.MAX_VALUE;
-      }
-      monthOfYear = cal.get( Calendar.MONTH ) + 1; // Java is 0-based, cron is 1-based
-      dayOfMonth = cal.get( Calendar.DAY_OF_MONTH );
-      dayOfWeek = cal.get( Calendar.DAY_OF_WEEK ) - 1; // Java is 1-based, cron is 0-based
-      hourOfDay = cal.get( Calendar.HOUR_OF_DAY );
-      minuteOfHour = cal.get( Calendar.MINUTE );
-      // // System.out.println( "CHECKING:  " + toPattern( cal ) + "---------" );
-      // // System.out.println( "AGAINST:   " + toString() );
+  /**
+   * Return the next time allowed by this cron entry after the given time in
+   * the default time zone.
+   * 
+   * @param millis the epoch time in milliseconds after which to look
+   * 
+   * @return the epoch time in milliseconds of the start of the next minute 
+   *         allowed, or {@code Long.MAX_VALUE} if the entry allows no time
+   */
+  public long getNextTime( long millis ) {
+    ZonedDateTime retval = getNextTime( ZonedDateTime.ofInstant( Instant.ofEpochMilli( millis ), ZoneId.systemDefault() ) );
+    return ( retval != null ) ? retval.toInstant().toEpochMilli() : Long.MAX_VALUE;
+  }
 
-      if ( monthPasses( monthOfYear ) ) {
 
-        if ( weekDayPasses( dayOfWeek ) && dayPasses( dayOfMonth ) ) {
 
-          if ( hourPasses( hourOfDay ) ) {
 
-            if ( minutePasses( minuteOfHour ) ) {
-              /// we got it
-              retval = cal.getTimeInMillis();
-            } else {
-              // System.out.println( "Minute of '" + minuteOfHour + "' did not pass..." );
-              // find the next allowable minute
-              next = getNext( minutes, minuteOfHour, MAX_MINUTES_IN_HOUR );
-              cal.set( Calendar.MINUTE, next );
-              // System.out.println( "nudged minutes to " + cal.get( Calendar.MINUTE ) );
-              if ( next < minuteOfHour ) {
-                cal.add( Calendar.HOUR_OF_DAY, 1 );
-                // System.out.println( "minutes cycled past 60, nudged hour to " + cal.get( Calendar.HOUR_OF_DAY ) );
-              }
-            } // minute check
+  /**
+   * Return the next time allowed by this cron entry after the given time.
+   * 
+   * <p>Each field is advanced to its next allowed value with a bit scan, 
+   * starting with the month and resetting the smaller fields whenever a 
+   * larger one moves, so only the months, days and hours which could match 
+   * are visited. A local time skipped by a daylight saving change runs at 
+   * the equivalent time after the change.</p>
+   * 
+   * @param after the time after which to look
+   * 
+   * @return the start of the next minute allowed, in the zone of the given 
+   *         time, or null if the entry allows no time within 
+   *         {@value #SEARCH_YEARS} years
+   */
+  public ZonedDateTime getNextTime( ZonedDateTime after ) {
+    final ZoneId zone = after.getZone();
+    LocalDateTime time = after.toLocalDateTime().truncatedTo( ChronoUnit.MINUTES ).plusMinutes( 1 );
+    final int lastYear = time.getYear() + SEARCH_YEARS;
+
+    while ( time.getYear() <= lastYear ) {
+      int nextMonth = nextBit( month, time.getMonthValue() );
+      if ( nextMonth < 0 || nextMonth > MAX_MONTHS_IN_YEAR ) {
+        time = LocalDate.of( time.getYear() + 1, 1, 1 ).atStartOfDay();
+        continue;
+      }
+      if ( nextMonth != time.getMonthValue() ) {
+        time = LocalDate.of( time.getYear(), nextMonth, 1 ).atStartOfDay();
+      }
 
-          } else {
-            // System.out.println( "Hour of '" + hourOfDay + "' did not pass..." );
-            //find the next allowable hour
-            next = getNext( hours, hourOfDay, MAX_HOURS_IN_DAY );
-            cal.set( Calendar.HOUR_OF_DAY, next );
-            // System.out.println( "nudged hour to " + cal.get( Calendar.HOUR_OF_DAY ) );
-            if ( next < hourOfDay ) {
-              cal.add( Calendar.DAY_OF_MONTH, 1 );
-              // System.out.println( "hour cycled past midnight, nudged day to " + cal.get( Calendar.DAY_OF_MONTH ) );
-            }
-            cal.set( Calendar.MINUTE, getNext( minutes, -1, MAX_MINUTES_IN_HOUR ) );
-            // System.out.println( "reset minutes to " + cal.get( Calendar.MINUTE ) );
-          } // hour check
+      LocalDate date = time.toLocalDate();
+      int nextDay = nextBit( getDays( date ), date.getDayOfMonth() );
+      if ( nextDay < 0 ) {
+        time = date.withDayOfMonth( 1 ).plusMonths( 1 ).atStartOfDay();
+        continue;
+      }
+      if ( nextDay != date.getDayOfMonth() ) {
+        time = date.withDayOfMonth( nextDay ).atStartOfDay();
+      }
 
-        } else {
-          // System.out.println( "Day of '" + dayOfMonth + "' did not pass..." );
-          // find the next allowable day
-          next = getNext( day, dayOfMonth, MAX_DAYS_IN_MONTH );
+      int nextHour = nextBit( hours, time.getHour() );
+      if ( nextHour < 0 || nextHour > MAX_HOURS_IN_DAY ) {
+        time = time.toLocalDate().plusDays( 1 ).atStartOfDay();
+        continue;
+      }
+      if ( nextHour != time.getHour() ) {
+        time = time.withHour( nextHour ).withMinute( 0 );
+      }
 
-          if ( next < dayOfMonth || next > cal.getActualMaximum( Calendar.DAY_OF_MONTH ) ) {
-            cal.add( Calendar.MONTH, 1 );
-          } else {
-            cal.set( Calendar.DAY_OF_MONTH, next );
-          }
+      int nextMinute = nextBit( minutes, time.getMinute() );
+      if ( nextMinute < 0 || nextMinute > MAX_MINUTES_IN_HOUR ) {
+        time = time.withMinute( 0 ).plusHours( 1 );
+        continue;
+      }
+      time = time.withMinute( nextMinute );
+
+      ZonedDateTime retval = time.atZone( zone );
+      if ( retval.isAfter( after ) ) {
+        return retval;
+      }
+      // the second pass through a local time repeated when the clocks go back
+      time = time.plusMinutes( 1 );
+    }
+    return null;
+  }
 
-          // System.out.println( "nudged day to " + cal.get( Calendar.DAY_OF_MONTH ) );
-          cal.set( Calendar.HOUR_OF_DAY, getNext( hours, -1, MAX_HOURS_IN_DAY ) );
-          // System.out.println( "reset hour to " + cal.get( Calendar.HOUR_OF_DAY ) );
-          cal.set( Calendar.MINUTE, getNext( minutes, -1, MAX_MINUTES_IN_HOUR ) );
-          // System.out.println( "reset minutes to " + cal.get( Calendar.MINUTE ) );
 
-          cal.set( Calendar.DAY_OF_MONTH, next );
 
-        } // day check
 
-      } else {
-        // System.out.println( "Month of '" + monthOfYear+ "' did not pass..." );
-        cal.add( Calendar.MONTH, getNext( month, monthOfYear, MAX_MONTHS_IN_YEAR ) - 1 ); // java adjust
-        // System.out.println( "nudged month to " + cal.get( Calendar.MONTH ) );
-        cal.set( Calendar.DAY_OF_MONTH, getNext( day, 0, MAX_DAYS_IN_MONTH ) );
-        // System.out.println( "reset day to " + cal.get( Calendar.DAY_OF_MONTH ) );
-        cal.set( Calendar.HOUR_OF_DAY, getNext( hours, -1, MAX_HOURS_IN_DAY ) );
-        // System.out.println( "reset hour to " + cal.get( Calendar.HOUR_OF_DAY ) );
-        cal.set( Calendar.MINUTE, getNext( minutes, -1, MAX_MINUTES_IN_HOUR ) );
-        // System.out.println( "reset minutes to " + cal.get( Calendar.MINUTE ) );
-      } // month check
+  /**
+   * Return the next times allowed by this cron entry.
+   * 
+   * @param after the time after which to look
+   * @param count the number of times wanted
+   * 
+   * @return the next times allowed, in order; fewer than requested if the 
+   *         entry allows no more
+   */
+  public List<ZonedDateTime> getNextTimes( ZonedDateTime after, int count ) {
+    List<ZonedDateTime> retval = new ArrayList<ZonedDateTime>( Math.max( 0, count ) );
+    ZonedDateTime time = after;
+    while ( retval.size() < count && ( time = getNextTime( time ) ) != null ) {
+      retval.add( time );
     }
+    return retval;
+  }
 
-    //System.out.println( Thread.currentThread().getName()+" RETURNING: " + toPattern( cal ) + " | " + retval );
 
-    return retval;
+
+
+  /**
+   * The days of the month of the given date allowed by both the day and the 
+   * day of the week ranges.
+   * 
+   * @return a mask with the bit of each allowed day set
+   */
+  private long getDays( LocalDate date ) {
+    // the weekday mask repeated so bit n is the weekday n days after Sunday
+    long weeks = weekday & 0x7F;
+    weeks |= weeks << 7;
+    weeks |= weeks << 14;
+    weeks |= weeks << 28;
+    // shift so the bit of the first of the month lines up with bit 1
+    int first = toCron( date.withDayOfMonth( 1 ).getDayOfWeek() );
+    long weekdays = ( weeks >>> first ) << 1;
+    long monthDays = ( ( 1L << ( date.lengthOfMonth() + 1 ) ) - 1 ) & ~1L;
+    return day & weekdays & monthDays;
+  }
+
+
+
+
+  /**
+   * @return the cron day of the week, 0 being Sunday
+   */
+  private static int toCron( DayOfWeek dayOfWeek ) {
+    return dayOfWeek.getValue() % 7;
   }
 
 
@@ -451,28 +579,17 @@ public class CronEntry {
       throw new IllegalArgumentException( "Time map cannot be null or empty" );
     }
 
-    // increment the return value to the max value
-    for ( int indx = start + 1; indx <= max; indx++ ) {
-      // go through each element of the set
-      for ( int x = 0; x <= timemap.size(); x++ ) {
-        // if there is an entry for the new index value, return it
-        if ( timemap.contains( Integer.toString( indx ) ) ) {
-          return indx;
-        }
+    // only the values up to the max are considered
+    long mask = toMask( timemap ) & ( ( max >= 63 ) ? -1L : ( 1L << ( max + 1 ) ) - 1 );
+    int retval = ( start + 1 <= max ) ? nextBit( mask, start + 1 ) : -1;
+    if ( retval < 0 ) {
+      // wrap around the list, since it is possible the next available value is behind us
+      retval = nextBit( mask, 0 );
+      if ( retval > Math.max( start, 0 ) ) {
+        retval = -1;
       }
     }
-
-    // wrap around the list, since it is possible the next available value is behind us
-    for ( int indx = 0; indx <= start; indx++ ) {
-      for ( int x = 0; x <= timemap.size(); x++ ) {
-        if ( timemap.contains( Integer.toString( indx ) ) ) {
-          return indx;
-        }
-      }
-    }
-
-    System.err.println( "GetNext failed to get the next value starting from " + start + " in this time map: " + timemap );
-    return -1;
+    return retval;
   }
 
 
@@ -489,35 +606,35 @@ public class CronEntry {
 
 
   boolean weekDayPasses( int val ) {
-    return ( weekday.contains( Integer.toString( val ) ) );
+    return isSet( weekday, val );
   }
 
 
 
 
   boolean monthPasses( int val ) {
-    return ( month.contains( Integer.toString( val ) ) );
+    return isSet( month, val );
   }
 
 
 
 
   boolean dayPasses( int val ) {
-    return ( day.contains( Integer.toString( val ) ) );
+    return isSet( day, val );
   }
 
 
 
 
   boolean hourPasses( int val ) {
-    return ( hours.contains( Integer.toString( val ) ) );
+    return isSet( hours, val );
   }
 
 
 
 
   boolean minutePasses( int val ) {
-    return ( minutes.contains( Integer.toString( val ) ) );
+    return isSet( minutes, val );
   }
 
 
@@ -539,7 +656,7 @@ public class CronEntry {
    * @param pattern the minutePattern to set
    */
   public void setMinutePattern( String pattern ) {
-    minutes = parseRangeParam( pattern, MAX_MINUTES_IN_HOUR, 0 );
+    minutes = toMask( parseRangeParam( pattern, MAX_MINUTES_IN_HOUR, 0 ) );
     minutePattern = pattern;
   }
 
@@ -562,7 +679,7 @@ public class CronEntry {
    * @param pattern the hourPattern to set
    */
   public void setHourPattern( String pattern ) {
-    hours = parseRangeParam( pattern, MAX_HOURS_IN_DAY, 0 );
+    hours = toMask( parseRangeParam( pattern, MAX_HOURS_IN_DAY, 0 ) );
     hourPattern = pattern;
   }
 
@@ -585,7 +702,7 @@ public class CronEntry {
    * @param pattern the dayPattern to set
    */
   public void setDayPattern( String pattern ) {
-    day = parseRangeParam( pattern, MAX_DAYS_IN_MONTH, 1 );
+    day = toMask( parseRangeParam( pattern, MAX_DAYS_IN_MONTH, 1 ) );
     dayPattern = pattern;
   }
 
@@ -608,7 +725,7 @@ public class CronEntry {
    * @param pattern the monthPattern to set
    */
   public void setMonthPattern( String pattern ) {
-    month = parseRangeParam( pattern, MAX_MONTHS_IN_YEAR, 1 );
+    month = toMask( parseRangeParam( pattern, MAX_MONTHS_IN_YEAR, 1 ) );
     monthPattern = pattern;
   }
 
@@ -631,7 +748,7 @@ public class CronEntry {
    * @param pattern the dayOfWeekPattern to set
    */
   public void setDayOfWeekPattern( String pattern ) {
-    weekday = parseRangeParam( pattern, MAX_DAYS_IN_WEEK, 0 );
+    weekday = toMask( parseRangeParam( pattern, MAX_DAYS_IN_WEEK, 0 ) );
     dayOfWeekPattern = pattern;
   }
 
@@ -681,25 +798,25 @@ public class CronEntry {
     b.append( toString() );
     b.append( "\r\nAllowable time values for each category:" );
     b.append( "\r\nminutes(" );
-    b.append( minutes.size() );
+    b.append( Long.bitCount( minutes ) );
     b.append( "):" );
-    b.append( minutes );
+    b.append( toValues( minutes ) );
     b.append( "\r\nhours(" );
-    b.append( hours.size() );
+    b.append( Long.bitCount( hours ) );
     b.append( "):" );
-    b.append( hours );
+    b.append( toValues( hours ) );
     b.append( "\r\ndays(" );
-    b.append( day.size() );
+    b.append( Long.bitCount( day ) );
     b.append( "):" );
-    b.append( day );
+    b.append( toValues( day ) );
     b.append( "\r\nmonths(" );
-    b.append( month.size() );
+    b.append( Long.bitCount( month ) );
     b.append( "):" );
-    b.append( month );
+    b.append( toValues( month ) );
     b.append( "\r\nweekday(" );
-    b.append( weekday.size() );
+    b.append( Long.bitCount( weekday ) );
     b.append( "):" );
-    b.append( weekday );
+    b.append( toValues( weekday ) );
     return b.toString();
   }
 
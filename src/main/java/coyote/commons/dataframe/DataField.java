@@ -149,6 +149,66 @@ public class DataField implements Cloneable {
   /** The actual value being held. Empty arrays are equivalent to a null value. */
   protected byte[] value;
 
+  /** The list whose name index holds this field, told when it is renamed. */
+  transient FieldList owner = null;
+
+  /** Flag indicating this field has been indexed by more than one list. */
+  transient boolean shared = false;
+
+  /**
+   * The decoded value of this field, if retained. When set and {@code value} 
+   * is null, the bytes have yet to be encoded from this object.
+   */
+  private transient Object object;
+
+  /** How values are held by newly created and decoded fields. */
+  private static volatile Retention retention = Retention.ENCODED;
+
+
+
+
+  /**
+   * How field values are held in memory.
+   * 
+   * <p>Only values of immutable types (strings, numbers and booleans) are 
+   * ever retained in their decoded form. Frames, arrays, dates and byte 
+   * arrays are always decoded on each access so callers can never modify the 
+   * value of a field through a shared reference.
+   */
+  public enum Retention {
+    /** Only the encoded bytes are held; values are decoded on each access. */
+    ENCODED,
+    /** Values are decoded once and kept alongside the encoded bytes. */
+    DECODED,
+    /** Values are kept in their native form and only encoded when the bytes are needed. */
+    NATIVE
+  }
+
+
+
+
+  /**
+   * Set how field values are to be held in memory.
+   * 
+   * <p>This affects fields created or decoded after the call; fields which 
+   * already retain a decoded value keep it.
+   * 
+   * @param mode the retention mode, null resets to {@link Retention#ENCODED}
+   */
+  public static void setRetention( final Retention mode ) {
+    retention = ( mode != null ) ? mode : Retention.ENCODED;
+  }
+
+
+
+
+  /**
+   * @return how field values are currently held in memory.
+   */
+  public static Retention getRetention() {
+    return retention;
+  }
+
 
 
 
@@ -217,8 +277,7 @@ public class DataField implements Cloneable {
    * @param obj The object to use as the value of the field
    */
   public DataField( final Object obj ) {
-    type = DataField.getType( obj );
-    value = DataField.encode( obj, type );
+    assign( obj );
   }
 
 
@@ -234,8 +293,7 @@ public class DataField implements Cloneable {
    */
   public DataField( final String name, final Object obj ) throws IllegalArgumentException {
     this.name = DataField.nameCheck( name );
-    type = DataField.getType( obj );
-    value = DataField.encode( obj, type );
+    assign( obj );
   }
 
 
@@ -256,6 +314,9 @@ public class DataField implements Cloneable {
     retval.name = name;
     retval.type = type;
 
+    // retained objects are always immutable
+    retval.object = object;
+
     if ( value != null ) {
       retval.value = new byte[value.length];
 
@@ -268,6 +329,126 @@ public class DataField implements Cloneable {
 
 
 
+  /**
+   * Replace the type and value of this field with those of the given object.
+   * 
+   * <p>In {@link Retention#NATIVE} mode, the object is kept as is if it would 
+   * decode to an equal object of the same class and encoding is deferred 
+   * until the bytes are needed.
+   * 
+   * @param obj the new value of this field
+   * 
+   * @throws IllegalArgumentException if the object is not a supported type
+   */
+  void assign( final Object obj ) throws IllegalArgumentException {
+    final short typ = DataField.getType( obj );
+    if ( retention == Retention.NATIVE && DataField.preserves( typ, obj ) ) {
+      type = typ;
+      object = obj;
+      value = null;
+    } else {
+      final byte[] val = DataField.encode( obj, typ );
+      type = typ;
+      object = null;
+      value = val;
+    }
+  }
+
+
+
+
+  /**
+   * Determine if the given object would decode from its encoding as an equal 
+   * object of the same class.
+   * 
+   * <p>Empty strings are excluded as their encoding represents a null value.
+   * 
+   * @param typ the type code the object would be encoded with
+   * @param obj the object to check
+   * 
+   * @return true if the object can be held in place of its encoded form
+   */
+  private static boolean preserves( final short typ, final Object obj ) {
+    switch ( typ ) {
+      case STRING:
+        return ( (String)obj ).length() > 0;
+      case S8:
+      case U8:
+      case S16:
+        return obj instanceof Short;
+      case U16:
+      case S32:
+        return obj instanceof Integer;
+      case U32:
+      case S64:
+        return obj instanceof Long;
+      case FLOAT:
+      case DOUBLE:
+      case BOOLEANTYPE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+
+
+
+  /**
+   * Determine if values of the given type decode to immutable objects which 
+   * may be retained and shared.
+   * 
+   * @param typ the type code to check
+   * 
+   * @return true if decoded values of the type may be retained
+   */
+  private static boolean retainable( final short typ ) {
+    switch ( typ ) {
+      case STRING:
+      case S8:
+      case U8:
+      case S16:
+      case U16:
+      case S32:
+      case U32:
+      case S64:
+      case U64:
+      case FLOAT:
+      case DOUBLE:
+      case BOOLEANTYPE:
+      case URI:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+
+
+
+  /**
+   * Access the encoded value, encoding a natively held value if necessary.
+   * 
+   * <p>The retained object is never cleared once the bytes are encoded, so 
+   * concurrent readers at worst encode the same value twice.
+   * 
+   * @return the encoded value of this field
+   */
+  private byte[] bytes() {
+    byte[] retval = value;
+    if ( retval == null ) {
+      final Object obj = object;
+      if ( obj != null ) {
+        retval = DataField.encode( obj, type );
+        value = retval;
+      }
+    }
+    return retval;
+  }
+
+
+
+
   /**
    * Checks to see if the name is valid.
    * 
@@ -461,7 +642,7 @@ public class DataField implements Cloneable {
    * @return The number of octets this fields value uses.
    */
   public int getLength() {
-    return value.length;
+    return bytes().length;
   }
 
 
@@ -471,7 +652,7 @@ public class DataField implements Cloneable {
    * @return The encoded value of this field.
    */
   public byte[] getValue() {
-    return value;
+    return bytes();
   }
 
 
@@ -481,7 +662,14 @@ public class DataField implements Cloneable {
    * @return The value of this field as an object.
    */
   public Object getObjectValue() {
-    return getObjectValue( type, value );
+    Object retval = object;
+    if ( retval == null ) {
+      retval = getObjectValue( type, value );
+      if ( retval != null && retention != Retention.ENCODED && DataField.retainable( type ) ) {
+        object = retval;
+      }
+    }
+    return retval;
   }
 
 
@@ -527,6 +715,7 @@ public class DataField implements Cloneable {
     // Write the type field
     dos.write( ByteUtil.renderShortByte( type ) );
 
+    final byte[] value = bytes();
     if ( value != null ) {
 
       FieldType datatype = getDataType( type );
@@ -585,6 +774,9 @@ public class DataField implements Cloneable {
    */
   public void setName( final String string ) {
     name = string;
+    if ( owner != null ) {
+      owner.renamed();
+    }
   }
 
 
@@ -718,6 +910,7 @@ public class DataField implements Cloneable {
     buf.append( " name='" + name + "'" );
     buf.append( " type=" + this.getTypeName() );
     buf.append( "(" + type + ")" );
+    final byte[] value = bytes();
     if ( value.length > 32 ) {
       byte[] sample = new byte[32];
       System.arraycopy( value, 0, sample, 0, sample.length );
@@ -745,7 +938,14 @@ public class DataField implements Cloneable {
    * @return The value of this field as a String.
    */
   public String getStringValue() {
-    return getStringValue( type, value );
+    // doubles are formatted by their type, not their object
+    if ( type != DOUBLE ) {
+      final Object obj = ( retention != Retention.ENCODED ) ? getObjectValue() : object;
+      if ( obj != null && DataField.retainable( type ) ) {
+        return obj.toString();
+      }
+    }
+    return getStringValue( type, bytes() );
   }
 
 
@@ -776,6 +976,9 @@ public class DataField implements Cloneable {
    * @return true if there is no value, false if there is data in this field
    */
   public boolean isNull() {
+    if ( object != null ) {
+      return false;
+    }
     return ( value == null || value.length == 0 );
   }
 
@@ -54,7 +54,7 @@ import coyote.commons.ByteUtil;
 public class DataFrame implements Cloneable {
 
   /** The array of fields this frame holds */
-  protected ArrayList<DataField> fields = new ArrayList<DataField>();
+  protected ArrayList<DataField> fields = new FieldList();
 
   /** Flag indicating the top-level elements of this frame has been changed. */
   protected volatile boolean modified = false;
@@ -134,15 +134,60 @@ public class DataFrame implements Cloneable {
    * @see #getFieldIgnoreCase(String)
    */
   public DataField getField(final String name) {
+    final int i = locate(name);
+    return (i > -1) ? fields.get(i) : null;
+  }
+
+
+
+
+  /**
+   * Locate the first occurrence of a named field.
+   * 
+   * <p>Frames backed by their own field list use its name index, otherwise 
+   * the fields are scanned.
+   * 
+   * @param name The name of the field for which to search.
+   * 
+   * @return the index of the first field with the exact given name or -1 if 
+   *         the field was not found.
+   */
+  protected int locate(final String name) {
+    if (fields instanceof FieldList) {
+      return ((FieldList)fields).find(name);
+    }
     for (int i = 0; i < fields.size(); i++) {
       final DataField field = fields.get(i);
-
-      if ((field.getName() != null) && field.getName().equals(name)) {
-        return field;
+      if ((field.name != null) && field.name.equals(name)) {
+        return i;
       }
     }
+    return -1;
+  }
 
-    return null;
+
+
+
+  /**
+   * Locate the first occurrence of a named field ignoring differences in 
+   * case.
+   * 
+   * @param name The name of the field for which to search.
+   * 
+   * @return the index of the first field with the given name (ignoring 
+   *         differences in case) or -1 if the field was not found.
+   */
+  protected int locateIgnoreCase(final String name) {
+    if (fields instanceof FieldList) {
+      return ((FieldList)fields).findIgnoreCase(name);
+    }
+    for (int i = 0; i < fields.size(); i++) {
+      final DataField field = fields.get(i);
+      if ((field.name != null) && field.name.equalsIgnoreCase(name)) {
+        return i;
+      }
+    }
+    return -1;
   }
 
 
@@ -160,13 +205,8 @@ public class DataFrame implements Cloneable {
    * @see #getField(String)
    */
   public DataField getFieldIgnoreCase(final String name) {
-    for (int i = 0; i < fields.size(); i++) {
-      final DataField field = fields.get(i);
-      if ((field.getName() != null) && field.getName().equalsIgnoreCase(name)) {
-        return field;
-      }
-    }
-    return null;
+    final int i = locateIgnoreCase(name);
+    return (i > -1) ? fields.get(i) : null;
   }
 
 
@@ -188,13 +228,7 @@ public class DataFrame implements Cloneable {
    * @see #containsIgnoreCase(String)
    */
   public boolean contains(final String name) {
-    for (int i = 0; i < fields.size(); i++) {
-      final DataField field = fields.get(i);
-      if ((field.getName() != null) && field.getName().equals(name)) {
-        return true;
-      }
-    }
-    return false;
+    return locate(name) > -1;
   }
 
 
@@ -212,13 +246,7 @@ public class DataFrame implements Cloneable {
    * @see #contains(String)
    */
   public boolean containsIgnoreCase(final String name) {
-    for (int i = 0; i < fields.size(); i++) {
-      final DataField field = fields.get(i);
-      if ((field.getName() != null) && field.getName().equalsIgnoreCase(name)) {
-        return true;
-      }
-    }
-    return false;
+    return locateIgnoreCase(name) > -1;
   }
 
 
@@ -756,15 +784,8 @@ public class DataFrame implements Cloneable {
    *         if the field with the given name was not found.
    */
   public Object getObject(final String name) {
-    for (int i = 0; i < fields.size(); i++) {
-      final DataField field = fields.get(i);
-
-      if ((field.getName() != null) && field.getName().equals(name)) {
-        return field.getObjectValue();
-      }
-    }
-
-    return null;
+    final int i = locate(name);
+    return (i > -1) ? fields.get(i).getObjectValue() : null;
   }
 
 
@@ -915,22 +936,19 @@ public class DataFrame implements Cloneable {
   public int put(final String name, final Object obj) {
     if ((obj != null) || (name != null)) {
       if (name != null) {
-        for (int i = 0; i < fields.size(); i++) {
+        final int i = locate(name);
+        if (i > -1) {
           final DataField field = fields.get(i);
+          if (obj != null) {
+            field.assign(obj);
+          } else {
+            // Null object implies remove the named field
+            fields.remove(i);
+          }
 
-          if ((field.name != null) && field.name.equals(name)) {
-            if (obj != null) {
-              field.type = DataField.getType(obj);
-              field.value = DataField.encode(obj);
-            } else {
-              // Null object implies remove the named field
-              fields.remove(i);
-            }
-
-            modified = true;
+          modified = true;
 
-            return i;
-          }
+          return i;
         }
 
         return add(name, obj);
@@ -954,7 +972,7 @@ public class DataFrame implements Cloneable {
    */
   public DataField remove(final String name) {
     DataField retval = null;
-    if (name != null) {
+    if (locate(name) > -1) {
       for (int i = 0; i < fields.size(); i++) {
         final DataField field = fields.get(i);
 
@@ -1037,7 +1055,7 @@ public class DataFrame implements Cloneable {
   public void removeAll(final String name) {
     modified = true;
 
-    if (name != null) {
+    if (locate(name) > -1) {
       for (int i = 0; i < fields.size(); i++) {
         final DataField field = fields.get(i);
 
@@ -1576,24 +1594,20 @@ public class DataFrame implements Cloneable {
       if (key instanceof String) {
         String name = (String)key;
 
-        for (int i = 0; i < fields.size(); i++) {
+        final int i = locate(name);
+        if (i > -1) {
           final DataField field = fields.get(i);
+          if (value != null) {
+            retval = field.getObjectValue();
+            field.assign(value);
+          } else {
+            // Null object implies remove the named field
+            retval = fields.remove(i);
+          }
+          modified = true;
 
-          if ((field.name != null) && field.name.equals(name)) {
-
-            if (value != null) {
-              retval = field.getObjectValue();
-              field.type = DataField.getType(value);
-              field.value = DataField.encode(value);
-            } else {
-              // Null object implies remove the named field
-              retval = fields.remove(i);
-            }
-            modified = true;
-
-            return retval;
-          } // found
-        } // for
+          return retval;
+        } // found
 
         // not found, add the value 
         return add(name, value);
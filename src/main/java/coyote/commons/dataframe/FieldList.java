@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.dataframe;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * The ordered list of fields backing a DataFrame with a lazily built index of
+ * field names.
+ *
+ * <p>Small lists are simply scanned. Once a list grows past
+ * {@link #INDEX_THRESHOLD} fields, the first lookup by name builds a map of
+ * each name to the position of its first occurrence along with a case-folded
+ * map for case-insensitive lookups. The index is kept as long as the list is
+ * only appended to and is rebuilt on the next lookup after any other change.
+ * Duplicate names are allowed; the index always refers to the first
+ * occurrence, just like a scan would.</p>
+ *
+ * <p>Fields can be renamed in place (see {@link DataField#setName(String)}).
+ * Each indexed field refers back to the list which indexed it and a rename
+ * invalidates only that list's index. A field indexed by a second list is
+ * marked as shared, as a rename can then no longer be signalled to every list
+ * holding it, and lists holding shared fields are scanned instead.</p>
+ */
+class FieldList extends ArrayList<DataField> {
+
+  private static final long serialVersionUID = -4211873015218458713L;
+
+  /** Lists with fewer fields than this are scanned instead of indexed. */
+  static final int INDEX_THRESHOLD = 8;
+
+  /** The number of single field appends made to this list. */
+  private transient int appends = 0;
+
+  /** The current name index, may be stale. */
+  private transient volatile Index index = null;
+
+
+
+
+  FieldList() {
+    super();
+  }
+
+
+
+
+  FieldList(Collection<DataField> fields) {
+    super(fields);
+  }
+
+
+
+
+  /**
+   * Called when a field this list has indexed is renamed.
+   */
+  void renamed() {
+    modCount++;
+  }
+
+
+
+
+  /**
+   * Fold the case of the given name so that two names which are equal
+   * ignoring case (as in {@link String#equalsIgnoreCase(String)}) fold to the
+   * same string.
+   *
+   * @param name the name to fold
+   *
+   * @return the case-folded name, the given name if folding changes nothing
+   */
+  static String fold(final String name) {
+    StringBuilder b = null;
+    for (int i = 0; i < name.length();) {
+      final int cp = name.codePointAt(i);
+      final int folded = Character.toLowerCase(Character.toUpperCase(cp));
+      if (b == null && folded != cp) {
+        b = new StringBuilder(name.length());
+        b.append(name, 0, i);
+      }
+      if (b != null) {
+        b.appendCodePoint(folded);
+      }
+      i += Character.charCount(cp);
+    }
+    return (b != null) ? b.toString() : name;
+  }
+
+
+
+
+  /**
+   * @see java.util.ArrayList#add(java.lang.Object)
+   */
+  @Override
+  public boolean add(final DataField field) {
+    appends++;
+    return super.add(field);
+  }
+
+
+
+
+  /**
+   * Replacing a field does not change the structure of an ArrayList, but it
+   * does change the names in this list.
+   *
+   * @see java.util.ArrayList#set(int, java.lang.Object)
+   */
+  @Override
+  public DataField set(final int index, final DataField field) {
+    modCount++;
+    return super.set(index, field);
+  }
+
+
+
+
+  /**
+   * Find the position of the first field with the given name.
+   *
+   * @param name the exact name of the field
+   *
+   * @return the index of the first field with that name or -1 if not found
+   */
+  int find(final String name) {
+    if (name == null) {
+      return -1;
+    }
+    final Index idx = (size() < INDEX_THRESHOLD) ? null : current();
+    if (idx == null || idx.shared) {
+      for (int i = 0; i < size(); i++) {
+        if (name.equals(get(i).name)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    final Integer retval = idx.exact.get(name);
+    return (retval != null) ? retval : -1;
+  }
+
+
+
+
+  /**
+   * Find the position of the first field with the given name ignoring
+   * differences in case.
+   *
+   * @param name the name of the field
+   *
+   * @return the index of the first field with that name or -1 if not found
+   */
+  int findIgnoreCase(final String name) {
+    if (name == null) {
+      return -1;
+    }
+    final Index idx = (size() < INDEX_THRESHOLD) ? null : current();
+    if (idx == null || idx.shared) {
+      for (int i = 0; i < size(); i++) {
+        if (name.equalsIgnoreCase(get(i).name)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+    final Integer retval = idx.folded.get(fold(name));
+    return (retval != null) ? retval : -1;
+  }
+
+
+
+
+  /**
+   * Return an index which reflects the current contents of the list,
+   * building or extending it if necessary.
+   */
+  private Index current() {
+    Index idx = index;
+    if (idx != null && idx.stamp == modCount) {
+      return idx;
+    }
+    synchronized (this) {
+      idx = index;
+      if (idx != null && (modCount - idx.stamp) == (appends - idx.appends)) {
+        // only appends since the index was built
+        idx.extend(this);
+      } else {
+        idx = new Index(this);
+      }
+      idx.appends = appends;
+      idx.stamp = modCount; // published last
+      index = idx;
+    }
+    return idx;
+  }
+
+
+
+
+  /**
+   * Name to position maps of the first occurrence of each name.
+   */
+  private static final class Index {
+    final Map<String, Integer> exact;
+    final Map<String, Integer> folded;
+    int size = 0;
+    int appends = 0;
+    // true if any field is held by another list as well
+    boolean shared = false;
+    volatile int stamp = 0;
+
+
+    Index(final FieldList list) {
+      final int capacity = Math.max(16, (int)(list.size() / 0.75f) + 1);
+      exact = new HashMap<>(capacity);
+      folded = new HashMap<>(capacity);
+      extend(list);
+    }
+
+
+    void extend(final FieldList list) {
+      for (int i = size; i < list.size(); i++) {
+        final DataField field = list.get(i);
+        if (field.owner == null && !field.shared) {
+          field.owner = list;
+        } else if (field.owner != list) {
+          if (field.owner != null) {
+            // the other list must stop trusting its index too
+            field.owner.renamed();
+            field.owner = null;
+            field.shared = true;
+          }
+          shared = true;
+        }
+        if (field.name != null) {
+          exact.putIfAbsent(field.name, i);
+          folded.putIfAbsent(fold(field.name), i);
+        }
+      }
+      size = list.size();
+    }
+  }
+
+}
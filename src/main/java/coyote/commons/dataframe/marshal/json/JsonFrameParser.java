@@ -3,17 +3,26 @@ package coyote.commons.dataframe.marshal.json;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 
 import coyote.commons.dataframe.DataField;
 import coyote.commons.dataframe.DataFrame;
 import coyote.commons.dataframe.marshal.ParseException;
+import coyote.commons.dataframe.selector.FrameSelector;
 
 
 /**
  * Parse JSON text into DataFrames.
  * 
+ * <p>The entire text can be parsed at once with {@link #parse()} or frames 
+ * can be pulled from the reader one at a time with {@link #next()} and 
+ * {@link #next(FrameSelector)}. The latter only builds the frames selected 
+ * from the text so arbitrarily large documents, such as an array of records, 
+ * can be read while holding only one record in memory at a time.
+ * 
  * http://www.ietf.org/rfc/rfc4627.txt
  */
 public class JsonFrameParser {
@@ -41,6 +50,15 @@ public class JsonFrameParser {
   /** index into the current buffer where we start capturing our value **/
   private int captureStart;
 
+  /** Flag indicating the first character has been read */
+  private boolean started = false;
+
+  /** The containers entered but not yet closed while selecting frames **/
+  private final Deque<Level> levels = new ArrayDeque<Level>();
+
+  /** Frames which have been selected but not yet returned **/
+  private final Deque<DataFrame> selected = new ArrayDeque<DataFrame>();
+
 
 
 
@@ -161,19 +179,137 @@ public class JsonFrameParser {
    */
   public List<DataFrame> parse() throws IOException {
     final List<DataFrame> retval = new ArrayList<DataFrame>();
-    read();
-    skipWhiteSpace();
-
-    while ((current == '{') || (current == '[')) {
-      retval.add(readRootValue());
-      skipWhiteSpace();
+    for (DataFrame frame = next(); frame != null; frame = next()) {
+      retval.add(frame);
     }
+    return retval;
+  }
+
+
 
+
+  /**
+   * Parse the next root value (object or array) from the reader.
+   * 
+   * @return the next root value as a DataFrame or null if there are no more 
+   *         values in the text
+   * 
+   * @throws IOException if there were problems reading from the reader
+   * @throws ParseException if the text is not valid JSON
+   */
+  public DataFrame next() throws IOException {
+    start();
+    skipWhiteSpace();
+    if ((current == '{') || (current == '[')) {
+      return readRootValue();
+    }
     if (!isEndOfText()) {
       throw error("Unexpected character");
     }
-    return retval;
+    return null;
+  }
+
+
+
+
+  /**
+   * Parse the next frame selected from the root values of the reader.
+   * 
+   * <p>Frames are selected exactly as {@link FrameSelector#select(DataFrame)} 
+   * would select them from each root value, but only the selected frames are 
+   * built. Everything else is skipped as it is read, so the memory used does 
+   * not depend on the size of the text, only on the size of the frames 
+   * selected.
+   * 
+   * @param selector the selector to apply to each root value, if null, each 
+   *        root value is returned as with {@link #next()}
+   * 
+   * @return the next selected frame or null if there are no more frames 
+   *         selected in the text
+   * 
+   * @throws IOException if there were problems reading from the reader
+   * @throws ParseException if the text is not valid JSON
+   */
+  public DataFrame next(final FrameSelector selector) throws IOException {
+    if (selector == null) {
+      return next();
+    }
+    start();
+    while (selected.isEmpty()) {
+      skipWhiteSpace();
+      final Level level = levels.peek();
+      if (level == null) {
+        // between root values
+        if ((current == '{') || (current == '[')) {
+          levels.push(new Level(null, current == '['));
+          read();
+          continue;
+        }
+        if (!isEndOfText()) {
+          throw error("Unexpected character");
+        }
+        return null;
+      }
+
+      final char close = level.array ? ']' : '}';
+      if (level.count == 0) {
+        if (readChar(close)) {
+          levels.pop();
+          continue;
+        }
+      } else if (!readChar(',')) {
+        if (readChar(close)) {
+          levels.pop();
+          continue;
+        }
+        throw expected("',' or '" + close + "'");
+      }
+
+      skipWhiteSpace();
+      String name = null;
+      if (!level.array) {
+        name = readName();
+        skipWhiteSpace();
+        if (!readChar(':')) {
+          throw expected("':'");
+        }
+        skipWhiteSpace();
+      }
+      final String token = (name != null) ? name : "[" + level.count + "]";
+      final String path = (level.path != null) ? level.path + "." + token : token;
+      level.count++;
+
+      if ((current == '{') || (current == '[')) {
+        if (selector.matches(path)) {
+          final DataFrame frame = (current == '{') ? readObject() : readArray();
+          if (selector.getPathName() != null) {
+            frame.add(selector.getPathName(), path);
+          }
+          selected.add(frame);
+          selected.addAll(selector.selectWithin(frame, path));
+        } else {
+          levels.push(new Level(path, current == '['));
+          read();
+        }
+      } else {
+        // skip over scalar values, they are never selected
+        readFieldValue(name);
+      }
+    }
+    return selected.poll();
+  }
+
 
+
+
+  /**
+   * Read the first character if nothing has been read yet.
+   */
+  private void start() throws IOException {
+    if (!started) {
+      started = true;
+      read();
+    }
   }
 
 
@@ -587,4 +723,24 @@ public class JsonFrameParser {
     captureStart = index - 1;
   }
 
+
+
+
+  /**
+   * An object or array being read through while selecting frames.
+   */
+  private static class Level {
+    final String path;
+    final boolean array;
+    int count = 0;
+
+
+
+
+    Level(final String path, final boolean array) {
+      this.path = path;
+      this.array = array;
+    }
+  }
+
 }
@@ -98,6 +98,10 @@ public abstract class AbstractSelector {
         if (field.isFrame()) {
           if (filter.matches(fname)) {
             DataFrame df = (DataFrame)field.getObjectValue();
+            if (df == null) {
+              // empty frames are encoded as null values
+              df = new DataFrame();
+            }
             if (pathName != null) {
               df.add(pathName, fname);
             }
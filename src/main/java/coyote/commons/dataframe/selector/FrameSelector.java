@@ -131,4 +131,52 @@ public class FrameSelector extends AbstractSelector {
     return retval;
   }
 
+
+
+
+  /**
+   * Return a list of the frames within the given DataFrame matching the 
+   * currently set expression as if the given frame existed at the given path.
+   * 
+   * <p>This is used when frames are selected as they are parsed rather than 
+   * from a complete hierarchy. The given frame itself is not checked, only 
+   * its descendants.
+   * 
+   * @param frame The dataframe containing the source of the data
+   * @param path The selection path of the given frame
+   * 
+   * @return a non-null list of DataFrames which match the currently set expression
+   */
+  public List<DataFrame> selectWithin(final DataFrame frame, final String path) {
+    final List<DataFrame> retval = new ArrayList<DataFrame>();
+    if (frame != null) {
+      recurseFrames(frame, path, retval, pathName);
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * See if a frame at the given selection path would be selected.
+   * 
+   * @param path The selection path of a frame
+   * 
+   * @return true if the path matches the currently set expression
+   */
+  public boolean matches(final String path) {
+    return filter.matches(path);
+  }
+
+
+
+
+  /**
+   * @return the name of the field in which the selection path is stored, may be null
+   */
+  public String getPathName() {
+    return pathName;
+  }
+
 }
@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.i13n;
+
+import coyote.commons.Version;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * A statistics board for use by many threads at once.
+ *
+ * <p>This board reports exactly as {@link StatBoardImpl} does, but none of
+ * its metrics are guarded by a lock on the board. Metrics are kept in
+ * concurrent maps so looking one up never blocks, counters are
+ * {@link StripedCounter}s which spread their updates across threads, and
+ * timers accumulate into their masters without locking. This makes it the
+ * better choice for boards updated on every request of a busy server.
+ *
+ * <p>The value returned from a counter update is the sum of the counter at
+ * the time of the update which may include updates made by other threads at
+ * the same time.
+ */
+public class ConcurrentStatBoard extends StatBoardImpl {
+
+    /**
+     * Re-usable null timer to save object creation and GC'n
+     */
+    private static final Timer NULL_TIMER = new NullTimer(null);
+    /**
+     * Re-usable null ARM transaction to save object creation and GC'n
+     */
+    private static final ArmTransaction NULL_ARM = new NullArm(null, null, null);
+    /**
+     * Re-usable null gauge to save object creation and GC'n
+     */
+    private static final Gauge NULL_GAUGE = new NullGauge(null);
+    /**
+     * Map of master timers by their name
+     */
+    private final ConcurrentHashMap<String, TimingMaster> masterTimers = new ConcurrentHashMap<String, TimingMaster>();
+    /**
+     * Map of counters by their name
+     */
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+    /**
+     * Map of ARM masters by their name
+     */
+    private final ConcurrentHashMap<String, ArmMaster> armMasters = new ConcurrentHashMap<String, ArmMaster>();
+    /**
+     * Map of states by their name
+     */
+    private final ConcurrentHashMap<String, State> states = new ConcurrentHashMap<String, State>();
+    /**
+     * Map of component versions by their name
+     */
+    private final ConcurrentHashMap<String, Version> versions = new ConcurrentHashMap<String, Version>();
+    /**
+     * Map of gauges by their name
+     */
+    private final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+    /**
+     * Timing is disabled by default
+     */
+    private volatile boolean timingEnabled = false;
+    /**
+     * Application Response Measurement is disabled by default
+     */
+    private volatile boolean armEnabled = false;
+    /**
+     * Gauges are disabled by default
+     */
+    private volatile boolean gaugesEnabled = false;
+
+
+    /**
+     * Get the existing master timer with the given name or create one.
+     */
+    private TimingMaster timerMaster(final String name) {
+        TimingMaster retval = masterTimers.get(name);
+        if (retval == null) {
+            retval = masterTimers.computeIfAbsent(name, TimingMaster::new);
+        }
+        return retval;
+    }
+
+    /**
+     * Get the existing ARM master with the given name or create one.
+     */
+    private ArmMaster armMaster(final String name) {
+        ArmMaster retval = armMasters.get(name);
+        if (retval == null) {
+            retval = armMasters.computeIfAbsent(name, ArmMaster::new);
+        }
+        return retval;
+    }
+
+    /**
+     * Deactivate a particular class of Application Response Measurement calls
+     * from this point on.
+     */
+    @Override
+    public void disableArmClass(final String name) {
+        armMaster(name).setEnabled(false);
+    }
+
+    /**
+     * Disable the timer with the given name.
+     *
+     * @param name The name of the timer to disable.
+     * @see StatBoardImpl#disableTimer(String)
+     */
+    @Override
+    public void disableTimer(final String name) {
+        timerMaster(name).setEnabled(false);
+    }
+
+    /**
+     * Activate all Application Response Measurement calls from this point on.
+     */
+    @Override
+    public void enableArm(final boolean flag) {
+        armEnabled = flag;
+    }
+
+    /**
+     * Activate a particular class of Application Response Measurement calls from
+     * this point on.
+     */
+    @Override
+    public void enableArmClass(final String name) {
+        armMaster(name).setEnabled(true);
+    }
+
+    /**
+     * Activate all gauges calls from this point on.
+     */
+    @Override
+    public void enableGauges(final boolean flag) {
+        gaugesEnabled = flag;
+    }
+
+    /**
+     * Enable the timer with the given name.
+     *
+     * @param name The name of the timer to enable.
+     * @see StatBoardImpl#enableTimer(String)
+     */
+    @Override
+    public void enableTimer(final String name) {
+        timerMaster(name).setEnabled(true);
+    }
+
+    /**
+     * Enable fully-functional timers from this point forward.
+     *
+     * @see StatBoardImpl#enableTiming(boolean)
+     */
+    @Override
+    public void enableTiming(final boolean flag) {
+        timingEnabled = flag;
+    }
+
+    /**
+     * Get an iterator over all the ARM Masters in the statboard.
+     */
+    @Override
+    public Iterator<ArmMaster> getArmIterator() {
+        return new ArrayList<ArmMaster>(armMasters.values()).iterator();
+    }
+
+    /**
+     * Return the counter with the given name.
+     *
+     * <p>If the counter does not exist, one will be created and added to the
+     * list of counters for later retrieval.
+     *
+     * @param name The name of the counter to return.
+     * @return The counter with the given name.
+     */
+    @Override
+    public Counter getCounter(final String name) {
+        Counter retval = counters.get(name);
+        if (retval == null) {
+            retval = counters.computeIfAbsent(name, StripedCounter::new);
+        }
+        return retval;
+    }
+
+    /**
+     * @return The number of counters in the statboard at the present time.
+     */
+    @Override
+    public int getCounterCount() {
+        return counters.size();
+    }
+
+    /**
+     * Access a detached iterator over the counters.
+     *
+     * @return a detached iterator over the counters.
+     * @see StatBoardImpl#getCounterIterator()
+     */
+    @Override
+    public Iterator<Counter> getCounterIterator() {
+        return new ArrayList<Counter>(counters.values()).iterator();
+    }
+
+    /**
+     * Return the reference to the named gauge.
+     *
+     * @param name the name of the gauge to return.
+     * @return a working gauge if gauges are enabled, a null gauge otherwise
+     * @throws IllegalArgumentException if the name of the gauge is null
+     * @see StatBoardImpl#getGauge(String)
+     */
+    @Override
+    public Gauge getGauge(final String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Gauge name is null");
+        }
+
+        Gauge retval = null;
+        if (gaugesEnabled) {
+            retval = gauges.get(name);
+            if (retval == null) {
+                retval = gauges.computeIfAbsent(name, GaugeBase::new);
+            }
+        } else {
+            // just return the do-nothing gauge
+            retval = NULL_GAUGE;
+        }
+
+        return retval;
+    }
+
+    /**
+     * @return The number of gauges in the statboard at the present time.
+     */
+    @Override
+    public int getGaugeCount() {
+        return gauges.size();
+    }
+
+    /**
+     * Get an iterator over all the gauges in the statboard.
+     */
+    @Override
+    public Iterator<Gauge> getGaugeIterator() {
+        return new ArrayList<Gauge>(gauges.values()).iterator();
+    }
+
+    /**
+     * Return the state with the given name.
+     *
+     * <p>If the state does not exist, one will be created and added to the
+     * list of states for later retrieval.
+     *
+     * @param name The name of the state to return.
+     * @return The state with the given name.
+     */
+    @Override
+    public State getState(final String name) {
+        State retval = states.get(name);
+        if (retval == null) {
+            retval = states.computeIfAbsent(name, State::new);
+        }
+        return retval;
+    }
+
+    /**
+     * @return The number of states in the statboard at the present time.
+     */
+    @Override
+    public int getStateCount() {
+        return states.size();
+    }
+
+    /**
+     * Access a detached iterator over the states.
+     *
+     * @return a detached iterator over the states.
+     * @see StatBoardImpl#getStateIterator()
+     */
+    @Override
+    public Iterator<State> getStateIterator() {
+        return new ArrayList<State>(states.values()).iterator();
+    }
+
+    /**
+     * Get an iterator over all the Master Timers in the statboard.
+     */
+    @Override
+    public Iterator<TimingMaster> getTimerIterator() {
+        return new ArrayList<TimingMaster>(masterTimers.values()).iterator();
+    }
+
+    /**
+     * Get the master timer with the given name.
+     *
+     * @param name The name of the master timer to retrieve.
+     * @return The master timer with the given name or null if that timer
+     * does not exist.
+     */
+    @Override
+    public TimingMaster getTimerMaster(final String name) {
+        return masterTimers.get(name);
+    }
+
+    /**
+     * Remove the counter with the given name.
+     *
+     * @param name Name of the counter to remove.
+     * @return The removed counter.
+     */
+    @Override
+    public Counter removeCounter(final String name) {
+        return counters.remove(name);
+    }
+
+    /**
+     * Remove the gauge with the given name.
+     *
+     * @param name Name of the gauge to remove.
+     * @return The removed gauge.
+     */
+    @Override
+    public Gauge removeGauge(final String name) {
+        if (name == null) {
+            return null;
+        }
+        return gauges.remove(name);
+    }
+
+    /**
+     * Remove the state with the given name.
+     *
+     * @param name Name of the state to remove.
+     * @return The removed state.
+     */
+    @Override
+    public State removeState(final String name) {
+        if (name == null) {
+            return null;
+        }
+        return states.remove(name);
+    }
+
+    /**
+     * Reset the counter with the given name returning a copy of the counter
+     * before the reset occurred.
+     *
+     * @param name The name of the counter to reset.
+     * @return a counter containing the values of the counter prior to the reset.
+     * @see StatBoardImpl#resetCounter(String)
+     */
+    @Override
+    public Counter resetCounter(final String name) {
+        return getCounter(name).reset();
+    }
+
+    /**
+     * Removes all timers from the statboard and frees them up for garbage
+     * collection.
+     */
+    @Override
+    public void resetTimers() {
+        masterTimers.clear();
+    }
+
+    /**
+     * Start an Application Response Measurement transaction using a particular
+     * correlation identifier.
+     *
+     * @param name Grouping name.
+     * @param crid correlation identifier
+     * @return A transaction to collect ARM data.
+     */
+    @Override
+    public ArmTransaction startArm(final String name, final String crid) {
+        ArmTransaction retval = null;
+        if (armEnabled) {
+            final ArmMaster master = armMaster(name);
+
+            // ARM masters count their hits as they create transactions
+            synchronized (master) {
+                retval = master.createArm(name, crid);
+            }
+
+            //start the ARM transaction
+            retval.start();
+        } else {
+            // just return the do-nothing timer
+            retval = NULL_ARM;
+        }
+
+        return retval;
+    }
+
+    /**
+     * Start a timer with the given name.
+     *
+     * <p>Use the returned Timer to stop the interval measurement.
+     *
+     * @param name The name of the timer instance to start.
+     * @return The timer instance that should be stopped when the interval is
+     * completed.
+     */
+    @Override
+    public Timer startTimer(final String name) {
+        Timer retval = null;
+        if (timingEnabled) {
+            // have the master timer return a timer instance
+            retval = timerMaster(name).createTimer();
+
+            //start the timer instance
+            retval.start();
+        } else {
+            // just return the do-nothing timer
+            retval = NULL_TIMER;
+        }
+
+        // return the started timer
+        return retval;
+    }
+
+    /**
+     * Set the version of the given named component.
+     *
+     * @param name    the name of the component this version describes
+     * @param version the version object
+     */
+    @Override
+    public void setVersion(String name, Version version) {
+        if (name != null && version != null) {
+            versions.put(name, version);
+        }
+    }
+
+    /**
+     * @return the mapping of all the versions of the named components.
+     */
+    @Override
+    public Map<String, String> getVersions() {
+        final Map<String, String> retval = new HashMap<String, String>();
+        for (Map.Entry<String, Version> entry : versions.entrySet()) {
+            retval.put(entry.getKey(), entry.getValue().toString());
+        }
+        return retval;
+    }
+
+    /**
+     * Retrieve the version of the component with the given name.
+     *
+     * @param name the name of the component to query
+     * @return the version of that component or null if the named component
+     * could not be found or the name was null
+     */
+    @Override
+    public Version getVersion(String name) {
+        if (name != null) {
+            return versions.get(name);
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.i13n;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Finds the most frequent values in a stream using a fixed number of
+ * counters.
+ *
+ * <p>This is the Misra-Gries summary. Each value observed is counted if it
+ * already has a counter or there is a free one. Otherwise every counter is
+ * decremented and those reaching zero are freed. The counts are therefore
+ * never more than the true counts and never less than them by more than
+ * {@code observed / (counters + 1)}, so any value making up more than that
+ * share of the stream is sure to be held. Decrementing every counter costs as
+ * much as the increments it undoes, so each value costs constant time on
+ * average.
+ *
+ * <p>With {@link Integer#MAX_VALUE} counters nothing is ever decremented and
+ * the counts are exact, for as long as the values fit in memory.
+ *
+ * <p>Summaries can be merged, giving the most frequent values of all the
+ * values given to either.
+ */
+public class HeavyHitters {
+
+  private final int capacity;
+
+  private final Map<String, long[]> counters = new HashMap<>();
+
+  private long count = 0;
+
+  /** The most any count may be short of the true count */
+  private long undercount = 0;
+
+
+
+
+  /**
+   * @param capacity the number of counters to keep
+   */
+  public HeavyHitters( final int capacity ) {
+    if ( capacity < 1 ) {
+      throw new IllegalArgumentException( "Capacity must be positive: " + capacity );
+    }
+    this.capacity = capacity;
+  }
+
+
+
+
+  /**
+   * Create a summary which counts each value to within the given share of
+   * all the values observed.
+   *
+   * @param error the largest share of the stream any count may be short by,
+   *        e.g. 0.01 for 1%
+   *
+   * @return a summary with enough counters for the error
+   */
+  public static HeavyHitters withError( final double error ) {
+    if ( !( error > 0 ) ) {
+      throw new IllegalArgumentException( "Error must be positive: " + error );
+    }
+    return new HeavyHitters( (int)Math.max( 1, Math.min( Integer.MAX_VALUE, Math.ceil( 1 / error ) ) ) );
+  }
+
+
+
+
+  /**
+   * Observe a value.
+   *
+   * @param value the value to count, ignored if null
+   */
+  public void add( final String value ) {
+    if ( value == null ) {
+      return;
+    }
+    count++;
+    final long[] counter = counters.get( value );
+    if ( counter != null ) {
+      counter[0]++;
+    } else if ( counters.size() < capacity ) {
+      counters.put( value, new long[] { 1 } );
+    } else {
+      decrement( 1 );
+    }
+  }
+
+
+
+
+  /**
+   * Add all the values observed by another summary to this one.
+   *
+   * <p>The counts are added and, if that leaves more than the capacity of
+   * this summary, the count of the first value beyond the capacity is taken
+   * from all of them.
+   *
+   * @param other the summary to merge
+   */
+  public void merge( final HeavyHitters other ) {
+    for ( final Map.Entry<String, long[]> entry : other.counters.entrySet() ) {
+      final long[] counter = counters.get( entry.getKey() );
+      if ( counter != null ) {
+        counter[0] += entry.getValue()[0];
+      } else {
+        counters.put( entry.getKey(), new long[] { entry.getValue()[0] } );
+      }
+    }
+    count += other.count;
+    undercount += other.undercount;
+
+    if ( counters.size() > capacity ) {
+      final long[] counts = new long[counters.size()];
+      int x = 0;
+      for ( final long[] counter : counters.values() ) {
+        counts[x++] = counter[0];
+      }
+      Arrays.sort( counts );
+      decrement( counts[counts.length - capacity - 1] );
+    }
+  }
+
+
+
+
+  /**
+   * Return the values with the highest counts.
+   *
+   * @param limit the most values to return
+   *
+   * @return the values and their counts, highest first
+   */
+  public Map<String, Long> getTop( final int limit ) {
+    final List<Map.Entry<String, long[]>> entries = new ArrayList<>( counters.entrySet() );
+    entries.sort( ( a, b ) -> Long.compare( b.getValue()[0], a.getValue()[0] ) );
+    final Map<String, Long> retval = new LinkedHashMap<>();
+    for ( final Map.Entry<String, long[]> entry : entries ) {
+      if ( retval.size() >= limit ) {
+        break;
+      }
+      retval.put( entry.getKey(), entry.getValue()[0] );
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the number of values observed
+   */
+  public long getCount() {
+    return count;
+  }
+
+
+
+
+  /**
+   * @return the number of values currently counted, which is the number of
+   *         distinct values observed if no counter has been decremented
+   */
+  public int size() {
+    return counters.size();
+  }
+
+
+
+
+  /**
+   * @return the most any count may be less than the true count, zero if the
+   *         counts are exact
+   */
+  public long getMaximumError() {
+    return undercount;
+  }
+
+
+
+
+  /**
+   * Take an amount from every counter, freeing those which reach zero.
+   */
+  private void decrement( final long amount ) {
+    undercount += amount;
+    for ( final Iterator<long[]> it = counters.values().iterator(); it.hasNext(); ) {
+      final long[] counter = it.next();
+      counter[0] -= amount;
+      if ( counter[0] <= 0 ) {
+        it.remove();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.i13n;
+
+/**
+ * Estimates the number of distinct values observed in a fixed amount of
+ * memory.
+ *
+ * <p>Each value is hashed to 64 bits. The first {@code precision} bits choose
+ * one of 2^precision registers and the register keeps the longest run of
+ * leading zeros seen in the rest of the hashes it was given. The harmonic mean
+ * of the registers gives the estimate, which has a standard error of about
+ * {@code 1.04 / sqrt(registers)}; 2^14 one-byte registers give 0.8%. Small
+ * counts are estimated from the number of empty registers instead, which is
+ * more accurate while most registers are still empty.
+ *
+ * <p>Sketches of the same precision can be merged, giving the estimate for
+ * all the values given to either.
+ */
+public class HyperLogLog {
+
+  /** The lowest precision allowed, 16 registers */
+  static final int MIN_PRECISION = 4;
+
+  /** The highest precision allowed, 256K registers */
+  static final int MAX_PRECISION = 18;
+
+  private final int precision;
+
+  private final byte[] registers;
+
+
+
+
+  /**
+   * @param precision the number of bits of each hash used to select a
+   *        register, between {@value #MIN_PRECISION} and {@value #MAX_PRECISION}
+   */
+  public HyperLogLog( final int precision ) {
+    if ( precision < MIN_PRECISION || precision > MAX_PRECISION ) {
+      throw new IllegalArgumentException( "Precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ": " + precision );
+    }
+    this.precision = precision;
+    registers = new byte[1 << precision];
+  }
+
+
+
+
+  /**
+   * Create a sketch with enough registers to give the requested standard
+   * error.
+   *
+   * @param error the relative standard error wanted, e.g. 0.01 for 1%
+   *
+   * @return a sketch whose error is no more than requested, unless that
+   *         would need more than {@value #MAX_PRECISION} bits of precision
+   */
+  public static HyperLogLog withError( final double error ) {
+    if ( !( error > 0 ) ) {
+      throw new IllegalArgumentException( "Error must be positive: " + error );
+    }
+    final double registers = Math.pow( 1.04 / error, 2 );
+    final int bits = (int)Math.ceil( Math.log( registers ) / Math.log( 2 ) );
+    return new HyperLogLog( Math.max( MIN_PRECISION, Math.min( MAX_PRECISION, bits ) ) );
+  }
+
+
+
+
+  /**
+   * Hash the characters of a value to 64 bits.
+   *
+   * <p>This is FNV-1a over the characters followed by the MurmurHash3
+   * finalizer, which spreads the bits well enough for the registers.
+   *
+   * @param value the value to hash
+   *
+   * @return the hash of the value
+   */
+  static long hash( final CharSequence value ) {
+    long h = 0xcbf29ce484222325L;
+    for ( int x = 0; x < value.length(); x++ ) {
+      h ^= value.charAt( x );
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+
+
+
+  /**
+   * Observe a value.
+   *
+   * @param value the value to count, ignored if null
+   */
+  public void add( final CharSequence value ) {
+    if ( value != null ) {
+      addHash( hash( value ) );
+    }
+  }
+
+
+
+
+  /**
+   * Observe a value by its 64 bit hash.
+   *
+   * @param hash a well distributed hash of the value
+   */
+  public void addHash( final long hash ) {
+    final int index = (int)( hash >>> ( 64 - precision ) );
+    // the marker bit limits the run of zeros to the bits left after the index
+    final long rest = ( hash << precision ) | ( 1L << ( precision - 1 ) );
+    final byte rank = (byte)( Long.numberOfLeadingZeros( rest ) + 1 );
+    if ( rank > registers[index] ) {
+      registers[index] = rank;
+    }
+  }
+
+
+
+
+  /**
+   * @return the estimated number of distinct values observed
+   */
+  public long estimate() {
+    final int m = registers.length;
+    double sum = 0;
+    int empty = 0;
+    for ( final byte register : registers ) {
+      sum += 1.0 / ( 1L << register );
+      if ( register == 0 ) {
+        empty++;
+      }
+    }
+
+    final double alpha;
+    switch ( m ) {
+      case 16:
+        alpha = 0.673;
+        break;
+      case 32:
+        alpha = 0.697;
+        break;
+      case 64:
+        alpha = 0.709;
+        break;
+      default:
+        alpha = 0.7213 / ( 1 + 1.079 / m );
+    }
+    double retval = alpha * m * m / sum;
+    if ( retval <= 2.5 * m && empty > 0 ) {
+      // linear counting is more accurate for small counts
+      retval = m * Math.log( (double)m / empty );
+    }
+    return Math.round( retval );
+  }
+
+
+
+
+  /**
+   * Add all the values observed by another sketch to this one.
+   *
+   * @param other the sketch to merge, which must have the same precision
+   */
+  public void merge( final HyperLogLog other ) {
+    if ( other.precision != precision ) {
+      throw new IllegalArgumentException( "Cannot merge sketches of precision " + other.precision + " into " + precision );
+    }
+    for ( int x = 0; x < registers.length; x++ ) {
+      if ( other.registers[x] > registers[x] ) {
+        registers[x] = other.registers[x];
+      }
+    }
+  }
+
+
+
+
+  /**
+   * @return the relative standard error of the estimates of this sketch
+   */
+  public double getError() {
+    return 1.04 / Math.sqrt( registers.length );
+  }
+
+
+
+
+  /**
+   * @return the number of bits of each hash used to select a register
+   */
+  public int getPrecision() {
+    return precision;
+  }
+
+}
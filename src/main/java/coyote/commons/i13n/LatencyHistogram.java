@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.i13n;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * A fixed-size histogram of non-negative values with log-linear buckets.
+ *
+ * <p>Values below {@value #SUB_BUCKETS} are counted exactly. Larger values
+ * are counted in buckets whose width doubles with each power of two, each
+ * power of two being split into {@value #HALF_BUCKETS} equal parts. The value
+ * reported for a bucket is never more than about 3% from any value recorded
+ * in it, no matter how large the values are. This is the same scheme
+ * HdrHistogram uses and it covers every positive {@code long} in a fixed
+ * {@value #BUCKETS} counters.
+ *
+ * <p>Recording a value does not allocate or lock; it is a single atomic
+ * increment, so many threads may record into the same histogram. Histograms
+ * can be copied, merged and subtracted, which makes it possible to report
+ * on intervals (the difference between two copies) as well as totals.
+ */
+public class LatencyHistogram {
+
+  /** The number of bits used to split each power of two into buckets */
+  private static final int SUB_BUCKET_BITS = 6;
+
+  /** Values less than this are counted exactly */
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /** The number of buckets each larger power of two is split into */
+  static final int HALF_BUCKETS = SUB_BUCKETS / 2;
+
+  /** The total number of buckets needed to cover every positive long */
+  static final int BUCKETS = SUB_BUCKETS + ( ( 63 - SUB_BUCKET_BITS ) * HALF_BUCKETS );
+
+  private final AtomicLongArray counts = new AtomicLongArray( BUCKETS );
+
+
+
+
+  /**
+   * Determine the bucket a value is counted in.
+   *
+   * @param value a non-negative value
+   *
+   * @return the index of its bucket
+   */
+  static int indexOf( final long value ) {
+    if ( value < SUB_BUCKETS ) {
+      return (int)value;
+    }
+    // how far the value must be shifted to leave SUB_BUCKET_BITS significant bits
+    final int shift = ( 63 - Long.numberOfLeadingZeros( value ) ) - ( SUB_BUCKET_BITS - 1 );
+    final int sub = (int)( value >>> shift );
+    return SUB_BUCKETS + ( ( shift - 1 ) * HALF_BUCKETS ) + ( sub - HALF_BUCKETS );
+  }
+
+
+
+
+  /**
+   * Determine the largest value counted in the given bucket.
+   *
+   * @param index the index of the bucket
+   *
+   * @return the highest value which would be counted in the bucket
+   */
+  static long highestValueOf( final int index ) {
+    if ( index < SUB_BUCKETS ) {
+      return index;
+    }
+    final int shift = ( ( index - SUB_BUCKETS ) / HALF_BUCKETS ) + 1;
+    final long sub = ( ( index - SUB_BUCKETS ) % HALF_BUCKETS ) + HALF_BUCKETS;
+    final long next = ( sub + 1 ) << shift;
+    // the last bucket ends at the largest long
+    return ( next < 0 ) ? Long.MAX_VALUE : next - 1;
+  }
+
+
+
+
+  /**
+   * Record a value in this histogram.
+   *
+   * <p>Negative values are recorded as zero.
+   *
+   * @param value the value to record
+   */
+  public void record( final long value ) {
+    counts.incrementAndGet( indexOf( ( value < 0 ) ? 0 : value ) );
+  }
+
+
+
+
+  /**
+   * @return the number of values recorded
+   */
+  public long getCount() {
+    long retval = 0;
+    for ( int x = 0; x < BUCKETS; x++ ) {
+      retval += counts.get( x );
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Return the value at the given percentile of all recorded values.
+   *
+   * <p>The returned value is the highest value counted in the bucket which
+   * holds the value at that percentile. It is within the precision of the
+   * histogram of the actual value recorded.
+   *
+   * @param percentile the percentile to query, from 0 to 100
+   *
+   * @return the value at the given percentile or zero if nothing has been
+   *         recorded
+   */
+  public long getValueAtPercentile( final double percentile ) {
+    final long[] snapshot = new long[BUCKETS];
+    long total = 0;
+    for ( int x = 0; x < BUCKETS; x++ ) {
+      snapshot[x] = counts.get( x );
+      total += snapshot[x];
+    }
+    if ( total == 0 ) {
+      return 0;
+    }
+
+    final double pct = Math.min( Math.max( percentile, 0 ), 100 );
+    final long target = Math.max( 1, (long)Math.ceil( ( pct / 100 ) * total ) );
+    long seen = 0;
+    for ( int x = 0; x < BUCKETS; x++ ) {
+      seen += snapshot[x];
+      if ( seen >= target ) {
+        return highestValueOf( x );
+      }
+    }
+    return 0;
+  }
+
+
+
+
+  /**
+   * Add all the values recorded in the given histogram to this one.
+   *
+   * @param other the histogram to merge into this one
+   */
+  public void add( final LatencyHistogram other ) {
+    if ( other != null ) {
+      for ( int x = 0; x < BUCKETS; x++ ) {
+        final long count = other.counts.get( x );
+        if ( count != 0 ) {
+          counts.addAndGet( x, count );
+        }
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Remove the values recorded in the given histogram from this one.
+   *
+   * <p>This is used to find the values recorded between two copies of the
+   * same histogram.
+   *
+   * @param other the histogram to subtract from this one
+   */
+  public void subtract( final LatencyHistogram other ) {
+    if ( other != null ) {
+      for ( int x = 0; x < BUCKETS; x++ ) {
+        final long count = other.counts.get( x );
+        if ( count != 0 ) {
+          counts.addAndGet( x, -count );
+        }
+      }
+    }
+  }
+
+
+
+
+  /**
+   * @return a copy of this histogram
+   */
+  public LatencyHistogram copy() {
+    final LatencyHistogram retval = new LatencyHistogram();
+    retval.add( this );
+    return retval;
+  }
+
+
+
+
+  /**
+   * Return a copy of this histogram and clear it.
+   *
+   * <p>Each bucket is read and cleared in one atomic operation so values
+   * recorded at the same time by other threads are either in the returned
+   * copy or remain in this histogram.
+   *
+   * @return the values recorded up until the reset
+   */
+  public LatencyHistogram reset() {
+    final LatencyHistogram retval = new LatencyHistogram();
+    for ( int x = 0; x < BUCKETS; x++ ) {
+      if ( counts.get( x ) != 0 ) {
+        retval.counts.set( x, counts.getAndSet( x, 0 ) );
+      }
+    }
+    return retval;
+  }
+
+}
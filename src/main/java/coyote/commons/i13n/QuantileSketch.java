@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.i13n;
+
+import java.util.Arrays;
+
+
+/**
+ * Estimates the quantiles of a stream of values in a fixed amount of memory.
+ *
+ * <p>This is the KLL sketch. Values are kept in levels; each value at level
+ * {@code h} stands for 2^h of the values observed. When a level fills, it is
+ * sorted and every other value, starting at random with the first or the
+ * second, is promoted to the next level and the rest discarded. The top level
+ * holds {@code k} values and each level below holds 2/3 of the one above it,
+ * so the sketch never holds more than about {@code 3k} values. The rank of any
+ * quantile returned is within about {@code 2.7 / k} of the rank asked for, so
+ * a {@code k} of 270 gives quantiles within 1% of their true rank.
+ *
+ * <p>A {@code k} of {@link Integer#MAX_VALUE} never discards anything, giving
+ * exact quantiles for as long as the values fit in memory.
+ *
+ * <p>Sketches can be merged, giving the quantiles of all the values given to
+ * either.
+ */
+public class QuantileSketch {
+
+  /** The fewest values a level holds before it is compacted */
+  private static final int MIN_WIDTH = 8;
+
+  /** The ratio of the size of each level to the one above it */
+  private static final double DECAY = 2.0 / 3.0;
+
+  private final int k;
+
+  private double[][] levels = new double[1][MIN_WIDTH];
+
+  private int[] sizes = new int[1];
+
+  private long count = 0;
+
+  private double minimum = Double.NaN;
+
+  private double maximum = Double.NaN;
+
+  /** Chooses which half of a level to promote, fixed for repeatable results */
+  private long seed = 0x2545F4914F6CDD1DL;
+
+
+
+
+  /**
+   * @param k the number of values held by the top level, at least {@value #MIN_WIDTH}
+   */
+  public QuantileSketch( final int k ) {
+    if ( k < MIN_WIDTH ) {
+      throw new IllegalArgumentException( "K must be at least " + MIN_WIDTH + ": " + k );
+    }
+    this.k = k;
+  }
+
+
+
+
+  /**
+   * Create a sketch large enough to give quantiles with the requested error.
+   *
+   * @param error the largest difference wanted between the rank asked for
+   *        and the rank of the value returned, e.g. 0.01 for 1%
+   *
+   * @return a sketch of the size needed for the error
+   */
+  public static QuantileSketch withError( final double error ) {
+    if ( !( error > 0 ) ) {
+      throw new IllegalArgumentException( "Error must be positive: " + error );
+    }
+    return new QuantileSketch( (int)Math.max( MIN_WIDTH, Math.min( Integer.MAX_VALUE, Math.ceil( 2.7 / error ) ) ) );
+  }
+
+
+
+
+  /**
+   * Observe a value.
+   *
+   * @param value the value to observe, ignored if it is NaN
+   */
+  public void add( final double value ) {
+    if ( Double.isNaN( value ) ) {
+      return;
+    }
+    if ( count++ == 0 ) {
+      minimum = value;
+      maximum = value;
+    } else {
+      minimum = Math.min( minimum, value );
+      maximum = Math.max( maximum, value );
+    }
+    append( 0, value );
+    if ( sizes[0] >= capacity( 0 ) ) {
+      compress();
+    }
+  }
+
+
+
+
+  /**
+   * Add all the values observed by another sketch to this one.
+   *
+   * @param other the sketch to merge
+   */
+  public void merge( final QuantileSketch other ) {
+    if ( other.count == 0 ) {
+      return;
+    }
+    for ( int level = 0; level < other.sizes.length; level++ ) {
+      for ( int x = 0; x < other.sizes[level]; x++ ) {
+        append( level, other.levels[level][x] );
+      }
+    }
+    if ( count == 0 ) {
+      minimum = other.minimum;
+      maximum = other.maximum;
+    } else {
+      minimum = Math.min( minimum, other.minimum );
+      maximum = Math.max( maximum, other.maximum );
+    }
+    count += other.count;
+    compress();
+  }
+
+
+
+
+  /**
+   * Return the value at the given rank of all the values observed.
+   *
+   * @param rank the rank of the value wanted, from 0 for the lowest value to
+   *        1 for the highest; 0.5 is the median
+   *
+   * @return the value at the rank, or NaN if nothing has been observed
+   */
+  public double getQuantile( final double rank ) {
+    if ( count == 0 ) {
+      return Double.NaN;
+    }
+    if ( rank <= 0 ) {
+      return minimum;
+    }
+    if ( rank >= 1 ) {
+      return maximum;
+    }
+
+    int held = 0;
+    for ( final int size : sizes ) {
+      held += size;
+    }
+    final double[] values = new double[held];
+    final long[] weights = new long[held];
+    final Integer[] order = new Integer[held];
+    long total = 0;
+    int next = 0;
+    for ( int level = 0; level < sizes.length; level++ ) {
+      for ( int x = 0; x < sizes[level]; x++ ) {
+        values[next] = levels[level][x];
+        weights[next] = 1L << level;
+        order[next] = next;
+        total += weights[next];
+        next++;
+      }
+    }
+    Arrays.sort( order, ( a, b ) -> Double.compare( values[a], values[b] ) );
+
+    final double target = rank * total;
+    long seen = 0;
+    for ( final int x : order ) {
+      seen += weights[x];
+      if ( seen >= target ) {
+        return values[x];
+      }
+    }
+    return maximum;
+  }
+
+
+
+
+  /**
+   * @return the number of values observed
+   */
+  public long getCount() {
+    return count;
+  }
+
+
+
+
+  /**
+   * @return the lowest value observed, NaN if none have been
+   */
+  public double getMinimum() {
+    return minimum;
+  }
+
+
+
+
+  /**
+   * @return the highest value observed, NaN if none have been
+   */
+  public double getMaximum() {
+    return maximum;
+  }
+
+
+
+
+  /**
+   * @return the number of values currently held by the sketch
+   */
+  public int getRetained() {
+    int retval = 0;
+    for ( final int size : sizes ) {
+      retval += size;
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the approximate largest error in the rank of the quantiles
+   *         returned, zero if no values have been discarded
+   */
+  public double getError() {
+    return ( sizes.length == 1 ) ? 0 : 2.7 / k;
+  }
+
+
+
+
+  /**
+   * The number of values a level may hold before it is compacted.
+   */
+  private int capacity( final int level ) {
+    final int depth = sizes.length - level - 1;
+    return (int)Math.max( MIN_WIDTH, Math.min( Integer.MAX_VALUE, Math.ceil( k * Math.pow( DECAY, depth ) ) ) );
+  }
+
+
+
+
+  private void append( final int level, final double value ) {
+    if ( level >= sizes.length ) {
+      levels = Arrays.copyOf( levels, level + 1 );
+      sizes = Arrays.copyOf( sizes, level + 1 );
+      for ( int x = 0; x < levels.length; x++ ) {
+        if ( levels[x] == null ) {
+          levels[x] = new double[MIN_WIDTH];
+        }
+      }
+    }
+    if ( sizes[level] == levels[level].length ) {
+      levels[level] = Arrays.copyOf( levels[level], levels[level].length * 2 );
+    }
+    levels[level][sizes[level]++] = value;
+  }
+
+
+
+
+  /**
+   * Compact every level which is full, from the bottom up, promoting half of
+   * its values to the level above.
+   */
+  private void compress() {
+    for ( int level = 0; level < sizes.length; level++ ) {
+      if ( sizes[level] >= capacity( level ) ) {
+        final double[] values = levels[level];
+        Arrays.sort( values, 0, sizes[level] );
+        // an odd value out stays behind so the total weight is unchanged
+        final int start = sizes[level] & 1;
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        final int offset = (int)( seed & 1 );
+        for ( int x = start + offset; x < sizes[level]; x += 2 ) {
+          append( level + 1, values[x] );
+        }
+        sizes[level] = start;
+      }
+    }
+  }
+
+}
@@ -274,6 +274,31 @@ public interface StatBoard {
      */
     TimingMaster getTimerMaster(final String name);
 
+    /**
+     * Get the interval time at the given percentile for the named timer.
+     *
+     * @param name       The name of the master timer to query.
+     * @param percentile The percentile to query, from 0 to 100.
+     *
+     * @return The interval at that percentile or zero if the timer does not
+     * exist or has not been stopped.
+     */
+    long getTimerPercentile(String name, double percentile);
+
+    /**
+     * Get the distribution of the intervals recorded by the named timer since
+     * the last call to this method for that timer.
+     *
+     * <p>Each call resets the interval so successive calls report on
+     * consecutive, non-overlapping periods.
+     *
+     * @param name The name of the master timer to query.
+     *
+     * @return The intervals recorded since the last call or null if that
+     * timer does not exist.
+     */
+    LatencyHistogram getTimerIntervalHistogram(String name);
+
     /**
      * Return how long the statboard has been active in a format using only the
      * significant time measurements.
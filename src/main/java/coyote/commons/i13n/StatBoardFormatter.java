@@ -103,16 +103,19 @@ public class StatBoardFormatter {
     Iterator<TimingMaster> it = statBoard.getTimerIterator();
     if (it.hasNext()) {
       sb.append("\nTimers:\n");
-      sb.append(String.format("%-40s %10s %15s %15s\n", "Name", "Hits", "Total Time", "Avg Time"));
-      sb.append("-------------------------------------------------------------------------------------\n");
+      sb.append(String.format("%-40s %10s %15s %15s %10s %10s %10s\n", "Name", "Hits", "Total Time", "Avg Time", "P50", "P99", "P99.9"));
+      sb.append("----------------------------------------------------------------------------------------------------------------------\n");
       while (it.hasNext()) {
         TimingMaster tm = it.next();
         // TimingMaster.toString() usually provides some info, but we can customize it
-        sb.append(String.format("%-40s %10d %15d %15.2f\n",
+        sb.append(String.format("%-40s %10d %15d %15.2f %10d %10d %10d\n",
                 tm.getName(),
                 tm.getGloballyActive(), // This might be the hit count depending on implementation
                 tm.getAccrued(),
-                (tm.getGloballyActive() > 0 ? (double)tm.getAccrued() / tm.getGloballyActive() : 0)));
+                (tm.getGloballyActive() > 0 ? (double)tm.getAccrued() / tm.getGloballyActive() : 0),
+                tm.getPercentile(50),
+                tm.getPercentile(99),
+                tm.getPercentile(99.9)));
       }
     }
 
@@ -593,6 +593,34 @@ public class StatBoardImpl implements StatBoard {
         }
     }
 
+    /**
+     * Get the interval time at the given percentile for the named timer.
+     *
+     * @param name       The name of the master timer to query.
+     * @param percentile The percentile to query, from 0 to 100.
+     * @return The interval at that percentile or zero if the timer does not
+     * exist or has not been stopped.
+     */
+    @Override
+    public long getTimerPercentile(final String name, final double percentile) {
+        final TimingMaster master = getTimerMaster(name);
+        return (master != null) ? master.getPercentile(percentile) : 0;
+    }
+
+    /**
+     * Get the distribution of the intervals recorded by the named timer since
+     * the last call to this method for that timer.
+     *
+     * @param name The name of the master timer to query.
+     * @return The intervals recorded since the last call or null if that
+     * timer does not exist.
+     */
+    @Override
+    public LatencyHistogram getTimerIntervalHistogram(final String name) {
+        final TimingMaster master = getTimerMaster(name);
+        return (master != null) ? master.getIntervalHistogram() : null;
+    }
+
     /**
      * Return how long the fixture has been active in a format using only the
      * significant time measurements.
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.i13n;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A counter which can be updated by many threads at once without blocking.
+ *
+ * <p>The value and update count are striped across threads so concurrent
+ * updates rarely touch the same memory. No locks are taken.
+ *
+ * <p>By default every update sums the value, returns that sum and maintains
+ * the minimum and maximum values from it with compare-and-set loops, so the
+ * counter reports as a {@link Counter} does. When other threads update the
+ * counter at the same time, the sum may include some of their updates, so it
+ * is not necessarily unique to the caller as it is with {@link Counter}.
+ *
+ * <p>Summing reads every stripe and the extremes may be contended, so a
+ * counter created untracked only adds to its stripe on update. Its minimum
+ * and maximum values are then the extremes of the values observed when the
+ * counter is read, copied or reset; a value it passes through between reads
+ * is not seen. The value returned from its updates is an approximation: the
+ * value last observed plus the amount of the update. Only create untracked
+ * counters where neither is needed.
+ */
+public class StripedCounter extends Counter {
+  private volatile String _units = null;
+  private final LongAdder _value = new LongAdder();
+  private final LongAdder _updates = new LongAdder();
+  private final AtomicLong _minValue = new AtomicLong();
+  private final AtomicLong _maxValue = new AtomicLong();
+  private final boolean _tracked;
+  private volatile long _observed = 0;
+
+
+
+
+  /**
+   * Create a counter with a name.
+   *
+   * @param name  the name of this counter
+   */
+  public StripedCounter( final String name ) {
+    this( name, true );
+  }
+
+
+
+
+  /**
+   * Create a counter with a name which may leave its value and extremes 
+   * untracked on update.
+   *
+   * @param name  the name of this counter
+   * @param tracked true to sum the value and maintain the minimum and maximum
+   *        values on every update, false to approximate the value returned 
+   *        from updates and observe the extremes only on reads
+   */
+  public StripedCounter( final String name, final boolean tracked ) {
+    super( name );
+    _tracked = tracked;
+  }
+
+
+
+
+  /**
+   * Sum the value and, unless extremes are tracked on update, fold it into
+   * the minimum and maximum values.
+   *
+   * @return the current value of the counter
+   */
+  private long observe() {
+    final long retval = _value.sum();
+    if ( !_tracked ) {
+      extremes( retval );
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Fold an observed value into the minimum and maximum values.
+   *
+   * @param value the observed value
+   */
+  private void extremes( final long value ) {
+    _observed = value;
+    TimingMaster.lower( _minValue, value );
+    TimingMaster.raise( _maxValue, value );
+  }
+
+
+
+
+  /**
+   * @return Returns true if the extremes are maintained on every update.
+   */
+  public boolean isTracked() {
+    return _tracked;
+  }
+
+
+
+
+  /**
+   * Create a copy of this counter.
+   */
+  @Override
+  public Object clone() {
+    final StripedCounter retval = new StripedCounter( _name, _tracked );
+    retval._units = _units;
+    retval._value.add( observe() );
+    retval._observed = _observed;
+    retval._minValue.set( _minValue.get() );
+    retval._maxValue.set( _maxValue.get() );
+    retval._updates.add( _updates.sum() );
+    return retval;
+  }
+
+
+
+
+  /**
+   * Decrease the counter by the given amount.
+   *
+   * @param amt The amount to subtract from the counter.
+   *
+   * @return The value of the counter after the operation.
+   */
+  @Override
+  public long decrease( final long amt ) {
+    return increase( -amt );
+  }
+
+
+
+
+  /**
+   * Decrement the counter by one.
+   *
+   * @return The value of the counter after the operation.
+   */
+  @Override
+  public long decrement() {
+    _updates.increment();
+    _value.decrement();
+    if ( _tracked ) {
+      final long retval = _value.sum();
+      TimingMaster.lower( _minValue, retval );
+      return retval;
+    }
+    return _observed - 1;
+  }
+
+
+
+
+  /**
+   * @return Returns the maximum value the counter was observed to represent.
+   */
+  @Override
+  public long getMaxValue() {
+    observe();
+    return _maxValue.get();
+  }
+
+
+
+
+  /**
+   * @return Returns the minimum value the counter was observed to represent.
+   */
+  @Override
+  public long getMinValue() {
+    observe();
+    return _minValue.get();
+  }
+
+
+
+
+  /**
+   * @return Returns the units the counter measures.
+   */
+  @Override
+  public String getUnits() {
+    return _units;
+  }
+
+
+
+
+  /**
+   * @return The number of times the value was updated.
+   */
+  @Override
+  public long getUpdateCount() {
+    return _updates.sum();
+  }
+
+
+
+
+  /**
+   * @return Returns the current value of the counter.
+   */
+  @Override
+  public long getValue() {
+    return observe();
+  }
+
+
+
+
+  /**
+   * Increase the counter by the given amount.
+   *
+   * @param amt The amount to add to the counter.
+   *
+   * @return The value of the counter after the operation.
+   */
+  @Override
+  public long increase( final long amt ) {
+    _updates.increment();
+    _value.add( amt );
+    if ( _tracked ) {
+      final long retval = _value.sum();
+      TimingMaster.lower( _minValue, retval );
+      TimingMaster.raise( _maxValue, retval );
+      return retval;
+    }
+    return _observed + amt;
+  }
+
+
+
+
+  /**
+   * Increment the counter by one.
+   *
+   * @return The value of the counter after the operation.
+   */
+  @Override
+  public long increment() {
+    _updates.increment();
+    _value.increment();
+    if ( _tracked ) {
+      final long retval = _value.sum();
+      TimingMaster.raise( _maxValue, retval );
+      return retval;
+    }
+    return _observed + 1;
+  }
+
+
+
+
+  /**
+   * Set the current, update count and Min/Max values to zero.
+   *
+   * <p>The return value will represent a copy of the counter prior to the
+   * reset. Updates made by other threads during the reset are either in the
+   * returned copy or remain in the counter, they are never lost.
+   *
+   * @return a counter representing the state prior to the reset.
+   */
+  @Override
+  public Counter reset() {
+    final StripedCounter retval = new StripedCounter( _name, _tracked );
+    retval._units = _units;
+    final long value = _value.sumThenReset();
+    if ( !_tracked ) {
+      extremes( value );
+      _observed = 0;
+    }
+    retval._value.add( value );
+    retval._observed = value;
+    retval._updates.add( _updates.sumThenReset() );
+    retval._minValue.set( _minValue.getAndSet( 0 ) );
+    retval._maxValue.set( _maxValue.getAndSet( 0 ) );
+    return retval;
+  }
+
+
+
+
+  /**
+   * Sets the units the counter measures.
+   *
+   * @param units The units to set.
+   */
+  @Override
+  public void setUnits( final String units ) {
+    _units = units;
+  }
+
+
+
+
+  /**
+   * Return the human-readable form of this counter.
+   */
+  @Override
+  public String toString() {
+    final StringBuffer buff = new StringBuffer( _name );
+    buff.append( "=" );
+    buff.append( Long.toString( observe() ) );
+    if ( _units != null ) {
+      buff.append( _units );
+    }
+    buff.append( "[min=" );
+    buff.append( Long.toString( _minValue.get() ) );
+    buff.append( ":max=" );
+    buff.append( Long.toString( _maxValue.get() ) );
+    buff.append( "]" );
+
+    return buff.toString();
+  }
+
+}
@@ -11,6 +11,10 @@ import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 import coyote.commons.dataframe.DataFrame;
 
@@ -19,12 +23,25 @@ import coyote.commons.dataframe.DataFrame;
  * The TimingMaster class models the master of all timers with a given name.
  *
  * <p>This class is used to summarize all the timers in its list.
+ *
+ * <p>No locks are taken while timers are started, stopped or accumulate
+ * their time. Sums are striped across threads and the minimum and maximum
+ * values are maintained with compare-and-set loops so the measured threads
+ * never block on each other. Readers see each value as it is at the time it
+ * is read; a report taken while timers are running may combine values from
+ * slightly different moments.
+ *
+ * <p>Every interval is also recorded in a {@link LatencyHistogram} so the
+ * distribution of times can be queried with {@link #getPercentile(double)}
+ * and reported per interval with {@link #getIntervalHistogram()}.
  */
 public class TimingMaster implements TimerMaster {
   public static final String CLASS_TAG = "Timer";
 
   /** The number of global timers currently active. */
-  private static volatile long globalCounter;
+  private static final LongAdder globalCounter = new LongAdder();
+
+  private static final AtomicLongFieldUpdater<TimingMaster> ACCRUED = AtomicLongFieldUpdater.newUpdater( TimingMaster.class, "accrued" );
 
   static private final String MILLISECONDS = "ms";
 
@@ -46,6 +63,10 @@ public class TimingMaster implements TimerMaster {
   static private final String MAXACTIVE = "Max Active";
   static private final String FIRSTACCESS = "First Access";
   static private final String LASTACCESS = "Last Access";
+  static private final String P50 = "P50";
+  static private final String P90 = "P90";
+  static private final String P99 = "P99";
+  static private final String P999 = "P99.9";
   public static final String NAME = "Name";
 
 
@@ -71,25 +92,62 @@ public class TimingMaster implements TimerMaster {
   /** Flag indicating if this timer is enabled */
   private volatile boolean _enabled = true;
   /** The number of timers currently active. */
-  private volatile long activeCounter;
+  private final AtomicLong activeCounter = new AtomicLong();
   /** Flag indicating whether or not to store the first accessed time */
-  private boolean isFirstAccess = true;
+  private final AtomicBoolean isFirstAccess = new AtomicBoolean( true );
   /** Epoch time in milliseconds when this timer was first accessed */
-  private long firstAccessTime;
+  private volatile long firstAccessTime;
   /** Epoch time in milliseconds when this timer was last accessed */
-  private long lastAccessTime;
-  private long maxActive = 0;
+  private volatile long lastAccessTime;
+  private final AtomicLong maxActive = new AtomicLong();
 
   // -
 
-  private long totalActive = 0;
-  long accrued;
-  private long min = Long.MAX_VALUE;
-  private long max = Long.MIN_VALUE;
-  private int hits;
-  private long total;
+  private final LongAdder totalActive = new LongAdder();
+  volatile long accrued;
+  private final AtomicLong min = new AtomicLong( Long.MAX_VALUE );
+  private final AtomicLong max = new AtomicLong( Long.MIN_VALUE );
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder total = new LongAdder();
+
+  private final LongAdder sumOfSquares = new LongAdder();
+
+  /** The distribution of all the intervals recorded */
+  private final LatencyHistogram histogram = new LatencyHistogram();
+  /** The intervals recorded up until the last interval snapshot */
+  private final LatencyHistogram baseline = new LatencyHistogram();
+
+
+
+
+  /**
+   * Raise the given value to at least the given amount.
+   *
+   * @param value the value to raise
+   * @param amount the new lower bound of the value
+   */
+  static void raise( final AtomicLong value, final long amount ) {
+    long current = value.get();
+    while ( amount > current && !value.compareAndSet( current, amount ) ) {
+      current = value.get();
+    }
+  }
+
 
-  private long sumOfSquares;
+
+
+  /**
+   * Lower the given value to at most the given amount.
+   *
+   * @param value the value to lower
+   * @param amount the new upper bound of the value
+   */
+  static void lower( final AtomicLong value, final long amount ) {
+    long current = value.get();
+    while ( amount < current && !value.compareAndSet( current, amount ) ) {
+      current = value.get();
+    }
+  }
 
 
 
@@ -132,7 +190,7 @@ public class TimingMaster implements TimerMaster {
     Timer retval;
     if ( _enabled ) {
       retval = new TimingTimer( this );
-      hits++;
+      hits.increment();
     } else {
       retval = new NullTimer( this );
     }
@@ -158,12 +216,12 @@ public class TimingMaster implements TimerMaster {
    */
   private long getAverage() {
     // we can only average the total number of closures not just the hits
-    final long closures = ( hits - activeCounter );
+    final long closures = ( getHits() - activeCounter.get() );
 
     if ( closures == 0 ) {
       return 0;
     } else {
-      return total / closures;
+      return total.sum() / closures;
     }
   }
 
@@ -174,10 +232,11 @@ public class TimingMaster implements TimerMaster {
    * @return the average number of active for the life of this master list.
    */
   private final float getAvgActive() {
-    if ( hits == 0 ) {
+    final int count = getHits();
+    if ( count == 0 ) {
       return 0;
     } else {
-      return (float)totalActive / hits;
+      return (float)totalActive.sum() / count;
     }
   }
 
@@ -191,7 +250,17 @@ public class TimingMaster implements TimerMaster {
    *         master timer.
    */
   public long getCurrentActive() {
-    return activeCounter;
+    return activeCounter.get();
+  }
+
+
+
+
+  /**
+   * @return the number of timers created by this master while enabled.
+   */
+  private int getHits() {
+    return (int)hits.sum();
   }
 
 
@@ -242,7 +311,7 @@ public class TimingMaster implements TimerMaster {
    *         master timers.
    */
   public long getGloballyActive() {
-    return TimingMaster.globalCounter;
+    return TimingMaster.globalCounter.sum();
   }
 
 
@@ -267,12 +336,12 @@ public class TimingMaster implements TimerMaster {
    */
   private long getStandardDeviation() {
     long stdDeviation = 0;
-    if ( hits > 1 ) {
-      final long sumOfX = total;
-      final int n = hits;
+    final int n = getHits();
+    if ( n > 1 ) {
+      final long sumOfX = total.sum();
       final int nMinus1 = ( n <= 1 ) ? 1 : n - 1; // avoid 0 divides;
 
-      final long numerator = sumOfSquares - ( ( sumOfX * sumOfX ) / n );
+      final long numerator = sumOfSquares.sum() - ( ( sumOfX * sumOfX ) / n );
       stdDeviation = (long) Math.sqrt( numerator / nMinus1 );
     }
 
@@ -291,24 +360,73 @@ public class TimingMaster implements TimerMaster {
    * @param value the amount to increase the accrued value.
    */
   @Override
-  public synchronized void increase( final long value ) {
+  public void increase( final long value ) {
     // calculate min
-    if ( value < min ) {
-      min = value;
-    }
+    lower( min, value );
 
     // calculate max
-    if ( value > max ) {
-      max = value;
-    }
+    raise( max, value );
 
     // total _accrued value
-    accrued += value;
+    ACCRUED.addAndGet( this, value );
 
     // calculate total i.e. sumofX's
-    total += value;
+    total.add( value );
+
+    sumOfSquares.add( value * value );
+
+    histogram.record( value );
+  }
+
+
+
+
+  /**
+   * Return the interval time at the given percentile of all the intervals
+   * recorded by this master.
+   *
+   * @param percentile the percentile to query, from 0 to 100
+   *
+   * @return the interval at that percentile within about 3%, or zero if no
+   *         timers have been stopped
+   */
+  public long getPercentile( final double percentile ) {
+    // bucket bounds may lie past the largest interval actually recorded
+    return Math.min( histogram.getValueAtPercentile( percentile ), Math.max( max.get(), 0 ) );
+  }
+
+
 
-    sumOfSquares += value * value;
+
+  /**
+   * @return a copy of the distribution of all the intervals recorded by this
+   *         master.
+   */
+  public LatencyHistogram getHistogram() {
+    return histogram.copy();
+  }
+
+
+
+
+  /**
+   * Return the distribution of the intervals recorded since the last call to
+   * this method.
+   *
+   * <p>Timers continue to record while the snapshot is taken; nothing is
+   * lost or counted twice between successive snapshots.
+   *
+   * @return the intervals recorded since the last interval snapshot.
+   */
+  public LatencyHistogram getIntervalHistogram() {
+    synchronized( baseline ) {
+      final LatencyHistogram current = histogram.copy();
+      final LatencyHistogram retval = current.copy();
+      retval.subtract( baseline );
+      baseline.reset();
+      baseline.add( current );
+      return retval;
+    }
   }
 
 
@@ -317,7 +435,7 @@ public class TimingMaster implements TimerMaster {
   /**
    * @return True if the timer set is enabled, false otherwise.
    */
-  public synchronized boolean isEnabled() {
+  public boolean isEnabled() {
     return _enabled;
   }
 
@@ -330,10 +448,19 @@ public class TimingMaster implements TimerMaster {
    * <p>The effect of this is to reset this objects variables to the state they
    * were in when the object was first created.
    */
-  synchronized protected void resetThis() {
-    min = Long.MAX_VALUE;
-    max = Long.MIN_VALUE;
-    total = accrued = sumOfSquares = maxActive = totalActive = hits = 0;
+  protected void resetThis() {
+    min.set( Long.MAX_VALUE );
+    max.set( Long.MIN_VALUE );
+    accrued = 0;
+    maxActive.set( 0 );
+    total.reset();
+    sumOfSquares.reset();
+    totalActive.reset();
+    hits.reset();
+    synchronized( baseline ) {
+      histogram.reset();
+      baseline.reset();
+    }
     firstAccessTime = lastAccessTime = System.currentTimeMillis();
   }
 
@@ -345,7 +472,7 @@ public class TimingMaster implements TimerMaster {
    *
    * @param flag True to enable the timer, false to keep it from processing.
    */
-  public synchronized void setEnabled( final boolean flag ) {
+  public void setEnabled( final boolean flag ) {
     _enabled = flag;
   }
 
@@ -360,21 +487,18 @@ public class TimingMaster implements TimerMaster {
    * @see coyote.i13n.TimerMaster#start(coyote.i13n.Timer)
    */
   @Override
-  public synchronized void start( final Timer timr ) {
-    activeCounter++;
-    TimingMaster.globalCounter++;
+  public void start( final Timer timr ) {
+    final long active = activeCounter.incrementAndGet();
+    TimingMaster.globalCounter.increment();
 
-    if ( activeCounter > maxActive ) {
-      maxActive = activeCounter;
-    }
+    raise( maxActive, active );
 
-    totalActive += activeCounter;
+    totalActive.add( active );
 
     final long now = System.currentTimeMillis();
     lastAccessTime = now;
 
-    if ( isFirstAccess ) {
-      isFirstAccess = false;
+    if ( isFirstAccess.get() && isFirstAccess.compareAndSet( true, false ) ) {
       firstAccessTime = now;
     }
   }
@@ -390,10 +514,10 @@ public class TimingMaster implements TimerMaster {
    * @see coyote.i13n.TimerMaster#stop(coyote.i13n.Timer)
    */
   @Override
-  public synchronized void stop( final Timer mon ) {
-    activeCounter--;
-    TimingMaster.globalCounter--;
-    accrued += mon.getAccrued();
+  public void stop( final Timer mon ) {
+    activeCounter.decrementAndGet();
+    TimingMaster.globalCounter.decrement();
+    ACCRUED.addAndGet( this, mon.getAccrued() );
   }
 
 
@@ -407,18 +531,24 @@ public class TimingMaster implements TimerMaster {
   @Override
   public String toString() {
     final StringBuffer message = new StringBuffer( _name );
+    final int count = getHits();
+    final long active = activeCounter.get();
     message.append( ": " );
-    message.append( getDisplayString( TimingMaster.HITS, convertToString( hits ), TimingMaster.NONE ) );
+    message.append( getDisplayString( TimingMaster.HITS, convertToString( count ), TimingMaster.NONE ) );
 
-    if ( ( hits - activeCounter ) > 0 ) {
+    if ( ( count - active ) > 0 ) {
       message.append( getDisplayString( TimingMaster.AVG, convertToString( getAverage() ), TimingMaster.MILLISECONDS ) );
-      message.append( getDisplayString( TimingMaster.TOTAL, convertToString( total ), TimingMaster.MILLISECONDS ) );
+      message.append( getDisplayString( TimingMaster.TOTAL, convertToString( total.sum() ), TimingMaster.MILLISECONDS ) );
       message.append( getDisplayString( TimingMaster.STANDARD_DEVIATION, convertToString( getStandardDeviation() ), TimingMaster.MILLISECONDS ) );
-      message.append( getDisplayString( TimingMaster.MIN, convertToString( min ), TimingMaster.MILLISECONDS ) );
-      message.append( getDisplayString( TimingMaster.MAX, convertToString( max ), TimingMaster.MILLISECONDS ) );
+      message.append( getDisplayString( TimingMaster.MIN, convertToString( min.get() ), TimingMaster.MILLISECONDS ) );
+      message.append( getDisplayString( TimingMaster.MAX, convertToString( max.get() ), TimingMaster.MILLISECONDS ) );
+      message.append( getDisplayString( TimingMaster.P50, convertToString( getPercentile( 50 ) ), TimingMaster.MILLISECONDS ) );
+      message.append( getDisplayString( TimingMaster.P90, convertToString( getPercentile( 90 ) ), TimingMaster.MILLISECONDS ) );
+      message.append( getDisplayString( TimingMaster.P99, convertToString( getPercentile( 99 ) ), TimingMaster.MILLISECONDS ) );
+      message.append( getDisplayString( TimingMaster.P999, convertToString( getPercentile( 99.9 ) ), TimingMaster.MILLISECONDS ) );
     }
-    message.append( getDisplayString( TimingMaster.ACTIVE, convertToString( activeCounter ), TimingMaster.NONE ) );
-    message.append( getDisplayString( TimingMaster.MAXACTIVE, convertToString( maxActive ), TimingMaster.NONE ) );
+    message.append( getDisplayString( TimingMaster.ACTIVE, convertToString( active ), TimingMaster.NONE ) );
+    message.append( getDisplayString( TimingMaster.MAXACTIVE, convertToString( maxActive.get() ), TimingMaster.NONE ) );
     message.append( getDisplayString( TimingMaster.AVGACTIVE, TimingMaster.convertToString( getAvgActive() ), TimingMaster.NONE ) );
     message.append( getDisplayString( TimingMaster.FIRSTACCESS, getDateString( firstAccessTime ), TimingMaster.NONE ) );
     message.append( getDisplayString( TimingMaster.LASTACCESS, getDateString( lastAccessTime ), TimingMaster.NONE ) );
@@ -429,17 +559,21 @@ public class TimingMaster implements TimerMaster {
 
 
 
-  public synchronized DataFrame toFrame() {
+  public DataFrame toFrame() {
     final DataFrame retval = new DataFrame();
     retval.put( NAME, _name );
-    retval.put( HITS, hits );
+    retval.put( HITS, getHits() );
     retval.put( AVG, getAverage() );
-    retval.put( TOTAL, total );
+    retval.put( TOTAL, total.sum() );
     retval.put( STANDARD_DEVIATION, getStandardDeviation() );
-    retval.put( MIN, min );
-    retval.put( MAX, max );
-    retval.put( ACTIVE, activeCounter );
-    retval.put( MAXACTIVE, maxActive );
+    retval.put( MIN, min.get() );
+    retval.put( MAX, max.get() );
+    retval.put( P50, getPercentile( 50 ) );
+    retval.put( P90, getPercentile( 90 ) );
+    retval.put( P99, getPercentile( 99 ) );
+    retval.put( P999, getPercentile( 99.9 ) );
+    retval.put( ACTIVE, activeCounter.get() );
+    retval.put( MAXACTIVE, maxActive.get() );
     retval.put( AVGACTIVE, getAvgActive() );
     retval.put( FIRSTACCESS, new Date( firstAccessTime ) );
     retval.put( LASTACCESS, new Date( lastAccessTime ) );
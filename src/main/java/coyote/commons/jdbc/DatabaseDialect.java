@@ -7,8 +7,14 @@
  */
 package coyote.commons.jdbc;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import coyote.commons.StringUtil;
@@ -56,6 +62,7 @@ public class DatabaseDialect {
   public static final String NULLABLE = "nullable";
   // Database Technologies supported
   public static final String ORACLE = "ORACLE";
+  public static final String POSTGRESQL = "PostgreSQL";
   public static final String PRIMARY_KEY = "primary_key";
   public static final String SYS_ID_SYM = "sysid";
   // The symbols we expect to find in the symbol table
@@ -67,6 +74,12 @@ public class DatabaseDialect {
   public static final String UPDATE = "update";
   public static final String USERNAME_SYM = "username";
 
+  /** The number of rows fetched from the database at a time when streaming results */
+  public static final int DEFAULT_FETCH_SIZE = 1000;
+
+  /** The most rows put in one multi-row INSERT statement */
+  public static final int MAX_INSERT_ROWS = 1000;
+
   private static final String DEFAULT = "default";
 
   private static final Map<String, Map<String, String>> SYNTAX = new HashMap<String, Map<String, String>>();
@@ -556,4 +569,187 @@ public class DatabaseDialect {
     return getSQL(database, ALTER_COLUMN, symbols);
   }
 
+
+
+  /**
+   * Create a statement which streams the results of a query rather than
+   * holding them all in memory.
+   *
+   * <p>The statement is forward-only and read-only, which lets drivers
+   * discard each batch of rows once it has been read, and asks for the given
+   * number of rows at a time in the way the database needs it asked:</p><ul>
+   * <li>MySQL Connector/J only streams when the fetch size is
+   * {@code Integer.MIN_VALUE}, returning one row at a time, unless a server
+   * side cursor is used, which also needs {@code useCursorFetch=true} in the
+   * connection URL.</li>
+   * <li>PostgreSQL ignores the fetch size unless auto-commit is off, see
+   * {@link #isCursorRequiredToStream(String)}.</li>
+   * <li>Other databases take the fetch size as it is.</li></ul>
+   *
+   * @param connection the connection on which to create the statement
+   * @param database the database product being used
+   * @param fetchSize the number of rows to fetch at a time
+   * @param cursor true if auto-commit is off so the database may use a server
+   *        side cursor
+   *
+   * @return a statement ready to execute a query
+   *
+   * @throws SQLException if the statement could not be created
+   */
+  public static Statement createStreamingStatement(final Connection connection, final String database, final int fetchSize, final boolean cursor) throws SQLException {
+    final Statement retval = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    retval.setFetchSize(getStreamingFetchSize(database, fetchSize, cursor));
+    return retval;
+  }
+
+
+
+
+  /**
+   * Prepare a statement which streams the results of a query rather than
+   * holding them all in memory.
+   *
+   * @param connection the connection on which to prepare the statement
+   * @param sql the query to prepare
+   * @param database the database product being used
+   * @param fetchSize the number of rows to fetch at a time
+   * @param cursor true if auto-commit is off so the database may use a server
+   *        side cursor
+   *
+   * @return a statement ready for its parameters to be set
+   *
+   * @throws SQLException if the statement could not be prepared
+   *
+   * @see #createStreamingStatement(Connection, String, int, boolean)
+   */
+  public static PreparedStatement prepareStreamingStatement(final Connection connection, final String sql, final String database, final int fetchSize, final boolean cursor) throws SQLException {
+    final PreparedStatement retval = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    retval.setFetchSize(getStreamingFetchSize(database, fetchSize, cursor));
+    return retval;
+  }
+
+
+
+
+  /**
+   * Get the SQL for a condition which is true when the remainder of the
+   * given column divided by the divisor is the given remainder, ignoring the
+   * sign of the column.
+   *
+   * @param database the database product being used
+   * @param column the column, or expression, to divide
+   * @param divisor the number to divide by
+   * @param remainder the remainder to match
+   *
+   * @return the condition for a WHERE clause
+   */
+  public static String getModuloCondition(final String database, final String column, final int divisor, final int remainder) {
+    if (MSQL.equalsIgnoreCase(database)) {
+      return "ABS(" + column + " % " + divisor + ") = " + remainder;
+    }
+    return "ABS(MOD(" + column + ", " + divisor + ")) = " + remainder;
+  }
+
+
+
+
+  /**
+   * Determine the fetch size which makes the driver of the given database
+   * stream results.
+   *
+   * @param database the database product being used
+   * @param fetchSize the number of rows to fetch at a time
+   * @param cursor true if a server side cursor is used
+   *
+   * @return the fetch size to set on the statement
+   */
+  public static int getStreamingFetchSize(final String database, final int fetchSize, final boolean cursor) {
+    if (MYSQL.equalsIgnoreCase(database) && !cursor) {
+      return Integer.MIN_VALUE;
+    }
+    return fetchSize;
+  }
+
+
+
+
+  /**
+   * Determine if the driver of the given database only streams results when
+   * auto-commit is off, so the query runs in a transaction holding a server
+   * side cursor.
+   *
+   * @param database the database product being used
+   *
+   * @return true if auto-commit must be turned off to stream results
+   */
+  public static boolean isCursorRequiredToStream(final String database) {
+    return POSTGRESQL.equalsIgnoreCase(database);
+  }
+
+
+
+
+  /**
+   * Determine how many rows may be inserted with one multi-row
+   * {@code INSERT ... VALUES (...), (...)} statement.
+   *
+   * <p>This is limited by the number of parameters the database allows in a
+   * statement: 2100 for SQL Server (which also allows no more than 1000
+   * rows), 32767 for PostgreSQL and 65535 for MySQL. Oracle does not support
+   * multi-row inserts and neither are they assumed for databases not known
+   * here.</p>
+   *
+   * @param database the database product being used
+   * @param columns the number of columns in each row
+   *
+   * @return the most rows to insert with one statement, 1 if multi-row
+   *         inserts are not supported
+   */
+  public static int getMultiRowInsertLimit(final String database, final int columns) {
+    int parameters;
+    if (H2.equalsIgnoreCase(database)) {
+      parameters = Integer.MAX_VALUE;
+    } else if (MSQL.equalsIgnoreCase(database)) {
+      parameters = 2100 - 1;
+    } else if (POSTGRESQL.equalsIgnoreCase(database)) {
+      parameters = Short.MAX_VALUE;
+    } else if (MYSQL.equalsIgnoreCase(database)) {
+      parameters = 65535;
+    } else {
+      return 1;
+    }
+    return Math.max(1, Math.min(MAX_INSERT_ROWS, parameters / Math.max(1, columns)));
+  }
+
+
+
+
+  /**
+   * Generate an INSERT statement for the given number of rows with a
+   * parameter for every value.
+   *
+   * @param schema the schema of the table, may be null
+   * @param table the name of the table
+   * @param columns the names of the columns, in the order of the parameters
+   * @param rows the number of rows the statement inserts
+   *
+   * @return the SQL for the statement
+   */
+  public static String getMultiRowInsert(final String schema, final String table, final List<String> columns, final int rows) {
+    final StringBuilder retval = new StringBuilder(64 + rows * columns.size() * 3);
+    retval.append("insert into ");
+    if (StringUtil.isNotBlank(schema)) {
+      retval.append(schema).append('.');
+    }
+    retval.append(table).append(" (").append(String.join(", ", columns)).append(") values ");
+    for (int row = 0; row < rows; row++) {
+      retval.append(row == 0 ? "(" : ", (");
+      for (int column = 0; column < columns.size(); column++) {
+        retval.append(column == 0 ? "?" : ", ?");
+      }
+      retval.append(')');
+    }
+    return retval.toString();
+  }
+
 }
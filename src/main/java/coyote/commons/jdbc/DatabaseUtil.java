@@ -301,8 +301,9 @@ public class DatabaseUtil {
 
         if (connection != null) {
 
-            try {
-                Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // only the first row is wanted
+                statement.setMaxRows(1);
                 result = statement.executeQuery(query);
 
                 rsmd = result.getMetaData();
@@ -352,8 +353,8 @@ public class DatabaseUtil {
         Log.debug(String.format("Executing query: '%s'", query));
 
         if (connection != null) {
-            try {
-                Statement statement = connection.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(DatabaseDialect.DEFAULT_FETCH_SIZE);
                 result = statement.executeQuery(query);
                 rsmd = result.getMetaData();
                 columnCount = rsmd.getColumnCount();
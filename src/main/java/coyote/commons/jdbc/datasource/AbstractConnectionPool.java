@@ -2,8 +2,24 @@ package coyote.commons.jdbc.datasource;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.sql.DataSource;
 
+import coyote.commons.log.Log;
+
+
+/**
+ * The base of the connection pools.
+ *
+ * <p>Pools check their connections before lending them: connections older
+ * than the maximum lifetime are closed, and connections idle for longer than
+ * the validation interval are validated with {@link Connection#isValid(int)}
+ * or a test query, so connections broken by a database restart or failover
+ * are discarded rather than given to the caller.</p>
+ */
 public abstract class AbstractConnectionPool implements ConnectionPool {
 
   private final boolean _defaultAutoCommit;
@@ -11,6 +27,33 @@ public abstract class AbstractConnectionPool implements ConnectionPool {
   private final boolean _defaultReadOnly;
   private final String _defaultCategory;
 
+  /** When the connections opened by {@link #open(DataSource)} were opened and last returned */
+  private final Map<Connection, Stamp> _stamps = new ConcurrentHashMap<Connection, Stamp>();
+
+  private volatile long _validationInterval = 500;
+  private volatile int _validationTimeout = 5;
+  private volatile String _validationQuery = null;
+  private volatile long _maxLifetime = 30 * 60 * 1000;
+
+
+
+
+  /**
+   * When a connection was opened and last returned to the pool.
+   */
+  private static final class Stamp {
+    final long created;
+    volatile long lastUsed;
+
+
+
+
+    Stamp( final long created ) {
+      this.created = created;
+      lastUsed = created;
+    }
+  }
+
 
 
 
@@ -25,8 +68,28 @@ public abstract class AbstractConnectionPool implements ConnectionPool {
 
 
   protected void drop( final Connection connection ) throws SQLException {
-    if ( ( connection != null ) && !connection.isClosed() ) {
-      connection.close();
+    if ( connection != null ) {
+      _stamps.remove( connection );
+      if ( !connection.isClosed() ) {
+        connection.close();
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Drop a connection which is no longer wanted, logging rather than throwing
+   * if it cannot be closed.
+   *
+   * @param connection the connection to close
+   */
+  protected void discard( final Connection connection ) {
+    try {
+      drop( connection );
+    } catch ( final SQLException e ) {
+      Log.debug( "Could not close discarded connection: " + e.getMessage() );
     }
   }
 
@@ -40,4 +103,186 @@ public abstract class AbstractConnectionPool implements ConnectionPool {
     connection.setReadOnly( _defaultReadOnly );
     connection.setCatalog( _defaultCategory );
   }
+
+
+
+
+  /**
+   * Open a connection whose age and idle time is tracked by the pool.
+   *
+   * @param dataSource the source of the connection
+   *
+   * @return the new connection
+   *
+   * @throws SQLException if the connection could not be opened
+   */
+  protected Connection open( final DataSource dataSource ) throws SQLException {
+    final Connection retval = dataSource.getConnection();
+    _stamps.put( retval, new Stamp( System.currentTimeMillis() ) );
+    return retval;
+  }
+
+
+
+
+  /**
+   * Record that a connection opened by {@link #open(DataSource)} is idle in
+   * the pool again.
+   *
+   * @param connection the returned connection
+   */
+  protected void released( final Connection connection ) {
+    final Stamp stamp = _stamps.get( connection );
+    if ( stamp != null ) {
+      stamp.lastUsed = System.currentTimeMillis();
+    }
+  }
+
+
+
+
+  /**
+   * Determine if an idle connection may be lent.
+   *
+   * <p>The connection must be open and younger than the maximum lifetime,
+   * and is validated if it has been idle for longer than the validation
+   * interval.</p>
+   *
+   * @param connection the idle connection about to be lent
+   *
+   * @return true if the connection may be lent, false if it should be discarded
+   */
+  protected boolean isUsable( final Connection connection ) {
+    final Stamp stamp = _stamps.get( connection );
+    final long now = System.currentTimeMillis();
+    try {
+      if ( connection.isClosed() ) {
+        return false;
+      }
+    } catch ( final SQLException e ) {
+      return false;
+    }
+    if ( stamp == null ) {
+      return isValid( connection );
+    }
+    return !isExpired( stamp.created, now ) && ( !isStale( stamp.lastUsed, now ) || isValid( connection ) );
+  }
+
+
+
+
+  /**
+   * Determine if a connection opened by {@link #open(DataSource)} has
+   * outlived the maximum lifetime.
+   *
+   * @param connection the connection to check
+   *
+   * @return true if the connection should be closed rather than pooled
+   */
+  protected boolean isExpired( final Connection connection ) {
+    final Stamp stamp = _stamps.get( connection );
+    return ( stamp != null ) && isExpired( stamp.created, System.currentTimeMillis() );
+  }
+
+
+
+
+  /**
+   * @param created when the connection was opened
+   * @param now the current time
+   *
+   * @return true if a connection opened at that time has outlived the maximum lifetime
+   */
+  protected boolean isExpired( final long created, final long now ) {
+    final long lifetime = _maxLifetime;
+    return ( lifetime > 0 ) && ( now - created > lifetime );
+  }
+
+
+
+
+  /**
+   * @param idleSince when the connection was last returned
+   * @param now the current time
+   *
+   * @return true if a connection idle since that time should be validated before it is lent
+   */
+  protected boolean isStale( final long idleSince, final long now ) {
+    return now - idleSince >= _validationInterval;
+  }
+
+
+
+
+  /**
+   * Check the connection still works, with the validation query if there is
+   * one or the driver's own check if not.
+   *
+   * @param connection the connection to check
+   *
+   * @return true if the connection works
+   */
+  protected boolean isValid( final Connection connection ) {
+    final String query = _validationQuery;
+    try {
+      if ( query == null ) {
+        return connection.isValid( _validationTimeout );
+      }
+      try (Statement statement = connection.createStatement()) {
+        statement.setQueryTimeout( _validationTimeout );
+        statement.execute( query );
+      }
+      if ( !connection.getAutoCommit() ) {
+        connection.rollback();
+      }
+      return true;
+    } catch ( final SQLException e ) {
+      Log.debug( "Connection failed validation: " + e.getMessage() );
+      return false;
+    }
+  }
+
+
+
+
+  /**
+   * @param millis how long a connection may be idle before it is validated,
+   *        0 to validate on every borrow
+   */
+  public void setValidationInterval( final long millis ) {
+    _validationInterval = millis;
+  }
+
+
+
+
+  /**
+   * @param seconds how long validation may take before the connection is
+   *        considered broken
+   */
+  public void setValidationTimeout( final int seconds ) {
+    _validationTimeout = seconds;
+  }
+
+
+
+
+  /**
+   * @param query the query run to validate connections, or null to use
+   *        {@link Connection#isValid(int)}
+   */
+  public void setValidationQuery( final String query ) {
+    _validationQuery = query;
+  }
+
+
+
+
+  /**
+   * @param millis the oldest a connection may be before it is closed, 0 for
+   *        no limit
+   */
+  public void setMaxLifetime( final long millis ) {
+    _maxLifetime = millis;
+  }
 }
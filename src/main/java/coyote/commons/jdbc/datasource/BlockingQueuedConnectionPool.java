@@ -4,6 +4,7 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.sql.DataSource;
 
@@ -16,11 +17,19 @@ import coyote.commons.Assert;
  * The connection is always retrieved from the pool. If there is no
  * connection available, it will be blocked until a connection is returned to
  * the pool instead of retrieving a new one from the data source.
+ *
+ * <p>Connections which are closed, have outlived the maximum lifetime or fail
+ * validation are discarded when they are next borrowed or returned, and a
+ * new connection is opened in their place.</p>
  */
 public class BlockingQueuedConnectionPool extends AbstractConnectionPool {
 
+  private final DataSource dataSource;
   private final BlockingQueue<Connection> idleConnections;
 
+  /** The number of discarded connections not yet replaced */
+  private final AtomicInteger missing = new AtomicInteger();
+
 
 
 
@@ -48,10 +57,11 @@ public class BlockingQueuedConnectionPool extends AbstractConnectionPool {
     Assert.notNull( dataSource, "dataSource must not be null" );
     Assert.isTrue( size >= 0, "size must not be negative" );
 
+    this.dataSource = dataSource;
     idleConnections = new LinkedBlockingQueue<Connection>( size );
 
     for ( int i = 0; i < size; ++i ) {
-      idleConnections.add( dataSource.getConnection() );
+      idleConnections.add( open( dataSource ) );
     }
   }
 
@@ -65,6 +75,9 @@ public class BlockingQueuedConnectionPool extends AbstractConnectionPool {
    * pool is empty. This method will be blocked if there is no available 
    * connection in the pool.
    * 
+   * <p>Idle connections which are no longer usable are discarded and
+   * replaced with a new connection from the data source.
+   * 
    * @return an available connection from the connection pool
    * 
    * @throws InterruptedException when this method is interrupted
@@ -72,7 +85,21 @@ public class BlockingQueuedConnectionPool extends AbstractConnectionPool {
    */
   @Override
   public Connection borrowConnection() throws Exception {
-    return idleConnections.take();
+    while ( true ) {
+      Connection connection = idleConnections.poll();
+      if ( connection == null ) {
+        connection = replace();
+        if ( connection != null ) {
+          return connection;
+        }
+        connection = idleConnections.take();
+      }
+      if ( isUsable( connection ) ) {
+        return connection;
+      }
+      discard( connection );
+      missing.incrementAndGet();
+    }
   }
 
 
@@ -95,10 +122,38 @@ public class BlockingQueuedConnectionPool extends AbstractConnectionPool {
     if ( connection.isClosed() ) {
       throw new IllegalStateException( "the connection is already " + "closed" );
     }
+    if ( isExpired( connection ) ) {
+      discard( connection );
+      missing.incrementAndGet();
+      return;
+    }
     reinitialize( connection );
+    released( connection );
 
     if ( !idleConnections.offer( connection ) ) {
       drop( connection );
     }
   }
+
+
+
+
+  /**
+   * Open a connection in place of one which was discarded.
+   *
+   * @return the new connection, or null if none are missing
+   *
+   * @throws SQLException if the connection could not be opened
+   */
+  private Connection replace() throws SQLException {
+    if ( missing.getAndUpdate( n -> ( n > 0 ) ? n - 1 : n ) == 0 ) {
+      return null;
+    }
+    try {
+      return open( dataSource );
+    } catch ( final SQLException | RuntimeException e ) {
+      missing.incrementAndGet();
+      throw e;
+    }
+  }
 }
@@ -0,0 +1,526 @@
+package coyote.commons.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import coyote.commons.Assert;
+import coyote.commons.i13n.LatencyHistogram;
+import coyote.commons.i13n.StatBoard;
+import coyote.commons.log.Log;
+
+
+/**
+ * A connection pool which looks after the connections it holds.
+ *
+ * <p>Like the queued pools, connections are checked before they are handed
+ * out; this pool also has a housekeeping thread which tends the idle
+ * connections in the background:
+ * <ul>
+ * <li>Connections idle for longer than the validation interval are validated
+ * before they are lent, with {@link Connection#isValid(int)} or a test query,
+ * so connections broken by a database restart or failover are discarded
+ * rather than given to the caller.</li>
+ * <li>Connections older than the maximum lifetime are closed when they are
+ * next returned or found idle.</li>
+ * <li>Connections idle for longer than the idle timeout are closed, as long
+ * as the minimum number of idle connections remain, and the pool is refilled
+ * to that minimum.</li>
+ * <li>Connections borrowed for longer than the leak detection threshold are
+ * reported with the stack trace of the code which borrowed them.</li>
+ * </ul>
+ *
+ * <p>When all the connections are in use, borrowers wait up to the borrow
+ * timeout for one to be returned, after which a {@link SQLTimeoutException}
+ * is thrown. The time spent waiting is recorded in a histogram which, with
+ * the number of active, idle and waiting callers, may be exported to a
+ * {@link StatBoard} as states named after the pool.</p>
+ *
+ * <p>Idle connections are lent most recently used first, so a quiet pool
+ * keeps using a few warm connections and lets the rest time out.</p>
+ *
+ * <p>{@link PoolingDataSource} creates a {@link QueuedConnectionPool} when
+ * given only sizes, so pass a managed pool to
+ * {@link PoolingDataSource#PoolingDataSource(DataSource, ConnectionPool)} to
+ * use it:<pre>
+ * ManagedConnectionPool pool = new ManagedConnectionPool(source, 2, 10, true, Connection.TRANSACTION_READ_COMMITTED, false, null);
+ * pool.setValidationQuery("SELECT 1");
+ * DataSource pooled = new PoolingDataSource(source, pool);</pre>
+ */
+public class ManagedConnectionPool extends AbstractConnectionPool {
+
+  /** How often waiting borrowers look for capacity freed by discarded connections */
+  private static final long WAIT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos( 50 );
+
+  private final DataSource dataSource;
+  private final int minIdle;
+  private final int maxSize;
+
+  private final LinkedBlockingDeque<Entry> idle = new LinkedBlockingDeque<Entry>();
+  private final Map<Connection, Entry> active = new ConcurrentHashMap<Connection, Entry>();
+  private final AtomicInteger total = new AtomicInteger();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final AtomicLong leaks = new AtomicLong();
+  private final AtomicLong discarded = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+  private final LatencyHistogram waitHistogram = new LatencyHistogram();
+
+  private volatile long borrowTimeout = 30000;
+  private volatile long idleTimeout = 10 * 60 * 1000;
+  private volatile long leakDetectionThreshold = 0;
+  private volatile StatBoard statBoard = null;
+  private volatile String statName = null;
+
+  private final ScheduledExecutorService housekeeper;
+  private volatile boolean closed = false;
+
+
+
+
+  /**
+   * A connection held by the pool, with what the pool knows about it.
+   */
+  private static final class Entry {
+    final Connection connection;
+    final long created;
+    volatile long lastUsed;
+    volatile long borrowed;
+    volatile Throwable borrower;
+    volatile boolean reported;
+
+
+
+
+    Entry( final Connection connection, final long now ) {
+      this.connection = connection;
+      created = now;
+      lastUsed = now;
+    }
+  }
+
+
+
+
+  /**
+   * Create a pool with a housekeeping thread which runs every 30 seconds.
+   *
+   * @param dataSource the source of the connections
+   * @param minIdle the number of idle connections to keep open
+   * @param maxSize the most connections open at once
+   * @param defaultAutoCommit the auto commit of connections returned to the pool
+   * @param defaultTransactionIsolation the isolation level of connections returned to the pool
+   * @param defaultReadOnly the read only flag of connections returned to the pool
+   * @param defaultCategory the catalog of connections returned to the pool
+   *
+   * @throws SQLException if the minimum idle connections could not be opened
+   */
+  public ManagedConnectionPool( final DataSource dataSource, final int minIdle, final int maxSize, final boolean defaultAutoCommit, final int defaultTransactionIsolation, final boolean defaultReadOnly, final String defaultCategory ) throws SQLException {
+    this( dataSource, minIdle, maxSize, defaultAutoCommit, defaultTransactionIsolation, defaultReadOnly, defaultCategory, 30000 );
+  }
+
+
+
+
+  /**
+   * Create a pool.
+   *
+   * @param dataSource the source of the connections
+   * @param minIdle the number of idle connections to keep open
+   * @param maxSize the most connections open at once
+   * @param defaultAutoCommit the auto commit of connections returned to the pool
+   * @param defaultTransactionIsolation the isolation level of connections returned to the pool
+   * @param defaultReadOnly the read only flag of connections returned to the pool
+   * @param defaultCategory the catalog of connections returned to the pool
+   * @param housekeepingInterval milliseconds between runs of the housekeeping thread
+   *
+   * @throws SQLException if the minimum idle connections could not be opened
+   */
+  public ManagedConnectionPool( final DataSource dataSource, final int minIdle, final int maxSize, final boolean defaultAutoCommit, final int defaultTransactionIsolation, final boolean defaultReadOnly, final String defaultCategory, final long housekeepingInterval ) throws SQLException {
+    super( defaultAutoCommit, defaultTransactionIsolation, defaultReadOnly, defaultCategory );
+    Assert.notNull( dataSource, "dataSource must not be null" );
+    Assert.isTrue( minIdle >= 0, "minIdle must not be negative" );
+    Assert.isTrue( maxSize > 0, "maxSize must be positive" );
+    Assert.isTrue( maxSize >= minIdle, "maxSize must be equal or greater than minIdle" );
+    Assert.isTrue( housekeepingInterval > 0, "housekeepingInterval must be positive" );
+
+    this.dataSource = dataSource;
+    this.minIdle = minIdle;
+    this.maxSize = maxSize;
+
+    fill();
+
+    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor( 1, runnable -> {
+      final Thread thread = new Thread( runnable, "ConnectionPoolHousekeeper" );
+      thread.setDaemon( true );
+      return thread;
+    } );
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy( false );
+    executor.scheduleWithFixedDelay( this::housekeep, housekeepingInterval, housekeepingInterval, TimeUnit.MILLISECONDS );
+    housekeeper = executor;
+  }
+
+
+
+
+  @Override
+  public Connection borrowConnection() throws Exception {
+    final long start = System.nanoTime();
+    final long deadline = start + TimeUnit.MILLISECONDS.toNanos( borrowTimeout );
+    while ( true ) {
+      if ( closed ) {
+        throw new SQLException( "Connection pool is closed" );
+      }
+      Entry entry = idle.pollFirst();
+      if ( entry == null ) {
+        if ( reserve() ) {
+          entry = open();
+        } else {
+          final long remaining = deadline - System.nanoTime();
+          if ( remaining <= 0 ) {
+            timeouts.incrementAndGet();
+            throw new SQLTimeoutException( "Timed out after " + borrowTimeout + "ms waiting for one of " + maxSize + " connections" );
+          }
+          waiters.incrementAndGet();
+          try {
+            entry = idle.pollFirst( Math.min( remaining, WAIT_SLICE_NANOS ), TimeUnit.NANOSECONDS );
+          }
+          finally {
+            waiters.decrementAndGet();
+          }
+          if ( entry == null ) {
+            continue;
+          }
+        }
+      } else {
+        final long now = System.currentTimeMillis();
+        if ( isExpired( entry.created, now ) || ( isStale( entry.lastUsed, now ) && !isValid( entry.connection ) ) ) {
+          discard( entry );
+          continue;
+        }
+      }
+      lend( entry );
+      waitHistogram.record( TimeUnit.NANOSECONDS.toMicros( System.nanoTime() - start ) );
+      return entry.connection;
+    }
+  }
+
+
+
+
+  @Override
+  public void returnConnection( final Connection connection ) throws Exception {
+    Assert.notNull( connection, "connection must not be null" );
+
+    final Entry entry = active.remove( connection );
+    if ( entry == null ) {
+      // not one of ours
+      drop( connection );
+      return;
+    }
+    if ( closed || connection.isClosed() || isExpired( entry.created, System.currentTimeMillis() ) ) {
+      discard( entry );
+      return;
+    }
+    try {
+      reinitialize( connection );
+    } catch ( final SQLException e ) {
+      discard( entry );
+      return;
+    }
+    entry.borrower = null;
+    entry.lastUsed = System.currentTimeMillis();
+    idle.offerFirst( entry );
+  }
+
+
+
+
+  /**
+   * Close the idle connections and stop the housekeeping thread. Connections
+   * in use are closed as they are returned.
+   */
+  public void close() {
+    closed = true;
+    housekeeper.shutdownNow();
+    for ( Entry entry = idle.pollFirst(); entry != null; entry = idle.pollFirst() ) {
+      discard( entry );
+    }
+  }
+
+
+
+
+  /**
+   * Run the housekeeping now rather than waiting for the housekeeping thread.
+   */
+  public void housekeep() {
+    try {
+      final long now = System.currentTimeMillis();
+
+      // check the idle connections, least recently used first
+      final Iterator<Entry> entries = idle.descendingIterator();
+      while ( entries.hasNext() ) {
+        final Entry entry = entries.next();
+        final boolean retire = isExpired( entry.created, now ) || ( ( now - entry.lastUsed > idleTimeout ) && ( idle.size() > minIdle ) );
+        if ( ( retire || isStale( entry.lastUsed, now ) ) && idle.removeLastOccurrence( entry ) ) {
+          // the entry is ours until it is offered back
+          if ( retire || !isValid( entry.connection ) ) {
+            discard( entry );
+          } else {
+            idle.offerLast( entry );
+          }
+        }
+      }
+
+      fill();
+
+      final long threshold = leakDetectionThreshold;
+      if ( threshold > 0 ) {
+        for ( final Entry entry : active.values() ) {
+          if ( !entry.reported && ( entry.borrower != null ) && ( now - entry.borrowed > threshold ) ) {
+            entry.reported = true;
+            leaks.incrementAndGet();
+            Log.warn( "Possible connection leak, connection borrowed " + ( now - entry.borrowed ) + "ms ago has not been returned", entry.borrower );
+          }
+        }
+      }
+
+      exportMetrics();
+    } catch ( final Throwable t ) {
+      Log.error( "Connection pool housekeeping failed: " + t.getMessage(), t );
+    }
+  }
+
+
+
+
+  /**
+   * Publish the state of the pool to the stat board, if one is set.
+   *
+   * <p>This is done by the housekeeping thread and may be called to get
+   * current figures between runs. The wait times are in microseconds.
+   */
+  public void exportMetrics() {
+    final StatBoard board = statBoard;
+    if ( board != null ) {
+      final String name = statName;
+      board.setState( name + ".Active", (long)getActiveCount() );
+      board.setState( name + ".Idle", (long)getIdleCount() );
+      board.setState( name + ".Waiters", (long)getWaiterCount() );
+      board.setState( name + ".Leaks", leaks.get() );
+      board.setState( name + ".Timeouts", timeouts.get() );
+      board.setState( name + ".Discarded", discarded.get() );
+      board.setState( name + ".WaitCount", waitHistogram.getCount() );
+      board.setState( name + ".WaitP50", waitHistogram.getValueAtPercentile( 50 ) );
+      board.setState( name + ".WaitP99", waitHistogram.getValueAtPercentile( 99 ) );
+      board.setState( name + ".WaitMax", waitHistogram.getValueAtPercentile( 100 ) );
+    }
+  }
+
+
+
+
+  /**
+   * Open connections until the minimum number are idle or the pool is full.
+   */
+  private void fill() throws SQLException {
+    while ( !closed && ( idle.size() < minIdle ) && reserve() ) {
+      idle.offerLast( open() );
+    }
+  }
+
+
+
+
+  /**
+   * Claim room in the pool for a new connection.
+   *
+   * @return true if there was room, false if the pool is full
+   */
+  private boolean reserve() {
+    while ( true ) {
+      final int count = total.get();
+      if ( count >= maxSize ) {
+        return false;
+      }
+      if ( total.compareAndSet( count, count + 1 ) ) {
+        return true;
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Open a connection in room already reserved.
+   */
+  private Entry open() throws SQLException {
+    try {
+      return new Entry( dataSource.getConnection(), System.currentTimeMillis() );
+    } catch ( final SQLException | RuntimeException e ) {
+      total.decrementAndGet();
+      throw e;
+    }
+  }
+
+
+
+
+  private void lend( final Entry entry ) {
+    entry.borrowed = System.currentTimeMillis();
+    entry.reported = false;
+    if ( leakDetectionThreshold > 0 ) {
+      entry.borrower = new Exception( "Connection borrowed by " + Thread.currentThread().getName() );
+    }
+    active.put( entry.connection, entry );
+  }
+
+
+
+
+  private void discard( final Entry entry ) {
+    total.decrementAndGet();
+    discarded.incrementAndGet();
+    discard( entry.connection );
+  }
+
+
+
+
+  /**
+   * @param millis how long borrowers wait for a connection when all are in use
+   */
+  public void setBorrowTimeout( final long millis ) {
+    borrowTimeout = millis;
+  }
+
+
+
+
+  /**
+   * @param millis how long connections beyond the minimum may be idle before
+   *        they are closed
+   */
+  public void setIdleTimeout( final long millis ) {
+    idleTimeout = millis;
+  }
+
+
+
+
+  /**
+   * @param millis how long a connection may be borrowed before it is
+   *        reported as a possible leak, 0 to disable leak detection
+   */
+  public void setLeakDetectionThreshold( final long millis ) {
+    leakDetectionThreshold = millis;
+  }
+
+
+
+
+  /**
+   * Export the metrics of this pool to the given stat board.
+   *
+   * @param board the stat board, or null to stop exporting
+   * @param name the prefix of the names of the states
+   */
+  public void setStatBoard( final StatBoard board, final String name ) {
+    statName = name;
+    statBoard = board;
+  }
+
+
+
+
+  /**
+   * @return the number of connections lent out
+   */
+  public int getActiveCount() {
+    return active.size();
+  }
+
+
+
+
+  /**
+   * @return the number of connections waiting to be borrowed
+   */
+  public int getIdleCount() {
+    return idle.size();
+  }
+
+
+
+
+  /**
+   * @return the number of borrowers waiting for a connection to be returned
+   */
+  public int getWaiterCount() {
+    return waiters.get();
+  }
+
+
+
+
+  /**
+   * @return the number of connections open
+   */
+  public int getTotalCount() {
+    return total.get();
+  }
+
+
+
+
+  /**
+   * @return the number of connections reported as possible leaks
+   */
+  public long getLeakCount() {
+    return leaks.get();
+  }
+
+
+
+
+  /**
+   * @return the number of connections closed for being broken, expired or
+   *         idle
+   */
+  public long getDiscardedCount() {
+    return discarded.get();
+  }
+
+
+
+
+  /**
+   * @return the number of borrowers which gave up waiting
+   */
+  public long getTimeoutCount() {
+    return timeouts.get();
+  }
+
+
+
+
+  /**
+   * @return the time each borrower waited for a connection, in microseconds
+   */
+  public LatencyHistogram getWaitHistogram() {
+    return waitHistogram;
+  }
+
+}
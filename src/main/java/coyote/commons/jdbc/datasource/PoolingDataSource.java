@@ -11,6 +11,16 @@ import javax.sql.DataSource;
 import coyote.commons.Assert;
 
 
+/**
+ * A data source which lends connections from a pool of connections opened
+ * from another data source.
+ *
+ * <p>The pool is chosen by the constructor; the one taking sizes uses a
+ * {@link QueuedConnectionPool}, which validates and retires its connections
+ * as it lends them. A {@link ManagedConnectionPool}, which also evicts idle
+ * connections in the background and detects leaks, is used when one is
+ * passed in.</p>
+ */
 public class PoolingDataSource implements DataSource {
 
   private final DataSource originalDataSource;
@@ -19,6 +29,12 @@ public class PoolingDataSource implements DataSource {
 
 
 
+  /**
+   * Lend connections from the given pool, such as a {@link ManagedConnectionPool}.
+   *
+   * @param originalDataSource the source of the pooled connections
+   * @param connectionPool the pool to lend connections from
+   */
   public PoolingDataSource( final DataSource originalDataSource, final ConnectionPool connectionPool ) {
     Assert.notNull( originalDataSource, "Datasource must not be null" );
     Assert.notNull( connectionPool, "ConnectionPool must not be null" );
@@ -30,6 +46,19 @@ public class PoolingDataSource implements DataSource {
 
 
 
+  /**
+   * Lend connections from a new {@link QueuedConnectionPool}.
+   *
+   * @param originalDataSource the source of the pooled connections
+   * @param initialSize the number of connections opened at once
+   * @param maxSize the most connections open at once
+   * @param defaultAutoCommit the auto commit of connections returned to the pool
+   * @param defaultTransactionIsolation the isolation level of connections returned to the pool
+   * @param autoReadOnly the read only flag of connections returned to the pool
+   * @param defaultCategory the catalog of connections returned to the pool
+   *
+   * @throws SQLException if the initial connections could not be opened
+   */
   public PoolingDataSource( final DataSource originalDataSource, final int initialSize, final int maxSize, final boolean defaultAutoCommit, final int defaultTransactionIsolation, final boolean autoReadOnly, final String defaultCategory ) throws SQLException {
     this( originalDataSource, new QueuedConnectionPool( originalDataSource, initialSize, maxSize, defaultAutoCommit, defaultTransactionIsolation, autoReadOnly, defaultCategory ) );
   }
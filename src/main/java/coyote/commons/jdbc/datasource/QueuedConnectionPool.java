@@ -35,21 +35,37 @@ public class QueuedConnectionPool extends AbstractConnectionPool {
     _idleConnections = new ConcurrentLinkedQueue<Connection>();
 
     for ( int i = 0; i < initialSize; ++i ) {
-      _idleConnections.add( dataSource.getConnection() );
+      _idleConnections.add( open( dataSource ) );
     }
   }
 
 
 
 
+  /**
+   * Lend an idle connection, or a new one if none are idle.
+   *
+   * <p>Idle connections which are closed, have outlived the maximum lifetime
+   * or fail validation are discarded in favour of the next.</p>
+   */
   @Override
   public Connection borrowConnection() throws Exception {
-    _idleConnsLock.lock();
-    try {
-      return ( _idleConnections.isEmpty() ) ? _dataSource.getConnection() : _idleConnections.poll();
-    }
-    finally {
-      _idleConnsLock.unlock();
+    while ( true ) {
+      final Connection connection;
+      _idleConnsLock.lock();
+      try {
+        connection = _idleConnections.poll();
+      }
+      finally {
+        _idleConnsLock.unlock();
+      }
+      if ( connection == null ) {
+        return open( _dataSource );
+      }
+      if ( isUsable( connection ) ) {
+        return connection;
+      }
+      discard( connection );
     }
   }
 
@@ -61,9 +77,15 @@ public class QueuedConnectionPool extends AbstractConnectionPool {
     Assert.notNull( connection, "connection must not be null" );
 
     if ( connection.isClosed() ) {
+      drop( connection );
+      return;
+    }
+    if ( isExpired( connection ) ) {
+      discard( connection );
       return;
     }
     reinitialize( connection );
+    released( connection );
 
     boolean drop = false;
 
@@ -3,7 +3,6 @@ package coyote.commons.job;
 import coyote.commons.CronEntry;
 
 import java.text.ParseException;
-import java.util.GregorianCalendar;
 
 /**
  * This is a job that uses a CronEntry to determine its next execution time.
@@ -85,9 +84,7 @@ public class CronJob extends ScheduledJob {
   @Override
   public long getNextExecutionTime() {
     if (cronEntry != null) {
-      GregorianCalendar cal = new GregorianCalendar();
-      cal.setTimeInMillis(Math.max(System.currentTimeMillis(), getExecutionTime()));
-      return cronEntry.getNextTime(cal);
+      return cronEntry.getNextTime(Math.max(System.currentTimeMillis(), getExecutionTime()));
     }
     return super.getNextExecutionTime();
   }
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.job;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+
+/**
+ * The jobs of a {@link Scheduler} ordered by execution time.
+ *
+ * <p>This is a binary heap of jobs. Each job records its position in the heap
+ * so it can be removed or moved without searching for it, making adding,
+ * removing and rescheduling a job {@code O(log n)} and finding the next job to
+ * run {@code O(1)}. Jobs with the same execution time come out in the order
+ * they were added.</p>
+ *
+ * <p>A job is ordered by the execution time it had when it was added;
+ * changing the time of a queued job has no effect until it is added again.</p>
+ *
+ * <p>This class is not thread-safe; the scheduler guards it with its mutex. A
+ * job can only be in one queue at a time.</p>
+ */
+final class JobQueue {
+
+  /** Orders jobs by execution time then by the order they were added */
+  static final Comparator<ScheduledJob> ORDER = Comparator.<ScheduledJob>comparingLong(job -> job.queueTime).thenComparingLong(job -> job.queueSequence);
+
+  private ScheduledJob[] heap = new ScheduledJob[64];
+
+  private int size = 0;
+
+  private long sequence = 0;
+
+
+
+
+  /**
+   * Add a job, or move it to its new place if it is already queued and its
+   * execution time has changed.
+   *
+   * @param job the job to add
+   */
+  void add(final ScheduledJob job) {
+    if (contains(job)) {
+      remove(job);
+    }
+    if (size == heap.length) {
+      heap = Arrays.copyOf(heap, size * 2);
+    }
+    job.queueTime = job.getExecutionTime();
+    job.queueSequence = sequence++;
+    job.queueIndex = size;
+    heap[size++] = job;
+    siftUp(job.queueIndex);
+  }
+
+
+
+
+  /**
+   * Remove a job from the queue.
+   *
+   * @param job the job to remove
+   *
+   * @return true if the job was queued, false if it was not
+   */
+  boolean remove(final ScheduledJob job) {
+    if (!contains(job)) {
+      return false;
+    }
+    final int index = job.queueIndex;
+    final ScheduledJob last = heap[--size];
+    heap[size] = null;
+    job.queueIndex = -1;
+    if (last != job) {
+      place(last, index);
+      // the last job may belong above or below the position it was moved to
+      siftDown(index);
+      siftUp(last.queueIndex);
+    }
+    return true;
+  }
+
+
+
+
+  /**
+   * @return the job to run next, null if there are none
+   */
+  ScheduledJob peek() {
+    return (size > 0) ? heap[0] : null;
+  }
+
+
+
+
+  /**
+   * Remove and return the job to run next.
+   *
+   * @return the job which was first, null if there are none
+   */
+  ScheduledJob poll() {
+    final ScheduledJob retval = peek();
+    if (retval != null) {
+      remove(retval);
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @param job the job to find
+   *
+   * @return true if the job is in this queue
+   */
+  boolean contains(final ScheduledJob job) {
+    final int index = job.queueIndex;
+    return index >= 0 && index < size && heap[index] == job;
+  }
+
+
+
+
+  /**
+   * @return the number of jobs queued
+   */
+  int size() {
+    return size;
+  }
+
+
+
+
+  /**
+   * @return a copy of the queued jobs, in the order they are to run
+   */
+  ScheduledJob[] toSortedArray() {
+    final ScheduledJob[] retval = Arrays.copyOf(heap, size);
+    Arrays.sort(retval, ORDER);
+    return retval;
+  }
+
+
+
+
+  private void siftUp(int index) {
+    final ScheduledJob job = heap[index];
+    while (index > 0) {
+      final int parent = (index - 1) >>> 1;
+      if (ORDER.compare(job, heap[parent]) >= 0) {
+        break;
+      }
+      place(heap[parent], index);
+      index = parent;
+    }
+    place(job, index);
+  }
+
+
+
+
+  private void siftDown(int index) {
+    final ScheduledJob job = heap[index];
+    final int half = size >>> 1;
+    while (index < half) {
+      int child = (index << 1) + 1;
+      final int right = child + 1;
+      if (right < size && ORDER.compare(heap[right], heap[child]) < 0) {
+        child = right;
+      }
+      if (ORDER.compare(job, heap[child]) <= 0) {
+        break;
+      }
+      place(heap[child], index);
+      index = child;
+    }
+    place(job, index);
+  }
+
+
+
+
+  private void place(final ScheduledJob job, final int index) {
+    heap[index] = job;
+    job.queueIndex = index;
+  }
+
+}
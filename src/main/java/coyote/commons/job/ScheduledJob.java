@@ -57,14 +57,36 @@ public class ScheduledJob extends ThreadJob {
 
     /**
      * Used to implement a doubly linked list in the Scheduler
+     *
+     * @deprecated the Scheduler queues jobs in a {@link JobQueue} and no longer links them
      */
+    @Deprecated
     protected volatile ScheduledJob nextJob = null;
 
     /**
      * Used to implement a doubly linked list in the Scheduler
+     *
+     * @deprecated the Scheduler queues jobs in a {@link JobQueue} and no longer links them
      */
+    @Deprecated
     protected volatile ScheduledJob previousJob = null;
 
+    /**
+     * The position of this job in the queue of a Scheduler, -1 if not queued
+     */
+    int queueIndex = -1;
+
+    /**
+     * The execution time this job is queued by
+     */
+    long queueTime = 0;
+
+    /**
+     * The order this job was added to the queue, to keep jobs with the same
+     * time in order
+     */
+    long queueSequence = 0;
+
     /**
      * Indicates this job has been canceled
      */
@@ -328,7 +350,10 @@ public class ScheduledJob extends ThreadJob {
 
     /**
      * @return the next job to be run after this one
+     *
+     * @deprecated not maintained by the Scheduler, use {@link Scheduler#getNextJob()}
      */
+    @Deprecated
     public ScheduledJob getNextJob() {
         return nextJob;
     }
@@ -339,7 +364,10 @@ public class ScheduledJob extends ThreadJob {
      *
      * @param nextJob the next job to be run after this one
      * @return a reference to this ScheduledJob for method chaining.
+     *
+     * @deprecated not used by the Scheduler
      */
+    @Deprecated
     public ScheduledJob setNextJob(ScheduledJob nextJob) {
         this.nextJob = nextJob;
         return this;
@@ -348,7 +376,10 @@ public class ScheduledJob extends ThreadJob {
 
     /**
      * @return the next job to be run before this job
+     *
+     * @deprecated not maintained by the Scheduler
      */
+    @Deprecated
     public ScheduledJob getPreviousJob() {
         return previousJob;
     }
@@ -359,7 +390,10 @@ public class ScheduledJob extends ThreadJob {
      *
      * @param previousJob the next job to be run before this job
      * @return a reference to this ScheduledJob for method chaining.
+     *
+     * @deprecated not used by the Scheduler
      */
+    @Deprecated
     public ScheduledJob setPreviousJob(ScheduledJob previousJob) {
         this.previousJob = previousJob;
         return this;
@@ -14,7 +14,10 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -29,18 +32,33 @@ import java.util.concurrent.Executors;
  * <p>The best way to use this is to create an instance of it and call the
  * {@link #daemonize()} method to start it running in the background. Then, add
  * jobs to the scheduler using {@link #schedule(ScheduledJob)} .</p>
+ *
+ * <p>Jobs are kept in a heap ordered by execution time, so scheduling,
+ * rescheduling and removing a job takes {@code O(log n)} time no matter how
+ * many jobs are scheduled. Jobs run in a pool of at most
+ * {@link #setMaximumThreads(int) maximum threads}; jobs due while all the
+ * threads are busy wait in a queue of at most
+ * {@link #setQueueSize(int) queue size} jobs and jobs due when that is full
+ * are skipped until their next execution time.</p>
  */
 public class Scheduler extends ThreadJob {
 
   /** Tag used in various class identifying locations */
   public static final String CLASS = "Scheduler";
-  private ScheduledJob nextJob = null;
-  private ScheduledJob lastJob = null;
+  private final JobQueue jobs = new JobQueue();
   private final Object mutex = new Object();
   private long WAIT_TIME = 50;
   public static final long SCHED = Log.getCode("SCHEDULER");
 
+  /** The default maximum number of jobs run at once */
+  public static final int DEFAULT_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+  /** The default number of due jobs which may wait for a thread */
+  public static final int DEFAULT_QUEUE_SIZE = 10000;
+
   private ExecutorService executor = null;
+  private int maximumThreads = DEFAULT_THREADS;
+  private int queueSize = DEFAULT_QUEUE_SIZE;
 
   public static final long SECOND_INTERVAL = 1000l;
   public static final long MINUTE_INTERVAL = SECOND_INTERVAL * 60;
@@ -54,23 +72,78 @@ public class Scheduler extends ThreadJob {
    * @return the number of jobs currently in the scheduler
    */
   public int getJobCount() {
-    int count = 0;
-
     synchronized (mutex) {
-      if (this.nextJob != null) {
-        ScheduledJob job = nextJob;
+      return jobs.size();
+    }
+  }
 
-        for (count = 0; job != null; count++) {
-          if (job == job.getNextJob()) {
-            break;
-          }
 
-          job = job.getNextJob();
-        }
-      }
+
+
+  /**
+   * @return the maximum number of jobs run at once
+   */
+  public int getMaximumThreads() {
+    return maximumThreads;
+  }
+
+
+
+
+  /**
+   * Set the maximum number of jobs run at once.
+   *
+   * <p>This must be set before the scheduler is initialized.</p>
+   *
+   * @param threads the number of threads in the pool running the jobs
+   */
+  public void setMaximumThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Maximum threads must be positive: " + threads);
     }
+    maximumThreads = threads;
+  }
+
+
+
 
-    return count;
+  /**
+   * @return the number of due jobs which may wait for a thread
+   */
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+
+
+
+  /**
+   * Set the number of due jobs which may wait for a thread to run them.
+   *
+   * <p>This must be set before the scheduler is initialized.</p>
+   *
+   * @param size the number of jobs which may wait
+   */
+  public void setQueueSize(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Queue size must be positive: " + size);
+    }
+    queueSize = size;
+  }
+
+
+
+
+  /**
+   * Use the given executor to run jobs instead of creating a pool.
+   *
+   * <p>This must be set before the scheduler is initialized. The executor is
+   * shut down when the scheduler terminates.</p>
+   *
+   * @param executor the executor to run the jobs
+   */
+  public void setExecutor(ExecutorService executor) {
+    this.executor = executor;
   }
 
 
@@ -82,7 +155,9 @@ public class Scheduler extends ThreadJob {
   public void initialize() {
     Log.trace(String.format("Initializing %s",this.getClass().getSimpleName()));
     if (executor == null) {
-      executor = Executors.newCachedThreadPool();
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(maximumThreads, maximumThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueSize));
+      pool.allowCoreThreadTimeOut(true);
+      executor = pool;
     }
   }
 
@@ -103,86 +178,115 @@ public class Scheduler extends ThreadJob {
    */
   public void doWork() {
     synchronized (mutex) {
+      ScheduledJob nextJob = jobs.peek();
       if (nextJob != null) {
         long executionTime = System.currentTimeMillis();
-        long jobTime = nextJob.getExecutionTime();
+        long jobTime = nextJob.queueTime;
 
         // Check to see if it is time to run this job. If it is really close, 
         // wait around
         long millis = jobTime - executionTime;
-        //Log.append( SCHED, nextJob + " to run at " + new Date( jobTime ) + " (" + jobTime + ")  diff:" + millis );
 
         // if the time we have to wait is less than or equal to the time we 
         // wait between calls to the doWork() method, wait for the time to 
         // elapse
         if (millis <= WAIT_TIME) {
           // If it is in the future, wait around for it, otherwise run it
-          while (jobTime > System.currentTimeMillis()) {
+          while (millis > 0) {
             try {
               mutex.wait(millis);
             } catch (Exception ex) {
               // Exit the routine, the next time we enter, we'll re-check the
-              // job list and process the possibly new nextJob reference
+              // job list and process the possibly new next job
+              return;
+            }
+            if (jobs.peek() != nextJob) {
+              // a job was added or removed while waiting, re-check the queue
+              return;
+            }
+            // the same job may have been removed and queued again for
+            // another time, and waits can end early, so measure again
+            jobTime = nextJob.queueTime;
+            millis = jobTime - System.currentTimeMillis();
+            if (millis > WAIT_TIME) {
               return;
             }
           }
 
+          // the logging below describes every job, only build it if needed
+          final boolean logging = Log.isLogging(SCHED);
+
           // If we got here, it is time (or past the time) to execute the next
-          // ScheduledJob referenced by nextJob
+          // ScheduledJob in the queue
           try {
             executionTime = System.currentTimeMillis();
-            Log.append(SCHED, "========================================\r\nExecution Time: " + executionTime + " (" + new Date(executionTime) + "):\r\nInitial State of Scheduled Jobs Before Removing Next (Target) Job:\r\n" + dump());
+            if (logging) {
+              Log.append(SCHED, "========================================\r\nExecution Time: " + executionTime + " (" + new Date(executionTime) + "):\r\nInitial State of Scheduled Jobs Before Removing Next (Target) Job:\r\n" + dump());
+            }
 
-            // Remove the job from the list and only work with the job which was removed
-            ScheduledJob target = remove(nextJob);
+            // Remove the job from the queue and only work with the job which was removed
+            ScheduledJob target = jobs.poll();
 
-            if (Log.isLogging(SCHED)) {
+            if (logging) {
+              nextJob = jobs.peek();
               if (nextJob != null) {
-                Log.append(SCHED, "Handling '" + target + "' now - next job '" + nextJob + "' to run at " + new Date(nextJob.getExecutionTime()) + "\r\nState of Jobs After Removing Target (Next) Job:\r\n" + dump());
+                Log.append(SCHED, "Handling '" + target + "' now - next job '" + nextJob + "' to run at " + new Date(nextJob.queueTime) + "\r\nState of Jobs After Removing Target (Next) Job:\r\n" + dump());
               } else {
                 Log.append(SCHED, "Handling '" + target + "' now - there is no other job to run\r\n" + dump());
               }
+              Log.append(SCHED, target + " enabled=" + target.isEnabled() + " cancelled=" + target.isCancelled() + " limit=" + target.getExecutionLimit() + " count=" + target.getExecutionCount() + " repeat=" + target.isRepeatable());
             }
 
-            Log.append(SCHED, target + " enabled=" + target.isEnabled() + " cancelled=" + target.isCancelled() + " limit=" + target.getExecutionLimit() + " count=" + target.getExecutionCount() + " repeat=" + target.isRepeatable());
             if (!target.isCancelled() && ((target.getExecutionLimit() < 1) || (target.getExecutionLimit() > 0) && (target.getExecutionCount() < target.getExecutionLimit()))) {
 
               // Only run jobs which are enabled, otherwise reschedule them if 
               // necessary
               if (target.isEnabled()) {
                 if (target.isActive()) {
-                  Log.append(SCHED, "Job " + target + " is already active, skipping execution");
+                  if (logging) {
+                    Log.append(SCHED, "Job " + target + " is already active, skipping execution");
+                  }
                 } else {
-                  Log.append(SCHED, "Running " + target + " in threadpool");
+                  if (logging) {
+                    Log.append(SCHED, "Running " + target + " in threadpool");
+                  }
 
                   // Run the Scheduled Job in the ExecutorService
                   if (executor != null) {
                     target.setActiveFlag(true);
-                    executor.execute(target);
+                    try {
+                      executor.execute(target);
+
+                      // Increment the execution counter
+                      target.incrementExecutionCount();
+                    } catch (RejectedExecutionException e) {
+                      target.setActiveFlag(false);
+                      Log.warn("Skipped running " + target + ", " + maximumThreads + " jobs are running and " + queueSize + " are waiting to run");
+                    }
                   } else {
                     Log.append(SCHED, "ExecutorService not initialized, cannot run job: " + target);
                   }
-
-                  // Increment the execution counter
-                  target.incrementExecutionCount();
                 }
-              } else {
+              } else if (logging) {
                 Log.append(SCHED, "Did not run disabled job " + target + " in threadpool");
               }
 
               // If the ScheduledJob is set for repetition
               if (target.isRepeatable()) {
-                Log.append(SCHED, "Repeating job " + target + " execution time = " + executionTime + ",  target interval = " + target.getExecutionInterval());
+                if (logging) {
+                  Log.append(SCHED, "Repeating job " + target + " execution time = " + executionTime + ",  target interval = " + target.getExecutionInterval());
+                }
 
                 // If we have no limit or have not exceeded our limit...
                 if ((target.getExecutionLimit() == 0) || (target.getExecutionLimit() > 0) && (target.getExecutionCount() < target.getExecutionLimit())) {
                   // ...reschedule the job
                   target.setExecutionTime(target.getNextExecutionTime());
-                  Log.append(SCHED, "Set execution time to " + new Date(target.getExecutionTime()) + " execution time = " + executionTime + ",  target interval = " + target.getExecutionInterval());
                   schedule(target);
-                  Log.append(SCHED, "Scheduled repeating job " + target + " (runs=" + target.getExecutionCount() + " interval=" + target.getExecutionInterval() + ") will run again at " + new Date(target.getExecutionTime()) + "\r\nState of Jobs After Rescheduling Target (Next) Job:\r\n" + dump());
+                  if (logging) {
+                    Log.append(SCHED, "Scheduled repeating job " + target + " (runs=" + target.getExecutionCount() + " interval=" + target.getExecutionInterval() + ") will run again at " + new Date(target.getExecutionTime()) + "\r\nState of Jobs After Rescheduling Target (Next) Job:\r\n" + dump());
+                  }
                 }
-              } else {
+              } else if (logging) {
                 Log.append(SCHED, "Job " + target + " is not flagged to be repeated, will not be added back to the execution list");
               }
             }
@@ -191,10 +295,13 @@ public class Scheduler extends ThreadJob {
             Log.warn(ex.getClass().getName() + " thrown in scheduler loop\r\n" + ExceptionUtil.stackTrace(ex));
           }
 
-          if (nextJob != null) {
-            Log.append(SCHED, "Next job '" + nextJob + "' to run at " + nextJob.getExecutionTime() + " (" + new Date(nextJob.getExecutionTime()) + ")");
-          } else {
-            Log.append(SCHED, "There is no job currently queued next");
+          if (logging) {
+            nextJob = jobs.peek();
+            if (nextJob != null) {
+              Log.append(SCHED, "Next job '" + nextJob + "' to run at " + nextJob.queueTime + " (" + new Date(nextJob.queueTime) + ")");
+            } else {
+              Log.append(SCHED, "There is no job currently queued next");
+            }
           }
 
         } // time is close enough to execution time
@@ -229,14 +336,18 @@ public class Scheduler extends ThreadJob {
    * @param job the job to be rescheduled
    */
   protected void reschedule(ScheduledJob job) {
-    // Remove the job from the list
-    ScheduledJob target = remove(job);
-
-    if (target != null) {
-      Log.append(SCHED, "Rescheduling job " + target + " on request - was to run at " + new Date(target.getExecutionTime()));
-      target.setExecutionTime(System.currentTimeMillis() + target.getExecutionInterval());
-      schedule(target);
-      Log.append(SCHED, "Rescheduled job " + target + " - will now run at " + new Date(target.getExecutionTime()));
+    if (job != null) {
+      if (Log.isLogging(SCHED)) {
+        Log.append(SCHED, "Rescheduling job " + job + " on request - was to run at " + new Date(job.getExecutionTime()));
+      }
+      synchronized (mutex) {
+        // scheduling a queued job moves it to its new place
+        job.setExecutionTime(System.currentTimeMillis() + job.getExecutionInterval());
+        schedule(job);
+      }
+      if (Log.isLogging(SCHED)) {
+        Log.append(SCHED, "Rescheduled job " + job + " - will now run at " + new Date(job.getExecutionTime()));
+      }
     }
   }
 
@@ -338,49 +449,24 @@ public class Scheduler extends ThreadJob {
    * This results in jobs being executed in the order in which they were placed
    * in the job list if all the execution times match.</p>
    *
+   * <p>Scheduling a job which is already in the list moves it to the place
+   * for its current execution time.</p>
+   *
    * @param job The ScheduledJob to place in the scheduler's job list
    */
   public void schedule(ScheduledJob job) {
     if (job != null) {
-      Log.append(SCHED, "Scheduling job " + job + " to run at " + new Date(job.getExecutionTime()));
+      if (Log.isLogging(SCHED)) {
+        Log.append(SCHED, "Scheduling job " + job + " to run at " + new Date(job.getExecutionTime()));
+      }
 
       synchronized (mutex) {
-        // Start at the beginning
-        ScheduledJob current = nextJob;
-        ScheduledJob previous = null;
-
-        // Loop through all the job references and find where the job belongs
-        while (current != null) {
-          if (current.getExecutionTime() > job.getExecutionTime()) {
-            break;
-          }
+        jobs.add(job);
 
-          previous = current;
-          current = current.getNextJob();
+        if (Log.isLogging(SCHED)) {
+          Log.append(SCHED, "Job scheduled in list of " + jobs.size() + " jobs - NextJob: " + jobs.peek());
         }
 
-        // link current and previous jobs to this job
-        if (!job.equals(current) && !job.equals(previous)) {
-          job.setPreviousJob(previous);
-          job.setNextJob(current);
-
-          if (current != null) {
-            current.setPreviousJob(job);
-          } else {
-            lastJob = job;
-          }
-
-          if (previous != null) {
-            previous.setNextJob(job);
-          } else {
-            nextJob = job;
-          }
-        } else {
-          Log.append(SCHED, "Aaaakkk! Circular Job reference");
-        }
-
-        Log.append(SCHED, "Job scheduled in list of " + getJobCount() + " jobs - NextJob: " + nextJob);
-
         // Let everyone know there is a new Job in the scheduler
         mutex.notifyAll();
       }
@@ -405,32 +491,9 @@ public class Scheduler extends ThreadJob {
     }
 
     synchronized (mutex) {
-      if (this.nextJob != null) {
-        // start at the top of the queue of jobs
-        ScheduledJob test = nextJob;
-
-        while (test != null) {
-
-          // if the current job matches the job for which er are looking
-          if (job.equals(test)) {
-
-            if (test.getPreviousJob() != null) {
-              test.getPreviousJob().setNextJob(test.getNextJob());
-            } else {
-              nextJob = test.getNextJob();
-            }
-
-            if (test.getNextJob() != null) {
-              test.getNextJob().setPreviousJob(test.getPreviousJob());
-            } else {
-              lastJob = test.getPreviousJob();
-            }
-
-            break; // We found a match, we can exit
-          }
-
-          test = test.getNextJob();
-        }
+      if (jobs.remove(job)) {
+        // the scheduler may be waiting for this job
+        mutex.notifyAll();
       }
     }
 
@@ -444,7 +507,9 @@ public class Scheduler extends ThreadJob {
    * @return the next job scheduled for execution
    */
   public ScheduledJob getNextJob() {
-    return nextJob;
+    synchronized (mutex) {
+      return jobs.peek();
+    }
   }
 
 
@@ -455,25 +520,20 @@ public class Scheduler extends ThreadJob {
    */
   public String dump() {
     SimpleDateFormat DATEFORMAT = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
-    StringBuffer retval = new StringBuffer("--[ JobList ]------------------------------------------------\r\n");
-    retval.append("Next: " + nextJob + " - " + (nextJob == null ? 0 : nextJob.getExecutionTime()) + "\r\n");
-    retval.append("Last: " + lastJob + " - " + (lastJob == null ? 0 : lastJob.getExecutionTime()) + "\r\n");
-    retval.append("- - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -\r\n");
-
+    ScheduledJob[] queued;
     synchronized (mutex) {
-      long i = 0;
-
-      if (this.nextJob != null) {
-        ScheduledJob test = nextJob;
-
-        while (test != null) {
-          retval.append("Job#" + i + " " + test.getExecutionTime() + " (" + DATEFORMAT.format(new Date(test.getExecutionTime())) + ")  - " + test + "\r\n");
+      queued = jobs.toSortedArray();
+    }
+    ScheduledJob nextJob = (queued.length > 0) ? queued[0] : null;
+    ScheduledJob lastJob = (queued.length > 0) ? queued[queued.length - 1] : null;
 
-          test = test.getNextJob();
+    StringBuffer retval = new StringBuffer("--[ JobList ]------------------------------------------------\r\n");
+    retval.append("Next: " + nextJob + " - " + (nextJob == null ? 0 : nextJob.queueTime) + "\r\n");
+    retval.append("Last: " + lastJob + " - " + (lastJob == null ? 0 : lastJob.queueTime) + "\r\n");
+    retval.append("- - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -\r\n");
 
-          i++;
-        }
-      }
+    for (int i = 0; i < queued.length; i++) {
+      retval.append("Job#" + i + " " + queued[i].queueTime + " (" + DATEFORMAT.format(new Date(queued[i].queueTime)) + ")  - " + queued[i] + "\r\n");
     }
 
     retval.append("-------------------------------------------------------------");
@@ -481,4 +541,4 @@ public class Scheduler extends ThreadJob {
     return retval.toString();
   }
 
-}
\ No newline at end of file
+}
@@ -38,6 +38,12 @@ public abstract class AbstractLogger implements Logger {
   /** The target of our logging operations */
   protected URI target;
 
+  /** The largest format buffer kept for reuse by a thread */
+  private static final int MAX_BUFFER_SIZE = 16 * 1024;
+
+  /** Format buffers reused by each thread for every log entry */
+  private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
 
 
 
@@ -63,6 +69,33 @@ public abstract class AbstractLogger implements Logger {
 
 
 
+  /**
+   * Access the empty format buffer of the current thread.
+   *
+   * <p>Loggers format each entry into this buffer with
+   * {@link Formatter#format(StringBuilder, Object, String, Throwable)} and
+   * write it out before returning, so formatting creates no garbage. The
+   * buffer must be emptied once the entry is written and not kept.
+   *
+   * @return an empty buffer for the current thread.
+   */
+  protected static StringBuilder getFormatBuffer() {
+    StringBuilder retval = BUFFER.get();
+    if (retval.length() > 0) {
+      // an entry is being logged while formatting another
+      return new StringBuilder(512);
+    }
+    if (retval.capacity() > MAX_BUFFER_SIZE) {
+      // don't hold on to the space needed by an occasional huge entry
+      retval = new StringBuilder(512);
+      BUFFER.set(retval);
+    }
+    return retval;
+  }
+
+
+
+
   /**
    * @return the mask that defines which events this logger should log.
    */
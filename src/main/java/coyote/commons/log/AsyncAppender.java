@@ -0,0 +1,532 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.log;
+
+import coyote.commons.ExceptionUtil;
+import coyote.commons.StringUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * AsyncAppender is a FileAppender which writes to its file from a background
+ * thread so logging threads never wait on disk I/O.
+ *
+ * <p>Events are formatted on the logging thread, since formatters record the
+ * name and location of the caller, and the formatted text is placed in a
+ * bounded lock-free ring. A single writer thread drains the ring and writes
+ * everything it finds in one large write and flush, so a burst of events
+ * costs one trip to the disk instead of one per event.
+ *
+ * <p>When the ring is full, the overflow policy decides what happens:
+ * <ul>
+ * <li>{@code DROP} - the event is discarded (the default)</li>
+ * <li>{@code BLOCK} - the logging thread waits for space</li>
+ * <li>{@code DROP_BELOW} - events in standard categories below the threshold
+ * category (default WARN) are discarded, all others wait for space</li>
+ * </ul>
+ * Discarded events are counted and reported by {@link #getDroppedCount()}.
+ *
+ * <p>Events logged through {@link Log} reach the appender while the logging
+ * subsystem holds its lock, so a thread waiting for space stalls every
+ * thread logging to any logger until the writer thread catches up. Only
+ * choose {@code BLOCK} or {@code DROP_BELOW} where losing events is worse
+ * than that.
+ *
+ * <p>The writer thread sleeps while the ring is empty and the logging thread
+ * which finds it asleep wakes it, so an idle appender costs nothing.
+ *
+ * <p>Everything in the ring is written when the appender is terminated,
+ * which the logging subsystem does for all loggers when the runtime shuts
+ * down. Terminate waits for the writer thread to finish before closing the
+ * file.
+ */
+public class AsyncAppender extends FileAppender {
+
+    /**
+     * The name of the configuration attribute containing the number of events the ring holds.
+     */
+    public static final String CAPACITY_TAG = "capacity";
+    /**
+     * The name of the configuration attribute containing the overflow policy.
+     */
+    public static final String OVERFLOW_TAG = "overflow";
+    /**
+     * The name of the configuration attribute containing the lowest category kept with the DROP_BELOW policy.
+     */
+    public static final String THRESHOLD_TAG = "threshold";
+    /**
+     * The number of events buffered by default.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The largest batch of text written in one write.
+     */
+    private static final int BATCH_SIZE = 64 * 1024;
+    /**
+     * The longest a logging thread sleeps while waiting for space in the ring.
+     */
+    private static final long FULL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    /**
+     * No writer thread; the next event starts one if initialized.
+     */
+    private static final int IDLE = 0;
+    /**
+     * A thread is creating the ring and writer thread.
+     */
+    private static final int STARTING = 1;
+    /**
+     * The writer thread is draining the ring.
+     */
+    private static final int RUNNING = 2;
+    /**
+     * A thread is waiting for the writer thread to drain the ring and finish.
+     */
+    private static final int STOPPING = 3;
+    /**
+     * The standard categories from lowest to highest.
+     */
+    private static final long[] STANDARD_CATEGORIES = {Log.TRACE_EVENTS, Log.DEBUG_EVENTS, Log.INFO_EVENTS, Log.NOTICE_EVENTS, Log.WARN_EVENTS, Log.ERROR_EVENTS, Log.FATAL_EVENTS};
+
+    private volatile EventRing ring;
+    private volatile Overflow overflow = Overflow.DROP;
+    private volatile long keptCategories = keptFrom(Log.WARN_EVENTS);
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+    private volatile Thread writer = null;
+    private int capacity = DEFAULT_CAPACITY;
+
+
+    /**
+     * Construct an AsyncAppender with an initial mask value of zero (i.e. does
+     * not log any events).
+     */
+    public AsyncAppender() {
+        super();
+    }
+
+
+    /**
+     * Construct an AsyncAppender that appends to the specified File with an
+     * initial mask value of zero (i.e. does not log any events).
+     *
+     * @param file The file.
+     */
+    public AsyncAppender(final File file) {
+        this(file, 0, true);
+    }
+
+
+    /**
+     * Construct an AsyncAppender that writes to the specified File with an
+     * initial mask value and either appends or overwrites the file.
+     *
+     * @param file       The file.
+     * @param mask       The initial mask value.
+     * @param appendflag true to append data to the file, false to overwrite
+     */
+    public AsyncAppender(final File file, final long mask, final boolean appendflag) {
+        super(file, mask, appendflag);
+    }
+
+
+    /**
+     * Read the ring size and overflow policy from the configuration before
+     * preparing the file.
+     */
+    @Override
+    public void initialize() {
+        if (!initialized && config != null) {
+            if (config.contains(CAPACITY_TAG)) {
+                try {
+                    setCapacity(Integer.parseInt(config.getString(CAPACITY_TAG).trim()));
+                } catch (final NumberFormatException e) {
+                    System.err.println("Invalid " + CAPACITY_TAG + " for " + getClass().getName() + " - '" + config.getString(CAPACITY_TAG) + "'");
+                }
+            }
+            if (config.contains(OVERFLOW_TAG)) {
+                try {
+                    setOverflow(Overflow.valueOf(config.getString(OVERFLOW_TAG).trim().toUpperCase()));
+                } catch (final IllegalArgumentException e) {
+                    System.err.println("Invalid " + OVERFLOW_TAG + " for " + getClass().getName() + " - '" + config.getString(OVERFLOW_TAG) + "'");
+                }
+            }
+            if (config.contains(THRESHOLD_TAG)) {
+                try {
+                    setThreshold(config.getString(THRESHOLD_TAG).trim());
+                } catch (final IllegalArgumentException e) {
+                    System.err.println("Invalid " + THRESHOLD_TAG + " for " + getClass().getName() + " - '" + config.getString(THRESHOLD_TAG) + "'");
+                }
+            }
+        }
+        super.initialize();
+    }
+
+
+    /**
+     * Format the event on the calling thread and queue it for the writer
+     * thread.
+     *
+     * @param category The category.
+     * @param event    The event.
+     * @param cause    The exception that caused the log entry. Can be null.
+     */
+    @Override
+    public void append(final String category, final Object event, final Throwable cause) {
+        if (log_writer == null) {
+            return;
+        }
+        if (state.get() != RUNNING && !start()) {
+            // terminated; write directly as any other file appender would
+            super.append(category, event, cause);
+            return;
+        }
+
+        final String text;
+        try {
+            synchronized (formatter) {
+                final StringBuilder buffer = getFormatBuffer();
+                try {
+                    formatter.format(buffer, event, category, cause);
+                    text = buffer.toString();
+                } finally {
+                    buffer.setLength(0);
+                }
+            }
+        } catch (final Exception e) {
+            System.err.println(this.getClass().getName() + " formatting error: " + e + ":" + e.getMessage() + StringUtil.LINE_FEED + ExceptionUtil.stackTrace(e));
+            return;
+        }
+
+        final EventRing events = ring;
+        if (!events.offer(text)) {
+            if (overflow == Overflow.DROP || (overflow == Overflow.DROP_BELOW && (keptCategories & Log.getCode(category)) == 0)) {
+                dropped.incrementAndGet();
+                return;
+            }
+            // give the writer thread the processor until there is space
+            for (int spins = 0; !events.offer(text); spins++) {
+                if (state.get() != RUNNING) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                if (spins < 100) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(FULL_NANOS);
+                }
+            }
+        }
+        wake();
+    }
+
+
+    /**
+     * Wake the writer thread if it went to sleep on an empty ring.
+     */
+    private void wake() {
+        if (sleeping.get() && sleeping.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+
+    /**
+     * Start the writer thread if it is not running.
+     *
+     * <p>Only the thread which moves the appender from idle to starting
+     * creates the writer thread; others wait for it to finish.
+     *
+     * @return true if the writer thread is running, false if this appender
+     * has been terminated and not initialized since or is being terminated.
+     */
+    private boolean start() {
+        while (true) {
+            final int current = state.get();
+            if (current == RUNNING) {
+                return true;
+            } else if (current == STOPPING) {
+                return false;
+            } else if (current == STARTING) {
+                Thread.yield();
+            } else if (state.compareAndSet(IDLE, STARTING)) {
+                if (!initialized || log_writer == null) {
+                    state.set(IDLE);
+                    return false;
+                }
+                ring = new EventRing(capacity);
+                sleeping.set(false);
+                final Thread thread = new Thread(this::drain, "AsyncAppender-" + (targetFile != null ? targetFile.getName() : "log"));
+                thread.setDaemon(true);
+                writer = thread;
+                // running only once terminate can join the thread
+                thread.start();
+                state.set(RUNNING);
+                return true;
+            }
+        }
+    }
+
+
+    /**
+     * The body of the writer thread: batch everything in the ring into single
+     * writes until terminated and the ring is empty.
+     */
+    private void drain() {
+        final StringBuilder batch = new StringBuilder(BATCH_SIZE);
+        final EventRing events = ring;
+        while (true) {
+            String text = events.poll();
+            if (text == null) {
+                if (!live()) {
+                    if (events.isEmpty()) {
+                        break;
+                    }
+                    // an event is still being placed in the ring
+                    Thread.yield();
+                    continue;
+                }
+                // announce the sleep before the last look so no event is missed
+                sleeping.set(true);
+                if (events.isEmpty() && live()) {
+                    LockSupport.park(this);
+                }
+                sleeping.set(false);
+                continue;
+            }
+
+            preProcess();
+            if (targetFile != null) {
+                checkTarget();
+            }
+            while (text != null) {
+                batch.append(text);
+                if (batch.length() >= BATCH_SIZE) {
+                    write(batch);
+                }
+                text = events.poll();
+            }
+            write(batch);
+            flush();
+        }
+    }
+
+
+    /**
+     * @return true while the writer thread should keep draining the ring,
+     * including while the thread which started it finishes starting.
+     */
+    private boolean live() {
+        final int current = state.get();
+        return current == RUNNING || current == STARTING;
+    }
+
+
+    /**
+     * Write the batch to the file and clear it.
+     */
+    private void write(final StringBuilder batch) {
+        if (batch.length() > 0) {
+            if (log_writer != null) {
+                try {
+                    log_writer.append(batch);
+                } catch (final IOException ignore) {
+                    // normal during shutdown sequences
+                }
+            }
+            batch.setLength(0);
+        }
+    }
+
+
+    private void flush() {
+        if (log_writer != null) {
+            try {
+                log_writer.flush();
+            } catch (final IOException ignore) {
+                // normal during shutdown sequences
+            }
+        }
+    }
+
+
+    /**
+     * Write all the queued events, stop the writer thread and close the file.
+     *
+     * <p>The file is closed only after the writer thread has written
+     * everything in the ring and finished. A writer thread being started
+     * when this is called is stopped the same way once it is running.
+     */
+    @Override
+    public void terminate() {
+        while (true) {
+            final int current = state.get();
+            if (current == STARTING) {
+                Thread.yield();
+            } else if (current == RUNNING) {
+                if (state.compareAndSet(RUNNING, STOPPING)) {
+                    final Thread thread = writer;
+                    LockSupport.unpark(thread);
+                    join(thread);
+                    writer = null;
+                    super.terminate();
+                    state.set(IDLE);
+                    return;
+                }
+            } else if (current == STOPPING) {
+                // another thread is terminating; wait for it to close the file
+                join(writer);
+                while (state.get() == STOPPING) {
+                    Thread.yield();
+                }
+                return;
+            } else if (state.compareAndSet(IDLE, STOPPING)) {
+                // never started; keep it from starting while the file closes
+                super.terminate();
+                state.set(IDLE);
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Wait for the given thread to finish, preserving any interrupt.
+     */
+    private static void join(final Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * @return the number of events discarded because the ring was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+
+    /**
+     * @return the number of events which may be waiting to be written before
+     * logging threads are subject to the overflow policy.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+
+    /**
+     * Set the number of events buffered; rounded up to a power of two.
+     *
+     * <p>This only has an effect before the first event is appended.
+     *
+     * @param size the number of events to buffer.
+     */
+    public void setCapacity(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        capacity = size;
+    }
+
+
+    /**
+     * @return what happens to events appended when the buffer is full.
+     */
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+
+    /**
+     * @param policy what should happen to events appended when the buffer is
+     *               full, null for the default of {@code DROP}.
+     */
+    public void setOverflow(final Overflow policy) {
+        overflow = (policy != null) ? policy : Overflow.DROP;
+    }
+
+
+    /**
+     * Set the lowest of the standard categories which is kept when the buffer
+     * is full and the overflow policy is {@code DROP_BELOW}.
+     *
+     * <p>The standard categories from lowest to highest are TRACE, DEBUG,
+     * INFO, NOTICE, WARN, ERROR and FATAL. Other categories are always kept.
+     *
+     * @param category the lowest category to keep.
+     */
+    public void setThreshold(final String category) {
+        final long code = Log.getCode(category);
+        for (final long standard : STANDARD_CATEGORIES) {
+            if (standard == code) {
+                keptCategories = keptFrom(code);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Threshold must be a standard category: '" + category + "'");
+    }
+
+
+    /**
+     * @return the mask of all categories except the standard ones below the
+     * given threshold.
+     */
+    private static long keptFrom(final long threshold) {
+        long retval = -1L;
+        for (final long standard : STANDARD_CATEGORIES) {
+            if (standard == threshold) {
+                break;
+            }
+            retval &= ~standard;
+        }
+        return retval;
+    }
+
+
+    /**
+     * What to do with events appended when the buffer is full.
+     */
+    public enum Overflow {
+        /**
+         * Wait for the writer thread to make space, stalling all logging
+         * through {@link Log} while waiting.
+         */
+        BLOCK,
+        /**
+         * Discard the event.
+         */
+        DROP,
+        /**
+         * Discard events below the threshold category and wait for space for the rest.
+         */
+        DROP_BELOW
+    }
+
+}
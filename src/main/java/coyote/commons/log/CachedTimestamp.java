@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.log;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+
+/**
+ * Renders times in the {@code yyyy-MM-dd HH:mm:ss.SSS zzz} format of log
+ * entries without formatting a date for every entry.
+ *
+ * <p>The text on either side of the milliseconds is rendered once for each
+ * second and shared between threads; within a second only the milliseconds
+ * are written. Log entries arrive many times a second, so nearly every entry
+ * is rendered with no formatting and no garbage.
+ */
+final class CachedTimestamp {
+
+    /**
+     * The text of a rendered second; immutable so threads can share it.
+     */
+    private static final class Second {
+        final long second;
+        final String date;
+        final String zone;
+
+
+        Second(final long second, final String date, final String zone) {
+            this.second = second;
+            this.date = date;
+            this.zone = zone;
+        }
+    }
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.");
+    private final SimpleDateFormat zoneFormat = new SimpleDateFormat(" zzz");
+    private volatile Second current = new Second(Long.MIN_VALUE, "", "");
+
+
+    /**
+     * Append the given time to the buffer.
+     *
+     * @param buffer the buffer to which the time is written
+     * @param millis the epoch time in milliseconds
+     * @return the buffer
+     */
+    StringBuilder append(final StringBuilder buffer, final long millis) {
+        final long second = Math.floorDiv(millis, 1000);
+        Second text = current;
+        if (text.second != second) {
+            text = render(second);
+        }
+        final int fraction = Math.floorMod(millis, 1000);
+        buffer.append(text.date);
+        if (fraction < 100) {
+            buffer.append('0');
+            if (fraction < 10) {
+                buffer.append('0');
+            }
+        }
+        buffer.append(fraction);
+        buffer.append(text.zone);
+        return buffer;
+    }
+
+
+    /**
+     * Render the text for the given second and make it current.
+     */
+    private synchronized Second render(final long second) {
+        Second retval = current;
+        if (retval.second != second) {
+            final Date date = new Date(second * 1000);
+            retval = new Second(second, dateFormat.format(date), zoneFormat.format(date));
+            current = retval;
+        }
+        return retval;
+    }
+
+}
@@ -8,7 +8,6 @@
 package coyote.commons.log;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.util.StringTokenizer;
 
@@ -35,7 +34,7 @@ public class ConsoleAppender extends AbstractLogger {
    * Constructor ConsoleAppender
    */
   public ConsoleAppender() {
-    this( new OutputStreamWriter( System.out ), 0 );
+    this( new EncodingWriter( System.out ), 0 );
   }
 
 
@@ -48,7 +47,7 @@ public class ConsoleAppender extends AbstractLogger {
    * @param mask The initial mask value.
    */
   public ConsoleAppender( final long mask ) {
-    this( new OutputStreamWriter( System.out ), mask );
+    this( new EncodingWriter( System.out ), mask );
   }
 
 
@@ -95,8 +94,14 @@ public class ConsoleAppender extends AbstractLogger {
    */
   public void append( final String category, final Object event, final Throwable cause ) {
     try {
-      log_writer.write( formatter.format( event, category, cause ) );
-      log_writer.flush();
+      final StringBuilder buffer = getFormatBuffer();
+      try {
+        formatter.format( buffer, event, category, cause );
+        log_writer.append( buffer );
+        log_writer.flush();
+      } finally {
+        buffer.setLength( 0 );
+      }
     } catch ( final IOException ioe ) {
       // normal during shutdown sequences - but what about other times?
       // maybe we should consider refactoring this
@@ -126,7 +131,7 @@ public class ConsoleAppender extends AbstractLogger {
 
     // Switch to STDERR depending on configuration!
     if ( config != null && config.get( TARGET_TAG ) != null && STDERR.equalsIgnoreCase( config.getAsString( TARGET_TAG ) ) ) {
-      log_writer = new OutputStreamWriter( System.err );
+      log_writer = new EncodingWriter( System.err );
     }
 
     if ( config != null && config.get( Logger.CATEGORY_TAG ) != null ) {
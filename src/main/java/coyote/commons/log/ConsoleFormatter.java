@@ -36,16 +36,44 @@ public class ConsoleFormatter implements Formatter {
    * @return a string representing the line to place in the log
    */
   public String format(final Object event, final String category, final Throwable cause) {
+    final StringBuilder buffer = new StringBuilder(128);
+    render(buffer, event, category, cause);
+    return buffer.toString();
+  }
+
 
-    final StringBuffer buffer = new StringBuffer();
 
+
+  /**
+   * Format the event into the given buffer.
+   *
+   * @param buffer the buffer to which the log entry is appended
+   * @param event the thing to be logged
+   * @param category the type of log entry it is
+   * @param cause The exception that caused the log entry. Can be null.
+   */
+  @Override
+  public void format(final StringBuilder buffer, final Object event, final String category, final Throwable cause) {
+    render(buffer, event, category, cause);
+  }
+
+
+
+
+  /**
+   * Render the log entry; shared by both format methods so the stack depth of
+   * the caller is the same from either.
+   */
+  private void render(final StringBuilder buffer, final Object event, final String category, final Throwable cause) {
     buffer.append(category);
     buffer.append(" | ");
 
     if (Log.TRACE.equals(category) || Log.DEBUG.equals(category)) {
       final StackTraceElement[] stack = new Exception().fillInStackTrace().getStackTrace();
 
-      final StackTraceElement elem = stack[(stack.length <= Log.getStackDepth()) ? stack.length - 1 : Log.getStackDepth()];
+      // one frame deeper than the format method called by the logger
+      final int depth = Log.getStackDepth() + 1;
+      final StackTraceElement elem = stack[(stack.length <= depth) ? stack.length - 1 : depth];
 
       buffer.append(ExceptionUtil.getAbbreviatedClassname(elem.getClassName()));
       buffer.append(".");
@@ -61,7 +89,9 @@ public class ConsoleFormatter implements Formatter {
       buffer.append(" | ");
     }
 
-    if (event != null) {
+    if (event instanceof CharSequence) {
+      buffer.append((CharSequence)event);
+    } else if (event != null) {
       buffer.append(event.toString());
     }
 
@@ -98,8 +128,6 @@ public class ConsoleFormatter implements Formatter {
     }
 
     buffer.append(StringUtil.LINE_FEED);
-
-    return buffer.toString();
   }
 
 
@@ -11,7 +11,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.util.Calendar;
 
 
@@ -123,7 +122,7 @@ public class CyclingFileAppender extends FileAppender {
 
       // open the writer to the new file
       try {
-        log_writer = new OutputStreamWriter(new FileOutputStream(targetFile.toString(), true));
+        log_writer = new EncodingWriter(new FileOutputStream(targetFile.toString(), true));
       } catch (final FileNotFoundException e1) {
         e1.printStackTrace();
         terminate();
@@ -7,9 +7,6 @@
  */
 package coyote.commons.log;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
 import coyote.commons.ExceptionUtil;
 import coyote.commons.StringUtil;
 
@@ -20,7 +17,7 @@ import coyote.commons.StringUtil;
  * <p>This should meet the needs of 99% of the use cases.
  */
 public class DefaultFormatter implements Formatter {
-  private static final SimpleDateFormat DATE_FORMATTER = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS zzz");
+  private final CachedTimestamp timestamp = new CachedTimestamp();
   private volatile long lastevent = 0;
 
 
@@ -46,15 +43,45 @@ public class DefaultFormatter implements Formatter {
    * @return a string representing the line to place in the log
    */
   public String format(final Object event, final String category, final Throwable cause) {
+    final StringBuilder buffer = new StringBuilder(128);
+    render(buffer, event, category, cause);
+    return buffer.toString();
+  }
+
+
+
+
+  /**
+   * Format the event into the given buffer.
+   *
+   * <p>No garbage is created unless the event is in the trace or debug
+   * category, carries an exception or is not a character sequence.
+   *
+   * @param buffer the buffer to which the log entry is appended
+   * @param event the thing to be logged
+   * @param category the type of log entry it is
+   * @param cause The exception that caused the log entry. Can be null.
+   */
+  @Override
+  public void format(final StringBuilder buffer, final Object event, final String category, final Throwable cause) {
+    render(buffer, event, category, cause);
+  }
+
+
+
+
+  /**
+   * Render the log entry; shared by both format methods so the stack depth of
+   * the caller is the same from either.
+   */
+  private void render(final StringBuilder buffer, final Object event, final String category, final Throwable cause) {
     final long now = System.currentTimeMillis();
 
     if (lastevent == 0) {
       lastevent = now;
     }
 
-    final StringBuffer buffer = new StringBuffer();
-
-    buffer.append(DefaultFormatter.DATE_FORMATTER.format(new Date(now)));
+    timestamp.append(buffer, now);
     buffer.append(" | ");
     buffer.append(Thread.currentThread().getName());
     buffer.append(" | ");
@@ -69,7 +96,9 @@ public class DefaultFormatter implements Formatter {
     if (Log.TRACE.equals(category) || Log.DEBUG.equals(category)) {
       final StackTraceElement[] stack = new Exception().fillInStackTrace().getStackTrace();
 
-      final StackTraceElement elem = stack[(stack.length <= Log.getStackDepth()) ? stack.length - 1 : Log.getStackDepth()];
+      // one frame deeper than the format method called by the logger
+      final int depth = Log.getStackDepth() + 1;
+      final StackTraceElement elem = stack[(stack.length <= depth) ? stack.length - 1 : depth];
 
       buffer.append(ExceptionUtil.getAbbreviatedClassname(elem.getClassName()));
       buffer.append(".");
@@ -85,7 +114,11 @@ public class DefaultFormatter implements Formatter {
       buffer.append(" | ");
     }
 
-    buffer.append(event.toString());
+    if (event instanceof CharSequence) {
+      buffer.append((CharSequence)event);
+    } else {
+      buffer.append(event.toString());
+    }
 
     Throwable ball = cause;
     if ((event != null) && (cause == null) && (event instanceof Throwable)) {
@@ -147,8 +180,6 @@ public class DefaultFormatter implements Formatter {
     buffer.append(StringUtil.LINE_FEED);
 
     lastevent = now;
-
-    return buffer.toString();
   }
 
 
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+
+/**
+ * A Writer which encodes characters into a reusable byte buffer and writes
+ * that buffer to a stream.
+ *
+ * <p>This is what an {@code OutputStreamWriter} does, except that text is
+ * copied straight from strings and string builders into its own character
+ * buffer instead of a new array for each write, so writing log entries
+ * creates no garbage. Bytes are held until the buffer fills or the writer is
+ * flushed.
+ */
+final class EncodingWriter extends Writer {
+
+    private final OutputStream out;
+    private final CharsetEncoder encoder;
+    private final char[] chars = new char[1024];
+    private final CharBuffer pending = CharBuffer.wrap(chars);
+    private final ByteBuffer bytes = ByteBuffer.allocate(8192);
+    private boolean closed = false;
+
+
+    /**
+     * Create a writer using the default character set.
+     *
+     * @param out the stream to write to
+     */
+    EncodingWriter(final OutputStream out) {
+        this(out, Charset.defaultCharset());
+    }
+
+
+    /**
+     * Create a writer using the given character set.
+     *
+     * @param out     the stream to write to
+     * @param charset the encoding of the written characters
+     */
+    EncodingWriter(final OutputStream out, final Charset charset) {
+        this.out = out;
+        encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+
+    @Override
+    public void write(final int c) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            if (!pending.hasRemaining()) {
+                encode(false);
+            }
+            pending.put((char) c);
+        }
+    }
+
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            int index = off;
+            final int end = off + len;
+            while (index < end) {
+                if (!pending.hasRemaining()) {
+                    encode(false);
+                }
+                final int count = Math.min(end - index, pending.remaining());
+                pending.put(cbuf, index, count);
+                index += count;
+            }
+        }
+    }
+
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            int index = off;
+            final int end = off + len;
+            while (index < end) {
+                if (!pending.hasRemaining()) {
+                    encode(false);
+                }
+                final int count = Math.min(end - index, pending.remaining());
+                str.getChars(index, index + count, chars, pending.position());
+                pending.position(pending.position() + count);
+                index += count;
+            }
+        }
+    }
+
+
+    @Override
+    public Writer append(final CharSequence csq) throws IOException {
+        if (csq == null) {
+            write("null");
+        } else if (csq instanceof String) {
+            write((String) csq, 0, csq.length());
+        } else if (csq instanceof StringBuilder) {
+            final StringBuilder builder = (StringBuilder) csq;
+            synchronized (lock) {
+                ensureOpen();
+                int index = 0;
+                final int end = builder.length();
+                while (index < end) {
+                    if (!pending.hasRemaining()) {
+                        encode(false);
+                    }
+                    final int count = Math.min(end - index, pending.remaining());
+                    builder.getChars(index, index + count, chars, pending.position());
+                    pending.position(pending.position() + count);
+                    index += count;
+                }
+            }
+        } else {
+            synchronized (lock) {
+                for (int x = 0; x < csq.length(); x++) {
+                    write(csq.charAt(x));
+                }
+            }
+        }
+        return this;
+    }
+
+
+    /**
+     * Fail writes after the writer is closed with an IOException, as
+     * {@code OutputStreamWriter} does, rather than an IllegalStateException
+     * from the finished encoder.
+     */
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+
+    /**
+     * Encode the pending characters into the byte buffer, writing the byte
+     * buffer to the stream each time it fills.
+     *
+     * <p>A character which is half of a surrogate pair is left pending until
+     * its other half is written.
+     *
+     * @param endOfInput true if no more characters will be written
+     */
+    private void encode(final boolean endOfInput) throws IOException {
+        pending.flip();
+        while (true) {
+            final CoderResult result = encoder.encode(pending, bytes, endOfInput);
+            if (result.isOverflow()) {
+                drain();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        pending.compact();
+    }
+
+
+    /**
+     * Write the byte buffer to the stream.
+     */
+    private void drain() throws IOException {
+        if (bytes.position() > 0) {
+            out.write(bytes.array(), 0, bytes.position());
+            bytes.clear();
+        }
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        synchronized (lock) {
+            ensureOpen();
+            encode(false);
+            drain();
+            out.flush();
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                encode(true);
+                while (encoder.flush(bytes).isOverflow()) {
+                    drain();
+                }
+                drain();
+                out.flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+
+/**
+ * A bounded ring of formatted log entries with many producers and a single
+ * consumer.
+ *
+ * <p>Producers claim a slot by advancing the tail with a compare-and-set and
+ * publish the entry by advancing the sequence number of that slot. The
+ * consumer only reads slots whose sequence shows they have been published, so
+ * no locks are taken on either side. A full ring is reported to the producer
+ * rather than waited on, leaving the overflow policy to the caller.
+ */
+final class EventRing {
+
+    private final int mask;
+    private final AtomicReferenceArray<String> entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Only ever read and written by the consumer thread.
+     */
+    private long head = 0;
+
+
+    /**
+     * Create a ring with at least the given number of slots.
+     *
+     * @param size the minimum number of entries the ring should hold; rounded
+     *             up to the next power of two.
+     */
+    EventRing(final int size) {
+        int capacity = Integer.highestOneBit(Math.max(2, size));
+        if (capacity < size) {
+            capacity <<= 1;
+        }
+        mask = capacity - 1;
+        entries = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int x = 0; x < capacity; x++) {
+            sequences.set(x, x);
+        }
+    }
+
+
+    /**
+     * @return the number of entries the ring can hold.
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+
+    /**
+     * Place an entry in the ring.
+     *
+     * @param entry the entry to add
+     * @return true if the entry was added, false if the ring is full.
+     */
+    boolean offer(final String entry) {
+        while (true) {
+            final long position = tail.get();
+            final int index = (int) position & mask;
+            final long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    entries.lazySet(index, entry);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+            // another producer claimed this slot; try the next one
+        }
+    }
+
+
+    /**
+     * Remove the oldest entry from the ring.
+     *
+     * <p>Only one thread may call this method.
+     *
+     * @return the oldest entry or null if the ring is empty.
+     */
+    String poll() {
+        final int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        final String retval = entries.get(index);
+        entries.lazySet(index, null);
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return retval;
+    }
+
+
+    /**
+     * @return true if there are no published entries in the ring.
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+}
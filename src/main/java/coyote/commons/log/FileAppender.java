@@ -26,6 +26,11 @@ public class FileAppender extends AbstractLogger {
     protected Writer log_writer;
     protected File targetFile = null;
     protected boolean append = true;
+    /**
+     * Milliseconds between checks that the target file still exists.
+     */
+    private static final long TARGET_CHECK_INTERVAL = 1000;
+    private volatile long lastTargetCheck = 0;
 
 
     /**
@@ -75,7 +80,7 @@ public class FileAppender extends AbstractLogger {
 
         try {
             targetFile = file;
-            log_writer = new OutputStreamWriter(new FileOutputStream(file.toString(), append));
+            log_writer = new EncodingWriter(new FileOutputStream(file.toString(), append));
 
             final byte[] header = getFormatter().initialize();
 
@@ -101,9 +106,48 @@ public class FileAppender extends AbstractLogger {
      */
     public void append(final String category, final Object event, final Throwable cause) {
         preProcess();// useful for subclasses
+        checkTarget();
+
+        if (log_writer != null) {
+            try {
+                synchronized (formatter) {
+                    final StringBuilder buffer = getFormatBuffer();
+                    try {
+                        formatter.format(buffer, event, category, cause);
+                        log_writer.append(buffer);
+                        log_writer.flush();
+                    } finally {
+                        buffer.setLength(0);
+                    }
+                }
+            } catch (final IOException ioe) {
+                // normal during shutdown sequences - but what about other times?
+                // maybe we should consider refactoring this
+            } catch (final Exception e) {
+                System.err.println(this.getClass().getName() + " formatting error: " + e + ":" + e.getMessage() + StringUtil.LINE_FEED + ExceptionUtil.stackTrace(e));
+            }
+        }
+    }
+
+
+    /**
+     * Recreate the log writer if the target file has been removed since it was
+     * opened.
+     *
+     * <p>Looking for the file costs a call to the file system, so it is only
+     * done once a second; entries logged in the second after the file is
+     * removed are lost with it.
+     */
+    protected void checkTarget() {
+        final long now = System.currentTimeMillis();
+        if (log_writer != null && now - lastTargetCheck < TARGET_CHECK_INTERVAL && now >= lastTargetCheck) {
+            return;
+        }
+        lastTargetCheck = now;
+
         if (!targetFile.exists()) {
             try {
-                log_writer = new OutputStreamWriter(new FileOutputStream(targetFile.toString(), append));
+                log_writer = new EncodingWriter(new FileOutputStream(targetFile.toString(), append));
 
                 final byte[] header = getFormatter().initialize();
 
@@ -122,20 +166,6 @@ public class FileAppender extends AbstractLogger {
                 log_writer = null;
             }
         }
-
-        if (log_writer != null) {
-            try {
-                synchronized (formatter) {
-                    log_writer.write(formatter.format(event, category, cause));
-                    log_writer.flush();
-                }
-            } catch (final IOException ioe) {
-                // normal during shutdown sequences - but what about other times?
-                // maybe we should consider refactoring this
-            } catch (final Exception e) {
-                System.err.println(this.getClass().getName() + " formatting error: " + e + ":" + e.getMessage() + StringUtil.LINE_FEED + ExceptionUtil.stackTrace(e));
-            }
-        }
     }
 
 
@@ -220,7 +250,7 @@ public class FileAppender extends AbstractLogger {
                 targetFile = dest;
 
                 // Create the writer
-                log_writer = new OutputStreamWriter(new FileOutputStream(targetFile.toString(), append));
+                log_writer = new EncodingWriter(new FileOutputStream(targetFile.toString(), append));
 
                 final byte[] header = getFormatter().initialize();
 
@@ -29,6 +29,28 @@ public interface Formatter {
 
 
 
+  /**
+   * Format the given object into the given buffer based upon the given
+   * category.
+   *
+   * <p>Loggers use this method with a buffer they reuse for every entry so
+   * formatters which append directly to the buffer can log without creating
+   * garbage. This default appends the result of
+   * {@link #format(Object, String, Throwable)}.
+   *
+   * @param buffer The buffer to which the log entry is appended.
+   * @param event The object to format into a string.
+   * @param category The category of the event to be used in optional condition
+   *        formatting.
+   * @param cause The exception that caused the log entry. Can be null.
+   */
+  public default void format( final StringBuilder buffer, final Object event, final String category, final Throwable cause ) {
+    buffer.append( format( event, category, cause ) );
+  }
+
+
+
+
   /**
    * Setup the formatter.
    *
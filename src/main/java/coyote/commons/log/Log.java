@@ -8,6 +8,7 @@
 package coyote.commons.log;
 
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -113,6 +114,21 @@ public final class Log {
      */
     private static volatile int stackDepth = 5;
 
+    /**
+     * The message buffer and argument array each thread reuses to log
+     * patterns.
+     */
+    private static final class PatternBuffer {
+        private static final ThreadLocal<PatternBuffer> BUFFERS = ThreadLocal.withInitial(PatternBuffer::new);
+        final StringBuilder message = new StringBuilder(256);
+        final Object[] args = new Object[3];
+
+
+        static PatternBuffer get() {
+            return BUFFERS.get();
+        }
+    }
+
     static {
         LogKernel.addLogger(LogKernel.DEFAULT_LOGGER_NAME, new NullAppender(Log.INFO_EVENTS | Log.NOTICE_EVENTS | Log.WARN_EVENTS | Log.ERROR_EVENTS | Log.FATAL_EVENTS));
     }
@@ -242,6 +258,207 @@ public final class Log {
         LogKernel.append(Log.getCode(category), event, cause);
     }
 
+    /**
+     * Log a message built from a pattern and arguments if any logger is
+     * logging the given category.
+     *
+     * <p>Each {@code {n}} in the pattern is replaced with argument {@code n},
+     * as with {@link java.text.MessageFormat} but without format types or
+     * quoting. The message is only built when the category is being logged,
+     * so disabled categories cost nothing, and enabled ones are built in a
+     * reused buffer so only the finished message is allocated. The overloads
+     * taking two or three arguments do not create an argument array.</p>
+     *
+     * <p>These methods have their own name so they never compete with the
+     * {@code append} methods for a call; to log a cause, use
+     * {@link #append(String, Object, Throwable)}.</p>
+     *
+     * @param category The category of the desired log operation
+     * @param pattern  The message pattern.
+     * @param args     The arguments substituted into the pattern.
+     */
+    public static void appendf(final String category, final String pattern, final Object... args) {
+        final long code = Log.getCode(category);
+        if (LogKernel.isLogging(code)) {
+            Log.appendPattern(code, pattern, args, (args != null) ? args.length : 0);
+        }
+    }
+
+    /**
+     * Log a message built from a pattern and two arguments if any logger is
+     * logging the given category.
+     *
+     * @param category The category of the desired log operation
+     * @param pattern  The message pattern.
+     * @param arg0     The argument substituted for {@code {0}}.
+     * @param arg1     The argument substituted for {@code {1}}.
+     * @see #appendf(String, String, Object...)
+     */
+    public static void appendf(final String category, final String pattern, final Object arg0, final Object arg1) {
+        final long code = Log.getCode(category);
+        if (LogKernel.isLogging(code)) {
+            Log.appendPattern(code, pattern, Log.arguments(arg0, arg1, null), 2);
+        }
+    }
+
+    /**
+     * Log a message built from a pattern and three arguments if any logger is
+     * logging the given category.
+     *
+     * @param category The category of the desired log operation
+     * @param pattern  The message pattern.
+     * @param arg0     The argument substituted for {@code {0}}.
+     * @param arg1     The argument substituted for {@code {1}}.
+     * @param arg2     The argument substituted for {@code {2}}.
+     * @see #appendf(String, String, Object...)
+     */
+    public static void appendf(final String category, final String pattern, final Object arg0, final Object arg1, final Object arg2) {
+        final long code = Log.getCode(category);
+        if (LogKernel.isLogging(code)) {
+            Log.appendPattern(code, pattern, Log.arguments(arg0, arg1, arg2), 3);
+        }
+    }
+
+    /**
+     * Log a message built from a pattern and arguments if any logger is
+     * logging the given category.
+     *
+     * @param code    The category code.
+     * @param pattern The message pattern.
+     * @param args    The arguments substituted into the pattern.
+     * @see #appendf(String, String, Object...)
+     */
+    public static void appendf(final long code, final String pattern, final Object... args) {
+        if (LogKernel.isLogging(code)) {
+            Log.appendPattern(code, pattern, args, (args != null) ? args.length : 0);
+        }
+    }
+
+    /**
+     * Log a message built from a pattern and two arguments if any logger is
+     * logging the given category.
+     *
+     * @param code    The category code.
+     * @param pattern The message pattern.
+     * @param arg0    The argument substituted for {@code {0}}.
+     * @param arg1    The argument substituted for {@code {1}}.
+     * @see #appendf(String, String, Object...)
+     */
+    public static void appendf(final long code, final String pattern, final Object arg0, final Object arg1) {
+        if (LogKernel.isLogging(code)) {
+            Log.appendPattern(code, pattern, Log.arguments(arg0, arg1, null), 2);
+        }
+    }
+
+    /**
+     * Log a message built from a pattern and three arguments if any logger is
+     * logging the given category.
+     *
+     * @param code    The category code.
+     * @param pattern The message pattern.
+     * @param arg0    The argument substituted for {@code {0}}.
+     * @param arg1    The argument substituted for {@code {1}}.
+     * @param arg2    The argument substituted for {@code {2}}.
+     * @see #appendf(String, String, Object...)
+     */
+    public static void appendf(final long code, final String pattern, final Object arg0, final Object arg1, final Object arg2) {
+        if (LogKernel.isLogging(code)) {
+            Log.appendPattern(code, pattern, Log.arguments(arg0, arg1, arg2), 3);
+        }
+    }
+
+    /**
+     * Place the arguments in the reusable argument array of the current
+     * thread.
+     */
+    private static Object[] arguments(final Object arg0, final Object arg1, final Object arg2) {
+        Object[] retval = PatternBuffer.get().args;
+        if (retval[0] != null || retval[1] != null || retval[2] != null) {
+            // logging from within toString() of an argument
+            retval = new Object[3];
+        }
+        retval[0] = arg0;
+        retval[1] = arg1;
+        retval[2] = arg2;
+        return retval;
+    }
+
+    /**
+     * Build the message and send it to the loggers; called directly from the
+     * public methods so the stack depth to the caller is the same as for other
+     * events.
+     *
+     * <p>Loggers get their own copy of the message since they may keep the
+     * event, as queuing appenders do, after the buffer is reused.</p>
+     */
+    private static void appendPattern(final long code, final String pattern, final Object[] args, final int count) {
+        final StringBuilder message = substitute(pattern, args, count);
+        try {
+            LogKernel.append(code, message.toString(), null);
+        } finally {
+            message.setLength(0);
+            if (args == PatternBuffer.get().args) {
+                Arrays.fill(args, null);
+            }
+        }
+    }
+
+    /**
+     * Replace each {@code {n}} in the pattern with argument {@code n} in the
+     * message buffer of the current thread.
+     *
+     * <p>Placeholders without a matching argument are left as they are. The
+     * returned buffer must be emptied once the message is logged.</p>
+     *
+     * @param pattern the message pattern
+     * @param args    the arguments substituted into the pattern
+     * @param count   the number of arguments in the array to use
+     * @return the buffer containing the message
+     */
+    static StringBuilder substitute(final String pattern, final Object[] args, final int count) {
+        StringBuilder retval = PatternBuffer.get().message;
+        if (retval.length() > 0) {
+            // logging from within toString() of an argument
+            retval = new StringBuilder(256);
+        }
+        final int length = pattern.length();
+        int mark = 0;
+        for (int x = 0; x < length; x++) {
+            if (pattern.charAt(x) == '{') {
+                int end = x + 1;
+                int index = 0;
+                while (end < length && pattern.charAt(end) >= '0' && pattern.charAt(end) <= '9') {
+                    index = (index * 10) + (pattern.charAt(end++) - '0');
+                }
+                if (end > x + 1 && end < length && pattern.charAt(end) == '}' && index < count) {
+                    retval.append(pattern, mark, x);
+                    appendArgument(retval, args[index]);
+                    mark = end + 1;
+                    x = end;
+                }
+            }
+        }
+        retval.append(pattern, mark, length);
+        return retval;
+    }
+
+    /**
+     * Append an argument without creating a string for common types.
+     */
+    private static void appendArgument(final StringBuilder buffer, final Object arg) {
+        if (arg instanceof CharSequence) {
+            buffer.append((CharSequence) arg);
+        } else if (arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte) {
+            buffer.append(((Number) arg).longValue());
+        } else if (arg instanceof Boolean) {
+            buffer.append(((Boolean) arg).booleanValue());
+        } else if (arg instanceof Character) {
+            buffer.append(((Character) arg).charValue());
+        } else {
+            buffer.append(arg);
+        }
+    }
+
     /**
      * Log the event with category "DEBUG".
      *
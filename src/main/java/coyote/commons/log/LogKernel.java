@@ -53,6 +53,11 @@ final class LogKernel {
      */
     private static final HashSet<String> permanentLoggers = new HashSet<>();
     static long masks; // union of masks of all loggers
+    /**
+     * The loggers in the fixture, updated whenever one is added or removed so
+     * appending an event need not enumerate the map.
+     */
+    private static Logger[] loggers = new Logger[0];
 
     static {
         // Set up a shutdown hook to clean up the loggers
@@ -91,6 +96,7 @@ final class LogKernel {
 
         if (logger != null) {
             LogKernel.nameToLogger.put(name, logger);
+            LogKernel.refreshLoggers();
             logger.initialize();
             LogKernel.recalcMasks();
         }
@@ -117,9 +123,7 @@ final class LogKernel {
     public static synchronized void append(final long code, final Object event, final Throwable cause) {
         final String category = LogKernel.getCategory(code);
 
-        for (final Enumeration<Logger> en = LogKernel.nameToLogger.elements(); en.hasMoreElements(); ) {
-            final Logger logger = en.nextElement();
-
+        for (final Logger logger : LogKernel.loggers) {
             if ((logger.getMask() & code) != 0 || (logger.getMask() == -1L)) {
                 logger.append(category, event, cause);
             }
@@ -367,6 +371,13 @@ final class LogKernel {
         LogKernel.permanentLoggers.add(name);
     }
 
+    /**
+     * Rebuild the array of loggers events are sent to.
+     */
+    private static synchronized void refreshLoggers() {
+        LogKernel.loggers = LogKernel.nameToLogger.values().toArray(new Logger[0]);
+    }
+
     /**
      * Recalculate the master mask value.
      */
@@ -408,6 +419,7 @@ final class LogKernel {
             }
 
             LogKernel.nameToLogger.remove(name);
+            LogKernel.refreshLoggers();
             LogKernel.recalcMasks();
         }
     }
@@ -424,6 +436,7 @@ final class LogKernel {
 
         // clear the logger table
         LogKernel.nameToLogger.clear();
+        LogKernel.refreshLoggers();
 
         // recalculate masks to 0
         LogKernel.recalcMasks();
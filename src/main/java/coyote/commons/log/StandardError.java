@@ -7,7 +7,6 @@
  */
 package coyote.commons.log;
 
-import java.io.OutputStreamWriter;
 
 
 /**
@@ -23,7 +22,7 @@ public class StandardError extends ConsoleAppender {
    * Constructor StandardError
    */
   public StandardError() {
-    super( new OutputStreamWriter( System.err ), 0 );
+    super( new EncodingWriter( System.err ), 0 );
   }
 
 
@@ -36,6 +35,6 @@ public class StandardError extends ConsoleAppender {
    * @param mask The initial mask value.
    */
   public StandardError( final long mask ) {
-    super( new OutputStreamWriter( System.err ), mask );
+    super( new EncodingWriter( System.err ), mask );
   }
 }
\ No newline at end of file
@@ -7,7 +7,6 @@
  */
 package coyote.commons.log;
 
-import java.io.OutputStreamWriter;
 
 
 /**
@@ -23,7 +22,7 @@ public class StandardOutput extends ConsoleAppender implements Logger {
    * Default constructor.
    */
   public StandardOutput() {
-    super(new OutputStreamWriter(System.out), 0);
+    super(new EncodingWriter(System.out), 0);
   }
 
 
@@ -36,6 +35,6 @@ public class StandardOutput extends ConsoleAppender implements Logger {
    * @param mask The initial mask value.
    */
   public StandardOutput(final long mask) {
-    super(new OutputStreamWriter(System.out), mask);
+    super(new EncodingWriter(System.out), mask);
   }
 }
@@ -9,11 +9,30 @@ package coyote.commons.network;
 
 import java.net.InetAddress;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.StringTokenizer;
 
 
 /**
  * Holder for an Access Control list.
+ *
+ * <p>The rules are kept in a binary prefix trie for each address length (IPv4
+ * and IPv6), with single-child paths collapsed, so checking an address visits
+ * at most one node per bit of the address whatever the number of rules.
+ * Networks whose mask is not a simple prefix are kept apart and checked in
+ * turn.
+ *
+ * <p>By default the first rule added which matches an address decides the
+ * check. The ACL can instead use the rule with the longest matching prefix,
+ * the way routing tables do, so the order rules are added in does not
+ * matter.
+ *
+ * <p>The rules are never changed in place. Each change builds a new set of
+ * rules, sharing everything but the path to the changed node with the old
+ * one, and publishes it in a single write. Checks therefore never lock and
+ * always see a complete set of rules, while changes are serialized.
  */
 public class IpAcl {
   /** The string representing the ALLOW state. */
@@ -40,14 +59,11 @@ public class IpAcl {
   /** default setting for the default mode for a new ACL. */
   public static final boolean DEFAULT_MODE = IpAcl.ALLOW;
 
-  /** The default mode of this ACL. */
-  private boolean defaultAllow = IpAcl.DEFAULT_MODE;
-
   /** This is the friendly identifier of this component */
   private final String name = null;
 
-  /** The ACL is stored in this ArrayList. */
-  private final ArrayList<ACLRule> acl = new ArrayList<ACLRule>();
+  /** The current rules, replaced as a whole on every change. */
+  private volatile Rules acl = new Rules( IpAcl.DEFAULT_MODE, false, null, null, new ACLRule[0], 0 );
 
 
 
@@ -182,7 +198,57 @@ public class IpAcl {
    * @param allow  The new default mode: True = allow by default, false = deny by default.
    */
   public synchronized void setDefaultAllow( final boolean allow ) {
-    defaultAllow = allow;
+    final Rules current = acl;
+    acl = new Rules( allow, current.longestMatch, current.ip4, current.ip6, current.others, current.count );
+  }
+
+
+
+
+  /**
+   * @return the mode for addresses which do not match any rule: true to allow them, false to deny them
+   */
+  public boolean isDefaultAllow() {
+    return acl.defaultAllow;
+  }
+
+
+
+
+  /**
+   * Choose which rule decides a check when several match the address.
+   *
+   * <p>By default the first rule added which matches is used, so specific
+   * rules must be added before the broader ones they are exceptions to. With
+   * longest matching, the rule for the smallest network containing the
+   * address is used, whatever order the rules were added in. Of rules for the
+   * same network, the first added is always used.
+   *
+   * @param longest true to use the most specific matching rule, false to use the first added
+   */
+  public synchronized void setLongestMatch( final boolean longest ) {
+    final Rules current = acl;
+    acl = new Rules( current.defaultAllow, longest, current.ip4, current.ip6, current.others, current.count );
+  }
+
+
+
+
+  /**
+   * @return true if the most specific matching rule decides a check, false if the first added does
+   */
+  public boolean isLongestMatch() {
+    return acl.longestMatch;
+  }
+
+
+
+
+  /**
+   * @return the number of rules in this ACL, not counting the default
+   */
+  public int size() {
+    return acl.count;
   }
 
 
@@ -214,9 +280,8 @@ public class IpAcl {
    * @param allowed wether or not connections from the specified network will be
    *          accepted.
    */
-  public void add( final IpNetwork network, final boolean allowed ) {
-    // create a new rule and add it to the list
-    acl.add( new ACLRule( network, allowed ) );
+  public synchronized void add( final IpNetwork network, final boolean allowed ) {
+    acl = acl.with( network, allowed );
   }
 
 
@@ -229,9 +294,9 @@ public class IpAcl {
    *
    * @return whether the address was permitted by the ACL
    */
-  public synchronized boolean allows( final InetAddress addr ) {
+  public boolean allows( final InetAddress addr ) {
     try {
-      return allows( new IpAddress( addr.getHostAddress() ) );
+      return allows( new IpAddress( addr ) );
     } catch ( final Exception e ) {}
 
     return false;
@@ -248,7 +313,7 @@ public class IpAcl {
    *
    * @return whether the address was permitted by the ACL
    */
-  public synchronized boolean allows( final String addr ) {
+  public boolean allows( final String addr ) {
     try {
       return allows( new IpAddress( addr ) );
     } catch ( final Exception e ) {}
@@ -266,17 +331,12 @@ public class IpAcl {
    *
    * @return whether the address was permitted by the ACL
    */
-  public synchronized boolean allows( final IpAddress addr ) {
-    for ( int i = 0; i < acl.size(); i++ ) {
-      final ACLRule rule = (ACLRule)acl.get( i );
-
-      if ( rule.network.contains( addr ) ) {
-        return rule.allows;
-      }
-    }
+  public boolean allows( final IpAddress addr ) {
+    final Rules current = acl;
+    final ACLRule rule = current.find( addr );
 
-    // We have gone through all the rules without a match, return the default
-    return defaultAllow;
+    // No rule matched, return the default
+    return ( rule != null ) ? rule.allows : current.defaultAllow;
   }
 
 
@@ -291,7 +351,11 @@ public class IpAcl {
    * @param newacl The ACL to append to this list.
    */
   public synchronized void append( final IpAcl newacl ) {
-    for ( int i = 0; i < newacl.acl.size(); acl.add( newacl.acl.get( i++ ) ) );
+    Rules current = acl;
+    for ( final ACLRule rule : newacl.acl.list() ) {
+      current = current.with( rule.network, rule.allows );
+    }
+    acl = current;
   }
 
 
@@ -313,21 +377,23 @@ public class IpAcl {
   @Override
   public String toString() {
     final StringBuffer buffer = new StringBuffer();
+    final Rules current = acl;
+    final List<ACLRule> rules = current.list();
 
     buffer.append( IpAcl.DEFAULT_TAG );
     buffer.append( IpAcl.TOKEN_DELIM );
 
-    if ( defaultAllow ) {
+    if ( current.defaultAllow ) {
       buffer.append( IpAcl.ALLOW_TAG );
     } else {
       buffer.append( IpAcl.DENY_TAG );
     }
 
-    if ( acl.size() > 0 ) {
+    if ( rules.size() > 0 ) {
       buffer.append( IpAcl.RULE_DELIM );
 
-      for ( int i = 0; i < acl.size(); i++ ) {
-        final ACLRule rule = (ACLRule)acl.get( i );
+      for ( int i = 0; i < rules.size(); i++ ) {
+        final ACLRule rule = rules.get( i );
         buffer.append( rule.network.toString() );
         buffer.append( IpAcl.TOKEN_DELIM );
 
@@ -337,7 +403,7 @@ public class IpAcl {
           buffer.append( IpAcl.DENY_TAG );
         }
 
-        if ( i + 1 < acl.size() ) {
+        if ( i + 1 < rules.size() ) {
           buffer.append( IpAcl.RULE_DELIM );
         }
       }
@@ -349,10 +415,16 @@ public class IpAcl {
   /**
    * Wrapper class for an ACL rule.
    */
-  private class ACLRule {
+  private static class ACLRule {
 
-    boolean allows = true;
-    IpNetwork network = null;
+    final boolean allows;
+    final IpNetwork network;
+
+    /** The position of the rule in the order rules were added. */
+    final long order;
+
+    /** The number of bits in the network prefix, or set in the mask if it is not a prefix. */
+    final int length;
 
 
 
@@ -362,10 +434,314 @@ public class IpAcl {
      *
      * @param net the IpNetwork to represent
      * @param allowed true allows the network, false otherwise
+     * @param order the position of the rule in the ACL
+     * @param length the number of bits the rule matches on
      */
-    private ACLRule( final IpNetwork net, final boolean allowed ) {
+    private ACLRule( final IpNetwork net, final boolean allowed, final long order, final int length ) {
       network = net;
       allows = allowed;
+      this.order = order;
+      this.length = length;
+    }
+
+
+
+
+    /**
+     * @return true if this rule decides a check before the given rule
+     */
+    boolean precedes( final ACLRule rule, final boolean longest ) {
+      if ( rule == null ) {
+        return true;
+      }
+      if ( longest && length != rule.length ) {
+        return length > rule.length;
+      }
+      return order < rule.order;
+    }
+  }
+
+
+
+
+  /**
+   * One complete, unchanging set of rules.
+   */
+  private static final class Rules {
+    final boolean defaultAllow;
+    final boolean longestMatch;
+
+    /** The rules for 4 byte addresses with a prefix mask. */
+    final Node ip4;
+
+    /** The rules for 16 byte addresses with a prefix mask. */
+    final Node ip6;
+
+    /** All the other rules, in the order they were added. */
+    final ACLRule[] others;
+
+    final int count;
+
+
+
+
+    Rules( final boolean defaultAllow, final boolean longestMatch, final Node ip4, final Node ip6, final ACLRule[] others, final int count ) {
+      this.defaultAllow = defaultAllow;
+      this.longestMatch = longestMatch;
+      this.ip4 = ip4;
+      this.ip6 = ip6;
+      this.others = others;
+      this.count = count;
+    }
+
+
+
+
+    /**
+     * @return a copy of these rules with a rule for the network added after all the others
+     */
+    Rules with( final IpNetwork network, final boolean allowed ) {
+      final short[] octets = network.getOctets();
+      final int prefix = network.getPrefixLength();
+      if ( prefix >= 0 && ( octets.length == IpAddress.IP4_OCTETS || octets.length == IpAddress.IP6_OCTETS ) ) {
+        final ACLRule rule = new ACLRule( network, allowed, count, prefix );
+        final long high = Node.high( octets );
+        final long low = Node.low( octets );
+        if ( octets.length == IpAddress.IP4_OCTETS ) {
+          return new Rules( defaultAllow, longestMatch, Node.insert( ip4, high, low, prefix, rule ), ip6, others, count + 1 );
+        }
+        return new Rules( defaultAllow, longestMatch, ip4, Node.insert( ip6, high, low, prefix, rule ), others, count + 1 );
+      }
+
+      int bits = 0;
+      for ( final short element : network.getNetMask().getOctets() ) {
+        bits += Integer.bitCount( element & 0xFF );
+      }
+      final ACLRule[] rules = Arrays.copyOf( others, others.length + 1 );
+      rules[others.length] = new ACLRule( network, allowed, count, bits );
+      return new Rules( defaultAllow, longestMatch, ip4, ip6, rules, count + 1 );
+    }
+
+
+
+
+    /**
+     * @return the rule deciding the check of the address, null if none match
+     */
+    ACLRule find( final IpAddress addr ) {
+      final short[] octets = addr.getOctets();
+      ACLRule retval = null;
+      if ( octets.length == IpAddress.IP4_OCTETS ) {
+        retval = Node.find( ip4, Node.high( octets ), 0, longestMatch );
+      } else if ( octets.length == IpAddress.IP6_OCTETS ) {
+        retval = Node.find( ip6, Node.high( octets ), Node.low( octets ), longestMatch );
+      }
+
+      for ( final ACLRule rule : others ) {
+        if ( !longestMatch && retval != null && retval.order < rule.order ) {
+          break;
+        }
+        if ( rule.precedes( retval, longestMatch ) && rule.network.getOctets().length == octets.length ) {
+          try {
+            if ( rule.network.contains( addr ) ) {
+              retval = rule;
+            }
+          } catch ( final RuntimeException e ) {
+            // the mask does not fit the address, so it cannot match
+          }
+        }
+      }
+      return retval;
+    }
+
+
+
+
+    /**
+     * @return all the rules in the order they were added
+     */
+    List<ACLRule> list() {
+      final List<ACLRule> retval = new ArrayList<ACLRule>( count );
+      Node.collect( ip4, retval );
+      Node.collect( ip6, retval );
+      retval.addAll( Arrays.asList( others ) );
+      retval.sort( Comparator.comparingLong( rule -> rule.order ) );
+      return retval;
+    }
+  }
+
+
+
+
+  /**
+   * A node of a prefix trie.
+   *
+   * <p>Addresses are held as 128 bit keys in two longs, the first bytes of an
+   * address in the high bits. Each node holds the rules for one prefix and
+   * the nodes for longer prefixes, split on the next bit. Nodes are only
+   * created where a rule is or where two longer prefixes branch, so there are
+   * fewer than two nodes for each rule. Nodes are never changed; adding a
+   * rule copies the nodes on the path to it.
+   */
+  private static final class Node {
+    final long high;
+    final long low;
+    final int length;
+
+    /** The rules for exactly this prefix in the order they were added, null for none. */
+    final ACLRule[] rules;
+
+    final Node zero;
+    final Node one;
+
+
+
+
+    Node( final long high, final long low, final int length, final ACLRule[] rules, final Node zero, final Node one ) {
+      this.high = high & maskHigh( length );
+      this.low = low & maskLow( length );
+      this.length = length;
+      this.rules = rules;
+      this.zero = zero;
+      this.one = one;
+    }
+
+
+
+
+    static long high( final short[] octets ) {
+      long retval = 0;
+      for ( int i = 0; i < 8; i++ ) {
+        retval = ( retval << 8 ) | ( ( i < octets.length ) ? ( octets[i] & 0xFF ) : 0 );
+      }
+      return retval;
+    }
+
+
+
+
+    static long low( final short[] octets ) {
+      long retval = 0;
+      for ( int i = 8; i < 16; i++ ) {
+        retval = ( retval << 8 ) | ( ( i < octets.length ) ? ( octets[i] & 0xFF ) : 0 );
+      }
+      return retval;
+    }
+
+
+
+
+    private static long maskHigh( final int length ) {
+      return ( length >= 64 ) ? -1L : ( length == 0 ) ? 0 : -1L << ( 64 - length );
+    }
+
+
+
+
+    private static long maskLow( final int length ) {
+      return ( length <= 64 ) ? 0 : ( length >= 128 ) ? -1L : -1L << ( 128 - length );
+    }
+
+
+
+
+    private static int bit( final long high, final long low, final int index ) {
+      return (int)( ( index < 64 ) ? ( high >>> ( 63 - index ) ) : ( low >>> ( 127 - index ) ) ) & 1;
+    }
+
+
+
+
+    /**
+     * @return the number of leading bits two keys have in common
+     */
+    private static int common( final long high1, final long low1, final long high2, final long low2 ) {
+      if ( high1 != high2 ) {
+        return Long.numberOfLeadingZeros( high1 ^ high2 );
+      }
+      return 64 + Long.numberOfLeadingZeros( low1 ^ low2 );
+    }
+
+
+
+
+    /**
+     * @return true if the key starts with the prefix of this node
+     */
+    boolean matches( final long keyHigh, final long keyLow ) {
+      return ( ( keyHigh ^ high ) & maskHigh( length ) ) == 0 && ( ( keyLow ^ low ) & maskLow( length ) ) == 0;
+    }
+
+
+
+
+    /**
+     * Add a rule for a prefix.
+     *
+     * @return a copy of the trie with the rule added
+     */
+    static Node insert( final Node node, final long high, final long low, final int length, final ACLRule rule ) {
+      if ( node == null ) {
+        return new Node( high, low, length, new ACLRule[] { rule }, null, null );
+      }
+
+      final int common = Math.min( Math.min( node.length, length ), common( node.high, node.low, high, low ) );
+      if ( common == node.length ) {
+        if ( length == node.length ) {
+          final ACLRule[] rules = ( node.rules == null ) ? new ACLRule[1] : Arrays.copyOf( node.rules, node.rules.length + 1 );
+          rules[rules.length - 1] = rule;
+          return new Node( node.high, node.low, node.length, rules, node.zero, node.one );
+        }
+        if ( bit( high, low, node.length ) == 0 ) {
+          return new Node( node.high, node.low, node.length, node.rules, insert( node.zero, high, low, length, rule ), node.one );
+        }
+        return new Node( node.high, node.low, node.length, node.rules, node.zero, insert( node.one, high, low, length, rule ) );
+      }
+
+      // the prefixes part within this node, so a new node goes above it
+      final ACLRule[] rules = ( common == length ) ? new ACLRule[] { rule } : null;
+      final Node branch = ( common == length ) ? null : new Node( high, low, length, new ACLRule[] { rule }, null, null );
+      if ( bit( node.high, node.low, common ) == 0 ) {
+        return new Node( high, low, common, rules, node, branch );
+      }
+      return new Node( high, low, common, rules, branch, node );
+    }
+
+
+
+
+    /**
+     * Find the rule deciding the check of an address.
+     *
+     * @return the first added, or the longest, rule for a prefix of the key; null if there is none
+     */
+    static ACLRule find( final Node root, final long high, final long low, final boolean longest ) {
+      ACLRule retval = null;
+      Node node = root;
+      while ( node != null && node.matches( high, low ) ) {
+        // deeper nodes have longer prefixes
+        if ( node.rules != null && ( longest || node.rules[0].precedes( retval, false ) ) ) {
+          retval = node.rules[0];
+        }
+        if ( node.length >= 128 ) {
+          break;
+        }
+        node = ( bit( high, low, node.length ) == 0 ) ? node.zero : node.one;
+      }
+      return retval;
+    }
+
+
+
+
+    static void collect( final Node node, final List<ACLRule> rules ) {
+      if ( node != null ) {
+        if ( node.rules != null ) {
+          rules.addAll( Arrays.asList( node.rules ) );
+        }
+        collect( node.zero, rules );
+        collect( node.one, rules );
+      }
     }
   }
 
@@ -283,6 +283,40 @@ public class IpNetwork extends IpAddress {
     }
 
 
+    /**
+     * @return the mask of this network
+     */
+    public IpAddress getNetMask() {
+        return netmask;
+    }
+
+
+    /**
+     * Count the leading bits set in the netmask.
+     *
+     * @return the number of bits in the network prefix, or -1 if the mask is
+     * not a run of set bits followed only by clear bits, or is not the same
+     * length as the network address
+     */
+    public int getPrefixLength() {
+        final short[] mask = netmask.getOctets();
+        if (mask.length != octets.length) {
+            return -1;
+        }
+        int retval = 0;
+        boolean ended = false;
+        for (final short element : mask) {
+            final int ones = Integer.numberOfLeadingZeros(~(element << 24));
+            if (ended && element != 0 || ones < 8 && (element & (0xFF >>> ones)) != 0) {
+                return -1;
+            }
+            retval += ones;
+            ended = ones < 8;
+        }
+        return retval;
+    }
+
+
     public Iterator<IpAddress> iterator() {
         return ipAddressIterator;
     }
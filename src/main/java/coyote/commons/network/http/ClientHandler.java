@@ -8,6 +8,7 @@
 
 package coyote.commons.network.http;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
@@ -31,6 +32,12 @@ public class ClientHandler implements Runnable {
   private final Socket clientSocket;
   /** Flag indicating the connection is over a secured socket server, an encrypted connection */
   private final boolean secure;
+  /** The socket output stream, opened with the session */
+  private OutputStream outputStream = null;
+  /** The session reading requests from this connection, created on the first request */
+  private HTTPSessionImpl session = null;
+  /** When this connection started waiting for its next request, used by executors to time out idle connections */
+  volatile long idleSince = System.currentTimeMillis();
 
 
 
@@ -53,31 +60,98 @@ public class ClientHandler implements Runnable {
 
 
 
+  /**
+   * Serve requests on this connection until it is closed.
+   */
   @Override
   public void run() {
-    OutputStream outputStream = null;
     try {
-      outputStream = clientSocket.getOutputStream();
-      final CacheManager tempFileManager = httpd.cacheManagerFactory.create();
-      final HTTPSessionImpl session = new HTTPSessionImpl( httpd, tempFileManager, inputStream, outputStream, clientSocket.getInetAddress(),clientSocket.getPort(),secure );
-      while ( !clientSocket.isClosed() ) {
-        session.execute();
+      while ( serve() ) {
+        // keep alive
       }
+    }
+    finally {
+      finish();
+    }
+  }
+
+
+
+
+  /**
+   * Serve one request on this connection.
+   * 
+   * <p>This lets executors which do not dedicate a thread to each connection 
+   * serve one request at a time and wait for the next request without 
+   * holding a thread.</p>
+   * 
+   * @return true if the connection remains open for another request, false 
+   *         if it has been closed and should be {@link #finish() finished}.
+   */
+  boolean serve() {
+    try {
+      if ( session == null ) {
+        outputStream = clientSocket.getOutputStream();
+        final CacheManager tempFileManager = httpd.cacheManagerFactory.create();
+        session = new HTTPSessionImpl( httpd, tempFileManager, inputStream, outputStream, clientSocket.getInetAddress(), clientSocket.getPort(), secure );
+        if ( !secure ) {
+          session.setChannel( clientSocket.getChannel() );
+        }
+      }
+      session.execute();
+      return !clientSocket.isClosed();
     } catch ( final Exception e ) {
       // When the socket is closed by the client, we throw our own 
-      // SocketException to break the "keep alive" loop above. If the exception 
+      // SocketException to break the "keep alive" loop. If the exception 
       // was anything other than the expected SocketException OR a 
       // SocketTimeoutException, print the stack trace
       if ( !( ( e instanceof SocketException ) && "HTTPD Shutdown".equals( e.getMessage() ) ) && !( e instanceof SocketTimeoutException ) ) {
         // Log.append( HTTPD.EVENT, "ERROR: Communication with the client broken, or an bug in the handler code", e );
       }
+      return false;
     }
-    finally {
-      HTTPD.safeClose( outputStream );
-      HTTPD.safeClose( inputStream );
-      HTTPD.safeClose( clientSocket );
-      httpd.asyncRunner.closed( this );
+  }
+
+
+
+
+  /**
+   * @return true if the next request has already been read from the socket 
+   *         into the session buffer, as happens when requests are pipelined; 
+   *         waiting for the socket to become readable would miss it.
+   */
+  boolean hasBufferedInput() {
+    if ( session != null ) {
+      try {
+        return session.getInputStream().available() > 0;
+      } catch ( final IOException e ) {
+        // treat as nothing buffered, the next read will report the problem
+      }
     }
+    return false;
+  }
+
+
+
+
+  /**
+   * Close the connection and tell the executor it is done.
+   */
+  void finish() {
+    HTTPD.safeClose( outputStream );
+    HTTPD.safeClose( inputStream );
+    HTTPD.safeClose( clientSocket );
+    httpd.asyncRunner.closed( this );
+  }
+
+
+
+
+  /**
+   * @return the socket of this connection
+   */
+  public Socket getSocket() {
+    return clientSocket;
   }
 
 }
\ No newline at end of file
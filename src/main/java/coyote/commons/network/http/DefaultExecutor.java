@@ -27,6 +27,9 @@ public class DefaultExecutor implements Executor {
   /** The list of all the currently active requests for this server */
   private final List<ClientHandler> running = Collections.synchronizedList( new ArrayList<ClientHandler>() );
 
+  /** The most connections served at once, zero for no limit */
+  private volatile int maxConnections = 0;
+
 
 
 
@@ -55,10 +58,22 @@ public class DefaultExecutor implements Executor {
 
 
 
+  /**
+   * Start a thread for the given handler.
+   * 
+   * <p>If the connection limit has been reached, the connection is closed 
+   * instead.</p>
+   * 
+   * @see Executor#exec(ClientHandler)
+   */
   @Override
   public void exec( final ClientHandler clientHandler ) {
+    if ( maxConnections > 0 && running.size() >= maxConnections ) {
+      clientHandler.close();
+      return;
+    }
     ++requestCount;
-    final Thread t = new Thread( clientHandler );
+    final Thread t = newThread( clientHandler );
     t.setDaemon( true );
     t.setName( "HTTPD Request(" + requestCount + ")" );
     running.add( clientHandler );
@@ -68,6 +83,46 @@ public class DefaultExecutor implements Executor {
 
 
 
+  /**
+   * Create the thread which will run the given handler.
+   * 
+   * <p>Subclasses override this to run handlers in other kinds of threads.</p>
+   * 
+   * @param clientHandler the handler to run
+   * 
+   * @return a new, unstarted thread running the handler
+   */
+  protected Thread newThread( final ClientHandler clientHandler ) {
+    return new Thread( clientHandler );
+  }
+
+
+
+
+  /**
+   * @return the most connections served at once, zero for no limit.
+   */
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+
+
+
+  /**
+   * Limit the number of connections served at once.
+   * 
+   * <p>Connections accepted beyond the limit are closed immediately.</p>
+   * 
+   * @param max the most connections to serve at once, zero for no limit.
+   */
+  public void setMaxConnections( final int max ) {
+    maxConnections = Math.max( 0, max );
+  }
+
+
+
+
   /**
    * @return a list with currently running clients.
    */
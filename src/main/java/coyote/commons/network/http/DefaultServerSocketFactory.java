@@ -10,15 +10,20 @@ package coyote.commons.network.http;
 
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
 
 /**
  * Creates a normal ServerSocket for TCP connections
+ * 
+ * <p>The socket is backed by a channel so the sockets it accepts have 
+ * channels too, allowing executors such as the {@link PooledExecutor} to wait 
+ * for requests on idle connections with a selector.</p>
  */
 public class DefaultServerSocketFactory implements ServerSocketFactory {
 
   @Override
   public ServerSocket create() throws IOException {
-    return new ServerSocket();
+    return ServerSocketChannel.open().socket();
   }
 
-}
\ No newline at end of file
+}
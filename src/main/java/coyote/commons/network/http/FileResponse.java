@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+
+package coyote.commons.network.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * A response whose body is one or more regions of a file.
+ *
+ * <p>When the connection has a channel, the regions are transferred from the
+ * file to the socket with {@link FileChannel#transferTo(long, long,
+ * WritableByteChannel)}, letting the operating system send the file without
+ * copying it through the heap. Otherwise, as with TLS connections, the
+ * regions are read into a buffer and written to the output stream.</p>
+ *
+ * <p>Each region may be preceded by a heading, and the body followed by a
+ * trailer, so a response can carry the parts of a {@code multipart/byteranges}
+ * body. Small files may be given as their content, in which case the file is
+ * not opened at all.</p>
+ *
+ * <p>The length of the body is always known, so these responses are never
+ * chunked or compressed as they are sent.</p>
+ */
+public class FileResponse extends Response {
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final Path path;
+  private final byte[] content;
+  private final long[] offsets;
+  private final long[] lengths;
+  private final byte[][] headings;
+  private final byte[] trailer;
+  private FileChannel file = null;
+
+
+
+
+  /**
+   * Create a response for a single region of a file.
+   *
+   * @param status the status to send
+   * @param mimeType type of data being sent
+   * @param path the file to send
+   * @param content the content of the file if it is already in memory, or
+   *        null to read the file
+   * @param offset the position of the first byte to send
+   * @param length the number of bytes to send
+   */
+  public FileResponse( final Status status, final String mimeType, final Path path, final byte[] content, final long offset, final long length ) {
+    this( status, mimeType, path, content, new long[]{ offset }, new long[]{ length }, null, null );
+  }
+
+
+
+
+  /**
+   * Create a response for several regions of a file.
+   *
+   * @param status the status to send
+   * @param mimeType type of data being sent
+   * @param path the file to send
+   * @param content the content of the file if it is already in memory, or
+   *        null to read the file
+   * @param offsets the position of the first byte of each region
+   * @param lengths the number of bytes in each region
+   * @param headings the bytes to send before each region, or null for none
+   * @param trailer the bytes to send after the last region, or null for none
+   */
+  public FileResponse( final Status status, final String mimeType, final Path path, final byte[] content, final long[] offsets, final long[] lengths, final byte[][] headings, final byte[] trailer ) {
+    super( status, mimeType, new ByteArrayInputStream( new byte[0] ), bodyLength( lengths, headings, trailer ) );
+    this.path = path;
+    this.content = content;
+    this.offsets = offsets;
+    this.lengths = lengths;
+    this.headings = headings;
+    this.trailer = trailer;
+  }
+
+
+
+
+  private static long bodyLength( final long[] lengths, final byte[][] headings, final byte[] trailer ) {
+    long retval = ( trailer != null ) ? trailer.length : 0;
+    for ( int x = 0; x < lengths.length; x++ ) {
+      retval += lengths[x] + ( ( headings != null ) ? headings[x].length : 0 );
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * The body is sent as it is; files to be sent compressed are compressed
+   * ahead of time.
+   *
+   * @see coyote.commons.network.http.Response#setGzipEncoding(boolean)
+   */
+  @Override
+  public void setGzipEncoding( final boolean encodeAsGzip ) {
+    super.setGzipEncoding( false );
+  }
+
+
+
+
+  /**
+   * @see coyote.commons.network.http.Response#sendContent(java.io.OutputStream, java.nio.channels.WritableByteChannel, long)
+   */
+  @Override
+  protected void sendContent( final OutputStream outputStream, final WritableByteChannel channel, final long pending ) throws IOException {
+    if ( getRequestMethod() == Method.HEAD ) {
+      return;
+    }
+    for ( int x = 0; x < offsets.length; x++ ) {
+      if ( headings != null ) {
+        outputStream.write( headings[x] );
+      }
+      if ( content != null ) {
+        outputStream.write( content, (int)offsets[x], (int)lengths[x] );
+      } else if ( channel != null ) {
+        transfer( channel, offsets[x], lengths[x] );
+      } else {
+        copy( outputStream, offsets[x], lengths[x] );
+      }
+    }
+    if ( trailer != null ) {
+      outputStream.write( trailer );
+    }
+  }
+
+
+
+
+  /**
+   * Transfer a region of the file directly to the channel of the socket.
+   */
+  private void transfer( final WritableByteChannel channel, final long offset, final long length ) throws IOException {
+    final FileChannel source = open();
+    long position = offset;
+    final long end = offset + length;
+    while ( position < end ) {
+      final long sent = source.transferTo( position, end - position, channel );
+      if ( sent <= 0 && position >= source.size() ) {
+        throw new EOFException( "File truncated while sending: " + path );
+      }
+      position += sent;
+    }
+  }
+
+
+
+
+  /**
+   * Copy a region of the file to the output stream through a buffer.
+   */
+  private void copy( final OutputStream outputStream, final long offset, final long length ) throws IOException {
+    final FileChannel source = open();
+    final ByteBuffer buffer = ByteBuffer.allocate( (int)Math.min( BUFFER_SIZE, Math.max( length, 1 ) ) );
+    long position = offset;
+    final long end = offset + length;
+    while ( position < end ) {
+      buffer.clear();
+      buffer.limit( (int)Math.min( buffer.capacity(), end - position ) );
+      final int read = source.read( buffer, position );
+      if ( read < 0 ) {
+        throw new EOFException( "File truncated while sending: " + path );
+      }
+      outputStream.write( buffer.array(), 0, read );
+      position += read;
+    }
+  }
+
+
+
+
+  private FileChannel open() throws IOException {
+    if ( file == null ) {
+      file = FileChannel.open( path, StandardOpenOption.READ );
+    }
+    return file;
+  }
+
+
+
+
+  /**
+   * @see coyote.commons.network.http.Response#close()
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      super.close();
+    } finally {
+      if ( file != null ) {
+        file.close();
+        file = null;
+      }
+    }
+  }
+
+}
@@ -43,7 +43,7 @@ import coyote.commons.network.IpNetwork;
 import coyote.commons.network.MimeType;
 import coyote.commons.network.http.auth.AuthProvider;
 import coyote.commons.network.http.auth.DefaultAuthProvider;
-import coyote.commons.security.OperationFrequency;
+import coyote.commons.security.RateLimiter;
 
 
 
@@ -74,12 +74,12 @@ public abstract class HTTPD {
    */
   protected final IpAcl acl = new IpAcl(IpAcl.DENY);
   /**
-   * This is our Denial of Service tracker. It keeps a list of times a request
-   * is made, and if requests come in to frequently from an address or network,
-   * the server can perform remediation such as blacklisting throttling and of
-   *  course, security event notification.
+   * This is our Denial of Service tracker. It limits how often connections
+   * are made from an address or network, and connections made too often are
+   * closed as they are accepted, before any handler or session is created for
+   * them. Null if connections are not limited.
    */
-  protected final OperationFrequency dosTable = new OperationFrequency();
+  protected volatile RateLimiter dosTable = new RateLimiter();
   /**
    * The component responsible for providing authentication and authorization
    * processing for the server.
@@ -810,25 +810,111 @@ public abstract class HTTPD {
 
 
   /**
-   * <pre>
+   * @return the limiter of connections from each address and network, or null if connections are not limited
+   */
+  public RateLimiter getRateLimiter() {
+    return dosTable;
+  }
+
+
+
+
+  /**
+   * Set the limiter of connections from each address and network.
+   *
+   * <p>The limiter is checked for each connection as it is accepted, before
+   * the IP ACL, so connections made too often are closed before any handler
+   * or session is created for them. A limiter may be shared by several
+   * servers to limit the connections made to all of them.
+   *
+   * @param limiter the limiter to use, null to not limit connections
+   */
+  public void setRateLimiter(final RateLimiter limiter) {
+    dosTable = limiter;
+  }
+
+
+
+
+  /**
+   * Parse the frequency section of the configuration.
+   *
+   * <p>This sets how often connections may be made to the server from each
+   * address and from networks as a whole. Connections made too often are
+   * closed as they are accepted.
+   *
+   * <p>The following is an example configuration:<pre>
    * "Frequency":{
-   *   "default": { "Requests": 10, "Interval": 1000, "Threshold": 3, "Window": 3000, "Breach": "blacklist"},
-   *   "192.168.100/24": { "Requests": 10, "Interval": 1000, "Threshold": 3, "Window": 3000, "Breach": "throttle:3000"}
+   *   "default": { "Requests": 10, "Interval": 1000 },
+   *   "192.168.100/24": { "Requests": 100, "Interval": 1000 },
+   *   "10.0.0.5": { "Requests": 50, "Interval": 1000 }
    *  }</pre>
-   *  requests are the number of requests to allow in an interval
-   *  interval is the number of milliseconds in the interval
-   *  threshold is the number of failures allowed in a window of time
-   *  window is the number of milliseconds in the window
-   *  breach is what to do when the number of failures are exceeded in the window; options are 
-   *   - Blacklist the IP
-   *   - Throttle the connection for the amount of milliseconds but allow it after waiting
-   *   - FUTURE: Retract shutdown the server for the number of milliseconds then restart
-   *   - FUTURE: Terminate the server
+   *
+   * <p>{@code Requests} is the number of connections to allow in an interval
+   * and {@code Interval} is the number of milliseconds in the interval. The
+   * {@code default} entry is the limit for each address. A network entry is
+   * a limit on all the addresses in the network together, applied as well as
+   * the limit of each address; an address entry replaces the default limit
+   * for that address.
+   *
+   * <p>{@code Threshold}, {@code Window} and {@code Breach} entries, for the
+   * remediation of repeated breaches, are not yet supported and are ignored.
    *
    * @param cfg the configuration to use
    */
   public void configDosTables(Config cfg) {
-    // TODO: Make this work
+    if (cfg != null) {
+      RateLimiter limiter = dosTable;
+      if (limiter == null) {
+        limiter = new RateLimiter();
+        dosTable = limiter;
+      }
+
+      for (DataField field : cfg.getFields()) {
+        String network = field.getName();
+        if (StringUtil.isBlank(network) || !field.isFrame()) {
+          Log.debug("Frequency entry '" + network + "' is not a section");
+          continue;
+        }
+
+        Config section = cfg.getSection(network);
+        int requests;
+        long interval;
+        try {
+          requests = section.getInt("Requests");
+          interval = section.getLong("Interval");
+        } catch (NumberFormatException e) {
+          Log.error("Invalid Requests or Interval for frequency entry '" + network + "' - " + e.getMessage());
+          continue;
+        }
+        if (requests < 1 || interval < 1) {
+          Log.error("Requests and Interval must be positive for frequency entry '" + network + "'");
+          continue;
+        }
+
+        if ("DEFAULT".equalsIgnoreCase(network.trim())) {
+          Log.append(EVENT, "Limiting connections from each address to " + requests + " in " + interval + "ms");
+          limiter.setLimit(requests);
+          limiter.setDuration(interval);
+        } else if (network.indexOf('/') > 0) {
+          try {
+            IpNetwork ipNet = new IpNetwork(network.trim());
+            Log.append(EVENT, "Limiting connections from " + ipNet + " to " + requests + " in " + interval + "ms");
+            limiter.addNetwork(ipNet, requests, interval);
+          } catch (IpAddressException e) {
+            Log.error("Invalid network specification '" + network + "' - " + e.getMessage());
+          }
+        } else {
+          try {
+            IpAddress ipAdr = new IpAddress(network.trim());
+            Log.append(EVENT, "Limiting connections from " + ipAdr + " to " + requests + " in " + interval + "ms");
+            limiter.addAddress(ipAdr, requests, interval);
+          } catch (IpAddressException e) {
+            Log.error("Invalid address specification '" + network + "' - " + e.getMessage());
+          }
+        }
+      } // for each field
+    }
   }
 
 }
@@ -25,6 +25,7 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -53,6 +54,8 @@ class HTTPSessionImpl implements HTTPSession {
   private static final List<String> EMPTY_LIST = new ArrayList<String>(0);
   private final CacheManager cacheManager;
   private final OutputStream outputStream;
+  /** The channel of the socket, if responses may write to it directly */
+  private WritableByteChannel channel;
   private final BufferedInputStream inputStream;
   private int splitbyte;
   private int rlen;
@@ -393,7 +396,7 @@ class HTTPSessionImpl implements HTTPSession {
         response.setGzipEncoding(this.httpd.useGzipWhenAccepted(response) && (acceptEncoding != null) && acceptEncoding.contains("gzip"));
         response.setKeepAlive(keepAlive);
         response.addHeaders(responseHeaders);
-        response.send(outputStream);
+        response.send(outputStream, channel);
       }
       if (!keepAlive || response.isCloseConnection()) {
         throw new SocketException("HTTPD Shutdown");
@@ -606,6 +609,19 @@ class HTTPSessionImpl implements HTTPSession {
 
 
 
+  /**
+   * Set the channel responses may write their body to directly.
+   *
+   * @param channel the channel of the socket, or null to always write to the
+   *        output stream
+   */
+  void setChannel(final WritableByteChannel channel) {
+    this.channel = channel;
+  }
+
+
+
+
   private RandomAccessFile getTmpBucket() {
     try {
       final CacheFile tempFile = cacheManager.createCacheFile(null);
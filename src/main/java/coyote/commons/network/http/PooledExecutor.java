@@ -0,0 +1,521 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+
+package coyote.commons.network.http;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import coyote.commons.log.Log;
+
+
+/**
+ * Threading strategy for HTTPD which serves requests with a fixed pool of
+ * worker threads.
+ *
+ * <p>The {@link DefaultExecutor} holds a thread for each connection for as
+ * long as the connection is open, which for keep-alive connections is mostly
+ * time spent waiting for the next request. This executor only holds a
+ * worker thread while a request is being served. Between requests the
+ * connection is handed to a single selector thread which waits for the next
+ * request on all idle connections at once and hands each connection back to
+ * the pool when it becomes readable. This way thousands of keep-alive
+ * connections are served by a handful of threads.</p>
+ *
+ * <p>The executor is bounded in every direction:<ul>
+ * <li>connections accepted beyond the connection limit are closed;</li>
+ * <li>requests waiting for a worker are queued up to the queue size, beyond
+ * which the connection is closed;</li>
+ * <li>connections which wait longer than the idle timeout for their next
+ * request are closed.</li></ul>
+ * Closed connections are counted and reported by {@link #getRejectedCount()}
+ * and {@link #getTimedOutCount()}.</p>
+ *
+ * <p>Connections without a channel, such as those from secure server sockets,
+ * cannot be waited on with a selector and hold their worker thread for as
+ * long as they are open, exactly as they would with the default executor.</p>
+ *
+ * <p>Threads are started with the first connection and stopped by
+ * {@link #closeAll()}, which the server calls when it is stopped.</p>
+ */
+public class PooledExecutor implements Executor {
+
+  /** The default limit of connections open at once */
+  public static final int DEFAULT_MAX_CONNECTIONS = 10000;
+
+  /** The default number of requests waiting for a worker */
+  public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+  /** The default time in milliseconds a connection may wait for its next request */
+  public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+  /** How often in milliseconds idle connections are checked for time outs */
+  private static final long SWEEP_INTERVAL = 1000;
+
+  /** The number of worker threads */
+  private final int workers;
+
+  /** The number of requests which may wait for a worker */
+  private final int queueSize;
+
+  private volatile int maxConnections = DEFAULT_MAX_CONNECTIONS;
+  private volatile long idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+  /** All the open connections */
+  private final Set<ClientHandler> connections = ConcurrentHashMap.newKeySet();
+
+  /** Connections waiting to be registered with the selector */
+  private final Queue<ClientHandler> parking = new ConcurrentLinkedQueue<ClientHandler>();
+
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong timedOut = new AtomicLong();
+  private final AtomicLong workerCount = new AtomicLong();
+
+  private volatile boolean running = false;
+  private volatile ThreadPoolExecutor pool = null;
+  private volatile Selector selector = null;
+  private Thread selectorThread = null;
+
+
+
+
+  /**
+   * Create an executor with four workers for each processor and the default
+   * queue size.
+   */
+  public PooledExecutor() {
+    this( Runtime.getRuntime().availableProcessors() * 4, DEFAULT_QUEUE_SIZE );
+  }
+
+
+
+
+  /**
+   * Create an executor with the given number of workers and queue size.
+   *
+   * @param workers the number of threads serving requests
+   * @param queueSize the number of requests which may wait for a worker
+   */
+  public PooledExecutor( final int workers, final int queueSize ) {
+    if ( workers < 1 ) {
+      throw new IllegalArgumentException( "At least one worker is required" );
+    }
+    if ( queueSize < 1 ) {
+      throw new IllegalArgumentException( "Queue size must be positive" );
+    }
+    this.workers = workers;
+    this.queueSize = queueSize;
+  }
+
+
+
+
+  /**
+   * Accept a new connection and wait for its first request.
+   *
+   * @see Executor#exec(ClientHandler)
+   */
+  @Override
+  public void exec( final ClientHandler handler ) {
+    if ( connections.size() >= maxConnections || !start() ) {
+      rejected.incrementAndGet();
+      handler.close();
+      return;
+    }
+    connections.add( handler );
+    if ( handler.getSocket().getChannel() != null ) {
+      park( handler );
+    } else {
+      dispatch( handler );
+    }
+  }
+
+
+
+
+  /**
+   * @see Executor#closed(ClientHandler)
+   */
+  @Override
+  public void closed( final ClientHandler handler ) {
+    connections.remove( handler );
+  }
+
+
+
+
+  /**
+   * Close all the connections and stop all the threads.
+   *
+   * <p>The executor may be used again; threads are started again with the
+   * next connection.</p>
+   *
+   * @see Executor#closeAll()
+   */
+  @Override
+  public void closeAll() {
+    final ThreadPoolExecutor workerPool;
+    final Selector sel;
+    final Thread thread;
+    synchronized( this ) {
+      running = false;
+      workerPool = pool;
+      sel = selector;
+      thread = selectorThread;
+      pool = null;
+      selector = null;
+      selectorThread = null;
+    }
+
+    for ( final ClientHandler handler : new ArrayList<ClientHandler>( connections ) ) {
+      handler.close();
+    }
+    connections.clear();
+    parking.clear();
+
+    if ( sel != null ) {
+      sel.wakeup();
+    }
+    if ( thread != null ) {
+      try {
+        thread.join( SWEEP_INTERVAL );
+      } catch ( final InterruptedException e ) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if ( workerPool != null ) {
+      workerPool.shutdownNow();
+    }
+  }
+
+
+
+
+  /**
+   * Start the worker pool and selector thread if they are not running.
+   *
+   * @return true if running, false if the selector could not be opened.
+   */
+  private synchronized boolean start() {
+    if ( !running ) {
+      try {
+        selector = Selector.open();
+      } catch ( final IOException e ) {
+        Log.append( HTTPD.EVENT, "ERROR: Could not open selector for idle connections", e );
+        return false;
+      }
+      pool = new ThreadPoolExecutor( workers, workers, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>( queueSize ), r -> {
+        final Thread t = new Thread( r );
+        t.setDaemon( true );
+        t.setName( "HTTPD Worker(" + workerCount.incrementAndGet() + ")" );
+        return t;
+      } );
+      running = true;
+      final Selector sel = selector;
+      selectorThread = new Thread( () -> select( sel ) );
+      selectorThread.setDaemon( true );
+      selectorThread.setName( "HTTPD Selector" );
+      selectorThread.start();
+    }
+    return true;
+  }
+
+
+
+
+  /**
+   * Queue the connection for a worker to serve its next request.
+   */
+  private void dispatch( final ClientHandler handler ) {
+    final ThreadPoolExecutor workerPool = pool;
+    try {
+      if ( workerPool == null ) {
+        throw new RejectedExecutionException();
+      }
+      workerPool.execute( () -> serve( handler ) );
+    } catch ( final RejectedExecutionException e ) {
+      rejected.incrementAndGet();
+      handler.finish();
+    }
+  }
+
+
+
+
+  /**
+   * Serve the requests waiting on the connection, then give it to the
+   * selector thread to wait for the next one.
+   *
+   * <p>This runs in a worker thread.</p>
+   */
+  private void serve( final ClientHandler handler ) {
+    final boolean selectable = handler.getSocket().getChannel() != null;
+    boolean open;
+    do {
+      open = handler.serve();
+    }
+    while ( open && ( !selectable || handler.hasBufferedInput() ) );
+
+    if ( open && running ) {
+      park( handler );
+    } else {
+      handler.finish();
+    }
+  }
+
+
+
+
+  /**
+   * Hand the connection to the selector thread to wait for its next request.
+   */
+  private void park( final ClientHandler handler ) {
+    final Selector sel = selector;
+    if ( sel == null ) {
+      handler.finish();
+      return;
+    }
+    handler.idleSince = System.currentTimeMillis();
+    parking.add( handler );
+    sel.wakeup();
+  }
+
+
+
+
+  /**
+   * The body of the selector thread.
+   */
+  private void select( final Selector sel ) {
+    final List<ClientHandler> ready = new ArrayList<ClientHandler>();
+    long lastSweep = System.currentTimeMillis();
+    try {
+      while ( running && sel == selector ) {
+        sel.select( SWEEP_INTERVAL );
+        register( sel );
+
+        // A channel must be deregistered before it can be placed back in
+        // blocking mode, which takes a cancel and another select
+        final Set<SelectionKey> selected = sel.selectedKeys();
+        while ( !selected.isEmpty() ) {
+          for ( final SelectionKey key : selected ) {
+            key.cancel();
+            ready.add( (ClientHandler)key.attachment() );
+          }
+          selected.clear();
+          sel.selectNow();
+        }
+        for ( final ClientHandler handler : ready ) {
+          if ( block( handler ) ) {
+            dispatch( handler );
+          }
+        }
+        ready.clear();
+
+        final long now = System.currentTimeMillis();
+        if ( now - lastSweep >= SWEEP_INTERVAL ) {
+          lastSweep = now;
+          sweep( sel, now );
+        }
+      }
+    } catch ( final IOException | RuntimeException e ) {
+      Log.append( HTTPD.EVENT, "ERROR: Selector for idle connections failed", e );
+    }
+    finally {
+      for ( final SelectionKey key : sel.keys() ) {
+        ( (ClientHandler)key.attachment() ).finish();
+      }
+      HTTPD.safeClose( sel );
+    }
+  }
+
+
+
+
+  /**
+   * Register the parked connections with the selector.
+   */
+  private void register( final Selector sel ) {
+    ClientHandler handler;
+    while ( ( handler = parking.poll() ) != null ) {
+      final SocketChannel channel = handler.getSocket().getChannel();
+      try {
+        channel.configureBlocking( false );
+        channel.register( sel, SelectionKey.OP_READ, handler );
+      } catch ( final IOException | CancelledKeyException e ) {
+        handler.finish();
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Close the connections which have been waiting longer than the idle
+   * timeout.
+   */
+  private void sweep( final Selector sel, final long now ) throws IOException {
+    final List<ClientHandler> expired = new ArrayList<ClientHandler>();
+    for ( final SelectionKey key : sel.keys() ) {
+      final ClientHandler handler = (ClientHandler)key.attachment();
+      if ( key.isValid() && now - handler.idleSince > idleTimeout ) {
+        key.cancel();
+        expired.add( handler );
+      }
+    }
+    if ( !expired.isEmpty() ) {
+      sel.selectNow();
+      for ( final ClientHandler handler : expired ) {
+        timedOut.incrementAndGet();
+        handler.finish();
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Return the connection to blocking mode so a worker can read it with
+   * streams.
+   */
+  private static boolean block( final ClientHandler handler ) {
+    try {
+      handler.getSocket().getChannel().configureBlocking( true );
+      return true;
+    } catch ( final IOException | RuntimeException e ) {
+      handler.finish();
+      return false;
+    }
+  }
+
+
+
+
+  /**
+   * @return the number of connections currently open.
+   */
+  public int getConnectionCount() {
+    return connections.size();
+  }
+
+
+
+
+  /**
+   * @return the number of connections closed because the connection limit
+   *         was reached or too many requests were waiting for a worker.
+   */
+  public long getRejectedCount() {
+    return rejected.get();
+  }
+
+
+
+
+  /**
+   * @return the number of connections closed because they waited longer than
+   *         the idle timeout for their next request.
+   */
+  public long getTimedOutCount() {
+    return timedOut.get();
+  }
+
+
+
+
+  /**
+   * @return the most connections open at once.
+   */
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+
+
+
+  /**
+   * Limit the number of connections open at once.
+   *
+   * <p>Connections accepted beyond the limit are closed immediately.</p>
+   *
+   * @param max the most connections open at once
+   */
+  public void setMaxConnections( final int max ) {
+    if ( max < 1 ) {
+      throw new IllegalArgumentException( "Connection limit must be positive" );
+    }
+    maxConnections = max;
+  }
+
+
+
+
+  /**
+   * @return the time in milliseconds a connection may wait for its next
+   *         request.
+   */
+  public long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+
+
+
+  /**
+   * Set how long a connection may wait for its next request before it is
+   * closed.
+   *
+   * <p>Idle connections are checked about once a second, so connections may
+   * stay open up to a second longer than this.</p>
+   *
+   * @param millis the time in milliseconds a connection may be idle
+   */
+  public void setIdleTimeout( final long millis ) {
+    if ( millis < 1 ) {
+      throw new IllegalArgumentException( "Idle timeout must be positive" );
+    }
+    idleTimeout = millis;
+  }
+
+
+
+
+  /**
+   * @return the number of worker threads.
+   */
+  public int getWorkers() {
+    return workers;
+  }
+
+
+
+
+  /**
+   * @return the number of requests which may wait for a worker.
+   */
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+}
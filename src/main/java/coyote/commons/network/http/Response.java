@@ -17,6 +17,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.text.SimpleDateFormat;
@@ -216,6 +217,24 @@ public class Response implements Closeable {
    * @param outputStream  the stream to which we write
    */
   protected void send( final OutputStream outputStream ) {
+    send( outputStream, null );
+  }
+
+
+
+
+  /**
+   * Sends given response to the socket.
+   *
+   * <p>The channel, when given, writes to the same socket as the stream and
+   * allows responses to send their body without copying it through the
+   * stream, as {@link FileResponse} does.
+   *
+   * @param outputStream the stream to which we write
+   * @param channel the channel of the socket, or null if there is none or it
+   *        can not be written directly, as with TLS connections.
+   */
+  protected void send( final OutputStream outputStream, final WritableByteChannel channel ) {
     final SimpleDateFormat gmtFrmt = new SimpleDateFormat( "E, d MMM yyyy HH:mm:ss 'GMT'", Locale.US );
     gmtFrmt.setTimeZone( TimeZone.getTimeZone( "GMT" ) );
 
@@ -252,7 +271,7 @@ public class Response implements Closeable {
       }
       pw.append( "\r\n" );
       pw.flush();
-      sendBodyWithCorrectTransferAndEncoding( outputStream, pending );
+      sendContent( outputStream, channel, pending );
       outputStream.flush();
       HTTPD.safeClose( data );
     } catch ( final IOException ioe ) {
@@ -294,6 +313,23 @@ public class Response implements Closeable {
 
 
 
+  /**
+   * Sends the body of the response after the headers have been sent.
+   *
+   * @param outputStream the stream to which we write
+   * @param channel the channel of the socket, or null
+   * @param pending the number of bytes in the Content-Length header, or -1
+   *        if the body is chunked
+   *
+   * @throws IOException if something goes wrong while sending the data.
+   */
+  protected void sendContent( final OutputStream outputStream, final WritableByteChannel channel, final long pending ) throws IOException {
+    sendBodyWithCorrectTransferAndEncoding( outputStream, pending );
+  }
+
+
+
+
   private void sendBodyWithCorrectEncoding( final OutputStream outputStream, final long pending ) throws IOException {
     if ( encodeAsGzip ) {
       final GZIPOutputStream gzipOutputStream = new GZIPOutputStream( outputStream );
@@ -8,6 +8,7 @@
 package coyote.commons.network.http;
 
 import coyote.commons.log.Log;
+import coyote.commons.security.RateLimiter;
 
 import javax.net.ssl.SSLServerSocket;
 import java.io.IOException;
@@ -45,13 +46,19 @@ public class ServerRunnable implements Runnable {
                 if (timeout > 0) {
                     clientSocket.setSoTimeout(timeout);
                 }
+                // responses are written as a header then a body; without this
+                // the body of a small response waits on the delayed ACK of
+                // the header, adding 40ms to every keep-alive request
+                clientSocket.setTcpNoDelay(true);
 
                 // if the
                 secured = httpd.myServerSocket instanceof SSLServerSocket;
 
                 // First check if the address has been calling us too frequently
-                // indicating a possible denial of service attack
-                if (httpd.dosTable.check(clientSocket.getInetAddress())) {
+                // indicating a possible denial of service attack, before any
+                // handler or session is created for the connection
+                final RateLimiter limiter = httpd.dosTable;
+                if (limiter == null || limiter.check(clientSocket.getInetAddress())) {
                     // Allow only connections from the local host or from remote hosts on
                     // our ACL
                     if (clientSocket.getLocalAddress().equals(clientSocket.getInetAddress()) || httpd.acl.allows(clientSocket.getInetAddress())) {
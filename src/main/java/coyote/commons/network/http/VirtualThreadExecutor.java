@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+
+package coyote.commons.network.http;
+
+import java.util.concurrent.ThreadFactory;
+
+
+/**
+ * Threading strategy for HTTPD which runs each connection in its own virtual
+ * thread.
+ *
+ * <p>This is the {@link DefaultExecutor} with virtual threads in place of
+ * platform threads. A virtual thread blocked reading the next request of a
+ * keep-alive connection releases its carrier thread, so the runtime serves
+ * very many connections with a few threads while handlers keep their simple
+ * blocking style.</p>
+ *
+ * <p>Virtual threads are only available in Java 21 and later runtimes and
+ * this library is built for earlier ones, so they are created reflectively.
+ * Check {@link #isSupported()} before constructing this executor; the
+ * {@link PooledExecutor} is the choice for runtimes without them.</p>
+ */
+public class VirtualThreadExecutor extends DefaultExecutor {
+
+  /** Creates virtual threads, null if the runtime does not support them */
+  private static final ThreadFactory FACTORY = createFactory();
+
+
+
+
+  /**
+   * Create an executor running connections in virtual threads.
+   *
+   * @throws UnsupportedOperationException if the runtime does not support
+   *         virtual threads.
+   */
+  public VirtualThreadExecutor() {
+    if ( FACTORY == null ) {
+      throw new UnsupportedOperationException( "Virtual threads are not supported by this runtime" );
+    }
+  }
+
+
+
+
+  /**
+   * @return true if the runtime supports virtual threads, false otherwise.
+   */
+  public static boolean isSupported() {
+    return FACTORY != null;
+  }
+
+
+
+
+  /**
+   * @see DefaultExecutor#newThread(ClientHandler)
+   */
+  @Override
+  protected Thread newThread( final ClientHandler clientHandler ) {
+    return FACTORY.newThread( clientHandler );
+  }
+
+
+
+
+  /**
+   * @return the factory from {@code Thread.ofVirtual()} or null if the
+   *         runtime does not provide one.
+   */
+  private static ThreadFactory createFactory() {
+    try {
+      final Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+      return (ThreadFactory)Class.forName( "java.lang.Thread$Builder" ).getMethod( "factory" ).invoke( builder );
+    } catch ( final ReflectiveOperationException | RuntimeException e ) {
+      // earlier runtime, or virtual threads are a preview feature not enabled
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.network.http.responder;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import coyote.commons.network.http.HTTPD;
+import coyote.commons.network.http.HTTPSession;
+import coyote.commons.network.http.Response;
+
+
+/**
+ * This is a common base class for responders which send files from the file
+ * system.
+ *
+ * <p>Files are served by {@link StaticContent}. Subclasses which still
+ * override the deprecated {@link #fileToInputStream(File)} have their files
+ * read through that stream instead, as they were before, without conditional
+ * or range support.</p>
+ */
+public abstract class AbstractFileResponder extends DefaultResponder {
+
+  /** Whether each responder class overrides the deprecated stream hook */
+  private static final ClassValue<Boolean> STREAMED = new ClassValue<Boolean>() {
+    @Override
+    protected Boolean computeValue(final Class<?> type) {
+      for (Class<?> c = type; c != AbstractFileResponder.class; c = c.getSuperclass()) {
+        try {
+          c.getDeclaredMethod("fileToInputStream", File.class);
+          return Boolean.TRUE;
+        } catch (final NoSuchMethodException e) {
+          // not declared at this level
+        }
+      }
+      return Boolean.FALSE;
+    }
+  };
+
+
+
+
+  /**
+   * Create the response which sends the given file.
+   *
+   * <p>Files are served by {@link StaticContent}, which answers conditional
+   * and range requests and sends the file without copying it through the
+   * heap where it can.</p>
+   *
+   * @param file the file requested
+   * @param session the request
+   *
+   * @return the response, or null if the file is no longer there
+   *
+   * @throws IOException if the file could not be read
+   */
+  @SuppressWarnings("deprecation")
+  protected Response serveFile(final File file, final HTTPSession session) throws IOException {
+    if (STREAMED.get(getClass())) {
+      return Response.createChunkedResponse(getStatus(), HTTPD.getMimeTypeForFile(file.getName()), fileToInputStream(file));
+    }
+    return StaticContent.getInstance().serve(file, getStatus(), HTTPD.getMimeTypeForFile(file.getName()), session);
+  }
+
+
+
+
+  /**
+   * Open the file to send.
+   *
+   * <p>This is only called for responders which override it.</p>
+   *
+   * @deprecated files are no longer read through a stream, override
+   *             {@link #serveFile(File, HTTPSession)} to change how they are sent.
+   */
+  @Deprecated
+  protected BufferedInputStream fileToInputStream(final File fileOrdirectory) throws IOException {
+    return new BufferedInputStream(new FileInputStream(fileOrdirectory));
+  }
+
+}
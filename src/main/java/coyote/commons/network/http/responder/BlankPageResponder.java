@@ -17,6 +17,7 @@ import coyote.commons.network.http.Status;
  *
  * <p>Useful to handle URLs which should respond, but not return any data.
  */
+@ThreadSafe
 public class BlankPageResponder extends DefaultResponder {
 
   /**
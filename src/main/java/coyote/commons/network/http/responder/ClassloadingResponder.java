@@ -33,6 +33,7 @@ import java.util.Map;
  * <p>
  * addRoute( "/(.)+", ClassloadingResponder.class, "/content" );
  */
+@ThreadSafe
 public class ClassloadingResponder extends DefaultResponder {
 
     // the ClassLoader object associated with this Class
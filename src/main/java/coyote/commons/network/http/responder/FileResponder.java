@@ -29,7 +29,8 @@ import java.util.*;
  * <p>This allows for serving from the file system like a regular web server. Contrast this with the ResourceResponder
  * which serves content from the classpath.
  */
-public class FileResponder extends DefaultResponder {
+@ThreadSafe
+public class FileResponder extends AbstractFileResponder {
 
   public static final String ROOT_TAG = "Root";
   private static final String DEFAULT_ROOT = "content";
@@ -43,11 +44,6 @@ public class FileResponder extends DefaultResponder {
   };
 
 
-  protected BufferedInputStream fileToInputStream(final File fileOrdirectory) throws IOException {
-    return new BufferedInputStream(new FileInputStream(fileOrdirectory));
-  }
-
-
   @Override
   public Response get(final Resource resource, final Map<String, String> urlParams, final HTTPSession session) {
     // WebServer loader = resource.initParameter( 0, WebServer.class ); // Not needed for this responder
@@ -89,7 +85,8 @@ public class FileResponder extends DefaultResponder {
         // return the found index file
         requestedFile = new File(requestedFile, indexFile);
         try {
-          return Response.createChunkedResponse(getStatus(), HTTPD.getMimeTypeForFile(requestedFile.getName()), fileToInputStream(requestedFile));
+          final Response response = serveFile(requestedFile, session);
+          return (response != null) ? response : new Error404Responder().get(resource, urlParams, session);
         } catch (final IOException ioe) {
           return Response.createFixedLengthResponse(Status.REQUEST_TIMEOUT, MimeType.TEXT.getType(), null);
         }
@@ -102,7 +99,8 @@ public class FileResponder extends DefaultResponder {
         return new Error404Responder().get(resource, urlParams, session);
       } else {
         try {
-          return Response.createChunkedResponse(getStatus(), HTTPD.getMimeTypeForFile(requestedFile.getName()), fileToInputStream(requestedFile));
+          final Response response = serveFile(requestedFile, session);
+          return (response != null) ? response : new Error404Responder().get(resource, urlParams, session);
         } catch (final IOException ioe) {
           return Response.createFixedLengthResponse(Status.REQUEST_TIMEOUT, MimeType.TEXT.getType(), null);
         }
@@ -19,6 +19,7 @@ import coyote.commons.network.http.Status;
 /**
  * Generic responder to print debug info as a html page.
  */
+@ThreadSafe
 public class GeneralResponder extends DefaultResponder {
 
   @Override
@@ -14,8 +14,8 @@ import coyote.commons.network.http.HTTPSession;
 import coyote.commons.network.http.Response;
 import coyote.commons.network.http.SecurityResponseException;
 import coyote.commons.i13n.ArmTransaction;
+import coyote.commons.i13n.ConcurrentStatBoard;
 import coyote.commons.i13n.StatBoard;
-import coyote.commons.i13n.StatBoardImpl;
 
 
 /**
@@ -63,7 +63,7 @@ public class HTTPDRouter extends HTTPD {
   public HTTPDRouter(final int port) {
     super(port);
     router = new UriRouter();
-    stats = new StatBoardImpl();
+    stats = new ConcurrentStatBoard();
   }
 
 
@@ -147,13 +147,13 @@ public class HTTPDRouter extends HTTPD {
   /**
    * Accessor to the Resources responsible for handling requests of the router.
    *
-   * <p><strong>NOTE:</strong> Never add or otherwise alter this list as it
-   * can adversely affect routing. It is exposed primarily for diagnostic
-   * purposes or to provide access to the URI resource attributes, such as
-   * their initialization parameters.
+   * <p>The list is read-only; routes are altered with {@code addRoute} and 
+   * {@code removeRoute}. It is exposed primarily for diagnostic purposes or 
+   * to provide access to the URI resource attributes, such as their 
+   * initialization parameters.
    *
-   * @return the list of URI resource objects responsible for handling
-   *         requests of the server.
+   * @return a read-only view of the URI resource objects responsible for 
+   *         handling requests of the server.
    */
   public List<Resource> getMappings() {
     return router.getMappings();
@@ -12,6 +12,7 @@ import coyote.commons.network.http.Status;
 import coyote.commons.network.http.Status;
 
 
+@ThreadSafe
 public class NotImplementedResponder extends DefaultResponder {
 
   @Override
@@ -8,7 +8,12 @@
 
 package coyote.commons.network.http.responder;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -50,6 +55,14 @@ public class Resource {
     private final String uri;
     private final List<String> uriParams = new ArrayList<String>();
     private final Pattern uriPattern;
+    // the uri compiled for matching without the regex, null if it needs the regex
+    private final RoutePattern route;
+    // the responder serving every request, if the responder class is thread-safe
+    private volatile Object sharedResponder;
+    // the no-argument constructor of the responder class
+    private volatile MethodHandle constructor;
+    // the responder methods, for their annotations
+    private volatile Method[] responderMethods;
 
 
     /**
@@ -68,8 +81,10 @@ public class Resource {
         if (uri != null) {
             this.uri = HTTPDRouter.normalizeUri(uri);
             uriPattern = createUriPattern();
+            route = RoutePattern.compile(this.uri);
         } else {
             uriPattern = null;
+            route = null;
             this.uri = null;
         }
 
@@ -141,6 +156,34 @@ public class Resource {
      * pattern (may be empty) or null if the URL did not match at all.
      */
     public Map<String, String> match(final String url) {
+        if (route == null) {
+            return matchPattern(url);
+        }
+        final String[] values = route.match(url);
+        if (values == null) {
+            return null;
+        }
+        if (values.length == 0) {
+            return EMPTY;
+        }
+        final Map<String, String> result = new HashMap<String, String>();
+        for (int i = 0; i < values.length; i++) {
+            result.put(uriParams.get(i), values[i]);
+        }
+        return result;
+    }
+
+
+    /**
+     * Match the URL with the regular expression of this resource.
+     *
+     * <p>This gives the same result as {@link #match(String)}, which avoids
+     * the regular expression for most routes.
+     *
+     * @param url the URL to match
+     * @return parameters pulled from the URL or null if the URL did not match.
+     */
+    Map<String, String> matchPattern(final String url) {
         final Matcher matcher = uriPattern.matcher(url);
         if (matcher.matches()) {
             if (uriParams.size() > 0) {
@@ -163,7 +206,7 @@ public class Resource {
 
         if (responderClass != null) {
             try {
-                final Object object = responderClass.newInstance();
+                final Object object = getResponder();
 
                 // Check for a class level Auth annotation which is applied to all methods
                 if (responderClass.isAnnotationPresent(Auth.class)) {
@@ -175,23 +218,23 @@ public class Resource {
                     final Responder responder = (Responder) object;
 
                     // determine which method to call
-                    final Class[] params = {Resource.class, Map.class, HTTPSession.class};
-                    Method method = null;
+                    final Method[] responderMethods = getResponderMethods();
+                    final Method method;
                     switch (session.getMethod()) {
                         case GET:
-                            method = responderClass.getMethod("get", params);
+                            method = responderMethods[0];
                             break;
                         case POST:
-                            method = responderClass.getMethod("post", params);
+                            method = responderMethods[1];
                             break;
                         case PUT:
-                            method = responderClass.getMethod("put", params);
+                            method = responderMethods[2];
                             break;
                         case DELETE:
-                            method = responderClass.getMethod("delete", params);
+                            method = responderMethods[3];
                             break;
                         default:
-                            method = responderClass.getMethod("other", String.class, Resource.class, Map.class, HTTPSession.class);
+                            method = responderMethods[4];
                             break;
                     }
 
@@ -226,12 +269,15 @@ public class Resource {
                     // All auth checks have passed, invoke processing
                     switch (session.getMethod()) {
                         case GET:
+                            return responder.get(this, urlParams, session);
                         case POST:
+                            return responder.post(this, urlParams, session);
                         case PUT:
+                            return responder.put(this, urlParams, session);
                         case DELETE:
-                            return (Response) method.invoke(responder, this, urlParams, session);
+                            return responder.delete(this, urlParams, session);
                         default:
-                            return (Response) method.invoke(responder, session.getMethod().toString(), this, urlParams, session);
+                            return responder.other(session.getMethod().toString(), this, urlParams, session);
                     }
                 } else {
                     // This is some other object...display it generically
@@ -249,6 +295,72 @@ public class Resource {
     }
 
 
+    /**
+     * Get the responder for a request.
+     *
+     * <p>Responder classes annotated as {@link ThreadSafe} are created once
+     * and the instance used for every request. All others are created for
+     * each request with a constructor handle looked up on the first request.
+     *
+     * @return the responder to process the request
+     * @throws Exception if the responder could not be created
+     */
+    private Object getResponder() throws Exception {
+        Object retval = sharedResponder;
+        if (retval == null) {
+            if (responderClass.isAnnotationPresent(ThreadSafe.class)) {
+                synchronized (this) {
+                    if (sharedResponder == null) {
+                        sharedResponder = createResponder();
+                    }
+                    retval = sharedResponder;
+                }
+            } else {
+                retval = createResponder();
+            }
+        }
+        return retval;
+    }
+
+
+    /**
+     * Create an instance of the responder class with its no-argument
+     * constructor.
+     */
+    private Object createResponder() throws Exception {
+        MethodHandle handle = constructor;
+        if (handle == null) {
+            if (responderClass.isInterface() || Modifier.isAbstract(responderClass.getModifiers())) {
+                throw new InstantiationException(responderClass.getName());
+            }
+            handle = MethodHandles.lookup().findConstructor(responderClass, MethodType.methodType(void.class)).asType(MethodType.methodType(Object.class));
+            constructor = handle;
+        }
+        try {
+            return handle.invokeExact();
+        } catch (final Exception | Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+
+    /**
+     * @return the get, post, put, delete and other methods of the responder
+     * class, looked up once and kept for their Auth annotations.
+     */
+    private Method[] getResponderMethods() throws NoSuchMethodException {
+        Method[] retval = responderMethods;
+        if (retval == null) {
+            final Class<?>[] params = {Resource.class, Map.class, HTTPSession.class};
+            retval = new Method[]{responderClass.getMethod("get", params), responderClass.getMethod("post", params), responderClass.getMethod("put", params), responderClass.getMethod("delete", params), responderClass.getMethod("other", String.class, Resource.class, Map.class, HTTPSession.class)};
+            responderMethods = retval;
+        }
+        return retval;
+    }
+
+
     /**
      * @see Object#toString()
      */
@@ -21,7 +21,9 @@ import coyote.commons.network.http.Response;
  * <p>Responders are classes which are instantiated for each request. They do
  * not have any state between requests and are therefore state-less in nature.
  * Many instances of a responder can be created which will require garbage
- * collecting so design your responder accordingly.
+ * collecting so design your responder accordingly. A responder which keeps no
+ * state at all can be annotated {@link ThreadSafe} and a single instance will
+ * serve all the requests of its route.
  *
  * <p>All responders should implement this interface to support requests.</p>
  *
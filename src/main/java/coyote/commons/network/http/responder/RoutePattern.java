@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+
+package coyote.commons.network.http.responder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A route URI matched without a regular expression.
+ *
+ * <p>Most routes are literal text with {@code :name} parameters and perhaps a
+ * trailing wildcard such as {@code (.)+}. Such routes are split into tokens
+ * which are matched directly against the request, giving exactly the result
+ * the regular expression built by {@link Resource} would give, including the
+ * text captured for each parameter. Routes using any other regular
+ * expression syntax are not compiled and remain regular expressions.
+ *
+ * <p>Every route, compiled or not, also has a literal prefix of whole path
+ * segments which any request it matches must start with. The
+ * {@link RoutingTable} uses this to skip the routes which cannot match.
+ */
+final class RoutePattern {
+
+    /**
+     * Characters with a meaning in regular expressions.
+     */
+    private static final String META = "\\^$.|?*+()[]{}";
+
+    /**
+     * Characters which repeat the character before them.
+     */
+    private static final String QUANTIFIERS = "?*+{";
+
+    /**
+     * Wildcards which match any text, with the fewest characters each matches.
+     */
+    private static final String[] WILDCARDS = {".*", ".+", "(.*)", "(.+)", "(.)*", "(.)+"};
+    private static final int[] WILDCARD_MINIMUM = {0, 1, 0, 1, 0, 1};
+
+    private static final int LITERAL = 0;
+    private static final int PARAM = 1;
+    private static final int WILDCARD = 2;
+
+    private final int[] kinds;
+    private final String[] texts;
+    private final int[] minimums;
+    private final int paramCount;
+
+
+    private RoutePattern(final List<Integer> kinds, final List<String> texts, final List<Integer> minimums, final int paramCount) {
+        final int size = kinds.size();
+        this.kinds = new int[size];
+        this.texts = texts.toArray(new String[size]);
+        this.minimums = new int[size];
+        for (int x = 0; x < size; x++) {
+            this.kinds[x] = kinds.get(x);
+            this.minimums[x] = minimums.get(x);
+        }
+        this.paramCount = paramCount;
+    }
+
+
+    /**
+     * Compile the given normalized route URI.
+     *
+     * @param uri the route with {@code :name} parameters
+     * @return the compiled route or null if the route uses regular expression
+     * syntax which must be matched with a regular expression.
+     */
+    static RoutePattern compile(final String uri) {
+        final List<Integer> kinds = new ArrayList<>();
+        final List<String> texts = new ArrayList<>();
+        final List<Integer> minimums = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        int params = 0;
+        boolean groups = false;
+
+        int index = 0;
+        while (index < uri.length()) {
+            final char c = uri.charAt(index);
+            final int paramEnd = (c == ':') ? paramEnd(uri, index) : -1;
+            final int wildcard = wildcardAt(uri, index);
+            if (paramEnd > 0) {
+                flush(literal, kinds, texts, minimums);
+                kinds.add(PARAM);
+                texts.add(uri.substring(index + 1, paramEnd));
+                minimums.add(1);
+                params++;
+                index = paramEnd;
+            } else if (wildcard >= 0 && !isQuantifier(uri, index + WILDCARDS[wildcard].length())) {
+                flush(literal, kinds, texts, minimums);
+                kinds.add(WILDCARD);
+                texts.add(null);
+                minimums.add(WILDCARD_MINIMUM[wildcard]);
+                groups |= WILDCARDS[wildcard].charAt(0) == '(';
+                index += WILDCARDS[wildcard].length();
+            } else if (c == '.' ? !isQuantifier(uri, index + 1) : META.indexOf(c) < 0) {
+                // a lone dot is a wildcard for one character, kept in the literal
+                literal.append(c);
+                index++;
+            } else {
+                return null;
+            }
+        }
+        flush(literal, kinds, texts, minimums);
+
+        // groups would be taken for parameters by Resource.match, leave that to the regex
+        if (groups && params > 0) {
+            return null;
+        }
+        return new RoutePattern(kinds, texts, minimums, params);
+    }
+
+
+    /**
+     * Return the literal prefix of the given route which every request it
+     * matches starts with.
+     *
+     * <p>The prefix ends with a '/' so it is always made of whole path
+     * segments, and is empty if the route starts with a parameter, wildcard
+     * or regular expression.
+     *
+     * @param uri the normalized route
+     * @return the literal prefix of the route
+     */
+    static String prefixOf(final String uri) {
+        if (uri.indexOf('|') >= 0) {
+            // alternatives need not share anything
+            return "";
+        }
+        int end = 0;
+        while (end < uri.length()) {
+            final char c = uri.charAt(end);
+            if (META.indexOf(c) >= 0 || (c == ':' && paramEnd(uri, end) > 0)) {
+                break;
+            }
+            end++;
+        }
+        if (end < uri.length() && QUANTIFIERS.indexOf(uri.charAt(end)) >= 0) {
+            // the character before a quantifier is optional or repeated
+            end--;
+        }
+        return uri.substring(0, uri.lastIndexOf('/', end - 1) + 1);
+    }
+
+
+    /**
+     * @return true if the given route has no parameters or regular expression
+     * syntax, so it only matches requests equal to it.
+     */
+    static boolean isLiteral(final String uri) {
+        for (int x = 0; x < uri.length(); x++) {
+            final char c = uri.charAt(x);
+            if (META.indexOf(c) >= 0 || (c == ':' && paramEnd(uri, x) > 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Match the given request against this route.
+     *
+     * @param url the normalized request
+     * @return the value of each parameter in the order they appear in the
+     * route, empty if there are none, or null if the request does not match.
+     */
+    String[] match(final String url) {
+        final int[] bounds = new int[paramCount * 2];
+        if (!match(url, 0, 0, 0, bounds)) {
+            return null;
+        }
+        final String[] retval = new String[paramCount];
+        for (int x = 0; x < paramCount; x++) {
+            retval[x] = url.substring(bounds[x * 2], bounds[(x * 2) + 1]);
+        }
+        return retval;
+    }
+
+
+    /**
+     * Match the tokens from the given token on against the request from the
+     * given position, trying the longest text for each parameter and wildcard
+     * first as a greedy regular expression would.
+     */
+    private boolean match(final String url, final int position, final int token, final int param, final int[] bounds) {
+        if (token == kinds.length) {
+            return position == url.length();
+        }
+        switch (kinds[token]) {
+            case LITERAL: {
+                final String text = texts[token];
+                if (!regionMatches(url, position, text)) {
+                    return false;
+                }
+                return match(url, position + text.length(), token + 1, param, bounds);
+            }
+            case PARAM: {
+                int end = position;
+                while (end < url.length() && isParamChar(url.charAt(end))) {
+                    end++;
+                }
+                for (; end > position; end--) {
+                    if (match(url, end, token + 1, param + 1, bounds)) {
+                        bounds[param * 2] = position;
+                        bounds[(param * 2) + 1] = end;
+                        return true;
+                    }
+                }
+                return false;
+            }
+            default: {
+                int end = position;
+                while (end < url.length() && !isLineTerminator(url.charAt(end))) {
+                    end++;
+                }
+                for (; end >= position + minimums[token]; end--) {
+                    if (match(url, end, token + 1, param, bounds)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }
+    }
+
+
+    /**
+     * @return true if the text appears in the request at the given position,
+     * a dot in the text matching any character but a line terminator.
+     */
+    private static boolean regionMatches(final String url, final int position, final String text) {
+        if (position + text.length() > url.length()) {
+            return false;
+        }
+        for (int x = 0; x < text.length(); x++) {
+            final char expected = text.charAt(x);
+            final char actual = url.charAt(position + x);
+            if (expected != actual && (expected != '.' || isLineTerminator(actual))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * @return true if the character may appear in a parameter value, the
+     * character class of {@code Resource.PARAM_MATCHER}.
+     */
+    private static boolean isParamChar(final char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || "-._~:/?#[]@!$&'()*+,;= \t\n\u000B\f\r".indexOf(c) >= 0;
+    }
+
+
+    /**
+     * @return true for the characters a dot does not match in a regular expression.
+     */
+    private static boolean isLineTerminator(final char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+
+    /**
+     * @return the end of the parameter name if the colon at the given index
+     * starts a parameter, or -1 if it is a literal colon.
+     */
+    private static int paramEnd(final String uri, final int index) {
+        if (index > 0 && uri.charAt(index - 1) != '/') {
+            return -1;
+        }
+        int end = index + 1;
+        while (end < uri.length()) {
+            final char c = uri.charAt(end);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_' || c == '-') {
+                end++;
+            } else {
+                break;
+            }
+        }
+        if (end == index + 1 || (end < uri.length() && uri.charAt(end) != '/')) {
+            return -1;
+        }
+        return end;
+    }
+
+
+    /**
+     * @return the index in WILDCARDS of the wildcard at the given index, or -1.
+     */
+    private static int wildcardAt(final String uri, final int index) {
+        for (int x = 0; x < WILDCARDS.length; x++) {
+            if (uri.startsWith(WILDCARDS[x], index)) {
+                return x;
+            }
+        }
+        return -1;
+    }
+
+
+    private static boolean isQuantifier(final String uri, final int index) {
+        return index < uri.length() && QUANTIFIERS.indexOf(uri.charAt(index)) >= 0;
+    }
+
+
+    private static void flush(final StringBuilder literal, final List<Integer> kinds, final List<String> texts, final List<Integer> minimums) {
+        if (literal.length() > 0) {
+            kinds.add(LITERAL);
+            texts.add(literal.toString());
+            minimums.add(0);
+            literal.setLength(0);
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+
+package coyote.commons.network.http.responder;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * An index of the resources of a router by the path segments of their URIs.
+ *
+ * <p>Each resource is placed in a trie of path segments at the end of its
+ * literal prefix, the whole path segments every request it matches must
+ * start with. Resources which are entirely literal are placed at the end of
+ * their full path and only considered for requests which are equal to it.
+ * Finding the resource for a request walks the segments of the request down
+ * the trie, so only the resources at the nodes along that path are matched;
+ * the rest could not have matched anyway.
+ *
+ * <p>The candidates are matched in the same priority order as the list the
+ * table was built from, so the resource found is always the one a linear
+ * search of that list would have found.
+ *
+ * <p>Tables are immutable; the router builds a new one whenever its routes
+ * change.
+ */
+final class RoutingTable {
+
+    private static final int[] NONE = new int[0];
+
+    /**
+     * A path segment in the trie.
+     */
+    private static final class Node {
+        final Map<String, Node> children = new HashMap<>();
+        /**
+         * Indexes of the resources whose prefix ends at this node.
+         */
+        int[] prefixed = NONE;
+        /**
+         * Indexes of the literal resources whose whole URI ends at this node.
+         */
+        int[] exact = NONE;
+    }
+
+    private final Resource[] resources;
+    private final Node root = new Node();
+    private final int depth;
+
+
+    /**
+     * Build a table of the given resources.
+     *
+     * @param mappings the resources in priority order
+     */
+    RoutingTable(final List<Resource> mappings) {
+        resources = mappings.toArray(new Resource[0]);
+        int deepest = 0;
+        for (int index = 0; index < resources.length; index++) {
+            final String uri = resources[index].getUri();
+            final boolean literal = RoutePattern.isLiteral(uri);
+            final String path = literal ? uri : RoutePattern.prefixOf(uri);
+            Node node = root;
+            int start = 0;
+            int segments = 0;
+            // a literal URI ends with its last segment, a prefix with a '/'
+            while (literal ? start <= path.length() && !path.isEmpty() : start < path.length()) {
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = path.length();
+                }
+                node = node.children.computeIfAbsent(path.substring(start, end), k -> new Node());
+                segments++;
+                start = end + 1;
+            }
+            deepest = Math.max(deepest, segments);
+            if (literal) {
+                node.exact = append(node.exact, index);
+            } else {
+                node.prefixed = append(node.prefixed, index);
+            }
+        }
+        depth = deepest;
+    }
+
+
+    /**
+     * Find the first resource, in priority order, which matches the request.
+     *
+     * @param request the normalized request URI
+     * @return the resource and the parameters it parsed from the request, or
+     * null if no resource matches.
+     */
+    Map.Entry<Resource, Map<String, String>> route(final String request) {
+        // the candidate lists along the path of the request, each in priority order
+        final int[][] candidates = new int[depth + 2][];
+        int lists = 0;
+
+        Node node = root;
+        candidates[lists++] = node.prefixed;
+        int start = 0;
+        while (node != null && !request.isEmpty()) {
+            final int end = request.indexOf('/', start);
+            node = node.children.get(request.substring(start, (end < 0) ? request.length() : end));
+            if (node == null || end < 0) {
+                break;
+            }
+            if (node.prefixed.length > 0 && lists < candidates.length - 1) {
+                candidates[lists++] = node.prefixed;
+            }
+            start = end + 1;
+        }
+        if (node != null) {
+            candidates[lists++] = node.exact;
+        }
+
+        // match the candidates from all the lists in priority order
+        final int[] positions = new int[lists];
+        while (true) {
+            int best = -1;
+            int list = -1;
+            for (int x = 0; x < lists; x++) {
+                if (positions[x] < candidates[x].length && (best < 0 || candidates[x][positions[x]] < best)) {
+                    best = candidates[x][positions[x]];
+                    list = x;
+                }
+            }
+            if (best < 0) {
+                return null;
+            }
+            positions[list]++;
+            final Map<String, String> params = resources[best].match(request);
+            if (params != null) {
+                return new AbstractMap.SimpleImmutableEntry<>(resources[best], params);
+            }
+        }
+    }
+
+
+    private static int[] append(final int[] array, final int value) {
+        final int[] retval = Arrays.copyOf(array, array.length + 1);
+        retval[array.length] = value;
+        return retval;
+    }
+
+}
@@ -0,0 +1,467 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+
+package coyote.commons.network.http.responder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import coyote.commons.network.http.FileResponse;
+import coyote.commons.network.http.HTTP;
+import coyote.commons.network.http.HTTPSession;
+import coyote.commons.network.http.Method;
+import coyote.commons.network.http.Response;
+import coyote.commons.network.http.Status;
+
+
+/**
+ * Serves files from the file system the way a web server would.
+ *
+ * <p>The length and modification time of each file served are cached, with
+ * the content of small files, so repeated requests for the same file do not
+ * touch the file system until the entry is revalidated. Files are described
+ * with a weak entity tag and their modification time, which clients may send
+ * back with {@code If-None-Match} and {@code If-Modified-Since} to get a
+ * {@code 304 Not Modified} response instead of the file.</p>
+ *
+ * <p>Requests with a {@code Range} header get the parts of the file they ask
+ * for, as a {@code 206 Partial Content} response for a single range or a
+ * {@code multipart/byteranges} body for several. If a file has a sibling with
+ * a {@code .gz} extension, the sibling is sent to clients which accept gzip
+ * encoding in place of the file.</p>
+ *
+ * <p>The bodies of larger files are sent by {@link FileResponse}, directly
+ * from the file to the socket when the connection allows it.</p>
+ */
+public class StaticContent {
+
+  /** The most ranges served for one request, more and the whole file is sent. */
+  public static final int MAX_RANGES = 16;
+
+  private static final String GZIP_EXTENSION = ".gz";
+  private static final String BYTES_UNIT = "bytes";
+  private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+
+  private static final StaticContent INSTANCE = new StaticContent(1024, 64 * 1024, 2000);
+
+  private final int maxCachedSize;
+  private final long revalidateInterval;
+  private final Map<String, Metadata> entries;
+
+
+
+
+  /**
+   * What is known about a file.
+   */
+  private static final class Metadata {
+    final Path path;
+    final long length;
+    final long lastModified;
+    final String lastModifiedText;
+    final String etag;
+    final byte[] content;
+    final Metadata gzip;
+    final long checked;
+
+
+
+
+    Metadata(final Path path, final long length, final long lastModified, final byte[] content, final Metadata gzip, final long checked) {
+      this.path = path;
+      this.length = length;
+      this.lastModified = lastModified;
+      lastModifiedText = HTTP_DATE.format(Instant.ofEpochMilli(lastModified));
+      etag = "W/\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+      this.content = content;
+      this.gzip = gzip;
+      this.checked = checked;
+    }
+  }
+
+
+
+
+  /**
+   * @param maxEntries the number of files to remember
+   * @param maxCachedSize the largest file whose content is kept in memory
+   * @param revalidateInterval milliseconds before a remembered file is
+   *        checked for changes
+   */
+  public StaticContent(final int maxEntries, final int maxCachedSize, final long revalidateInterval) {
+    this.maxCachedSize = maxCachedSize;
+    this.revalidateInterval = revalidateInterval;
+    entries = new LinkedHashMap<String, Metadata>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+
+
+
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, Metadata> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+
+
+
+  /**
+   * @return the instance shared by the responders serving files
+   */
+  public static StaticContent getInstance() {
+    return INSTANCE;
+  }
+
+
+
+
+  /**
+   * Create the response to the given request for a file.
+   *
+   * @param file the file requested
+   * @param status the status to send with the whole file
+   * @param mimeType the type of the file
+   * @param session the request
+   *
+   * @return the response, or null if the file does not exist or is not a
+   *         regular file.
+   *
+   * @throws IOException if the file could not be read
+   */
+  public Response serve(final File file, final Status status, final String mimeType, final HTTPSession session) throws IOException {
+    final Metadata entry = lookup(file);
+    if (entry == null) {
+      return null;
+    }
+    final Map<String, String> headers = session.getRequestHeaders();
+
+    Metadata variant = entry;
+    if (entry.gzip != null) {
+      final String acceptEncoding = headers.get(HTTP.HDR_ACCEPT_ENCODING.toLowerCase());
+      if ((acceptEncoding != null) && acceptEncoding.contains(HTTP.GZIP)) {
+        variant = entry.gzip;
+      }
+    }
+
+    if (isNotModified(variant, headers)) {
+      return describe(new Response(Status.NOT_MODIFIED, null, null, 0), entry, variant);
+    }
+
+    final String range = headers.get(HTTP.HDR_RANGE.toLowerCase());
+    if ((range != null) && (session.getMethod() == Method.GET) && isRangeCurrent(variant, headers.get(HTTP.HDR_IF_RANGE.toLowerCase()))) {
+      final long[] ranges = parseRanges(range, variant.length);
+      if (ranges != null) {
+        if (ranges.length == 0) {
+          final Response response = new Response(Status.RANGE_NOT_SATISFIABLE, null, null, 0);
+          response.addHeader(HTTP.HDR_CONTENT_RANGE, BYTES_UNIT + " */" + variant.length);
+          return describe(response, entry, variant);
+        } else if (ranges.length == 2) {
+          final Response response = new FileResponse(Status.PARTIAL_CONTENT, mimeType, variant.path, variant.content, ranges[0], ranges[1]);
+          response.addHeader(HTTP.HDR_CONTENT_RANGE, contentRange(ranges[0], ranges[1], variant.length));
+          return describe(response, entry, variant);
+        } else {
+          return describe(multipart(variant, mimeType, ranges), entry, variant);
+        }
+      }
+    }
+
+    return describe(new FileResponse(status, mimeType, variant.path, variant.content, 0, variant.length), entry, variant);
+  }
+
+
+
+
+  /**
+   * Add the headers describing the file being sent to the response.
+   */
+  private static Response describe(final Response response, final Metadata entry, final Metadata variant) {
+    response.addHeader(HTTP.HDR_ETAG, variant.etag);
+    response.addHeader(HTTP.HDR_LAST_MODIFIED, variant.lastModifiedText);
+    response.addHeader(HTTP.HDR_ACCEPT_RANGES, BYTES_UNIT);
+    if (entry.gzip != null) {
+      response.addHeader(HTTP.HDR_VARY, HTTP.HDR_ACCEPT_ENCODING);
+      if (variant == entry.gzip) {
+        response.addHeader(HTTP.HDR_CONTENT_ENCODING, HTTP.GZIP);
+      }
+    }
+    return response;
+  }
+
+
+
+
+  /**
+   * @return a response carrying each of the ranges as a part of a
+   *         {@code multipart/byteranges} body.
+   */
+  private static Response multipart(final Metadata variant, final String mimeType, final long[] ranges) {
+    final String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong());
+    final int parts = ranges.length / 2;
+    final long[] offsets = new long[parts];
+    final long[] lengths = new long[parts];
+    final byte[][] headings = new byte[parts][];
+    for (int x = 0; x < parts; x++) {
+      offsets[x] = ranges[x * 2];
+      lengths[x] = ranges[(x * 2) + 1];
+      final StringBuilder heading = new StringBuilder();
+      if (x > 0) {
+        heading.append("\r\n");
+      }
+      heading.append("--").append(boundary).append("\r\n");
+      if (mimeType != null) {
+        heading.append(HTTP.HDR_CONTENT_TYPE).append(": ").append(mimeType).append("\r\n");
+      }
+      heading.append(HTTP.HDR_CONTENT_RANGE).append(": ").append(contentRange(offsets[x], lengths[x], variant.length)).append("\r\n\r\n");
+      headings[x] = heading.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+    final byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    return new FileResponse(Status.PARTIAL_CONTENT, "multipart/byteranges; boundary=" + boundary, variant.path, variant.content, offsets, lengths, headings, trailer);
+  }
+
+
+
+
+  private static String contentRange(final long offset, final long length, final long total) {
+    return BYTES_UNIT + " " + offset + "-" + (offset + length - 1) + "/" + total;
+  }
+
+
+
+
+  /**
+   * @return true if the validators sent by the client show it already has
+   *         the current version of the file.
+   */
+  private static boolean isNotModified(final Metadata variant, final Map<String, String> headers) {
+    final String ifNoneMatch = headers.get(HTTP.HDR_IF_NONE_MATCH.toLowerCase());
+    if (ifNoneMatch != null) {
+      // the entity tag takes precedence over the date when both are sent
+      return matches(ifNoneMatch, variant.etag);
+    }
+    final String ifModifiedSince = headers.get(HTTP.HDR_IF_MODIFIED_SINCE.toLowerCase());
+    if (ifModifiedSince != null) {
+      final long since = parseDate(ifModifiedSince);
+      // HTTP dates are only accurate to the second
+      return (since >= 0) && ((variant.lastModified / 1000) * 1000 <= since);
+    }
+    return false;
+  }
+
+
+
+
+  /**
+   * Weakly compare the entity tags in an {@code If-None-Match} header with
+   * the tag of the file.
+   */
+  private static boolean matches(final String header, final String etag) {
+    final String opaque = opaqueTag(etag);
+    for (final String tag : header.split(",")) {
+      final String candidate = tag.trim();
+      if ("*".equals(candidate) || opaque.equals(opaqueTag(candidate))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
+
+
+  private static String opaqueTag(final String etag) {
+    return etag.startsWith("W/") ? etag.substring(2) : etag;
+  }
+
+
+
+
+  /**
+   * An {@code If-Range} header asks for the ranges only if the file has not
+   * changed. Entity tags must be compared strongly, which a weak tag never
+   * passes, and dates must match exactly.
+   */
+  private static boolean isRangeCurrent(final Metadata variant, final String ifRange) {
+    if (ifRange == null) {
+      return true;
+    }
+    final String value = ifRange.trim();
+    if (value.startsWith("W/") || value.startsWith("\"")) {
+      return false;
+    }
+    return value.equals(variant.lastModifiedText);
+  }
+
+
+
+
+  /**
+   * Parse the value of a {@code Range} header.
+   *
+   * @param header the value of the header
+   * @param length the length of the file
+   *
+   * @return the offset and length of each satisfiable range in pairs, an
+   *         empty array if no range can be satisfied, or null if the header
+   *         is not understood or asks for too many ranges, in which case the
+   *         whole file is sent.
+   */
+  public static long[] parseRanges(final String header, final long length) {
+    final String spec = header.trim();
+    if (!spec.startsWith(BYTES_UNIT + "=")) {
+      return null;
+    }
+    final List<long[]> ranges = new ArrayList<>();
+    for (final String part : spec.substring(BYTES_UNIT.length() + 1).split(",")) {
+      final String range = part.trim();
+      if (range.isEmpty()) {
+        continue;
+      }
+      final int dash = range.indexOf('-');
+      if (dash < 0) {
+        return null;
+      }
+      final long first;
+      final long last;
+      try {
+        if (dash == 0) {
+          // the last bytes of the file
+          final long suffix = Long.parseLong(range.substring(1));
+          if (suffix <= 0 || length == 0) {
+            continue;
+          }
+          first = Math.max(0, length - suffix);
+          last = length - 1;
+        } else {
+          first = Long.parseLong(range.substring(0, dash));
+          last = (dash == range.length() - 1) ? length - 1 : Math.min(Long.parseLong(range.substring(dash + 1)), length - 1);
+          if (last < first && first < length) {
+            return null;
+          }
+        }
+      } catch (final NumberFormatException e) {
+        return null;
+      }
+      if (first < 0) {
+        return null;
+      }
+      if (first < length) {
+        ranges.add(new long[]{first, last - first + 1});
+      }
+    }
+    if (ranges.size() > MAX_RANGES) {
+      return null;
+    }
+    final long[] retval = new long[ranges.size() * 2];
+    for (int x = 0; x < ranges.size(); x++) {
+      retval[x * 2] = ranges.get(x)[0];
+      retval[(x * 2) + 1] = ranges.get(x)[1];
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the time in the given HTTP date in milliseconds, or -1 if it is
+   *         not a date.
+   */
+  private static long parseDate(final String text) {
+    try {
+      return ZonedDateTime.parse(text.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+    } catch (final DateTimeParseException e) {
+      return -1;
+    }
+  }
+
+
+
+
+  /**
+   * Find what is known about the given file, checking the file system if it
+   * has not been checked recently.
+   */
+  private Metadata lookup(final File file) throws IOException {
+    final String key = file.getPath();
+    Metadata entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+    final long now = System.currentTimeMillis();
+    if ((entry != null) && (now - entry.checked < revalidateInterval)) {
+      return entry;
+    }
+
+    final Metadata previous = entry;
+    entry = load(file.toPath(), previous, now);
+    if (entry != null) {
+      entry = new Metadata(entry.path, entry.length, entry.lastModified, entry.content, load(new File(key + GZIP_EXTENSION).toPath(), (previous != null) ? previous.gzip : null, now), now);
+    }
+    synchronized (entries) {
+      if (entry != null) {
+        entries.put(key, entry);
+      } else {
+        entries.remove(key);
+      }
+    }
+    return entry;
+  }
+
+
+
+
+  /**
+   * Read the attributes, and the content of small files, of the given file.
+   *
+   * @param path the file
+   * @param previous what was known about the file, reused if it is unchanged
+   * @param now the current time
+   *
+   * @return the entry for the file, without its gzip sibling, or null if it
+   *         is not a regular file.
+   */
+  private Metadata load(final Path path, final Metadata previous, final long now) throws IOException {
+    final BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (final IOException e) {
+      return null;
+    }
+    if (!attributes.isRegularFile()) {
+      return null;
+    }
+    final long length = attributes.size();
+    final long lastModified = attributes.lastModifiedTime().toMillis();
+    if ((previous != null) && (previous.length == length) && (previous.lastModified == lastModified)) {
+      return new Metadata(path, length, lastModified, previous.content, null, now);
+    }
+    if (length <= maxCachedSize) {
+      final byte[] content = Files.readAllBytes(path);
+      return new Metadata(path, content.length, lastModified, content, null, now);
+    }
+    return new Metadata(path, length, lastModified, null, null, now);
+  }
+
+}
@@ -8,15 +8,12 @@
 
 package coyote.commons.network.http.responder;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Map;
 
 import coyote.commons.network.MimeType;
-import coyote.commons.network.http.HTTPD;
 import coyote.commons.network.http.HTTPSession;
 import coyote.commons.network.http.Status;
 import coyote.commons.network.http.Response;
@@ -29,7 +26,8 @@ import coyote.commons.network.http.Status;
  * <p>The first initialization parameter is the directory from which the files
  * are to be served.</p>
  */
-public class StaticPageResponder extends DefaultResponder {
+@ThreadSafe
+public class StaticPageResponder extends AbstractFileResponder {
 
   private static String[] getPathArray(final String uri) {
     final String array[] = uri.split("/");
@@ -84,7 +82,8 @@ public class StaticPageResponder extends DefaultResponder {
 
       // return the found file
       try {
-        return Response.createChunkedResponse(getStatus(), HTTPD.getMimeTypeForFile(requestedFile.getName()), fileToInputStream(requestedFile));
+        final Response response = serveFile(requestedFile, session);
+        return (response != null) ? response : new Error404Responder().get(resource, urlParams, session);
       } catch (final IOException ioe) {
         return Response.createFixedLengthResponse(Status.REQUEST_TIMEOUT, MimeType.TEXT.getType(), null);
       }
@@ -114,11 +113,4 @@ public class StaticPageResponder extends DefaultResponder {
   public String getText() {
     throw new IllegalStateException("This method should not be called");
   }
-
-
-
-
-  protected BufferedInputStream fileToInputStream(final File fileOrdirectory) throws IOException {
-    return new BufferedInputStream(new FileInputStream(fileOrdirectory));
-  }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+
+package coyote.commons.network.http.responder;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+
+/**
+ * The responder keeps no state between requests and may serve any number of
+ * requests at the same time.
+ *
+ * <p>Responders are normally created for each request. A responder with this
+ * annotation is created once for each route and that one instance serves
+ * every request to the route, which saves creating and collecting an object
+ * for every request.</p>
+ *
+ * <p>The annotation is not inherited; a subclass of a thread-safe responder
+ * must be annotated itself, since it may add state of its own.</p>
+ */
+@Documented
+@Retention(RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ThreadSafe {
+
+}
@@ -37,6 +37,9 @@ public class UriRouter {
 
   private Class<?> notImplemented;
 
+  /** The mappings indexed by the path segments of their URIs, rebuilt when routes change */
+  private volatile RoutingTable table;
+
 
 
 
@@ -45,17 +48,19 @@ public class UriRouter {
    */
   public UriRouter() {
     mappings = new ArrayList<Resource>();
+    table = new RoutingTable(mappings);
   }
 
 
 
 
   /**
-   * @return the list of URI resource objects responsible for handling
-   *         requests of the server.
+   * @return a read-only view of the URI resource objects responsible for 
+   *         handling requests of the server. Routes are added and removed 
+   *         through the router so it can index them.
    */
   public List<Resource> getMappings() {
-    return mappings;
+    return Collections.unmodifiableList(mappings);
   }
 
 
@@ -64,6 +69,10 @@ public class UriRouter {
   /**
    * Search in the mappings if the given request URI matches some of the rules.
    *
+   * <p>The mappings are searched in priority order, but only those whose 
+   * literal path segments match the request are tried; see 
+   * {@link RoutingTable}.</p>
+   *
    * <p>If there are more than one match, this returns the rule with least
    * parameters. For example: mapping 1 = /user/:id  - mapping 2 = /user/help.
    * If the incoming URI is www.example.com/user/help - mapping 2 is returned.
@@ -83,20 +92,19 @@ public class UriRouter {
     Map<String, String> params = null;
     Resource retval = error404Url;
 
-    // For all the resources, see which one matches first
-    for (final Resource resource : mappings) {
-      params = resource.match(request);
-      if (params != null) {
-        retval = resource;
-        break;
-      }
+    // Find the first resource which matches, only trying those which could
+    final Map.Entry<Resource, Map<String, String>> route = table.route(request);
+    if (route != null) {
+      retval = route.getKey();
+      params = route.getValue();
     }
 
+    // guarded so the argument array and boxed port are only made when logged
     if (Log.isLogging(HTTPD.EVENT)) {
       if (error404Url == retval) {
-        Log.append(HTTPD.EVENT, "No route mapped to handle request for '" + request + "' from " + session.getRemoteIpAddress() + ":" + session.getRemoteIpPort() + " - method:" + session.getMethod());
+        Log.appendf(HTTPD.EVENT, "No route mapped to handle request for '{0}' from {1}:{2} - method:{3}", request, session.getRemoteIpAddress(), session.getRemoteIpPort(), session.getMethod());
       } else {
-        Log.append(HTTPD.EVENT, session.getMethod() + " request for '" + request + "' from " + session.getRemoteIpAddress() + ":" + session.getRemoteIpPort() + " handled by resource : " + retval);
+        Log.appendf(HTTPD.EVENT, "{0} request for '{1}' from {2}:{3} handled by resource : {4}", session.getMethod(), request, session.getRemoteIpAddress(), session.getRemoteIpPort(), retval);
       }
     }
     // Have the found (or default 404) URI resource process the session
@@ -149,6 +157,7 @@ public class UriRouter {
         return o1.priority - o2.priority;
       }
     });
+    table = new RoutingTable(mappings);
   }
 
 
@@ -191,6 +200,7 @@ public class UriRouter {
         break;
       }
     }
+    table = new RoutingTable(mappings);
   }
 
   public Resource getNotFoundResource() {
@@ -10,6 +10,7 @@ package coyote.commons.rtw;
 import coyote.BootStrap;
 import coyote.commons.ExceptionUtil;
 import coyote.commons.StringUtil;
+import coyote.commons.cfg.Config;
 import coyote.commons.dataframe.DataFrame;
 import coyote.commons.log.Log;
 import coyote.commons.rtw.context.ContextKey;
@@ -27,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -35,6 +37,7 @@ import java.util.*;
 public abstract class AbstractTransformEngine extends AbstractConfigurableComponent implements TransformEngine, ConfigurableComponent {
 
     static final String FORMAT_SYMBOL_LOOKUP_TAG = "FormatSymbol";
+    static final String CONTEXT_LOOKUP_TAG = "Context";
     /**
      * A symbol table to support basic template functions
      */
@@ -100,11 +103,25 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
      * The shared directory where multiple engines may read and write data.
      */
     private File workDirectory = null;
+    /**
+     * The configuration of the parallel pipeline, null runs all stages on the engine thread.
+     */
+    private Config parallelConfig = null;
+    /**
+     * The pipeline processing transactions while the engine is running in parallel mode.
+     */
+    private volatile ParallelPipeline pipeline = null;
+    /**
+     * The objects visible to templates resolved by this engine's threads.
+     */
+    private final Map<String, Object> templateScope = new ConcurrentHashMap<>();
 
 
     public AbstractTransformEngine() {
         symbols.readSystemProperties();
-        Template.putStatic(FORMAT_SYMBOL_LOOKUP_TAG, new FormatSymbol(symbols));
+        FormatSymbol formatSymbol = new FormatSymbol(symbols);
+        templateScope.put(FORMAT_SYMBOL_LOOKUP_TAG, formatSymbol);
+        Template.putStatic(FORMAT_SYMBOL_LOOKUP_TAG, formatSymbol);
     }
 
     /**
@@ -200,6 +217,11 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
         int transactionErrors = 0;
         Log.trace("Engine '" + getName() + "' starting transform");
 
+        // Give templates resolved on this thread access to all the data in the
+        // contexts and advanced functions without replacing those of other engines
+        templateScope.put(CONTEXT_LOOKUP_TAG, new TemplateAccess(getContext()));
+        Map<String, Object> outerScope = Template.setScope(templateScope);
+
         // fire the transformation start event
         getContext().start();
 
@@ -234,70 +256,69 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
                 // loop through all data read in by the reader until EOF or an error in
                 // the transform context occurs.
                 getContext().setState("Process");
-                while (getContext().isNotInError() && reader != null && !reader.eof()) {
-
-                    // Create a new Transaction context with the list of listeners to react
-                    // to events in the transaction.
-                    TransactionContext txnContext = new TransactionContext(getContext());
-
-                    // place a reference to the transaction in the transform context
-                    getContext().setTransaction(txnContext);
-
-                    // Create a component to place in the Templates to give them access to
-                    // all the data in the contexts and advanced functions
-                    TemplateAccess access = new TemplateAccess(getContext());
-                    Template.putStatic("Context", access);
-
-                    // Start the clock and fire event listeners for the beginning of the
-                    // transaction
-                    txnContext.start();
-                    txnContext.setState("Read");
-
-                    // Read a frame into the given context (source frame)
-                    DataFrame retval = reader.read(txnContext);
-
-                    // Sometimes readers read empty lines and the like, skip null dataframes
-                    if (retval != null) {
-
-                        // Set the returned dataframe into the transaction context
-                        txnContext.setSourceFrame(retval);
-                        getContext().setRow(++currentFrameNumber);
-                        getContext().getSymbols().put(Symbols.CURRENT_FRAME, currentFrameNumber);
-                        getContext().getSymbols().put(Symbols.LAST_FRAME, txnContext.isLastFrame());
-                        txnContext.fireRead(txnContext, reader);
-
-                        filter(txnContext);
-
-                        // If the working frame did not get filtered out...
-                        if (txnContext.getWorkingFrame() != null) {
-                            validate(txnContext);
-                            if (txnContext.isNotInError()) {
-                                transform(txnContext);
-                                map(txnContext);
-                                if (!aggregators.isEmpty()) {
-                                    aggregateAndwrite(txnContext);
-                                } else {
-                                    write(txnContext);
-                                }
-                            } // passed validators
-                        } // passed filters
-
-                        // Now end the transaction which should fire any context listeners
-                        txnContext.end();
-
-                        if (txnContext.isInError()) {
-                            transactionErrors++;
-                        }
-
-                    } else {
-                        // If nothing was read in, maybe there was an error?
-                        if (txnContext.isInError()) {
-                            Log.error("Transaction error: "+txnContext.getErrorMessage());
-                            transactionErrors++;
-                        }
-                    } // if something was read in
-
-                } // Reader !eof and context is without error
+                if (parallelConfig != null && reader != null) {
+                    transactionErrors += parallelProcess();
+                } else {
+                    while (getContext().isNotInError() && reader != null && !reader.eof()) {
+
+                        // Create a new Transaction context with the list of listeners to react
+                        // to events in the transaction.
+                        TransactionContext txnContext = new TransactionContext(getContext());
+
+                        // place a reference to the transaction in the transform context
+                        getContext().setTransaction(txnContext);
+
+                        // Start the clock and fire event listeners for the beginning of the
+                        // transaction
+                        txnContext.start();
+                        txnContext.setState("Read");
+
+                        // Read a frame into the given context (source frame)
+                        DataFrame retval = reader.read(txnContext);
+
+                        // Sometimes readers read empty lines and the like, skip null dataframes
+                        if (retval != null) {
+
+                            // Set the returned dataframe into the transaction context
+                            txnContext.setSourceFrame(retval);
+                            getContext().setRow(++currentFrameNumber);
+                            getContext().getSymbols().put(Symbols.CURRENT_FRAME, currentFrameNumber);
+                            getContext().getSymbols().put(Symbols.LAST_FRAME, txnContext.isLastFrame());
+                            txnContext.fireRead(txnContext, reader);
+
+                            filter(txnContext);
+
+                            // If the working frame did not get filtered out...
+                            if (txnContext.getWorkingFrame() != null) {
+                                validate(txnContext);
+                                if (txnContext.isNotInError()) {
+                                    transform(txnContext);
+                                    map(txnContext);
+                                    if (!aggregators.isEmpty()) {
+                                        aggregateAndwrite(txnContext);
+                                    } else {
+                                        write(txnContext);
+                                    }
+                                } // passed validators
+                            } // passed filters
+
+                            // Now end the transaction which should fire any context listeners
+                            txnContext.end();
+
+                            if (txnContext.isInError()) {
+                                transactionErrors++;
+                            }
+
+                        } else {
+                            // If nothing was read in, maybe there was an error?
+                            if (txnContext.isInError()) {
+                                Log.error("Transaction error: "+txnContext.getErrorMessage());
+                                transactionErrors++;
+                            }
+                        } // if something was read in
+
+                    } // Reader !eof and context is without error
+                }
 
             } // transformContext ! err after pre-processing
 
@@ -354,6 +375,8 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
 
             // reset the frame pointer
             currentFrameNumber = 0;
+
+            Template.setScope(outerScope);
         }
 
         if (getContext().isInError()) {
@@ -364,6 +387,198 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
 
     }
 
+    /**
+     * Read all the frames from the reader and pass them through the parallel
+     * pipeline.
+     *
+     * <p>The frames are read on this thread and processed by the pipeline's
+     * workers. This returns only after every frame read has been written.</p>
+     *
+     * @return the number of transactions which ended in error
+     */
+    @SuppressWarnings("unchecked")
+    private int parallelProcess() {
+        int transactionErrors = 0;
+        pipeline = new ParallelPipeline(this, parallelConfig);
+        pipeline.start();
+
+        // Transactions are bound to the threads working on them rather than
+        // set in the shared context, and each carries its own row and frame
+        // symbols, so no thread sees the state of a frame read after its own
+        final SymbolTable sharedSymbols = getContext().getSymbols();
+        TransactionContext lastTransaction = null;
+        try {
+            while (getContext().isNotInError() && !reader.eof()) {
+                TransactionContext txnContext = new TransactionContext(getContext());
+                getContext().bindTransaction(txnContext);
+                try {
+                    txnContext.start();
+                    txnContext.setState("Read");
+
+                    DataFrame retval = reader.read(txnContext);
+                    if (retval != null) {
+                        txnContext.setSourceFrame(retval);
+                        txnContext.setRow(++currentFrameNumber);
+                        txnContext.setSymbols(frameSymbols(sharedSymbols, currentFrameNumber, txnContext.isLastFrame()));
+                        txnContext.fireRead(txnContext, reader);
+                        lastTransaction = txnContext;
+
+                        // blocks while the pipeline is full
+                        pipeline.submit(txnContext);
+                    } else {
+                        if (txnContext.isInError()) {
+                            Log.error("Transaction error: " + txnContext.getErrorMessage());
+                            transactionErrors++;
+                        }
+                    }
+                } finally {
+                    getContext().bindTransaction(null);
+                }
+            }
+        } catch (InterruptedException e) {
+            getContext().setError("Interrupted waiting on parallel pipeline");
+            Thread.currentThread().interrupt();
+        } finally {
+            transactionErrors += pipeline.drain();
+
+            // leave the context as the sequential loop does for post-processing
+            if (lastTransaction != null) {
+                getContext().setTransaction(lastTransaction);
+                if (sharedSymbols != null) {
+                    sharedSymbols.put(Symbols.CURRENT_FRAME, currentFrameNumber);
+                    sharedSymbols.put(Symbols.LAST_FRAME, lastTransaction.isLastFrame());
+                }
+            }
+            DataFrame metrics = pipeline.getMetrics();
+            getContext().set(ContextKey.PIPELINE_METRICS, metrics);
+            Log.debug("Engine '" + getName() + "' pipeline metrics: " + metrics.toString());
+            pipeline = null;
+        }
+        return transactionErrors;
+    }
+
+    /**
+     * Create the symbols for one transaction of the parallel pipeline holding
+     * the symbols of its frame over those of the engine.
+     *
+     * @param shared    the symbols of the engine, may be null
+     * @param row       the number of the frame
+     * @param lastFrame true if the frame is the last one read
+     * @return the symbols for the transaction, or null if the engine has none
+     */
+    @SuppressWarnings("unchecked")
+    private static SymbolTable frameSymbols(SymbolTable shared, long row, boolean lastFrame) {
+        SymbolTable retval = null;
+        if (shared != null) {
+            retval = new FrameSymbols(shared);
+            retval.put(Symbols.CURRENT_FRAME, row);
+            retval.put(Symbols.LAST_FRAME, lastFrame);
+        }
+        return retval;
+    }
+
+    /**
+     * Symbols of one transaction in the parallel pipeline.
+     *
+     * <p>Symbols set for the transaction are kept here; all others are looked
+     * up in the symbols of the engine, which are only read, so the engine
+     * symbols (system properties and all) are not copied for every frame.</p>
+     */
+    private static final class FrameSymbols extends SymbolTable {
+        private static final long serialVersionUID = 1L;
+        private final SymbolTable shared;
+
+        FrameSymbols(SymbolTable shared) {
+            this.shared = shared;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object retval = super.get(key);
+            if (retval == null && !super.containsKey(key)) {
+                retval = shared.get(key);
+            }
+            return retval;
+        }
+
+        @Override
+        public Object getOrDefault(Object key, Object defaultValue) {
+            return containsKey(key) ? get(key) : defaultValue;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return super.containsKey(key) || shared.containsKey(key);
+        }
+    }
+
+    /**
+     * @return the objects visible to templates resolved by this engine's threads
+     */
+    Map<String, Object> getTemplateScope() {
+        return templateScope;
+    }
+
+    /**
+     * Filter, validate, transform and map the given transaction.
+     *
+     * <p>This is called by the workers of the parallel pipeline.</p>
+     *
+     * @param txnContext the transaction containing the source frame to process
+     */
+    void process(TransactionContext txnContext) {
+        getContext().bindTransaction(txnContext);
+        try {
+            filter(txnContext);
+            if (txnContext.getWorkingFrame() != null) {
+                validate(txnContext);
+                if (txnContext.isNotInError()) {
+                    transform(txnContext);
+                    map(txnContext);
+                }
+            }
+        } finally {
+            getContext().bindTransaction(null);
+        }
+    }
+
+    /**
+     * Aggregate and write the given processed transaction, then end it.
+     *
+     * <p>This is called by the writer thread of the parallel pipeline.</p>
+     *
+     * @param txnContext the transaction processed by {@link #process(TransactionContext)}
+     * @return true if the transaction ended in error, false otherwise
+     */
+    boolean complete(TransactionContext txnContext) {
+        getContext().bindTransaction(txnContext);
+        try {
+            if (txnContext.getWorkingFrame() != null && txnContext.isNotInError()) {
+                txnContext.fireMap(txnContext);
+                if (!aggregators.isEmpty()) {
+                    aggregateAndwrite(txnContext);
+                } else {
+                    write(txnContext);
+                }
+            }
+            txnContext.end();
+            return txnContext.isInError();
+        } finally {
+            getContext().bindTransaction(null);
+        }
+    }
+
+    /**
+     * Determine if calls to the given component must be confined to a single
+     * thread.
+     *
+     * @param component the component about to be called
+     * @return true if the engine is running in parallel and the component is not thread-safe
+     */
+    private boolean isConfined(Object component) {
+        return pipeline != null && component instanceof SingleThreaded;
+    }
+
     /**
      * Read in historic data to prime (preload) components so they can base
      * their calculations based on previous / historic frames.
@@ -662,7 +877,8 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
         txnContext.setState("Filter");
         for (FrameFilter filter : filters) {
             if (filter.isEnabled()) {
-                if (!filter.process(txnContext)) {
+                boolean proceed = isConfined(filter) ? pipeline.confine(() -> filter.process(txnContext)) : filter.process(txnContext);
+                if (!proceed) {
                     // filter signaled to discontinue filter checks (early exit)
                     break;
                 }
@@ -686,17 +902,14 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
         boolean passed = true;
         List<String> errors = new ArrayList<String>();
         for (FrameValidator validator : validators) {
-            try {
-                if (!validator.process(txnContext)) {
-                    passed = false;
-                    String error = validator.getDescription();
-                    if (StringUtil.isBlank(error)) {
-                        error = validator.getClass().getName();
-                    }
-                    errors.add(error);
+            boolean valid = isConfined(validator) ? pipeline.confine(() -> validate(validator, txnContext)) : validate(validator, txnContext);
+            if (!valid) {
+                passed = false;
+                String error = validator.getDescription();
+                if (StringUtil.isBlank(error)) {
+                    error = validator.getClass().getName();
                 }
-            } catch (ValidationException e) {
-                txnContext.setError(e.getMessage());
+                errors.add(error);
             }
         }
 
@@ -714,6 +927,22 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
         }
     }
 
+    /**
+     * Validate the data in the transaction context with the given validator.
+     *
+     * @param validator  the validator to apply
+     * @param txnContext the transaction context containing the data to validate
+     * @return false if the validator failed the frame, true otherwise
+     */
+    private boolean validate(FrameValidator validator, TransactionContext txnContext) {
+        try {
+            return validator.process(txnContext);
+        } catch (ValidationException e) {
+            txnContext.setError(e.getMessage());
+            return true;
+        }
+    }
+
     /**
      * Transform the working frame contained in the given transaction context
      * with the currently configured transformers.
@@ -726,7 +955,8 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
         for (FrameTransform transformer : transformers) {
             try {
                 // Have the transformer process the frame
-                DataFrame resultFrame = transformer.process(txnContext.getWorkingFrame());
+                final DataFrame workingFrame = txnContext.getWorkingFrame();
+                DataFrame resultFrame = isConfined(transformer) ? pipeline.confine(() -> transformer.process(workingFrame)) : transformer.process(workingFrame);
 
                 // place the results of the transformation in the context
                 txnContext.setWorkingFrame(resultFrame);
@@ -759,12 +989,33 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
         if (txnContext.isNotInError()) {
             txnContext.setState("Map");
             // Map / Move fields from the working to the target frame
-            try {
-                mapper.process(txnContext);
+            if (isConfined(mapper)) {
+                pipeline.confine(() -> mapFrame(txnContext));
+            } else {
+                mapFrame(txnContext);
+            }
+        }
+    }
+
+    /**
+     * Have the mapper move fields from the working to the target frame.
+     *
+     * <p>In parallel mode the map event is fired by the writer thread so all
+     * listeners see map, write and end events in the same order.</p>
+     *
+     * @param txnContext the transaction context containing the data to map
+     * @return true if the mapping was successful, false if the transaction was placed in error
+     */
+    private boolean mapFrame(TransactionContext txnContext) {
+        try {
+            mapper.process(txnContext);
+            if (pipeline == null) {
                 txnContext.fireMap(txnContext);
-            } catch (MappingException e) {
-                txnContext.setError(e.getMessage());
             }
+            return true;
+        } catch (MappingException e) {
+            txnContext.setError(e.getMessage());
+            return false;
         }
     }
 
@@ -1165,6 +1416,14 @@ public abstract class AbstractTransformEngine extends AbstractConfigurableCompon
         this.preloader = reader;
     }
 
+    /**
+     *
+     */
+    @Override
+    public void setParallel(Config config) {
+        this.parallelConfig = config;
+    }
+
     /**
      *
      */
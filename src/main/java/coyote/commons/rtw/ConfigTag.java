@@ -28,6 +28,7 @@ public class ConfigTag {
     public static final String CHARACTER = "character";
     public static final String CLASS = "class";
     public static final String CONDITION = "condition";
+    public static final String CURSOR = "cursor";
     public static final String DATA = "data";
     public static final String DATEFORMAT = "dateformat";
     public static final String DEFAULT = "default";
@@ -37,7 +38,10 @@ public class ConfigTag {
     public static final String DRIVER = "driver";
     public static final String ENCODING = "encoding";
     public static final String ENDPOINT = "endpoint";
+    public static final String ERROR = "error";
     public static final String EVALUATE = "evaluate";
+    public static final String EXACT = "exact";
+    public static final String FETCH_SIZE = "fetchsize";
     public static final String FIELDS = "fields";
     public static final String FOOTER = "footer";
     public static final String FORMAT = "format";
@@ -52,17 +56,24 @@ public class ConfigTag {
     public static final String LENGTH = "length";
     public static final String LIBRARY = "library";
     public static final String LIMIT = "limit";
+    public static final String LOWER_BOUND = "lowerbound";
     public static final String LINEMAP = "linemap";
     public static final String LISTEN = "Listen";
     public static final String LOGGING = "Logging";
+    public static final String MEMORY = "memory";
     public static final String MESSAGE = "Message";
     public static final String NAME = "name";
     public static final String MODE = "mode";
     public static final String MOVE = "move";
+    public static final String MULTIROW = "multirow";
     public static final String OVERWRITE = "overwrite";
+    public static final String PARTITION_COLUMN = "partitioncolumn";
+    public static final String PARTITION_MODE = "partitionmode";
+    public static final String PARTITIONS = "partitions";
     public static final String PASSWORD = "password";
     public static final String PATH = "path";
     public static final String PATTERN = "pattern";
+    public static final String PIPELINE = "pipeline";
     public static final String PREEMTIVE_AUTH = "preemptive_auth";
     public static final String PRELOAD = "preload";
     public static final String PRESERVE = "preserve";
@@ -75,6 +86,7 @@ public class ConfigTag {
     public static final String RENAME = "rename";
     public static final String REPEAT = "repeat";
     public static final String REPLACE = "replace";
+    public static final String RETRY = "retry";
     public static final String SCHEMA = "schema";
     public static final String SECRET = "secret";
     public static final String SECURE = "secure";
@@ -87,9 +99,11 @@ public class ConfigTag {
     public static final String SYMBOL = "symbol";
     public static final String TABLE = "table";
     public static final String TARGET = "target";
+    public static final String TOP = "top";
     public static final String TOPIC = "topic";
     public static final String TRIM = "trim";
     public static final String TYPE = "type";
+    public static final String UPPER_BOUND = "upperbound";
     public static final String USERNAME = "username";
     public static final String USE_SSL = "usessl";
     public static final String VALUE = "value";
@@ -137,6 +151,7 @@ public class ConfigTag {
     public static final String ENABLED = "enabled";
     public static final String VAULT = "vault";
     public static final String CONFIGURATION = "Configuration";
+    public static final String PARALLEL = "parallel";
 
     // Tasks
 
@@ -28,6 +28,12 @@ public class DataSetMetrics {
 
     private long samples = 0;
 
+    private boolean exact = false;
+
+    private double error = FieldMetrics.DEFAULT_ERROR;
+
+    private int topValues = 0;
+
 
 
 
@@ -64,7 +70,7 @@ public class DataSetMetrics {
         }
 
         if (retval == null) {
-            retval = new FieldMetrics(name);
+            retval = new FieldMetrics(name, exact, error, topValues);
             metrics.add(retval);
         }
 
@@ -94,6 +100,29 @@ public class DataSetMetrics {
 
 
 
+    /**
+     * Set how the metrics of the fields sampled from now on are tracked.
+     *
+     * @param exact     true to track every distinct value, which takes memory
+     *                  in proportion to the data; false to estimate them with
+     *                  fixed-size sketches
+     * @param error     the error allowed in the estimates, e.g. 0.01 for 1%
+     * @param topValues the number of most frequent values of each field to
+     *                  track, 0 for none
+     * @see FieldMetrics#FieldMetrics(String, boolean, double, int)
+     */
+    public void setEstimation(final boolean exact, final double error, final int topValues) {
+        if (!(error > 0 && error < 1)) {
+            throw new IllegalArgumentException("Error must be between 0 and 1: " + error);
+        }
+        this.exact = exact;
+        this.error = error;
+        this.topValues = topValues;
+    }
+
+
+
+
     /**
      * Take a sample.
      *
@@ -9,21 +9,41 @@ package coyote.commons.rtw;
 
 
 import coyote.commons.dataframe.DataField;
+import coyote.commons.i13n.HeavyHitters;
+import coyote.commons.i13n.HyperLogLog;
+import coyote.commons.i13n.QuantileSketch;
 import coyote.commons.i13n.SimpleMetric;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * This class examines the sampled data fields and tracks several metrics.
+ *
+ * <p>Distinct values, the distribution of string lengths and numeric values
+ * and, optionally, the most frequent values are tracked with fixed-size
+ * sketches so profiling any amount of data takes the same memory. The
+ * results are estimates within the configured error. In exact mode every
+ * distinct value and its count, and every length and number, is kept
+ * instead, which is only suitable for small data sets.</p>
  */
 public class FieldMetrics {
+    /**
+     * The default error of the estimates, 1%.
+     */
+    public static final double DEFAULT_ERROR = 0.01;
+
     private static final String BYTE_LENGTH = "Byte Length";
     private static final String STRING_LENGTH = "String Length";
     private long fieldLength = -1L;
     private String fieldName = null;
     private String fieldType = null;
-    private final Set<Object> values = new HashSet<Object>();
+    private final boolean exact;
+    private final double error;
+    private final HyperLogLog distinct;
+    private final HeavyHitters frequent;
+    private final QuantileSketch lengths;
+    private QuantileSketch numbers = null;
     long blankCount = 0;
     SimpleMetric byteLength = new SimpleMetric(BYTE_LENGTH, "");
     long emptyCount = 0;
@@ -35,7 +55,33 @@ public class FieldMetrics {
 
 
     public FieldMetrics(final String name) {
+        this(name, false, DEFAULT_ERROR, 0);
+    }
+
+
+
+
+    /**
+     * @param name      the name of the field
+     * @param exact     track every distinct value instead of estimating
+     * @param error     the relative standard error of the distinct value
+     *                  estimate, the largest rank error of the quantiles and
+     *                  the largest share of the samples the counts of the most
+     *                  frequent values may be short by
+     * @param topValues the number of most frequent values to track, 0 for none
+     */
+    public FieldMetrics(final String name, final boolean exact, final double error, final int topValues) {
         fieldName = name;
+        this.exact = exact;
+        this.error = error;
+        if (exact) {
+            distinct = null;
+            frequent = new HeavyHitters(Integer.MAX_VALUE);
+        } else {
+            distinct = HyperLogLog.withError(error);
+            frequent = (topValues > 0) ? new HeavyHitters((int)Math.max(topValues, Math.ceil(1 / error))) : null;
+        }
+        lengths = newQuantileSketch();
     }
 
 
@@ -77,7 +123,7 @@ public class FieldMetrics {
 
     public float getCoincidence() {
         if (sampleCount > 0) {
-            return (float)(sampleCount - (values.size() - 1)) / (float)sampleCount;
+            return (float)(sampleCount - (getUniqueValues() - 1)) / (float)sampleCount;
         } else {
             return 1F;
         }
@@ -216,8 +262,109 @@ public class FieldMetrics {
 
 
 
+    /**
+     * @return the number of distinct non-null values sampled, estimated
+     * unless this is tracking exact values
+     */
     public int getUniqueValues() {
-        return values.size();
+        if (exact) {
+            return frequent.size();
+        }
+        // the estimate may overshoot when there are only a few values
+        return (int)Math.min(Integer.MAX_VALUE, Math.min(distinct.estimate(), sampleCount - nullCount));
+    }
+
+
+
+
+    /**
+     * @return the relative standard error of {@link #getUniqueValues()}, zero
+     * if it is exact
+     */
+    public double getUniqueValuesError() {
+        return exact ? 0 : distinct.getError();
+    }
+
+
+
+
+    /**
+     * @return true if every distinct value is tracked, false if they are estimated
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+
+
+
+    /**
+     * @param rank the rank of the length wanted from 0 to 1, 0.5 being the median
+     * @return the string length at the given rank, -1 if no values were sampled
+     */
+    public long getStringLengthQuantile(final double rank) {
+        return (lengths.getCount() > 0) ? Math.round(lengths.getQuantile(rank)) : -1;
+    }
+
+
+
+
+    /**
+     * @param rank the rank of the value wanted from 0 to 1, 0.5 being the median
+     * @return the numeric value at the given rank, NaN if no numbers were sampled
+     */
+    public double getNumericQuantile(final double rank) {
+        return (numbers != null) ? numbers.getQuantile(rank) : Double.NaN;
+    }
+
+
+
+
+    /**
+     * @return the number of numeric values sampled
+     */
+    public long getNumericCount() {
+        return (numbers != null) ? numbers.getCount() : 0;
+    }
+
+
+
+
+    /**
+     * @return the largest rank error of the quantiles, zero if they are exact
+     */
+    public double getQuantileError() {
+        return lengths.getError();
+    }
+
+
+
+
+    /**
+     * Return the most frequent values sampled.
+     *
+     * <p>Unless this is tracking exact values, the counts may be less than
+     * the true counts by up to {@link #getTopValueError()}.</p>
+     *
+     * @param limit the most values to return
+     * @return the values and the number of times they were sampled, most
+     * frequent first; empty if the frequent values are not being tracked
+     */
+    public Map<String, Long> getTopValues(final int limit) {
+        if (frequent == null) {
+            return Collections.emptyMap();
+        }
+        return frequent.getTop(limit);
+    }
+
+
+
+
+    /**
+     * @return the most any count of {@link #getTopValues(int)} may be short by
+     */
+    public long getTopValueError() {
+        return (frequent != null) ? frequent.getMaximumError() : 0;
     }
 
 
@@ -236,7 +383,19 @@ public class FieldMetrics {
         // Set metrics based on the value of the field
         final String value = field.getStringValue();
         if (value != null) {
-            values.add(value);
+            if (distinct != null) {
+                distinct.add(value);
+            }
+            if (frequent != null) {
+                frequent.add(value);
+            }
+            lengths.add(value.length());
+            if (field.getObjectValue() instanceof Number) {
+                if (numbers == null) {
+                    numbers = newQuantileSketch();
+                }
+                numbers.add(((Number)field.getObjectValue()).doubleValue());
+            }
 
             if (value.length() == 0) {
                 emptyCount++;
@@ -280,4 +439,11 @@ public class FieldMetrics {
         fieldType = typeName;
     }
 
+
+
+
+    private QuantileSketch newQuantileSketch() {
+        return exact ? new QuantileSketch(Integer.MAX_VALUE) : QuantileSketch.withError(error);
+    }
+
 }
\ No newline at end of file
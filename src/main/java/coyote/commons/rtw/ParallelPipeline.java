@@ -0,0 +1,392 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.rtw;
+
+import coyote.commons.cfg.Config;
+import coyote.commons.dataframe.DataFrame;
+import coyote.commons.log.Log;
+import coyote.commons.rtw.context.TransactionContext;
+import coyote.commons.rtw.context.TransformContext;
+import coyote.commons.template.Template;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Runs the processing stages of a transform engine on a pool of threads.
+ *
+ * <p>The engine thread reads frames and submits each transaction to this
+ * pipeline. A bounded pool of worker threads filters, validates, transforms
+ * and maps the transactions and a single writer thread passes the results to
+ * the aggregators and writers, either in the order they were read or in the
+ * order they completed.</p>
+ *
+ * <p>The number of transactions in flight is limited by the configured queue
+ * size. When the limit is reached, the engine thread blocks in
+ * {@link #submit(TransactionContext)} until the writer catches up, so memory
+ * use stays bounded regardless of how fast the reader is.</p>
+ *
+ * <p>Components implementing {@link SingleThreaded} are called through
+ * {@link #confine(Callable)} which runs them on one dedicated thread, bound
+ * to the transaction of the thread which called them.</p>
+ *
+ * <p>This is configured in the job with a {@code parallel} section:<pre>
+ * "Parallel": { "workers": 8, "queue": 512, "ordered": true }</pre>
+ */
+class ParallelPipeline {
+
+    static final String WORKERS = "workers";
+    static final String ORDERED = "ordered";
+
+    /**
+     * Used to signal the writer thread that no more transactions are coming.
+     */
+    private static final Slot END = new Slot(-1, null);
+
+    private final AbstractTransformEngine engine;
+    private final int workerCount;
+    private final int capacity;
+    private final boolean ordered;
+
+    private final Semaphore permits;
+    private final BlockingQueue<Slot> completed = new LinkedBlockingQueue<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong stalls = new AtomicLong();
+    private final AtomicLong stallNanos = new AtomicLong();
+    private final AtomicInteger errors = new AtomicInteger();
+
+    private final StageMetric workMetric = new StageMetric("Work");
+    private final StageMetric writeMetric = new StageMetric("Write");
+    private final StageMetric reorderMetric = new StageMetric("Reorder");
+
+    private ThreadPoolExecutor workers = null;
+    private ExecutorService lane = null;
+    private Thread writer = null;
+    private volatile Thread laneThread = null;
+
+
+    /**
+     * Create a pipeline for the given engine using the given configuration.
+     *
+     * @param engine the engine whose stages are to be run
+     * @param cfg    the parallel configuration section, may be null for defaults
+     */
+    ParallelPipeline(AbstractTransformEngine engine, Config cfg) {
+        this.engine = engine;
+        int count = Runtime.getRuntime().availableProcessors();
+        int depth = 0;
+        boolean inOrder = true;
+        if (cfg != null) {
+            try {
+                if (cfg.containsIgnoreCase(WORKERS)) count = cfg.getInt(WORKERS);
+                if (cfg.containsIgnoreCase(ConfigTag.QUEUE)) depth = cfg.getInt(ConfigTag.QUEUE);
+            } catch (NumberFormatException e) {
+                throw new RTWConfigurationException("Invalid parallel configuration: " + e.getMessage(), e);
+            }
+            inOrder = cfg.getAsBoolean(ORDERED, true);
+        }
+        workerCount = Math.max(1, count);
+        capacity = (depth > 0) ? depth : workerCount * 64;
+        ordered = inOrder;
+        permits = new Semaphore(capacity);
+    }
+
+
+    /**
+     * Start the worker, writer and single-threaded component threads.
+     */
+    void start() {
+        final String name = engine.getName();
+        workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(capacity), r -> {
+            Thread thread = new Thread(scoped(r), "RTW-" + name + "-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        lane = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(scoped(r), "RTW-" + name + "-serial");
+            thread.setDaemon(true);
+            laneThread = thread;
+            return thread;
+        });
+        writer = new Thread(scoped(this::writeLoop), "RTW-" + name + "-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Log.debug(String.format("Engine '%s' running parallel pipeline: workers=%d queue=%d ordered=%s", name, workerCount, capacity, ordered));
+    }
+
+
+    /**
+     * Wrap the body of a pipeline thread so templates resolved on it see the
+     * objects in the engine's template scope.
+     *
+     * @param body what the thread runs
+     * @return the body run within the engine's template scope
+     */
+    private Runnable scoped(Runnable body) {
+        final Map<String, Object> scope = engine.getTemplateScope();
+        return () -> {
+            Template.setScope(scope);
+            body.run();
+        };
+    }
+
+
+    /**
+     * Submit a transaction which has been read to the worker pool.
+     *
+     * <p>This blocks the caller when the maximum number of transactions are
+     * already in flight.</p>
+     *
+     * @param txnContext the transaction containing the source frame to process
+     * @throws InterruptedException if interrupted while waiting for room in the pipeline
+     */
+    void submit(final TransactionContext txnContext) throws InterruptedException {
+        if (!permits.tryAcquire()) {
+            long start = System.nanoTime();
+            permits.acquire();
+            stalls.incrementAndGet();
+            stallNanos.addAndGet(System.nanoTime() - start);
+        }
+        final Slot slot = new Slot(submitted.getAndIncrement(), txnContext);
+        workers.execute(() -> {
+            try {
+                engine.process(slot.txnContext);
+            } catch (Throwable t) {
+                slot.txnContext.setError(t.getClass().getSimpleName() + ": " + t.getMessage());
+            } finally {
+                completed.add(slot);
+                writeMetric.sample(completed.size());
+            }
+        });
+        workMetric.sample(workers.getQueue().size());
+    }
+
+
+    /**
+     * Wait for all submitted transactions to be processed and written, then
+     * stop all the pipeline threads.
+     *
+     * @return the number of transactions which completed in error
+     */
+    int drain() {
+        if (workers != null) {
+            workers.shutdown();
+            try {
+                while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                    Log.debug(String.format("Waiting on %d active workers", workers.getActiveCount()));
+                }
+                completed.add(END);
+                writer.join();
+            } catch (InterruptedException e) {
+                workers.shutdownNow();
+                writer.interrupt();
+                Thread.currentThread().interrupt();
+            }
+            lane.shutdownNow();
+            workers = null;
+        }
+        return errors.get();
+    }
+
+
+    /**
+     * @return true if the calling thread is the one running single-threaded components
+     */
+    boolean isConfinedThread() {
+        return Thread.currentThread() == laneThread;
+    }
+
+
+    /**
+     * Run the given call on the single thread reserved for components which
+     * are not thread-safe and wait for the result.
+     *
+     * <p>Runtime exceptions and errors thrown by the call are re-thrown in the
+     * calling thread.</p>
+     *
+     * @param call the call to make
+     * @param <T>  the type of the result
+     * @return the result of the call
+     */
+    <T> T confine(Callable<T> call) {
+        if (isConfinedThread()) {
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+        // the lane thread works on the caller's transaction for the call
+        final TransformContext context = engine.getContext();
+        final TransactionContext txnContext = context.getTransaction();
+        Future<T> future = lane.submit(() -> {
+            context.bindTransaction(txnContext);
+            try {
+                return call.call();
+            } finally {
+                context.bindTransaction(null);
+            }
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting on single-threaded component", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause.getMessage(), cause);
+        }
+    }
+
+
+    /**
+     * The body of the writer thread.
+     *
+     * <p>In ordered mode, transactions which complete out of sequence are held
+     * until all the transactions read before them have been written.</p>
+     */
+    private void writeLoop() {
+        final Map<Long, Slot> pending = new HashMap<>();
+        long next = 0;
+        try {
+            while (true) {
+                Slot slot = completed.take();
+                if (slot == END) {
+                    break;
+                }
+                if (ordered) {
+                    pending.put(slot.sequence, slot);
+                    reorderMetric.sample(pending.size());
+                    while ((slot = pending.remove(next)) != null) {
+                        complete(slot);
+                        next++;
+                    }
+                } else {
+                    complete(slot);
+                }
+            }
+        } catch (InterruptedException e) {
+            Log.warn(String.format("Engine '%s' writer interrupted with %d transactions pending", engine.getName(), submitted.get() - written.get()));
+        }
+    }
+
+
+    private void complete(Slot slot) {
+        try {
+            if (engine.complete(slot.txnContext)) {
+                errors.incrementAndGet();
+            }
+        } catch (Throwable t) {
+            Log.error(String.format("Engine '%s' write stage error %s: %s", engine.getName(), t.getClass().getSimpleName(), t.getMessage()));
+            errors.incrementAndGet();
+        } finally {
+            written.incrementAndGet();
+            permits.release();
+        }
+    }
+
+
+    /**
+     * Access the metrics collected by this pipeline.
+     *
+     * <p>Each stage reports the current, peak and average depth of its queue.
+     * The {@code Work} stage is the queue of transactions waiting for a worker,
+     * {@code Write} is the queue of processed transactions waiting for the
+     * writer and {@code Reorder} is the number of transactions held by the
+     * writer waiting on earlier transactions (ordered mode only).</p>
+     *
+     * @return a frame containing the pipeline metrics
+     */
+    DataFrame getMetrics() {
+        DataFrame retval = new DataFrame();
+        retval.put(WORKERS, workerCount);
+        retval.put(ConfigTag.QUEUE, capacity);
+        retval.put(ORDERED, ordered);
+        retval.put("Submitted", submitted.get());
+        retval.put("Written", written.get());
+        retval.put("Stalls", stalls.get());
+        retval.put("StallMillis", TimeUnit.NANOSECONDS.toMillis(stallNanos.get()));
+        retval.put(workMetric.name, workMetric.toFrame(workers != null ? workers.getQueue().size() : 0));
+        retval.put(writeMetric.name, writeMetric.toFrame(completed.size()));
+        retval.put(reorderMetric.name, reorderMetric.toFrame(reorderMetric.last));
+        return retval;
+    }
+
+
+    /**
+     * A transaction and the order in which it was read.
+     */
+    private static class Slot {
+        final long sequence;
+        final TransactionContext txnContext;
+
+        Slot(long sequence, TransactionContext txnContext) {
+            this.sequence = sequence;
+            this.txnContext = txnContext;
+        }
+    }
+
+
+    /**
+     * Queue depth samples for one stage of the pipeline.
+     */
+    private static class StageMetric {
+        final String name;
+        final AtomicLong samples = new AtomicLong();
+        final AtomicLong total = new AtomicLong();
+        volatile int peak = 0;
+        volatile int last = 0;
+
+        StageMetric(String name) {
+            this.name = name;
+        }
+
+        void sample(int depth) {
+            last = depth;
+            samples.incrementAndGet();
+            total.addAndGet(depth);
+            if (depth > peak) {
+                peak = depth; // benign race, an occasional lost peak is acceptable
+            }
+        }
+
+        DataFrame toFrame(int current) {
+            DataFrame retval = new DataFrame();
+            long count = samples.get();
+            retval.put("Current", current);
+            retval.put("Peak", peak);
+            retval.put("Average", count > 0 ? (double) total.get() / count : 0D);
+            return retval;
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.rtw;
+
+/**
+ * Marker for components which are not safe to call from more than one thread.
+ *
+ * <p>When the engine runs in parallel mode, filters, validators, transforms
+ * and the mapper are called from a pool of worker threads. Components which
+ * keep state between frames (e.g. counters, distinct value checks) implement
+ * this interface and the engine will make all calls to them from a single
+ * dedicated thread, one frame at a time.</p>
+ *
+ * <p>This has no effect when the engine runs in its normal (serial) mode
+ * where everything is called from the engine thread.</p>
+ */
+public interface SingleThreaded {
+
+}
@@ -8,6 +8,7 @@
 package coyote.commons.rtw;
 
 
+import coyote.commons.cfg.Config;
 import coyote.commons.dataframe.DataFrame;
 import coyote.commons.rtw.context.ContextListener;
 import coyote.commons.rtw.context.TransformContext;
@@ -235,6 +236,17 @@ public interface TransformEngine extends RunnableComponent {
     void setPreloader(FrameReader reader);
 
 
+    /**
+     * Configure the engine to process frames in parallel.
+     *
+     * <p>Frames are read on the engine thread, processed by a bounded pool of
+     * worker threads and written by a single writer thread.</p>
+     *
+     * @param config the parallel configuration section, null to process all frames on the engine thread.
+     */
+    void setParallel(Config config);
+
+
     void close() throws IOException;
     public List<TransformTask> getPreProcessTasks();
 
@@ -220,6 +220,14 @@ public class TransformEngineFactory {
                     } else {
                         throw new RTWConfigurationException("Invalid context configuration section");
                     }
+                } else if (StringUtil.equalsIgnoreCase(ConfigTag.PARALLEL, field.getName())) {
+                    if (field.isFrame()) {
+                        retval.setParallel(new Config((DataFrame) field.getObjectValue()));
+                    } else if (field.getType() == DataField.BOOLEANTYPE) {
+                        retval.setParallel(Boolean.TRUE.equals(field.getObjectValue()) ? new Config() : null);
+                    } else {
+                        throw new RTWConfigurationException("Invalid parallel configuration section");
+                    }
                 } else if (StringUtil.equalsIgnoreCase(ConfigTag.CLASS, field.getName())) {
                     // ignore the CLASS field...it is used by the Loader, but not by us.
                 } else if (StringUtil.equalsIgnoreCase(ConfigTag.LISTENER, field.getName())) {
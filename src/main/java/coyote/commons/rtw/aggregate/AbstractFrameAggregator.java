@@ -7,6 +7,7 @@
  */
 package coyote.commons.rtw.aggregate;
 
+import coyote.commons.StringUtil;
 import coyote.commons.dataframe.DataFrame;
 import coyote.commons.log.Log;
 import coyote.commons.rtw.*;
@@ -14,6 +15,7 @@ import coyote.commons.rtw.context.TransactionContext;
 import coyote.commons.rtw.context.TransformContext;
 import coyote.commons.rtw.eval.Evaluator;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -67,6 +69,42 @@ public abstract class AbstractFrameAggregator extends AbstractConfigurableCompon
 
 
 
+  /**
+   * Return the memory budget from the configuration.
+   *
+   * @return the number of bytes of frames the aggregator may hold before
+   *         spilling them to disk, 0 for no limit
+   */
+  protected long getMemoryBudget() {
+    String value = getString(ConfigTag.MEMORY);
+    if (StringUtil.isNotBlank(value)) {
+      try {
+        return FrameSorter.parseSize(value);
+      } catch (final NumberFormatException e) {
+        Log.error("Could not parse memory config (" + ConfigTag.MEMORY + ") into a size - value: '" + value + "' - no limit will be imposed");
+      }
+    }
+    return 0;
+  }
+
+
+
+
+  /**
+   * @return the directory in which to spill frames to disk, or null for the
+   *         default temporary directory
+   */
+  protected File getSpillDirectory() {
+    String value = getString(ConfigTag.DIRECTORY);
+    if (StringUtil.isNotBlank(value)) {
+      return resolveFile(value);
+    }
+    return null;
+  }
+
+
+
+
   /**
    *
    */
@@ -0,0 +1,450 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.rtw.aggregate;
+
+import coyote.commons.StringUtil;
+import coyote.commons.dataframe.DataFrame;
+import coyote.commons.log.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+
+/**
+ * Sorts frames in a limited amount of memory.
+ *
+ * <p>Frames are held in their binary encoding ({@link DataFrame#getBytes()})
+ * and once they take more than the memory budget, they are sorted and written
+ * to a temporary file as a run. The sorted frames are then read by merging
+ * all the runs, so only one frame from each run is in memory at a time. The
+ * budget is measured against the encoded frames; decoded frames take more.
+ *
+ * <p>The sort is stable, frames with equal keys are returned in the order
+ * they were added.
+ *
+ * @param <K> the type of the key the frames are sorted by
+ */
+final class FrameSorter<K> implements Closeable {
+
+    /**
+     * Memory allowed for each frame held beyond its encoding
+     */
+    private static final int OVERHEAD = 64;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final Function<DataFrame, K> keyer;
+    private final Comparator<? super K> comparator;
+    private final long budget;
+    private final File directory;
+    private final List<Record<K>> records = new ArrayList<>();
+    private final List<File> runs = new ArrayList<>();
+    private final List<Closeable> readers = new ArrayList<>();
+    private long held = 0;
+    private int size = 0;
+
+
+    /**
+     * @param keyer      gets the key of a frame
+     * @param comparator the order of the keys
+     * @param budget     the number of bytes of frames to hold before spilling them to disk
+     * @param directory  where to create the temporary files, null for the default temporary directory
+     */
+    FrameSorter(Function<DataFrame, K> keyer, Comparator<? super K> comparator, long budget, File directory) {
+        this.keyer = keyer;
+        this.comparator = comparator;
+        this.budget = budget;
+        this.directory = directory;
+    }
+
+
+    /**
+     * Parse a size in bytes, which may end with K, KB, M, MB, G or GB.
+     *
+     * @param text the size to parse
+     * @return the number of bytes, 0 if the text is blank
+     * @throws NumberFormatException if the text is not a size
+     */
+    static long parseSize(String text) {
+        if (StringUtil.isBlank(text)) {
+            return 0;
+        }
+        String value = text.trim().toUpperCase();
+        if (value.endsWith("B")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        long multiplier = 1;
+        if (value.endsWith("K")) {
+            multiplier = 1024;
+        } else if (value.endsWith("M")) {
+            multiplier = 1024 * 1024;
+        } else if (value.endsWith("G")) {
+            multiplier = 1024 * 1024 * 1024;
+        }
+        if (multiplier > 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return Long.parseLong(value.trim()) * multiplier;
+    }
+
+
+    /**
+     * Add a frame, spilling the frames held to disk if they exceed the budget.
+     *
+     * @param frame the frame to add
+     * @throws IOException if the frames could not be spilled
+     */
+    void add(DataFrame frame) throws IOException {
+        byte[] bytes = frame.getBytes();
+        records.add(new Record<>(keyer.apply(frame), bytes));
+        held += bytes.length + OVERHEAD;
+        size++;
+        if (held > budget) {
+            spill();
+        }
+    }
+
+
+    /**
+     * @return the number of frames added
+     */
+    int size() {
+        return size;
+    }
+
+
+    /**
+     * @return the number of runs spilled to disk
+     */
+    int getRunCount() {
+        return runs.size();
+    }
+
+
+    /**
+     * Get all the frames added, in order.
+     *
+     * <p>If nothing was spilled the frames are decoded into a list, otherwise
+     * the list reads the runs from disk each time it is iterated, and should
+     * be read in order.
+     *
+     * @param filter supplies a new filter for each pass over the frames,
+     *               deciding which are returned; null for all of them
+     * @param count  the number of frames the filter passes
+     * @return the frames in order
+     * @throws IOException if the last frames could not be spilled
+     */
+    List<DataFrame> sorted(Supplier<Predicate<DataFrame>> filter, int count) throws IOException {
+        if (runs.isEmpty()) {
+            records.sort(this::compare);
+            Predicate<DataFrame> include = (filter != null) ? filter.get() : null;
+            List<DataFrame> retval = new ArrayList<>(count);
+            for (Record<K> record : records) {
+                DataFrame frame = new DataFrame(record.bytes);
+                if (include == null || include.test(frame)) {
+                    retval.add(frame);
+                }
+            }
+            records.clear();
+            held = 0;
+            return retval;
+        }
+
+        if (!records.isEmpty()) {
+            spill();
+        }
+        return new Merged(filter, count);
+    }
+
+
+    /**
+     * @return all the frames added, in order.
+     * @throws IOException if the last frames could not be spilled
+     * @see #sorted(Supplier, int)
+     */
+    List<DataFrame> sorted() throws IOException {
+        return sorted(null, size);
+    }
+
+
+    /**
+     * Delete the temporary files and forget all the frames.
+     */
+    @Override
+    public void close() {
+        for (Closeable reader : new ArrayList<>(readers)) {
+            try {
+                reader.close();
+            } catch (IOException ignore) {
+                // deleting anyway
+            }
+        }
+        readers.clear();
+        for (File run : runs) {
+            if (!run.delete()) {
+                Log.debug("Could not delete sort run " + run);
+            }
+        }
+        runs.clear();
+        records.clear();
+        held = 0;
+        size = 0;
+    }
+
+
+    private int compare(Record<K> a, Record<K> b) {
+        return comparator.compare(a.key, b.key);
+    }
+
+
+    /**
+     * Sort the frames held and write them to a new run.
+     */
+    private void spill() throws IOException {
+        records.sort(this::compare);
+        File run = File.createTempFile("sort", ".run", directory);
+        run.deleteOnExit();
+        runs.add(run);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run), BUFFER_SIZE))) {
+            for (Record<K> record : records) {
+                out.writeInt(record.bytes.length);
+                out.write(record.bytes);
+            }
+        }
+        if (Log.isLogging(Log.DEBUG_EVENTS)) {
+            Log.debug(String.format("Spilled %d frames (%d bytes) to sort run %d", records.size(), held, runs.size()));
+        }
+        records.clear();
+        held = 0;
+    }
+
+
+    /**
+     * A frame waiting to be sorted and its key.
+     */
+    private static final class Record<K> {
+        final K key;
+        final byte[] bytes;
+
+
+        Record(K key, byte[] bytes) {
+            this.key = key;
+            this.bytes = bytes;
+        }
+    }
+
+
+    /**
+     * The frames read by merging the runs.
+     *
+     * <p>Each iterator reads the runs from the start. Getting frames by index
+     * reads forward from the last frame got, which is kept, so reading them in
+     * order costs no more than iterating.
+     */
+    private final class Merged extends AbstractList<DataFrame> {
+        private final Supplier<Predicate<DataFrame>> filter;
+        private final int count;
+        private Merge cursor = null;
+        private int position = 0;
+        private DataFrame last = null;
+
+
+        Merged(Supplier<Predicate<DataFrame>> filter, int count) {
+            this.filter = filter;
+            this.count = count;
+        }
+
+
+        @Override
+        public Iterator<DataFrame> iterator() {
+            return new Merge((filter != null) ? filter.get() : null);
+        }
+
+
+        @Override
+        public DataFrame get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            }
+            if (cursor != null && index == position - 1) {
+                return last;
+            }
+            if (cursor == null || index < position) {
+                if (cursor != null) {
+                    cursor.close();
+                }
+                cursor = new Merge((filter != null) ? filter.get() : null);
+                position = 0;
+            }
+            while (position < index) {
+                cursor.next();
+                position++;
+            }
+            position++;
+            last = cursor.next();
+            return last;
+        }
+
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+
+
+    /**
+     * One pass over the runs, taking the lowest frame from the front of any of
+     * them each time.
+     */
+    private final class Merge implements Iterator<DataFrame>, Closeable {
+        private final PriorityQueue<Run> queue;
+        private final Predicate<DataFrame> include;
+        private DataFrame next = null;
+
+
+        Merge(Predicate<DataFrame> include) {
+            this.include = include;
+            queue = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+                int retval = comparator.compare(a.key, b.key);
+                // equal keys come from the earlier run first to keep the sort stable
+                return (retval != 0) ? retval : Integer.compare(a.index, b.index);
+            });
+            try {
+                for (int x = 0; x < runs.size(); x++) {
+                    Run run = new Run(x, runs.get(x));
+                    if (run.advance()) {
+                        queue.add(run);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            readers.add(this);
+            advance();
+        }
+
+
+        private void advance() {
+            next = null;
+            try {
+                while (next == null && !queue.isEmpty()) {
+                    Run run = queue.poll();
+                    DataFrame frame = run.frame;
+                    if (run.advance()) {
+                        queue.add(run);
+                    }
+                    if (include == null || include.test(frame)) {
+                        next = frame;
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            if (next == null) {
+                close();
+            }
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+
+        @Override
+        public DataFrame next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            DataFrame retval = next;
+            advance();
+            return retval;
+        }
+
+
+        @Override
+        public void close() {
+            Run run;
+            while ((run = queue.poll()) != null) {
+                run.close();
+            }
+            readers.remove(this);
+        }
+    }
+
+
+    /**
+     * Reads the frames of one run in turn.
+     */
+    private final class Run {
+        final int index;
+        final DataInputStream in;
+        DataFrame frame = null;
+        K key = null;
+
+
+        Run(int index, File file) throws IOException {
+            this.index = index;
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        }
+
+
+        /**
+         * Read the next frame of the run, closing it at the end.
+         *
+         * @return false if there are no more frames
+         */
+        boolean advance() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                close();
+                return false;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            frame = new DataFrame(bytes);
+            key = keyer.apply(frame);
+            return true;
+        }
+
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException ignore) {
+                // only reading
+            }
+        }
+    }
+
+}
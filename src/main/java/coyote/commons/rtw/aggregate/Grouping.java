@@ -16,7 +16,9 @@ import coyote.commons.rtw.RTW;
 import coyote.commons.rtw.context.TransactionContext;
 import coyote.commons.rtw.context.TransformContext;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.function.Predicate;
 
 
 /**
@@ -59,6 +61,13 @@ import java.util.*;
  * <p>A sample configuration is as follows:<pre>
  * "Aggregator": { "class": "Grouping", "key":"Symbol", "limit": 288, "sort":"ascend" }</pre>
  * The above configuration groups all
+ *
+ * <p>Data sets larger than the heap can be grouped by setting a memory
+ * budget, such as {@code "memory": "64M"}. Only the keys and the number of
+ * frames for each are then kept in memory; the frames are spilled to
+ * temporary files in {@code directory} (the system temporary directory by
+ * default) in runs sorted by group, and the runs are merged as the frames are
+ * emitted, in the same order as without a budget.
  */
 public class Grouping extends AbstractFrameAggregator implements FrameAggregator {
 
@@ -68,6 +77,13 @@ public class Grouping extends AbstractFrameAggregator implements FrameAggregator
     private RTW.Sort sort = RTW.Sort.NONE;
     private final Map<String, List<DataFrame>> dataMap = new HashMap<>();
 
+    /**
+     * The position of each key in the order they were first seen and the number of frames with each, when spilling
+     */
+    private final Map<String, Integer> firstSeen = new HashMap<>();
+    private final Map<String, Integer> counts = new HashMap<>();
+    private FrameSorter<String> sorter = null;
+
 
     /**
      *
@@ -96,6 +112,11 @@ public class Grouping extends AbstractFrameAggregator implements FrameAggregator
             sort = RTW.Sort.NONE;
         }
 
+        long budget = getMemoryBudget();
+        if (budget > 0) {
+            sorter = new FrameSorter<>(this::findKey, getGroupOrder(), budget, getSpillDirectory());
+        }
+
     }
 
 
@@ -106,18 +127,59 @@ public class Grouping extends AbstractFrameAggregator implements FrameAggregator
     protected List<DataFrame> aggregate(List<DataFrame> frames, TransactionContext txnContext) {
         List<DataFrame> retval = new ArrayList<>();
 
-        for (int x = 0; x < frames.size(); x++) {
-            addFrame(frames.get(x));
-        }
+        try {
+            for (DataFrame frame : frames) {
+                if (sorter != null) {
+                    spillFrame(frame);
+                } else {
+                    addFrame(frame);
+                }
+            }
 
-        if (txnContext.isLastFrame()) {
-            retval = compileFrames();
+            if (txnContext.isLastFrame()) {
+                retval = (sorter != null) ? compileSpilledFrames() : compileFrames();
+            }
+        } catch (IOException e) {
+            Log.error("Could not spill frames to disk: " + e.getMessage());
+            txnContext.setError("Grouping could not spill frames to disk: " + e.getMessage());
         }
 
         return retval;
     }
 
 
+    /**
+     *
+     */
+    @Override
+    public void close() throws IOException {
+        if (sorter != null) {
+            sorter.close();
+        }
+        keys.clear();
+        dataMap.clear();
+        firstSeen.clear();
+        counts.clear();
+        super.close();
+    }
+
+
+    /**
+     * Count the frame against its key and hand it to the sorter.
+     *
+     * @param frame the frame to add
+     */
+    private void spillFrame(DataFrame frame) throws IOException {
+        String key = getKey(frame);
+        if (!firstSeen.containsKey(key)) {
+            firstSeen.put(key, keys.size());
+            keys.add(key);
+        }
+        counts.merge(key, 1, Integer::sum);
+        sorter.add(frame);
+    }
+
+
     /**
      * @param dataFrame
      */
@@ -139,14 +201,25 @@ public class Grouping extends AbstractFrameAggregator implements FrameAggregator
      * exist or there is no key field specified
      */
     private String getKey(DataFrame frame) {
+        String retval = findKey(frame);
+        if (retval == null && StringUtil.isNotBlank(getKeyFieldName())) {
+            Log.warn("Frame did not contain a field named '" + getKeyFieldName() + "'");
+        }
+        return retval;
+    }
+
+
+    /**
+     * @return the string value of the key field or null if the field does not
+     * exist or there is no key field specified
+     */
+    private String findKey(DataFrame frame) {
         String retval = null;
         String keyname = getKeyFieldName();
         if (StringUtil.isNotBlank(keyname)) {
             Object obj = frame.get(keyname);
             if (obj != null) {
                 retval = obj.toString();
-            } else {
-                Log.warn("Frame did not contain a field named '" + keyname + "'");
             }
         }
         return retval;
@@ -233,6 +306,51 @@ public class Grouping extends AbstractFrameAggregator implements FrameAggregator
     }
 
 
+    /**
+     * @return the frames spilled to disk grouped by their key value, only the
+     * last {@code limit} frames of each key if there is a limit.
+     */
+    private List<DataFrame> compileSpilledFrames() throws IOException {
+        final int limit = getLimit();
+        if (limit <= 0) {
+            return sorter.sorted();
+        }
+
+        int size = 0;
+        for (int count : counts.values()) {
+            size += Math.min(count, limit);
+        }
+        // the frames of each key come in the order received, skip all but the last
+        return sorter.sorted(() -> {
+            Map<String, Integer> seen = new HashMap<>();
+            return (Predicate<DataFrame>) frame -> {
+                String key = findKey(frame);
+                return seen.merge(key, 1, Integer::sum) > counts.get(key) - limit;
+            };
+        }, size);
+    }
+
+
+    /**
+     * The order in which groups are emitted: by key for the sort mode, then in
+     * the order the keys were first seen as when the key list is sorted.
+     *
+     * @return the order of the keys of the frames
+     */
+    private Comparator<String> getGroupOrder() {
+        Comparator<String> retval = null;
+        if (sort != RTW.Sort.NONE) {
+            retval = (sort == RTW.Sort.ASCEND || sort == RTW.Sort.DESCEND) ? Comparator.naturalOrder() : String.CASE_INSENSITIVE_ORDER;
+            if (sort == RTW.Sort.DESCEND || sort == RTW.Sort.DESCEND_CI) {
+                retval = retval.reversed();
+            }
+            retval = Comparator.nullsFirst(retval);
+        }
+        Comparator<String> seen = Comparator.comparing(firstSeen::get);
+        return (retval == null) ? seen : retval.thenComparing(seen);
+    }
+
+
     /**
      * Sort the keys in the order indicated by the mode parameter.
      *
@@ -7,11 +7,10 @@
  */
 package coyote.commons.rtw.aggregate;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 
 import coyote.commons.StringUtil;
 import coyote.commons.dataframe.DataFrame;
@@ -24,19 +23,26 @@ import coyote.commons.rtw.context.TransformContext;
 /**
  * Simple aggregator to emit frames in a sorted order.
  * 
- * <p>This is a naive approach and results in consuming twice the amount of
- * memory it should. The original list of frames is buffered and upon
- * completion, will create a duplicate list in sorted order. This is not 
- * optimal and a more memory-efficient approach should be developed.
+ * <p>All the frames are buffered and emitted after the last frame, sorted by
+ * the string value of the field. Frames with the same value are emitted in
+ * the order they were received.
  * 
  * <p>A sample configuration is as follows:<pre>
  * "Aggregator": { "class": "Sort", "field":"Price", "sort":"decend" }</pre>
  * The above configuration sorts all the frames in descending order by price.
+ * 
+ * <p>Data sets larger than the heap can be sorted by setting a memory budget,
+ * such as {@code "memory": "64M"}. Once the buffered frames take more than
+ * the budget they are sorted and spilled to a temporary file in
+ * {@code directory} (the system temporary directory by default), and the
+ * files are merged as the sorted frames are emitted.
  */
 public class Sort extends AbstractFrameAggregator implements FrameAggregator {
 
   private RTW.Sort sort = RTW.Sort.NONE;
   private List<DataFrame> frameList = new ArrayList<>();
+  private String fieldName = null;
+  private FrameSorter<String> sorter = null;
 
 
 
@@ -68,6 +74,12 @@ public class Sort extends AbstractFrameAggregator implements FrameAggregator {
       sort = RTW.Sort.NONE;
     }
 
+    fieldName = getString(ConfigTag.FIELD);
+    long budget = getMemoryBudget();
+    if (budget > 0) {
+      sorter = new FrameSorter<>(this::getSortKey, getKeyOrder(), budget, getSpillDirectory());
+    }
+
   }
 
 
@@ -80,12 +92,21 @@ public class Sort extends AbstractFrameAggregator implements FrameAggregator {
   protected List<DataFrame> aggregate(List<DataFrame> frames, TransactionContext txnContext) {
     List<DataFrame> retval = new ArrayList<>();
 
-    for (int x = 0; x < frames.size(); x++) {
-      frameList.add(frames.get(x));
-    }
+    try {
+      for (DataFrame frame : frames) {
+        if (sorter != null) {
+          sorter.add(frame);
+        } else {
+          frameList.add(frame);
+        }
+      }
 
-    if (txnContext.isLastFrame()) {
-      retval = compileFrames();
+      if (txnContext.isLastFrame()) {
+        retval = compileFrames();
+      }
+    } catch (IOException e) {
+      Log.error("Could not spill frames to disk: " + e.getMessage());
+      txnContext.setError("Sort could not spill frames to disk: " + e.getMessage());
     }
 
     return retval;
@@ -95,46 +116,66 @@ public class Sort extends AbstractFrameAggregator implements FrameAggregator {
 
 
   /**
-   * @return
+   *
    */
-  private List<DataFrame> compileFrames() {
+  @Override
+  public void close() throws IOException {
+    if (sorter != null) {
+      sorter.close();
+    }
+    frameList.clear();
+    super.close();
+  }
+
+
+
+
+  /**
+   * @return all the frames received, in order
+   */
+  private List<DataFrame> compileFrames() throws IOException {
+    if (sorter != null) {
+      return sorter.sorted();
+    }
+
     List<DataFrame> retval = frameList;
+    if (StringUtil.isNotBlank(fieldName) && sort != RTW.Sort.NONE) {
+      // a stable sort, frames with equal keys stay in the order received
+      retval = new ArrayList<>(frameList);
+      retval.sort(Comparator.comparing(this::getSortKey, getKeyOrder()));
+    }
+    return retval;
+  }
+
+
 
-    String fieldName = getString(ConfigTag.FIELD);
+
+  /**
+   * @return the value the frame is sorted by, null if it is not sorted
+   */
+  private String getSortKey(DataFrame frame) {
     if (StringUtil.isNotBlank(fieldName) && sort != RTW.Sort.NONE) {
-      retval = new ArrayList<>();
-      // iterate through all the frames in the list and place their keys in a hash set
-      Set<String> keys = new HashSet<>();
-      for (int x = 0; x < frameList.size(); x++) {
-        keys.add(frameList.get(x).getAsString(fieldName));
-      }
+      return frame.getAsString(fieldName);
+    }
+    return null;
+  }
 
-      // Extract all the keys from the set into a list
-      List<String> list = new ArrayList<String>(keys);
 
-      // sort the list
-      if (sort != RTW.Sort.NONE) {
-        if (sort == RTW.Sort.ASCEND || sort == RTW.Sort.DESCEND) {
-          Collections.sort(list);
-        } else {
-          Collections.sort(list, String.CASE_INSENSITIVE_ORDER);
-        }
-        if (sort == RTW.Sort.DESCEND || sort == RTW.Sort.DESCEND_CI) {
-          Collections.reverse(list);
-        }
-      }
 
-      for (int x = 0; x < list.size(); x++) {
-        String value = list.get(x);
-        for (int y = 0; y < frameList.size(); y++) {
-          // if the frame has a field value which matches the current key, remove it from the list and add it to the return value
-          if (value.equals(frameList.get(y).getAsString(fieldName))) {
-            retval.add(frameList.get(y));
-          }
-        } // for each frame in the list
-      } // for each key
+
+  /**
+   * @return the order of the sort keys for the sort mode, frames without a
+   *         value first
+   */
+  private Comparator<String> getKeyOrder() {
+    if (sort == RTW.Sort.NONE) {
+      return (a, b) -> 0;
     }
-    return retval;
+    Comparator<String> retval = (sort == RTW.Sort.ASCEND || sort == RTW.Sort.DESCEND) ? Comparator.naturalOrder() : String.CASE_INSENSITIVE_ORDER;
+    if (sort == RTW.Sort.DESCEND || sort == RTW.Sort.DESCEND_CI) {
+      retval = retval.reversed();
+    }
+    return Comparator.nullsFirst(retval);
   }
 
 }
@@ -12,5 +12,6 @@ package coyote.commons.rtw.context;
  */
 public class ContextKey {
   public static final String COMMAND_LINE_ARGS = "cmd.line.args";
+  public static final String PIPELINE_METRICS = "pipeline.metrics";
 
 }
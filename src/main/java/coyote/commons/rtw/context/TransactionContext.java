@@ -29,6 +29,7 @@ public class TransactionContext extends OperationalContext {
     private DataFrame workingFrame = null;
 
     private boolean lastFrame = false;
+    private long row = 0;
 
 
 
@@ -127,4 +128,32 @@ public class TransactionContext extends OperationalContext {
         lastFrame = isLast;
     }
 
-}
\ No newline at end of file
+
+
+
+    /**
+     * @return the number of the frame in this transaction, or the current row
+     *         of the transform if no row has been set in this transaction
+     */
+    @Override
+    public long getRow() {
+        return (row > 0) ? row : super.getRow();
+    }
+
+
+
+
+    /**
+     * Set the number of the frame in this transaction.
+     *
+     * <p>This also sets the current row of the transform context.</p>
+     *
+     * @param row the row (frame sequence) to set
+     */
+    @Override
+    public void setRow(long row) {
+        this.row = row;
+        super.setRow(row);
+    }
+
+}
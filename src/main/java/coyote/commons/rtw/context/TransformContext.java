@@ -37,6 +37,7 @@ public class TransformContext extends OperationalContext {
     private static final String TRANSFORM = "Transform.";
     private static final String WORKING = "Working.";
     private volatile TransactionContext transactionContext = null;
+    private final ThreadLocal<TransactionContext> boundTransaction = new ThreadLocal<>();
     protected Config configuration = new Config();
     protected TransformEngine engine = null;
     protected volatile long openCount = 0;
@@ -79,25 +80,26 @@ public class TransformContext extends OperationalContext {
 
     public boolean containsField(final String token) {
         Boolean retval = false;
+        final TransactionContext transaction = getTransaction();
         if (token.startsWith(WORKING)) {
             final String name = token.substring(WORKING.length());
-            if ((transactionContext != null) && (transactionContext.getWorkingFrame() != null)) {
-                retval = transactionContext.getWorkingFrame().contains(name);
+            if ((transaction != null) && (transaction.getWorkingFrame() != null)) {
+                retval = transaction.getWorkingFrame().contains(name);
             }
         } else if (token.startsWith(SOURCE)) {
             final String name = token.substring(SOURCE.length());
-            if ((transactionContext != null) && (transactionContext.getSourceFrame() != null)) {
-                retval = transactionContext.getSourceFrame().contains(name);
+            if ((transaction != null) && (transaction.getSourceFrame() != null)) {
+                retval = transaction.getSourceFrame().contains(name);
             }
         } else if (token.startsWith(TARGET)) {
             final String name = token.substring(TARGET.length());
-            if ((transactionContext != null) && (transactionContext.getTargetFrame() != null)) {
-                retval = transactionContext.getTargetFrame().contains(name);
+            if ((transaction != null) && (transaction.getTargetFrame() != null)) {
+                retval = transaction.getTargetFrame().contains(name);
             }
         } else {
             // assume a working frame field
-            if ((transactionContext != null) && (transactionContext.getWorkingFrame() != null)) {
-                retval = transactionContext.getWorkingFrame().contains(token);
+            if ((transaction != null) && (transaction.getWorkingFrame() != null)) {
+                retval = transaction.getWorkingFrame().contains(token);
             }
         }
         return retval;
@@ -114,10 +116,58 @@ public class TransformContext extends OperationalContext {
 
 
     /**
+     * Access the current transaction context.
+     *
+     * <p>If a transaction has been bound to the calling thread, that
+     * transaction is returned, otherwise the transaction last set in this
+     * context is returned.</p>
+     *
      * @return the current transaction context
      */
     public TransactionContext getTransaction() {
-        return transactionContext;
+        TransactionContext retval = boundTransaction.get();
+        if (retval == null) {
+            retval = transactionContext;
+        }
+        return retval;
+    }
+
+
+
+
+    /**
+     * Access the number of the current frame.
+     *
+     * <p>If a transaction has been bound to the calling thread, this is the row
+     * of that transaction, otherwise it is the row most recently read.</p>
+     *
+     * @return the row (current frame number in the sequence)
+     */
+    @Override
+    public long getRow() {
+        final TransactionContext bound = boundTransaction.get();
+        return (bound != null) ? bound.getRow() : super.getRow();
+    }
+
+
+
+
+    /**
+     * Access the symbols used to resolve templates and variables.
+     *
+     * <p>If a transaction with its own symbols has been bound to the calling
+     * thread, those symbols are returned so the frame symbols of one
+     * transaction are not seen by the threads processing others.</p>
+     *
+     * @return the symbol table for the calling thread
+     */
+    @Override
+    public SymbolTable getSymbols() {
+        final TransactionContext bound = boundTransaction.get();
+        if (bound != null && bound.getSymbols() != null) {
+            return bound.getSymbols();
+        }
+        return super.getSymbols();
     }
 
 
@@ -241,25 +291,26 @@ public class TransformContext extends OperationalContext {
      */
     public String resolveField(final String token) {
         String retval = null;
+        final TransactionContext transaction = getTransaction();
         if (token.startsWith(WORKING)) {
             final String name = token.substring(WORKING.length());
-            if ((transactionContext != null) && (transactionContext.getWorkingFrame() != null)) {
-                retval = transactionContext.getWorkingFrame().getAsString(name);
+            if ((transaction != null) && (transaction.getWorkingFrame() != null)) {
+                retval = transaction.getWorkingFrame().getAsString(name);
             }
         } else if (token.startsWith(SOURCE)) {
             final String name = token.substring(SOURCE.length());
-            if ((transactionContext != null) && (transactionContext.getSourceFrame() != null)) {
-                retval = transactionContext.getSourceFrame().getAsString(name);
+            if ((transaction != null) && (transaction.getSourceFrame() != null)) {
+                retval = transaction.getSourceFrame().getAsString(name);
             }
         } else if (token.startsWith(TARGET)) {
             final String name = token.substring(TARGET.length());
-            if ((transactionContext != null) && (transactionContext.getTargetFrame() != null)) {
-                retval = transactionContext.getTargetFrame().getAsString(name);
+            if ((transaction != null) && (transaction.getTargetFrame() != null)) {
+                retval = transaction.getTargetFrame().getAsString(name);
             }
         } else if (token.startsWith(CONTEXT)) {
             final String name = token.substring(CONTEXT.length());
-            if (transactionContext != null) {
-                retval = transactionContext.getAsString(name);
+            if (transaction != null) {
+                retval = transaction.getAsString(name);
             }
         } else if (token.startsWith(TRANSFORM)) {
             final String name = token.substring(TRANSFORM.length());
@@ -293,25 +344,26 @@ public class TransformContext extends OperationalContext {
      */
     public Object resolveFieldValue(final String token) {
         Object retval = null;
+        final TransactionContext transaction = getTransaction();
         if (token.startsWith(WORKING)) {
             final String name = token.substring(WORKING.length());
-            if ((transactionContext != null) && (transactionContext.getWorkingFrame() != null)) {
-                retval = transactionContext.getWorkingFrame().getObject(name);
+            if ((transaction != null) && (transaction.getWorkingFrame() != null)) {
+                retval = transaction.getWorkingFrame().getObject(name);
             }
         } else if (token.startsWith(SOURCE)) {
             final String name = token.substring(SOURCE.length());
-            if ((transactionContext != null) && (transactionContext.getSourceFrame() != null)) {
-                retval = transactionContext.getSourceFrame().getObject(name);
+            if ((transaction != null) && (transaction.getSourceFrame() != null)) {
+                retval = transaction.getSourceFrame().getObject(name);
             }
         } else if (token.startsWith(TARGET)) {
             final String name = token.substring(TARGET.length());
-            if ((transactionContext != null) && (transactionContext.getTargetFrame() != null)) {
-                retval = transactionContext.getTargetFrame().getObject(name);
+            if ((transaction != null) && (transaction.getTargetFrame() != null)) {
+                retval = transaction.getTargetFrame().getObject(name);
             }
         } else if (token.startsWith(CONTEXT)) {
             final String name = token.substring(CONTEXT.length());
-            if (transactionContext != null) {
-                retval = transactionContext.get(name);
+            if (transaction != null) {
+                retval = transaction.get(name);
             }
         } else if (token.startsWith(TRANSFORM)) {
             final String name = token.substring(TRANSFORM.length());
@@ -568,6 +620,28 @@ public class TransformContext extends OperationalContext {
 
 
 
+    /**
+     * Bind the given transaction to the calling thread.
+     *
+     * <p>When the engine processes transactions on several threads, each thread
+     * binds the transaction it is working on so components calling
+     * {@link #getTransaction()} see their own transaction and not the one most
+     * recently read.</p>
+     *
+     * @param context the transaction being processed by the calling thread,
+     *                null unbinds the current transaction.
+     */
+    public void bindTransaction(final TransactionContext context) {
+        if (context != null) {
+            boundTransaction.set(context);
+        } else {
+            boundTransaction.remove();
+        }
+    }
+
+
+
+
     /**
      * @return the engine to which this context is associated.
      */
@@ -200,8 +200,7 @@ public abstract class FrameStore {
     Log.debug(String.format("Executing query: '%s'", query));
 
     if (conn != null) {
-      try {
-        Statement statement = conn.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
+      try (Statement statement = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
         result = statement.executeQuery(query);
 
         if (result != null) {
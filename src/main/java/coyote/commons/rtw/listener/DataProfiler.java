@@ -10,9 +10,14 @@ package coyote.commons.rtw.listener;
 import java.text.DecimalFormat;
 import java.text.FieldPosition;
 import java.util.Date;
+import java.util.Map;
 
 import coyote.commons.StringUtil;
+import coyote.commons.cfg.Config;
+import coyote.commons.cfg.ConfigurationException;
 import coyote.commons.dataframe.DataFrame;
+import coyote.commons.dataframe.DataFrameException;
+import coyote.commons.log.Log;
 import coyote.commons.rtw.*;
 import coyote.commons.rtw.context.ContextListener;
 import coyote.commons.rtw.context.OperationalContext;
@@ -24,6 +29,14 @@ import coyote.commons.template.SymbolTable;
 /**
  * This listener keeps track of the data read in to and out of the engine and 
  * reports on the characteristics of the data observed.
+ * 
+ * <p>Distinct values and the distributions of lengths and numbers are 
+ * estimated with fixed-size sketches, so large data sets can be profiled in 
+ * constant memory. The {@code error} option sets the error allowed in the 
+ * estimates (default 0.01), {@code top} reports that many of the most 
+ * frequent values of each field and {@code exact} keeps every distinct value 
+ * to report exact figures for small data sets:<pre>
+ * "DataProfiler": { "target": "dataprofile.txt", "error": 0.005, "top": 5 }</pre>
  */
 public class DataProfiler extends AbstractFileRecorder implements ContextListener {
   protected DataSetMetrics inputSchema = new DataSetMetrics();
@@ -36,6 +49,12 @@ public class DataProfiler extends AbstractFileRecorder implements ContextListene
   private static final DecimalFormat DECIMAL_FORMAT = new DecimalFormat("#,###,##0.00");
   private static final DecimalFormat P_FORMAT = new DecimalFormat("##0.0");
   private static final DecimalFormat NUMBER_FORMAT = new DecimalFormat("###,###,###,###,###");
+  private static final DecimalFormat VALUE_FORMAT = new DecimalFormat("#,##0.###");
+  private static final int VALUE_WIDTH = 60;
+
+  protected boolean exact = false;
+  protected double error = FieldMetrics.DEFAULT_ERROR;
+  protected int topValues = 0;
 
   Date start = null;
   Date end = null;
@@ -56,6 +75,49 @@ public class DataProfiler extends AbstractFileRecorder implements ContextListene
 
 
 
+  /**
+   *
+   */
+  @Override
+  public void setConfiguration(Config cfg) throws ConfigurationException {
+    super.setConfiguration(cfg);
+
+    if (cfg.containsIgnoreCase(ConfigTag.EXACT)) {
+      try {
+        exact = cfg.getAsBoolean(cfg.getFieldIgnoreCase(ConfigTag.EXACT).getName());
+      } catch (DataFrameException e) {
+        Log.warn(String.format("Exact flag '%s' is not a valid boolean: %s", cfg.getString(ConfigTag.EXACT), e.getMessage()));
+      }
+    }
+
+    if (cfg.containsIgnoreCase(ConfigTag.ERROR)) {
+      try {
+        double value = cfg.getAsDouble(cfg.getFieldIgnoreCase(ConfigTag.ERROR).getName());
+        if (value > 0 && value < 1) {
+          error = value;
+        } else {
+          Log.warn(String.format("Error '%s' is not between 0 and 1, using %s", value, error));
+        }
+      } catch (DataFrameException e) {
+        Log.warn(String.format("Error '%s' is not a valid number: %s", cfg.getString(ConfigTag.ERROR), e.getMessage()));
+      }
+    }
+
+    if (cfg.containsIgnoreCase(ConfigTag.TOP)) {
+      try {
+        topValues = Math.max(0, cfg.getAsInt(cfg.getFieldIgnoreCase(ConfigTag.TOP).getName()));
+      } catch (DataFrameException e) {
+        Log.warn(String.format("Top '%s' is not a valid number: %s", cfg.getString(ConfigTag.TOP), e.getMessage()));
+      }
+    }
+
+    inputSchema.setEstimation(exact, error, topValues);
+    outputSchema.setEstimation(exact, error, topValues);
+  }
+
+
+
+
   /**
    *
    */
@@ -294,6 +356,7 @@ public class DataProfiler extends AbstractFileRecorder implements ContextListene
       b.append(formatSizeBytes(totalBytes));
       b.append(StringUtil.LINE_FEED);
       write(b.toString());
+      writeDistributions(inputSchema);
     }
 
     b.delete(0, b.length());
@@ -408,6 +471,9 @@ public class DataProfiler extends AbstractFileRecorder implements ContextListene
       b.append("  ");
       b.append(formatSizeBytes(totalBytes));
       b.append(StringUtil.LINE_FEED);
+      write(b.toString());
+      b.delete(0, b.length());
+      writeDistributions(outputSchema);
     }
 
     b.append(StringUtil.LINE_FEED);
@@ -417,6 +483,97 @@ public class DataProfiler extends AbstractFileRecorder implements ContextListene
 
 
 
+  /**
+   * Write the distributions of the lengths and numeric values of each field 
+   * and the most frequent values if they are tracked.
+   * 
+   * @param schema the metrics of the fields to report
+   */
+  protected void writeDistributions(DataSetMetrics schema) {
+    StringBuffer b = new StringBuffer(StringUtil.LINE_FEED);
+    if (exact) {
+      b.append("Distributions (exact):");
+    } else {
+      // every field is estimated with the same error
+      double uniqueError = schema.getMetrics().isEmpty() ? error : schema.getMetrics().get(0).getUniqueValuesError();
+      b.append("Distributions (estimated, unique values within ");
+      b.append(P_FORMAT.format(100 * uniqueError));
+      b.append("%, quantiles within ");
+      b.append(P_FORMAT.format(100 * error));
+      b.append("%):");
+    }
+    b.append(StringUtil.LINE_FEED);
+
+    int nameSize = 5;
+    for (FieldMetrics metric : schema.getMetrics()) {
+      nameSize = Math.max(nameSize, metric.getName().length());
+    }
+    b.append(StringUtil.fixedLength("Field", nameSize + 1, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.fixedLength("Len p50", 9, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.fixedLength("Len p90", 9, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.fixedLength("Len p99", 9, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.fixedLength("Minimum", 15, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.fixedLength("p25", 15, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.fixedLength("Median", 15, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.fixedLength("p75", 15, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.fixedLength("p99", 15, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.fixedLength("Maximum", 15, StringUtil.LEFT_ALIGNMENT, ' '));
+    b.append(StringUtil.LINE_FEED);
+    write(b.toString());
+
+    for (FieldMetrics metric : schema.getMetrics()) {
+      b.delete(0, b.length());
+      b.append(StringUtil.fixedLength(metric.getName(), nameSize, StringUtil.LEFT_ALIGNMENT, ' '));
+      b.append(" ");
+      b.append(StringUtil.fixedLength(Long.toString(metric.getStringLengthQuantile(0.5)), 8, StringUtil.LEFT_ALIGNMENT, ' '));
+      b.append(" ");
+      b.append(StringUtil.fixedLength(Long.toString(metric.getStringLengthQuantile(0.9)), 8, StringUtil.LEFT_ALIGNMENT, ' '));
+      b.append(" ");
+      b.append(StringUtil.fixedLength(Long.toString(metric.getStringLengthQuantile(0.99)), 8, StringUtil.LEFT_ALIGNMENT, ' '));
+      if (metric.getNumericCount() > 0) {
+        for (double rank : new double[]{0, 0.25, 0.5, 0.75, 0.99, 1}) {
+          b.append(" ");
+          b.append(StringUtil.fixedLength(VALUE_FORMAT.format(metric.getNumericQuantile(rank)), 14, StringUtil.LEFT_ALIGNMENT, ' '));
+        }
+      }
+      b.append(StringUtil.LINE_FEED);
+      write(b.toString());
+    }
+
+    if (topValues > 0) {
+      for (FieldMetrics metric : schema.getMetrics()) {
+        Map<String, Long> top = metric.getTopValues(topValues);
+        // counts no larger than their error may not be frequent at all
+        top.values().removeIf(count -> count <= metric.getTopValueError());
+        if (top.isEmpty()) {
+          continue;
+        }
+        b.delete(0, b.length());
+        b.append(StringUtil.LINE_FEED);
+        b.append("Most frequent values of ");
+        b.append(metric.getName());
+        if (metric.getTopValueError() > 0) {
+          b.append(" (counts may be up to ");
+          b.append(NUMBER_FORMAT.format(metric.getTopValueError()));
+          b.append(" short)");
+        }
+        b.append(":");
+        b.append(StringUtil.LINE_FEED);
+        for (Map.Entry<String, Long> entry : top.entrySet()) {
+          b.append(StringUtil.fixedLength(NUMBER_FORMAT.format(entry.getValue()), 12, StringUtil.RIGHT_ALIGNMENT, ' '));
+          b.append("  ");
+          String value = entry.getKey();
+          b.append((value.length() > VALUE_WIDTH) ? value.substring(0, VALUE_WIDTH - 3) + "..." : value);
+          b.append(StringUtil.LINE_FEED);
+        }
+        write(b.toString());
+      }
+    }
+  }
+
+
+
+
   /**
    * Get a formatted string representing the difference between the two times.
    * 
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.rtw.reader;
+
+import coyote.commons.StringUtil;
+import coyote.commons.jdbc.DatabaseDialect;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One of the queries a partitioned {@link JdbcReader} splits its query into.
+ *
+ * <p>Each partition selects the rows of the original query whose partition
+ * key falls in its share of the keys, so the partitions can be read at the
+ * same time on different connections and together return every row exactly
+ * once. Keys are shared out either by range, splitting the span between the
+ * lowest and highest key into equal parts, or by modulo, which spreads keys
+ * evenly no matter how they are distributed. Rows with a null key are read
+ * by the first partition.</p>
+ */
+final class JdbcPartition {
+
+    static final String RANGE = "range";
+    static final String MODULO = "modulo";
+
+    /**
+     * The position of this partition, from zero
+     */
+    final int index;
+
+    /**
+     * The query for the rows of this partition
+     */
+    final String sql;
+
+    /**
+     * The values for the parameters of the query
+     */
+    final Object[] parameters;
+
+    /**
+     * The statement reading this partition, while it is open
+     */
+    private volatile Statement statement = null;
+
+
+    private JdbcPartition(int index, String sql, Object... parameters) {
+        this.index = index;
+        this.sql = sql;
+        this.parameters = parameters;
+    }
+
+
+    /**
+     * Prepare the query of this partition to stream its rows.
+     */
+    PreparedStatement prepare(Connection connection, String product, int fetchSize, boolean cursor) throws SQLException {
+        PreparedStatement retval = DatabaseDialect.prepareStreamingStatement(connection, sql, product, fetchSize, cursor);
+        statement = retval;
+        for (int x = 0; x < parameters.length; x++) {
+            retval.setObject(x + 1, parameters[x]);
+        }
+        return retval;
+    }
+
+
+    /**
+     * Forget the statement of this partition once it is closed.
+     */
+    void finished() {
+        statement = null;
+    }
+
+
+    /**
+     * Ask the database to stop the query of this partition if it is running.
+     *
+     * @throws SQLException if the driver could not cancel the query
+     */
+    void cancel() throws SQLException {
+        Statement running = statement;
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+
+    /**
+     * Split a query into partitions.
+     *
+     * @param connection the connection used to find the range of the keys if
+     *                   it is not given
+     * @param product    the database product being used
+     * @param query      the query to split
+     * @param column     the column of the query holding the partition key
+     * @param mode       {@code range} or {@code modulo}
+     * @param count      the number of partitions wanted
+     * @param lowerBound the lowest key for range partitions, or null to query for it
+     * @param upperBound the highest key for range partitions, or null to query for it
+     * @return the partitions, fewer than asked for if there are too few keys
+     * @throws SQLException if the range of the keys could not be read or the
+     *                      key is not a number or date
+     */
+    static List<JdbcPartition> plan(Connection connection, String product, String query, String column, String mode, int count, String lowerBound, String upperBound) throws SQLException {
+        String select = "SELECT * FROM (" + query + ") partitioned WHERE ";
+        List<JdbcPartition> retval = new ArrayList<>();
+        if (count < 2) {
+            retval.add(new JdbcPartition(0, query));
+        } else if (MODULO.equalsIgnoreCase(mode)) {
+            for (int x = 0; x < count; x++) {
+                String condition = DatabaseDialect.getModuloCondition(product, column, count, x);
+                retval.add(new JdbcPartition(x, select + ((x == 0) ? "(" + condition + " OR " + column + " IS NULL)" : condition)));
+            }
+        } else {
+            Object lower = StringUtil.isNotBlank(lowerBound) ? new BigDecimal(lowerBound.trim()) : null;
+            Object upper = StringUtil.isNotBlank(upperBound) ? new BigDecimal(upperBound.trim()) : null;
+            if (lower == null || upper == null) {
+                try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery("SELECT MIN(" + column + "), MAX(" + column + ") FROM (" + query + ") bounds")) {
+                    if (result.next()) {
+                        lower = (lower == null) ? result.getObject(1) : lower;
+                        upper = (upper == null) ? result.getObject(2) : upper;
+                    }
+                }
+            }
+            Object[] bounds = (lower == null || upper == null) ? null : bounds(lower, upper, count);
+            if (bounds == null || bounds.length < 2) {
+                // nothing to split, or only null keys
+                retval.add(new JdbcPartition(0, query));
+            } else {
+                int last = bounds.length - 1;
+                retval.add(new JdbcPartition(0, select + "(" + column + " < ? OR " + column + " IS NULL)", bounds[1]));
+                for (int x = 1; x < last; x++) {
+                    retval.add(new JdbcPartition(x, select + column + " >= ? AND " + column + " < ?", bounds[x], bounds[x + 1]));
+                }
+                retval.add(new JdbcPartition(last, select + column + " >= ?", bounds[last]));
+            }
+        }
+        return retval;
+    }
+
+
+    /**
+     * Divide the span between two keys into equal parts.
+     *
+     * @return the first key of each part, the first being the lower key, as
+     * values of the type of the keys; duplicates are left out so there may be
+     * fewer than asked for.
+     */
+    private static Object[] bounds(Object lower, Object upper, int count) throws SQLException {
+        final boolean dates = lower instanceof Date && upper instanceof Date;
+        final BigDecimal low;
+        final BigDecimal high;
+        if (dates) {
+            low = BigDecimal.valueOf(((Date) lower).getTime());
+            high = BigDecimal.valueOf(((Date) upper).getTime());
+        } else if (lower instanceof Number && upper instanceof Number) {
+            low = toDecimal((Number) lower);
+            high = toDecimal((Number) upper);
+        } else {
+            throw new SQLException("Cannot partition on keys of type " + lower.getClass().getName());
+        }
+        final boolean integral = dates || (isIntegral(low) && isIntegral(high));
+
+        List<Object> retval = new ArrayList<>();
+        BigDecimal previous = null;
+        BigDecimal span = high.subtract(low);
+        for (int x = 0; x < count; x++) {
+            BigDecimal bound = low.add(span.multiply(BigDecimal.valueOf(x)).divide(BigDecimal.valueOf(count), MathContext.DECIMAL64));
+            if (integral) {
+                bound = bound.setScale(0, RoundingMode.FLOOR);
+            }
+            if (previous != null && bound.compareTo(previous) <= 0) {
+                continue;
+            }
+            previous = bound;
+            if (dates) {
+                retval.add(new Timestamp(bound.longValue()));
+            } else if (integral && bound.toBigInteger().bitLength() < 64) {
+                retval.add(bound.longValue());
+            } else {
+                retval.add(bound);
+            }
+        }
+        return retval.toArray();
+    }
+
+
+    private static BigDecimal toDecimal(Number number) {
+        if (number instanceof BigDecimal) {
+            return (BigDecimal) number;
+        } else if (number instanceof BigInteger) {
+            return new BigDecimal((BigInteger) number);
+        } else if (number instanceof Double || number instanceof Float) {
+            return BigDecimal.valueOf(number.doubleValue());
+        }
+        return BigDecimal.valueOf(number.longValue());
+    }
+
+
+    private static boolean isIntegral(BigDecimal value) {
+        return value.signum() == 0 || value.scale() <= 0 || value.stripTrailingZeros().scale() <= 0;
+    }
+
+}
@@ -23,9 +23,38 @@ import coyote.commons.template.Template;
 
 import java.io.IOException;
 import java.sql.*;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This is a frame reader which uses a JDBC result set to create frames.
+ *
+ * <p>Results are streamed: the query runs on a forward-only, read-only
+ * statement which fetches {@code fetchsize} rows at a time (1000 by default),
+ * and each row is only turned into a frame when the engine asks for it, so
+ * memory use does not grow with the size of the result. The statement is
+ * created the way the database needs to stream, see
+ * {@link DatabaseDialect#createStreamingStatement(Connection, String, int, boolean)}.
+ * Setting {@code cursor} to true turns auto-commit off for the query so the
+ * database may use a server side cursor; it is on by default for databases
+ * which only stream that way.</p>
+ *
+ * <p>Setting {@code partitions} to more than one and naming a numeric or date
+ * column of the results in {@code partitioncolumn} splits the query into that
+ * many queries which are read at the same time, each on its own connection
+ * from the connector. With a {@code partitionmode} of {@code range} (the
+ * default) each query reads an equal share of the span between the
+ * {@code lowerbound} and {@code upperbound} of the column, which are found
+ * with a query if not given; with {@code modulo} the rows are shared out by
+ * the remainder of the column divided by the number of partitions. Frames from
+ * all the partitions are returned as they arrive, so the order of the results
+ * is not kept, and the number of rows read from each partition is placed in
+ * the transform context as {@code JdbcReader.Partition.<n>}.</p>
  */
 public class JdbcReader extends AbstractFrameReader {
 
@@ -42,8 +71,34 @@ public class JdbcReader extends AbstractFrameReader {
     private ResultSet result = null;
     private Statement statement = null;
     private volatile boolean EOF = true;
-    private ResultSetMetaData rsmd = null;
     private int columnCount = 0;
+    private String[] columnNames = null;
+    private int[] columnTypes = null;
+
+    /**
+     * True if auto-commit was turned off for a server side cursor and must be restored.
+     */
+    private boolean restoreAutoCommit = false;
+
+    /**
+     * The number of rows read from a partition between progress updates
+     */
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    /**
+     * The number of frames the partitions may read ahead of the engine
+     */
+    private static final int QUEUE_SIZE = 1000;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private List<JdbcPartition> partitions = null;
+    private ExecutorService workers = null;
+    private BlockingQueue<Row> rows = null;
+    private long[] partitionRows = null;
+    private int running = 0;
+    private DataFrame next = null;
+    private volatile boolean closed = false;
 
 
     /**
@@ -131,15 +186,34 @@ public class JdbcReader extends AbstractFrameReader {
                 Log.debug(String.format("%s using query %s", this.getClass().getSimpleName(), query));
 
                 try {
-                    statement = connection.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_READ_ONLY);
-                    result = statement.executeQuery(query);
-                    rsmd = result.getMetaData();
-                    columnCount = rsmd.getColumnCount();
+                    String product = DatabaseUtil.getProduct(connection);
+                    int fetchSize = getConfiguration().containsIgnoreCase(ConfigTag.FETCH_SIZE) ? getInteger(ConfigTag.FETCH_SIZE) : DatabaseDialect.DEFAULT_FETCH_SIZE;
+                    boolean cursor = getConfiguration().containsIgnoreCase(ConfigTag.CURSOR) ? getBoolean(ConfigTag.CURSOR) : DatabaseDialect.isCursorRequiredToStream(product);
+                    if (cursor && connection.getAutoCommit()) {
+                        connection.setAutoCommit(false);
+                        restoreAutoCommit = true;
+                    }
+                    Log.debug(String.format("%s streaming from %s with fetch size %d%s", getClass().getSimpleName(), product, fetchSize, cursor ? " using a cursor" : ""));
+
+                    int count = getConfiguration().containsIgnoreCase(ConfigTag.PARTITIONS) ? getInteger(ConfigTag.PARTITIONS) : 1;
+                    if (count > 1 && StringUtil.isNotBlank(getString(ConfigTag.PARTITION_COLUMN))) {
+                        openPartitions(query, product, fetchSize, cursor, count);
+                    } else {
+                        statement = DatabaseDialect.createStreamingStatement(connection, product, fetchSize, cursor);
+                        result = statement.executeQuery(query);
+                        ResultSetMetaData rsmd = result.getMetaData();
+                        columnCount = rsmd.getColumnCount();
+                        columnNames = new String[columnCount + 1];
+                        columnTypes = new int[columnCount + 1];
+                        for (int i = 1; i <= columnCount; i++) {
+                            columnNames[i] = rsmd.getColumnName(i);
+                            columnTypes[i] = rsmd.getColumnType(i);
+                        }
 
-                    if (result.isBeforeFirst()) {
-                        EOF = false;
+                        // stay one row ahead, forward-only results cannot tell if a row is the last
+                        EOF = !result.next();
                     }
-                } catch (SQLException e) {
+                } catch (SQLException | NumberFormatException e) {
                     String msg = String.format("%s error quering database: %s%n%s", getClass().getSimpleName(), e.getMessage().trim(), query);
                     context.setError(msg);
                 }
@@ -163,30 +237,34 @@ public class JdbcReader extends AbstractFrameReader {
     public DataFrame read(TransactionContext context) {
         DataFrame retval = null;
 
-        if (result != null) {
+        if (partitions != null) {
+            if (next != null) {
+                retval = next;
+                next = takeNext();
+                EOF = next == null;
+                context.setLastFrame(EOF);
+            } else {
+                Log.error("Read past EOF");
+                EOF = true;
+            }
+        } else if (result != null && !EOF) {
             try {
-                if (result.next()) {
-                    retval = new DataFrame();
-
-                    if (result.isLast()) {
-                        EOF = true;
-                        context.setLastFrame(true);
-                    }
-
-                    for (int i = 1; i <= columnCount; i++) {
-                        retval.add(rsmd.getColumnName(i), DatabaseDialect.resolveValue(result.getObject(i), rsmd.getColumnType(i)));
-                    }
-
-                    context.setLastFrame(result.isLast());
-                } else {
-                    Log.error("Read past EOF");
+                retval = new DataFrame();
+                for (int i = 1; i <= columnCount; i++) {
+                    retval.add(columnNames[i], DatabaseDialect.resolveValue(result.getObject(i), columnTypes[i]));
+                }
+                if (!result.next()) {
                     EOF = true;
                 }
+                context.setLastFrame(EOF);
             } catch (SQLException e) {
                 e.printStackTrace();
                 EOF = true;
             }
         } else {
+            if (result != null) {
+                Log.error("Read past EOF");
+            }
             EOF = true;
         }
 
@@ -208,12 +286,191 @@ public class JdbcReader extends AbstractFrameReader {
      */
     @Override
     public void close() throws IOException {
+        closed = true;
+        if (workers != null) {
+            // let any partitions blocked on a full queue see they are closed
+            rows.clear();
+            // and stop any still waiting on the database
+            for (JdbcPartition partition : partitions) {
+                try {
+                    partition.cancel();
+                } catch (SQLException e) {
+                    Log.debug(String.format("%s could not cancel partition %d: %s", getClass().getSimpleName(), partition.index, e.getMessage()));
+                }
+            }
+            try {
+                if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+                    Log.warn(String.format("%s partitions did not finish within 5 seconds of closing, their connections may still be open", getClass().getSimpleName()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            workers = null;
+        }
         DatabaseUtil.closeQuietly(result);
+        DatabaseUtil.closeQuietly(statement);
+        if (restoreAutoCommit && connection != null) {
+            try {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                Log.debug(String.format("%s could not restore auto-commit: %s", getClass().getSimpleName(), e.getMessage()));
+            }
+            restoreAutoCommit = false;
+        }
         DatabaseUtil.closeQuietly(connection);
         super.close();
     }
 
 
+    /**
+     * Split the query into partitions and start reading them all.
+     */
+    private void openPartitions(String query, String product, int fetchSize, boolean cursor, int count) throws SQLException {
+        partitions = JdbcPartition.plan(connection, product, query, getString(ConfigTag.PARTITION_COLUMN), getString(ConfigTag.PARTITION_MODE), count, getString(ConfigTag.LOWER_BOUND), getString(ConfigTag.UPPER_BOUND));
+        Log.debug(String.format("%s reading %d partitions", getClass().getSimpleName(), partitions.size()));
+
+        rows = new ArrayBlockingQueue<>(QUEUE_SIZE);
+        partitionRows = new long[partitions.size()];
+        running = partitions.size();
+        workers = Executors.newFixedThreadPool(running, runnable -> {
+            Thread thread = new Thread(runnable, getClass().getSimpleName() + "-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (JdbcPartition partition : partitions) {
+            getContext().set(progressKey(partition.index), 0L);
+            workers.execute(() -> extract(partition, product, fetchSize, cursor));
+        }
+        workers.shutdown();
+
+        next = takeNext();
+        EOF = next == null;
+    }
+
+
+    /**
+     * Read all the rows of a partition into the queue, on its own connection.
+     *
+     * <p>The partition always ends by queuing a row without a frame, carrying
+     * the error which stopped it if any.</p>
+     */
+    private void extract(JdbcPartition partition, String product, int fetchSize, boolean cursor) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        boolean restore = false;
+        String error = null;
+        try {
+            conn = getConnector().getConnection();
+            if (conn == null) {
+                throw new SQLException("could not connect to source " + getSource());
+            }
+            if (cursor && conn.getAutoCommit()) {
+                conn.setAutoCommit(false);
+                restore = true;
+            }
+            stmt = partition.prepare(conn, product, fetchSize, cursor);
+            if (closed) {
+                // closed before the query could be cancelled
+                return;
+            }
+            rs = stmt.executeQuery();
+            ResultSetMetaData rsmd = rs.getMetaData();
+            int count = rsmd.getColumnCount();
+            String[] names = new String[count + 1];
+            int[] types = new int[count + 1];
+            for (int i = 1; i <= count; i++) {
+                names[i] = rsmd.getColumnName(i);
+                types[i] = rsmd.getColumnType(i);
+            }
+            while (!closed && rs.next()) {
+                DataFrame frame = new DataFrame();
+                for (int i = 1; i <= count; i++) {
+                    frame.add(names[i], DatabaseDialect.resolveValue(rs.getObject(i), types[i]));
+                }
+                if (!queue(new Row(partition.index, frame, null))) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            error = String.format("%s error quering partition %d: %s%n%s", getClass().getSimpleName(), partition.index, String.valueOf(e.getMessage()).trim(), partition.sql);
+        } finally {
+            partition.finished();
+            DatabaseUtil.closeQuietly(rs);
+            DatabaseUtil.closeQuietly(stmt);
+            if (restore) {
+                try {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    Log.debug(String.format("%s could not restore auto-commit: %s", getClass().getSimpleName(), e.getMessage()));
+                }
+            }
+            DatabaseUtil.closeQuietly(conn);
+            queue(new Row(partition.index, null, error));
+        }
+    }
+
+
+    /**
+     * Wait for room in the queue for a row, giving up if the reader is closed.
+     */
+    private boolean queue(Row row) {
+        try {
+            while (!closed) {
+                if (rows.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+
+    /**
+     * Wait for the next frame from any of the partitions.
+     *
+     * @return the next frame or null if all the partitions are done or one of
+     * them failed
+     */
+    private DataFrame takeNext() {
+        while (running > 0) {
+            Row row;
+            try {
+                row = rows.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                getContext().setError(String.format("%s interrupted reading partitions", getClass().getSimpleName()));
+                return null;
+            }
+            if (row.frame != null) {
+                if (++partitionRows[row.partition] % PROGRESS_INTERVAL == 0) {
+                    getContext().set(progressKey(row.partition), partitionRows[row.partition]);
+                }
+                return row.frame;
+            }
+
+            running--;
+            getContext().set(progressKey(row.partition), partitionRows[row.partition]);
+            if (row.error != null) {
+                Log.error(row.error);
+                getContext().setError(row.error);
+                return null;
+            }
+            Log.debug(String.format("%s partition %d complete, %d rows", getClass().getSimpleName(), row.partition, partitionRows[row.partition]));
+        }
+        return null;
+    }
+
+
+    private String progressKey(int partition) {
+        return getClass().getSimpleName() + ".Partition." + partition;
+    }
+
+
     /**
      * @return the connector we use for creating connections.
      */
@@ -256,4 +513,22 @@ public class JdbcReader extends AbstractFrameReader {
         }
     }
 
-}
\ No newline at end of file
+
+    /**
+     * A frame read from a partition, or the end of the partition if there is
+     * no frame.
+     */
+    private static final class Row {
+        final int partition;
+        final DataFrame frame;
+        final String error;
+
+
+        Row(int partition, DataFrame frame, String error) {
+            this.partition = partition;
+            this.frame = frame;
+            this.error = error;
+        }
+    }
+
+}
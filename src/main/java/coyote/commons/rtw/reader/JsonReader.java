@@ -9,9 +9,17 @@ package coyote.commons.rtw.reader;
 
 import coyote.commons.dataframe.DataFrame;
 import coyote.commons.dataframe.marshal.JSONMarshaler;
+import coyote.commons.dataframe.marshal.json.JsonFrameParser;
+import coyote.commons.dataframe.selector.FrameSelector;
 import coyote.commons.rtw.ConfigurableComponent;
 import coyote.commons.rtw.FrameReader;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 
@@ -24,9 +32,17 @@ import java.util.List;
  * <pre>"Reader": { "class": "JsonReader", "source": "requestmetric.json" },</pre>
  * <p>This reader support the ability to flatten hierarchical records (complex objects) into a single flat (single level)
  * record format. This is turned on by default. This capability is provided by the MarshalingFrameReader super class.
+ *
+ * <p>Records are parsed from the source as they are read so the size of the source does not matter. A large export
+ * of records in a single JSON array can be read one record at a time with a selector:
+ * <pre>"Reader": { "class": "JsonReader", "source": "export.json", "selector": "*" },</pre>
+ * <p>Setting {@code "preload": true} reads the entire source into memory before returning the first record.
  */
 public class JsonReader extends MarshalingFrameReader implements FrameReader, ConfigurableComponent {
 
+  /** Size of the character buffer used when streaming from the source. */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   /**
    *
    */
@@ -35,4 +51,27 @@ public class JsonReader extends MarshalingFrameReader implements FrameReader, Co
     return JSONMarshaler.marshal(data);
   }
 
+
+
+
+  /**
+   * The source is read as ISO-8859-1 to match the preloaded data.
+   */
+  @Override
+  protected FrameStream openStream(File source, FrameSelector selector) throws IOException {
+    final Reader reader = new InputStreamReader(new FileInputStream(source), StandardCharsets.ISO_8859_1);
+    final JsonFrameParser parser = new JsonFrameParser(reader, BUFFER_SIZE);
+    return new FrameStream() {
+      @Override
+      public DataFrame next() throws IOException {
+        return parser.next(selector);
+      }
+
+      @Override
+      public void close() throws IOException {
+        reader.close();
+      }
+    };
+  }
+
 }
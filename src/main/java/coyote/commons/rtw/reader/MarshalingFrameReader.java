@@ -23,14 +23,27 @@ import coyote.commons.rtw.context.TransactionContext;
 import coyote.commons.rtw.context.TransformContext;
 
 
+import java.io.Closeable;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 
 
 /**
- * TODO: Make into a streaming reader with preload optional.
+ * Base class for readers which marshal the data in a source file into frames.
+ * 
+ * <p>If the subclass supports it (see 
+ * {@link #openStream(File, FrameSelector)}), frames are read from the source 
+ * one at a time as they are needed so the size of the source does not 
+ * matter. Otherwise, or if the {@code preload} configuration flag is set, the 
+ * entire source is read into memory, marshaled into a list of frames by 
+ * {@link #getFrames(String)} and each frame read from that list.
+ * 
+ * <p>Either way, a configured selector is applied to each root value of the 
+ * source in turn with {@link FrameSelector#select(DataFrame)} semantics, so 
+ * the same configuration reads the same frames in both modes.
  */
 public abstract class MarshalingFrameReader extends AbstractFrameReader implements FrameReader, ConfigurableComponent {
 
@@ -39,7 +52,10 @@ public abstract class MarshalingFrameReader extends AbstractFrameReader implemen
   private volatile DataFrame nextFrame = null;
 
   /** Flag indicating all data should be loaded into and read from memory. */
-  private final boolean preload = true; // we only support buffered reads
+  private boolean preload = false;
+
+  /** The source of frames when not preloading. */
+  private FrameStream stream = null;
 
   /** Flag indicating the frame should be be flattened to a single level of fields. */
   private boolean flatten = true;
@@ -61,14 +77,14 @@ public abstract class MarshalingFrameReader extends AbstractFrameReader implemen
       retval = null;
     }
     currentFrame++;
-    if (preload) {
+    if (stream != null) {
+      nextFrame = nextStreamFrame();
+    } else {
       if (currentFrame < buffer.size()) {
         nextFrame = buffer.get(currentFrame);
       } else {
         nextFrame = null;
       }
-    } else {
-      Log.warn("Whoops! We don't support streaming yet");
     }
 
     // Support the concept of last frame    
@@ -101,11 +117,17 @@ public abstract class MarshalingFrameReader extends AbstractFrameReader implemen
     setContext(context);
     buffer.clear();
     currentFrame = 0;
+    nextFrame = null;
+    closeStream();
 
     if(getConfiguration().containsIgnoreCase(ConfigTag.FLATTEN)){
       flatten = getBoolean(ConfigTag.FLATTEN);
     }
 
+    if (getConfiguration().containsIgnoreCase(ConfigTag.PRELOAD)) {
+      preload = getBoolean(ConfigTag.PRELOAD);
+    }
+
     // check for a source in our configuration, if not there use the transform 
     // context as it may have been set by a previous operation
     String source = getString(ConfigTag.SOURCE);
@@ -143,17 +165,38 @@ public abstract class MarshalingFrameReader extends AbstractFrameReader implemen
 
       // Basic checks
       if (sourceFile.exists() && sourceFile.canRead()) {
+        FrameSelector selector = null;
+        String pattern = getString(ConfigTag.SELECTOR);
+        if (StringUtil.isNotBlank(pattern)) {
+          selector = new FrameSelector(pattern, RTW.DEFAULT_FRAMEPATH_NAME);
+        }
+
+        if (!preload) {
+          try {
+            stream = openStream(sourceFile, selector);
+          } catch (IOException e) {
+            context.setError(String.format("%s could not open source %s: %s", getClass().getName(), sourceFile.getAbsolutePath(), e.getMessage()));
+            return;
+          }
+          if (stream != null) {
+            Log.debug("Streaming frames from " + sourceFile.getAbsolutePath());
+            nextFrame = nextStreamFrame();
+            return;
+          }
+        }
+
         String data = FileUtil.fileToString(sourceFile);
         Log.debug("Read in " + data.length() + " characters of data");
 
         List<DataFrame> frames = getFrames(data);
         Log.debug("Read in " + frames.size() + " frames");
-        DataFrame frame = frames.get(0);
 
-        String pattern = getString(ConfigTag.SELECTOR);
-        if (StringUtil.isNotBlank(pattern)) {
-          FrameSelector selector = new FrameSelector(pattern, RTW.DEFAULT_FRAMEPATH_NAME);
-          List<DataFrame> results = selector.select(frame);
+        // select from every root value, just as the stream does
+        if (selector != null) {
+          List<DataFrame> results = new ArrayList<DataFrame>();
+          for (DataFrame frame : frames) {
+            results.addAll(selector.select(frame));
+          }
           Log.debug("Selected " + results.size() + " frames");
           frames = results;
         }
@@ -176,6 +219,54 @@ public abstract class MarshalingFrameReader extends AbstractFrameReader implemen
 
 
 
+  /**
+   * Read the next frame from the stream, ending the stream on error.
+   * 
+   * @return the next frame or null if there are no more frames
+   */
+  private DataFrame nextStreamFrame() {
+    try {
+      DataFrame retval = stream.next();
+      if (retval == null) {
+        closeStream();
+      }
+      return retval;
+    } catch (Exception e) {
+      getContext().setError(String.format("%s could not read from source: %s", getClass().getName(), e.getMessage()));
+      closeStream();
+      return null;
+    }
+  }
+
+
+
+
+  private void closeStream() {
+    if (stream != null) {
+      try {
+        stream.close();
+      } catch (IOException e) {
+        Log.warn("Problems closing source stream: " + e.getMessage());
+      }
+      stream = null;
+    }
+  }
+
+
+
+
+  /**
+   * @see coyote.commons.rtw.reader.AbstractFrameReader#close()
+   */
+  @Override
+  public void close() throws IOException {
+    closeStream();
+    super.close();
+  }
+
+
+
+
   /**
    * @param data
    * @return
@@ -184,4 +275,44 @@ public abstract class MarshalingFrameReader extends AbstractFrameReader implemen
     return JSONMarshaler.marshal(data);
   }
 
+
+
+
+  /**
+   * Open a stream of frames read from the given source file.
+   * 
+   * <p>Subclasses able to parse their data incrementally should override 
+   * this to return frames one at a time, applying the given selector as it 
+   * would be applied to each frame returned by {@link #getFrames(String)}. 
+   * This default implementation returns null, indicating the source is to be 
+   * preloaded.
+   * 
+   * @param source the file from which to read the data
+   * @param selector the selector to apply, null to return each root frame
+   * 
+   * @return a stream of frames or null if streaming is not supported
+   * 
+   * @throws IOException if the source could not be opened
+   */
+  protected FrameStream openStream(File source, FrameSelector selector) throws IOException {
+    return null;
+  }
+
+
+
+
+  /**
+   * A source of frames read one at a time.
+   */
+  protected interface FrameStream extends Closeable {
+
+    /**
+     * @return the next frame from the source or null if there are no more frames
+     * 
+     * @throws IOException if there were problems reading the source
+     */
+    DataFrame next() throws IOException;
+
+  }
+
 }
@@ -13,6 +13,7 @@ import coyote.commons.cfg.ConfigurationException;
 import coyote.commons.dataframe.DataFrame;
 import coyote.commons.rtw.ConfigTag;
 import coyote.commons.rtw.FrameTransform;
+import coyote.commons.rtw.SingleThreaded;
 import coyote.commons.rtw.context.TransformContext;
 import coyote.commons.rtw.TransformException;
 
@@ -25,7 +26,7 @@ import coyote.commons.rtw.TransformException;
  * "Counter": { "field": "RecordNumber", "step": 5}
  * "Counter": { "field": "RecordNumber", "stop": 99999999}</pre>
  */
-public class Counter extends AbstractFieldTransform implements FrameTransform {
+public class Counter extends AbstractFieldTransform implements FrameTransform, SingleThreaded {
   private static final String STEP = "step";
   private long step = 1L;
   private long start = 0L;
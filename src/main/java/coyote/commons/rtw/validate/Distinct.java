@@ -14,6 +14,7 @@ import coyote.commons.StringUtil;
 import coyote.commons.dataframe.DataField;
 import coyote.commons.dataframe.DataFrame;
 import coyote.commons.rtw.FrameValidator;
+import coyote.commons.rtw.SingleThreaded;
 import coyote.commons.rtw.context.TransactionContext;
 
 
@@ -23,7 +24,7 @@ import coyote.commons.rtw.context.TransactionContext;
  *<pre>"Distinct" : { "field" : "model",  "desc" : "Optional description value"  },</pre>
  *
  */
-public class Distinct extends AbstractValidator implements FrameValidator {
+public class Distinct extends AbstractValidator implements FrameValidator, SingleThreaded {
 
   private final Map<String, Integer> values = new HashMap<String, Integer>();
   long emptycount = 0;
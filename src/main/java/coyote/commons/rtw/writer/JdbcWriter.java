@@ -29,7 +29,13 @@ import coyote.commons.template.Template;
 
 import java.io.IOException;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static java.sql.Types.*;
 
@@ -44,6 +50,18 @@ import static java.sql.Types.*;
  * format (DataFrame) is designed to support data types common to many
  * different technologies and therefore dictates what the framework
  * supports.</p>
+ *
+ * <p>Setting {@code multirow}, {@code pipeline} or {@code retry} writes each
+ * batch as a transaction of its own. With {@code multirow} the rows are
+ * inserted with multi-row {@code INSERT ... VALUES (...), (...)} statements
+ * where the database supports them, see
+ * {@link DatabaseDialect#getMultiRowInsertLimit(String, int)}; the statement
+ * is prepared once and kept for the life of the writer. A {@code pipeline}
+ * greater than zero hands full batches to a background thread which writes
+ * them while the engine reads and transforms the next, allowing that many
+ * batches to wait before the engine is held up. A batch which fails is
+ * rolled back and tried again up to {@code retry} times before the writer
+ * reports the error; batches already committed are kept.</p>
  */
 public class JdbcWriter extends AbstractFrameWriter implements FrameWriter, ConfigurableComponent {
 
@@ -86,6 +104,56 @@ public class JdbcWriter extends AbstractFrameWriter implements FrameWriter, Conf
      * Cached value of the Auto-Adjust flag to alter tables if necessary.
      */
     private volatile boolean autoAdjust = false;
+    /**
+     * The number of milliseconds to wait before retrying a failed batch, multiplied by the attempt.
+     */
+    private static final long RETRY_DELAY = 100;
+    /**
+     * Marks the end of the batches handed to the flusher.
+     */
+    private static final Batch END = new Batch(Collections.emptyList(), Collections.emptyList());
+    /**
+     * True if each batch is written as a transaction of its own.
+     */
+    private boolean transactional = false;
+    /**
+     * True to insert batches with multi-row INSERT statements where the database supports them.
+     */
+    private boolean multirow = false;
+    /**
+     * The number of full batches which may wait for the flusher, 0 to write batches on the calling thread.
+     */
+    private int pipeline = 0;
+    /**
+     * The number of times a failed batch is tried again.
+     */
+    private int retries = 0;
+    /**
+     * The columns of the INSERT statements, in the order of their parameters.
+     */
+    private List<String> columns = null;
+    /**
+     * The number of rows each execution of the prepared statement inserts.
+     */
+    private int rowsPerInsert = 1;
+    /**
+     * The statement for the rows of a batch left over after filling the prepared statement.
+     */
+    private PreparedStatement remainderPs = null;
+    private int remainderRows = 0;
+    /**
+     * True if auto-commit was turned off for transactional batches and must be restored.
+     */
+    private boolean restoreAutoCommit = false;
+    /**
+     * The batches waiting to be written by the flusher.
+     */
+    private BlockingQueue<Batch> batches = null;
+    private Thread flusher = null;
+    /**
+     * The error which stopped the flusher, reported to the context on the calling thread.
+     */
+    private volatile String flushError = null;
 
     /**
      * Ensures the required schema exists and creates it if necessary.
@@ -210,6 +278,8 @@ public class JdbcWriter extends AbstractFrameWriter implements FrameWriter, Conf
                 frameset.clearAll();
             }
 
+            stopFlusher();
+
             if (connection != null) {
                 try {
                     commit();
@@ -227,6 +297,24 @@ public class JdbcWriter extends AbstractFrameWriter implements FrameWriter, Conf
                 }
             }
 
+            if (remainderPs != null) {
+                try {
+                    remainderPs.close();
+                    remainderPs = null;
+                } catch (final SQLException e) {
+                    Log.error(String.format("Could not close prepared statement: %s", e.getMessage()));
+                }
+            }
+
+            if (restoreAutoCommit && connection != null) {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (final SQLException e) {
+                    Log.debug(String.format("%s could not restore auto-commit: %s", getClass().getSimpleName(), e.getMessage()));
+                }
+                restoreAutoCommit = false;
+            }
+
             if (connection != null) {
                 // if it looks like we created the connection ourselves (e.g. we have a
                 // configured target) close the connection
@@ -689,6 +777,12 @@ public class JdbcWriter extends AbstractFrameWriter implements FrameWriter, Conf
             batchsize = getBatchSize();
         }
 
+        multirow = getBoolean(ConfigTag.MULTIROW);
+        pipeline = Math.max(0, getInteger(ConfigTag.PIPELINE));
+        retries = Math.max(0, getInteger(ConfigTag.RETRY));
+        transactional = multirow || pipeline > 0 || retries > 0;
+        Log.debug(String.format("%s using multi-row inserts: %b, pipeline: %d, retries: %d", getClass().getSimpleName(), multirow, pipeline, retries));
+
     }
 
     /**
@@ -866,51 +960,61 @@ public class JdbcWriter extends AbstractFrameWriter implements FrameWriter, Conf
             // Since this is the first time we have tried to write to the table, make
             // sure the table exists
             if (checkTable()) {
-                SQL = generateInsertSQL();
-                Log.debug(String.format("%s using SQL: %s", getClass().getSimpleName(), SQL));
+                if (transactional) {
+                    prepareBatches();
+                } else {
+                    SQL = generateInsertSQL();
+                    Log.debug(String.format("%s using SQL: %s", getClass().getSimpleName(), SQL));
 
-                final Connection connection = getConnection();
-                try {
-                    ps = connection.prepareStatement(SQL);
-                } catch (final SQLException e) {
-                    getContext().setError(String.format("Writer.preparedstatement_exception", getClass().getSimpleName(), e.getMessage()));
+                    final Connection connection = getConnection();
+                    try {
+                        ps = connection.prepareStatement(SQL);
+                    } catch (final SQLException e) {
+                        getContext().setError(String.format("Writer.preparedstatement_exception", getClass().getSimpleName(), e.getMessage()));
+                    }
+                    if (ps == null) {
+                        String errorMessage = String.format("Writer.preparedstatement_null", getClass().getSimpleName());
+                        getContext().setError(errorMessage);
+                        Log.error(errorMessage);
+                    }
                 }
-                if (ps == null) {
-                    String errorMessage = String.format("Writer.preparedstatement_null", getClass().getSimpleName());
-                    getContext().setError(errorMessage);
-                    Log.error(errorMessage);
+            }
+        }
+
+        if (transactional) {
+            if (getContext().isNotInError() && ps != null) {
+                final Batch batch = new Batch(new ArrayList<>(frameset.getRows()), isAutoAdjust() ? getAdjustments() : Collections.emptyList());
+                if (flusher != null) {
+                    enqueue(batch);
+                } else {
+                    try {
+                        flush(batch);
+                    } catch (final SQLException e) {
+                        getContext().setError("Could not insert batch: " + e.getMessage());
+                    }
                 }
+                frameset.clearRows();
             }
+            return;
         }
 
         if (getContext().isNotInError()) {
             if (isAutoAdjust()) {
-                for (final String name : frameset.getColumns()) {
-                    // TODO: This should only work on test fields for now, then support other types with a correct size comparison.
-                    if (schema.getMetric(name).getMaximumStringLength() > tableschema.findColumn(name).getLength()) {
-                        // if auto adjust, check the size of the string and issue an "alter table" command to adjust
-                        // the size of the column if the string is too large to fit
-                        Log.debug("The " + database + " table '" + tableschema.getName() + "' must be altered to fit the '" + name + "' value; table allows a size of " + tableschema.findColumn(name).getLength() + " but data requires " + schema.getMetric(name).getMaximumStringLength());
-                        PreparedStatement aps = null;
-                        final String alterSql = DatabaseDialect.alterTextColumn(database, getSchema(), getTable(), name, schema.getMetric(name).getMaximumStringLength());
-                        Log.debug("SQL: " + alterSql);
-                        try {
-                            aps = connection.prepareStatement(alterSql);
-                            aps.execute();
-                        } catch (final SQLException e) {
-                            getContext().setError(String.format("Writer.preparedstatement_exception", getClass().getSimpleName(), e.getMessage()));
-                        } finally {
-                            if (aps != null) {
-                                try {
-                                    aps.close();
-                                } catch (final SQLException ignore) {
-                                    // quiet
-                                }
+                for (final String alterSql : getAdjustments()) {
+                    PreparedStatement aps = null;
+                    try {
+                        aps = connection.prepareStatement(alterSql);
+                        aps.execute();
+                    } catch (final SQLException e) {
+                        getContext().setError(String.format("Writer.preparedstatement_exception", getClass().getSimpleName(), e.getMessage()));
+                    } finally {
+                        if (aps != null) {
+                            try {
+                                aps.close();
+                            } catch (final SQLException ignore) {
+                                // quiet
                             }
                         }
-
-                        // set the size in the tableschema
-                        tableschema.findColumn(name).setLength(schema.getMetric(name).getMaximumStringLength());
                     }
                 }
             }
@@ -976,6 +1080,225 @@ public class JdbcWriter extends AbstractFrameWriter implements FrameWriter, Conf
     }
 
 
+    /**
+     * Find the text columns of the table too small for the values seen so far
+     * and record their new sizes in the table schema.
+     *
+     * @return the statements which alter the columns to fit
+     */
+    private List<String> getAdjustments() {
+        final List<String> retval = new ArrayList<>();
+        for (final String name : frameset.getColumns()) {
+            // TODO: This should only work on test fields for now, then support other types with a correct size comparison.
+            if (schema.getMetric(name).getMaximumStringLength() > tableschema.findColumn(name).getLength()) {
+                // if auto adjust, check the size of the string and issue an "alter table" command to adjust
+                // the size of the column if the string is too large to fit
+                Log.debug("The " + database + " table '" + tableschema.getName() + "' must be altered to fit the '" + name + "' value; table allows a size of " + tableschema.findColumn(name).getLength() + " but data requires " + schema.getMetric(name).getMaximumStringLength());
+                final String alterSql = DatabaseDialect.alterTextColumn(database, getSchema(), getTable(), name, schema.getMetric(name).getMaximumStringLength());
+                Log.debug("SQL: " + alterSql);
+                retval.add(alterSql);
+
+                // set the size in the tableschema
+                tableschema.findColumn(name).setLength(schema.getMetric(name).getMaximumStringLength());
+            }
+        }
+        return retval;
+    }
+
+
+    /**
+     * Prepare the statements for writing each batch as a transaction and start
+     * the flusher if batches are to be written in the background.
+     */
+    private void prepareBatches() {
+        final Connection connection = getConnection();
+        columns = new ArrayList<>(frameset.getColumns());
+        rowsPerInsert = multirow ? Math.max(1, Math.min(batchsize, DatabaseDialect.getMultiRowInsertLimit(database, columns.size()))) : 1;
+        SQL = DatabaseDialect.getMultiRowInsert(getSchema(), getTable(), columns, rowsPerInsert);
+        Log.debug(String.format("%s using SQL for %d rows: %s", getClass().getSimpleName(), rowsPerInsert, SQL));
+
+        try {
+            ps = connection.prepareStatement(SQL);
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+        } catch (final SQLException e) {
+            getContext().setError(String.format("%s could not prepare statement: %s", getClass().getSimpleName(), e.getMessage()));
+            return;
+        }
+
+        if (pipeline > 0) {
+            batches = new ArrayBlockingQueue<>(pipeline);
+            flusher = new Thread(this::flushBatches, getClass().getSimpleName() + "-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+
+    /**
+     * Write a batch as one transaction, trying again if it fails.
+     *
+     * <p>The batch is rolled back before each retry so it is written either
+     * completely or not at all. Any columns which must be resized are altered
+     * first, once only.</p>
+     *
+     * @param batch the frames to write
+     * @throws SQLException if the batch could not be written after all retries
+     */
+    private void flush(final Batch batch) throws SQLException {
+        if (!batch.adjustments.isEmpty()) {
+            for (final String alterSql : batch.adjustments) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute(alterSql);
+                }
+            }
+            connection.commit();
+        }
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                insert(batch.frames);
+                connection.commit();
+                return;
+            } catch (final SQLException e) {
+                try {
+                    ps.clearBatch();
+                    connection.rollback();
+                } catch (final SQLException ignore) {
+                    // the retry will fail too if the connection is broken
+                }
+                if (attempt >= retries) {
+                    throw e;
+                }
+                Log.warn(String.format("%s retrying batch of %d rows (%d of %d): %s", getClass().getSimpleName(), batch.frames.size(), attempt + 1, retries, e.getMessage()));
+                try {
+                    Thread.sleep(RETRY_DELAY * (attempt + 1));
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Insert the frames, filling the prepared statement with as many rows as
+     * it takes and the rest with a statement for the rows left over.
+     */
+    private void insert(final List<DataFrame> frames) throws SQLException {
+        final int full = frames.size() / rowsPerInsert * rowsPerInsert;
+        if (full > 0) {
+            for (int row = 0; row < full; row += rowsPerInsert) {
+                bind(ps, frames, row, rowsPerInsert);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        final int remaining = frames.size() - full;
+        if (remaining > 0) {
+            if (remainderRows != remaining) {
+                if (remainderPs != null) {
+                    remainderPs.close();
+                }
+                remainderPs = connection.prepareStatement(DatabaseDialect.getMultiRowInsert(getSchema(), getTable(), columns, remaining));
+                remainderRows = remaining;
+            }
+            bind(remainderPs, frames, full, remaining);
+            remainderPs.executeUpdate();
+        }
+    }
+
+
+    /**
+     * Set the values of a run of frames into the parameters of a statement.
+     */
+    private void bind(final PreparedStatement pstmt, final List<DataFrame> frames, final int first, final int count) throws SQLException {
+        int indx = 1;
+        for (int row = first; row < first + count; row++) {
+            final DataFrame frame = frames.get(row);
+            for (final String name : columns) {
+                final DataField field = frame.getField(name);
+                if (field == null) {
+                    pstmt.setNull(indx++, VARCHAR);
+                } else {
+                    setData(pstmt, indx++, field);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Hand a batch to the flusher, waiting while the pipeline is full.
+     */
+    private void enqueue(final Batch batch) {
+        try {
+            while (flusher.isAlive() && !batches.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                // the flusher is still busy
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            getContext().setError(String.format("%s interrupted waiting for the flusher", getClass().getSimpleName()));
+        }
+        checkFlusher();
+    }
+
+
+    /**
+     * Write the batches handed to the flusher until the end is reached,
+     * skipping the rest once one has failed.
+     */
+    private void flushBatches() {
+        try {
+            for (Batch batch = batches.take(); batch != END; batch = batches.take()) {
+                if (flushError == null) {
+                    try {
+                        flush(batch);
+                    } catch (final SQLException e) {
+                        flushError = "Could not insert batch: " + e.getMessage();
+                        Log.error(flushError);
+                    }
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Wait for the flusher to write the batches handed to it.
+     */
+    private void stopFlusher() {
+        if (flusher != null) {
+            try {
+                while (flusher.isAlive() && !batches.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                    // the flusher is still busy
+                }
+                flusher.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+            checkFlusher();
+        }
+    }
+
+
+    /**
+     * Report any error from the flusher in the context.
+     */
+    private void checkFlusher() {
+        if (flushError != null && getContext().isNotInError()) {
+            getContext().setError(flushError);
+        }
+    }
+
+
     /**
      * This is where we actually write the frame.
      *
@@ -992,4 +1315,19 @@ public class JdbcWriter extends AbstractFrameWriter implements FrameWriter, Conf
 
     }
 
+
+    /**
+     * The frames of a batch and the statements to run before inserting them.
+     */
+    private static final class Batch {
+        final List<DataFrame> frames;
+        final List<String> adjustments;
+
+
+        Batch(final List<DataFrame> frames, final List<String> adjustments) {
+            this.frames = frames;
+            this.adjustments = adjustments;
+        }
+    }
+
 }
@@ -30,7 +30,11 @@ import coyote.commons.network.IpNetwork;
  * <p>This class is designed to provide a simple way to check for a Denial of
  * Service attack by allowing the setting a limit of the number of requests by
  * IP Address in some time frame.
+ *
+ * @deprecated all the checks of this class wait on one lock, use
+ *             {@link RateLimiter} instead
  */
+@Deprecated
 public class OperationFrequency {
   private static final long DEFAULT_DURATION = 500;
   private static final short DEFAULT_LIMIT = 24;
@@ -0,0 +1,563 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+
+package coyote.commons.security;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import coyote.commons.network.IpAddress;
+import coyote.commons.network.IpNetwork;
+
+
+/**
+ * This limits how often requests may be made by IP address and by network.
+ *
+ * <p>Each address has a token bucket holding up to {@code limit} requests
+ * which refills at {@code limit} requests per {@code duration}, so an
+ * address may make a burst of {@code limit} requests at once and then one
+ * request every {@code duration / limit} milliseconds. A bucket is a single
+ * time (the time the bucket will next be full) updated with compare and set,
+ * so checks never lock, and checks of different addresses never touch the
+ * same memory.
+ *
+ * <p>Networks added with {@link #addNetwork(IpNetwork, int, long)} have one
+ * bucket shared by all the addresses in them, limiting the requests of the
+ * whole network as well as those of each address. An address is checked
+ * against the first network added which contains it. A request refused by
+ * its network still counts against its address.
+ *
+ * <p>The bucket of an address is dropped once it has refilled, as it is then
+ * no different from a new one. Buckets are kept on a time wheel in the slot
+ * of the time they will be full, and the checks which find the wheel has
+ * moved on look at the slots passed over, so there is no sweep of all the
+ * addresses and nothing to call to expire them.
+ *
+ * <p>This replaces {@link OperationFrequency}, which serializes all its
+ * checks on one lock.
+ */
+public class RateLimiter {
+
+  /** The default number of requests allowed in the default duration */
+  public static final int DEFAULT_LIMIT = 24;
+
+  /** The default number of milliseconds in which the limit of requests are allowed */
+  public static final long DEFAULT_DURATION = 500;
+
+  // the nanoseconds covered by each slot of the wheel
+  private static final long TICK = TimeUnit.MILLISECONDS.toNanos(16);
+
+  // the number of slots on the wheel, a bucket due further ahead than the
+  // wheel goes round is looked at once each turn until it is due
+  private static final int SLOTS = 256;
+
+  private final LongSupplier clock;
+  private final ConcurrentHashMap<Key, Bucket> buckets = new ConcurrentHashMap<Key, Bucket>();
+  private final ConcurrentHashMap<Key, Limit> addressLimits = new ConcurrentHashMap<Key, Limit>();
+  private volatile Network[] networks = new Network[0];
+  private volatile Limit limit = new Limit(DEFAULT_LIMIT, DEFAULT_DURATION);
+
+  private final Queue<Bucket>[] wheel;
+  // the last tick whose slot has been looked at
+  private final AtomicLong swept;
+  private final ReentrantLock sweeping = new ReentrantLock();
+
+
+
+
+  /**
+   * Create a rate limiter allowing the default limit of requests in the
+   * default duration from each address.
+   */
+  public RateLimiter() {
+    this(System::nanoTime);
+  }
+
+
+
+
+  /**
+   * @param clock the source of the current time in nanoseconds
+   */
+  RateLimiter(final LongSupplier clock) {
+    this.clock = clock;
+    wheel = slots(SLOTS);
+    swept = new AtomicLong(Math.floorDiv(clock.getAsLong(), TICK));
+  }
+
+
+
+
+  /**
+   * @return the given number of empty slots for the time wheel
+   */
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static Queue<Bucket>[] slots(final int count) {
+    final Queue<Bucket>[] retval = new Queue[count];
+    for (int x = 0; x < count; x++) {
+      retval[x] = new ConcurrentLinkedQueue<Bucket>();
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * Set the limit of requests for a single address.
+   *
+   * <p>This replaces the default limit for the address, and any limit the
+   * address had before. The requests already made by the address are
+   * forgotten.
+   *
+   * @param addr the address to limit
+   * @param limit the number of requests allowed in the duration
+   * @param duration the number of milliseconds in which the requests are allowed
+   *
+   * @throws IllegalArgumentException if the limit or duration is not positive
+   */
+  public void addAddress(final IpAddress addr, final int limit, final long duration) {
+    final Key key = Key.of(addr.getOctets());
+    final Limit retval = new Limit(limit, duration);
+    addressLimits.put(key, retval);
+    final Bucket bucket = new Bucket(key, clock.getAsLong(), retval);
+    buckets.put(key, bucket);
+    schedule(bucket, swept.get() + 1);
+  }
+
+
+
+
+  /**
+   * Set an aggregate limit of requests for all the addresses in a network.
+   *
+   * <p>The addresses in the network are each still limited by their own
+   * limit. Networks are checked in the order they were added and only the
+   * first containing an address is applied to it, so add narrower networks
+   * before the broader networks containing them.
+   *
+   * @param network the network to limit
+   * @param limit the number of requests allowed from the whole network in the duration
+   * @param duration the number of milliseconds in which the requests are allowed
+   *
+   * @throws IllegalArgumentException if the limit or duration is not positive
+   */
+  public synchronized void addNetwork(final IpNetwork network, final int limit, final long duration) {
+    final Network[] current = networks;
+    final Network[] retval = Arrays.copyOf(current, current.length + 1);
+    retval[current.length] = new Network(network, new Limit(limit, duration), clock.getAsLong());
+    networks = retval;
+  }
+
+
+
+
+  /**
+   * Check and count a request from the given address.
+   *
+   * @param addr the address making the request
+   *
+   * @return true if the request is within the limits, false if too many
+   *         requests have been made by the address or its network
+   */
+  public boolean check(final InetAddress addr) {
+    return check(Key.of(addr.getAddress()));
+  }
+
+
+
+
+  /**
+   * Check and count a request from the given address.
+   *
+   * @param addr the address making the request
+   *
+   * @return true if the request is within the limits, false if too many
+   *         requests have been made by the address or its network
+   */
+  public boolean check(final IpAddress addr) {
+    return check(Key.of(addr.getOctets()));
+  }
+
+
+
+
+  private boolean check(final Key key) {
+    final long now = clock.getAsLong();
+    advance(now);
+
+    boolean retval = acquire(key, now);
+    if (retval) {
+      for (final Network network : networks) {
+        if (network.contains(key)) {
+          retval = network.bucket.acquire(now, network.bucket.limit) == Bucket.ALLOWED;
+          break;
+        }
+      }
+    }
+    return retval;
+  }
+
+
+
+
+  private boolean acquire(final Key key, final long now) {
+    while (true) {
+      Bucket bucket = buckets.get(key);
+      if (bucket == null) {
+        final Bucket created = new Bucket(key, now, addressLimits.get(key));
+        bucket = buckets.putIfAbsent(key, created);
+        if (bucket == null) {
+          final int retval = created.acquire(now, created.limit != null ? created.limit : limit);
+          schedule(created, swept.get() + 1);
+          return retval == Bucket.ALLOWED;
+        }
+      }
+
+      final int retval = bucket.acquire(now, bucket.limit != null ? bucket.limit : limit);
+      if (retval != Bucket.EXPIRED) {
+        return retval == Bucket.ALLOWED;
+      }
+      // it expired as we found it, so start again with a new bucket
+      buckets.remove(key, bucket);
+    }
+  }
+
+
+
+
+  /**
+   * Place a bucket on the wheel in the slot of the time it will be full.
+   *
+   * @param bucket the bucket to place
+   * @param earliest the first tick whose slot has not yet been looked at
+   */
+  private void schedule(final Bucket bucket, final long earliest) {
+    final long due = Math.max(Math.floorDiv(bucket.full.get(), TICK), earliest);
+    wheel[(int)Math.floorMod(due, (long)SLOTS)].add(bucket);
+  }
+
+
+
+
+  /**
+   * Look at the slots of the wheel passed over since the last time, dropping
+   * the buckets which are full and moving the rest to the slot of the time
+   * they will be full.
+   *
+   * <p>Only one thread moves the wheel at a time, the others carry on
+   * without waiting for it.
+   */
+  private void advance(final long now) {
+    final long current = Math.floorDiv(now, TICK);
+    if (current <= swept.get() || !sweeping.tryLock()) {
+      return;
+    }
+    try {
+      final long last = swept.get();
+      // once round the wheel looks at every slot
+      final long first = Math.max(last + 1, current - SLOTS + 1);
+      final List<Bucket> due = new ArrayList<Bucket>();
+      for (long tick = first; tick <= current; tick++) {
+        final Queue<Bucket> slot = wheel[(int)Math.floorMod(tick, (long)SLOTS)];
+        Bucket bucket;
+        while ((bucket = slot.poll()) != null) {
+          due.add(bucket);
+        }
+        for (final Bucket entry : due) {
+          if (entry.expire(now)) {
+            buckets.remove(entry.key, entry);
+          } else if (buckets.get(entry.key) == entry) {
+            schedule(entry, current + 1);
+          }
+        }
+        due.clear();
+      }
+      swept.set(current);
+    }
+    finally {
+      sweeping.unlock();
+    }
+  }
+
+
+
+
+  /**
+   * @return the number of addresses currently being tracked
+   */
+  public int getAddressCount() {
+    return buckets.size();
+  }
+
+
+
+
+  /**
+   * @return the number of milliseconds in which the default limit of requests are allowed
+   */
+  public long getDuration() {
+    return limit.duration;
+  }
+
+
+
+
+  /**
+   * @return the default number of requests allowed from an address in the duration
+   */
+  public int getLimit() {
+    return limit.limit;
+  }
+
+
+
+
+  /**
+   * @return the number of networks with an aggregate limit
+   */
+  public int getNetworkCount() {
+    return networks.length;
+  }
+
+
+
+
+  /**
+   * Set the number of milliseconds in which the default limit of requests
+   * are allowed.
+   *
+   * @param duration the duration to set
+   *
+   * @throws IllegalArgumentException if the duration is not positive
+   */
+  public synchronized void setDuration(final long duration) {
+    limit = new Limit(limit.limit, duration);
+  }
+
+
+
+
+  /**
+   * Set the default number of requests allowed from an address in the
+   * duration.
+   *
+   * @param limit the limit to set
+   *
+   * @throws IllegalArgumentException if the limit is not positive
+   */
+  public synchronized void setLimit(final int limit) {
+    this.limit = new Limit(limit, this.limit.duration);
+  }
+
+
+
+
+  /**
+   * A number of requests allowed in a duration, as the nanoseconds each
+   * request takes from a bucket and how far ahead of now a bucket may be
+   * emptied.
+   */
+  private static final class Limit {
+    final int limit;
+    final long duration;
+    final long interval;
+    final long tolerance;
+
+
+
+
+    Limit(final int limit, final long duration) {
+      if (limit < 1) {
+        throw new IllegalArgumentException("Limit must be positive: " + limit);
+      }
+      if (duration < 1) {
+        throw new IllegalArgumentException("Duration must be positive: " + duration);
+      }
+      this.limit = limit;
+      this.duration = duration;
+      final long window = TimeUnit.MILLISECONDS.toNanos(duration);
+      interval = Math.max(1, window / limit);
+      tolerance = window - interval;
+    }
+  }
+
+
+
+
+  /**
+   * A token bucket kept as the time it will be full again.
+   *
+   * <p>Each request moves the time on by the interval of the limit, from now
+   * if the bucket is already full; the request is refused if that would put
+   * the time further ahead of now than the limit allows. A bucket which has
+   * been expired can not be used again.
+   */
+  private static final class Bucket {
+    static final int ALLOWED = 0;
+    static final int REFUSED = 1;
+    static final int EXPIRED = 2;
+    private static final long DEAD = Long.MIN_VALUE;
+
+    final Key key;
+    final AtomicLong full;
+    // null for the default limit
+    final Limit limit;
+
+
+
+
+    Bucket(final Key key, final long now, final Limit limit) {
+      this.key = key;
+      this.limit = limit;
+      full = new AtomicLong(now);
+    }
+
+
+
+
+    int acquire(final long now, final Limit limit) {
+      while (true) {
+        final long current = full.get();
+        if (current == DEAD) {
+          return EXPIRED;
+        }
+        final long start = (current - now > 0) ? current : now;
+        if (start - now > limit.tolerance) {
+          return REFUSED;
+        }
+        if (full.compareAndSet(current, start + limit.interval)) {
+          return ALLOWED;
+        }
+      }
+    }
+
+
+
+
+    /**
+     * @return true if the bucket was full and has been expired
+     */
+    boolean expire(final long now) {
+      final long current = full.get();
+      return current != DEAD && current - now <= 0 && full.compareAndSet(current, DEAD);
+    }
+  }
+
+
+
+
+  /**
+   * The octets of an address packed into two longs, comparable by value
+   * unlike {@link IpAddress}.
+   */
+  private static final class Key {
+    final long high;
+    final long low;
+    final int length;
+
+
+
+
+    private Key(final long high, final long low, final int length) {
+      this.high = high;
+      this.low = low;
+      this.length = length;
+    }
+
+
+
+
+    static Key of(final byte[] octets) {
+      long high = 0;
+      long low = 0;
+      for (int x = 0; x < octets.length && x < 16; x++) {
+        if (x < 8) {
+          high = (high << 8) | (octets[x] & 0xFF);
+        } else {
+          low = (low << 8) | (octets[x] & 0xFF);
+        }
+      }
+      return new Key(high, low, octets.length);
+    }
+
+
+
+
+    static Key of(final short[] octets) {
+      final byte[] bytes = new byte[octets.length];
+      for (int x = 0; x < octets.length; x++) {
+        bytes[x] = (byte)octets[x];
+      }
+      return of(bytes);
+    }
+
+
+
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key)obj;
+      return high == other.high && low == other.low && length == other.length;
+    }
+
+
+
+
+    @Override
+    public int hashCode() {
+      final long hash = high * 0x9E3779B97F4A7C15L + low;
+      return (int)(hash ^ (hash >>> 32)) ^ length;
+    }
+  }
+
+
+
+
+  /**
+   * A network with the bucket shared by all its addresses.
+   */
+  private static final class Network {
+    final Key network;
+    final Key mask;
+    final Bucket bucket;
+
+
+
+
+    Network(final IpNetwork network, final Limit limit, final long now) {
+      mask = Key.of(network.getNetMask().getOctets());
+      final Key base = Key.of(network.getOctets());
+      this.network = new Key(base.high & mask.high, base.low & mask.low, base.length);
+      bucket = new Bucket(this.network, now, limit);
+    }
+
+
+
+
+    boolean contains(final Key addr) {
+      return addr.length == network.length && ((addr.high & mask.high) == network.high) && ((addr.low & mask.low) == network.low);
+    }
+  }
+
+}
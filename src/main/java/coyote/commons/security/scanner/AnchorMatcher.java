@@ -0,0 +1,205 @@
+package coyote.commons.security.scanner;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Finds which detection strategies need to be run over a text in one pass
+ * over it.
+ *
+ * <p>The anchors of all the strategies are compiled into one Aho-Corasick
+ * automaton, so a single pass over the text finds every anchor in it however
+ * many strategies and anchors there are. Strategies none of whose anchors
+ * appear are not selected. Strategies without anchors are always selected.
+ *
+ * <p>Anchors are matched without regard to ASCII case. A strategy with an
+ * empty anchor or one holding other than ASCII characters is always selected.
+ *
+ * <p>Instances are immutable and may be shared between threads.
+ */
+final class AnchorMatcher {
+    private static final int ALPHABET = 128;
+
+    private final DetectionStrategy[] strategies;
+
+    // Transitions of the automaton, ALPHABET entries for each state, holding
+    // the offset of the row of the next state
+    private final int[] transitions;
+
+    // The strategies with an anchor ending at each state, null for none
+    private final BitSet[] matches;
+
+    // The strategies selected whatever the text
+    private final BitSet always = new BitSet();
+
+    private final int anchored;
+
+    /**
+     * @param strategies the strategies to select from, in the order they are to be run
+     */
+    AnchorMatcher(List<DetectionStrategy> strategies) {
+        this.strategies = strategies.toArray(new DetectionStrategy[0]);
+
+        List<int[]> rows = new ArrayList<>();
+        List<BitSet> found = new ArrayList<>();
+        rows.add(newRow());
+        found.add(null);
+
+        int count = 0;
+        for (int index = 0; index < this.strategies.length; index++) {
+            Collection<String> anchors = this.strategies[index].getAnchors();
+            if (anchors == null || anchors.isEmpty() || !isMatchable(anchors)) {
+                always.set(index);
+                continue;
+            }
+            count++;
+            for (String anchor : anchors) {
+                int state = 0;
+                for (int x = 0; x < anchor.length(); x++) {
+                    char c = lowerCase(anchor.charAt(x));
+                    if (rows.get(state)[c] < 0) {
+                        rows.get(state)[c] = rows.size();
+                        rows.add(newRow());
+                        found.add(null);
+                    }
+                    state = rows.get(state)[c];
+                }
+                if (found.get(state) == null) {
+                    found.set(state, new BitSet());
+                }
+                found.get(state).set(index);
+            }
+        }
+        anchored = count;
+
+        // Fill in the missing transitions breadth first, following the
+        // failure link of each state, so no character ever needs a second look
+        int[] failure = new int[rows.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ALPHABET; c++) {
+            int next = rows.get(0)[c];
+            if (next < 0) {
+                rows.get(0)[c] = 0;
+            } else {
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = rows.get(state);
+            for (int c = 0; c < ALPHABET; c++) {
+                int next = row[c];
+                if (next < 0) {
+                    row[c] = rows.get(failure[state])[c];
+                } else {
+                    failure[next] = rows.get(failure[state])[c];
+                    BitSet inherited = found.get(failure[next]);
+                    if (inherited != null) {
+                        if (found.get(next) == null) {
+                            found.set(next, new BitSet());
+                        }
+                        found.get(next).or(inherited);
+                    }
+                    queue.add(next);
+                }
+            }
+        }
+
+        transitions = new int[rows.size() * ALPHABET];
+        for (int state = 0; state < rows.size(); state++) {
+            int[] row = rows.get(state);
+            for (int c = 0; c < ALPHABET; c++) {
+                transitions[state * ALPHABET + c] = row[c] * ALPHABET;
+            }
+        }
+        matches = found.toArray(new BitSet[0]);
+    }
+
+    private static int[] newRow() {
+        int[] retval = new int[ALPHABET];
+        Arrays.fill(retval, -1);
+        return retval;
+    }
+
+    private static boolean isMatchable(Collection<String> anchors) {
+        for (String anchor : anchors) {
+            if (anchor == null || anchor.isEmpty()) {
+                return false;
+            }
+            for (int x = 0; x < anchor.length(); x++) {
+                if (anchor.charAt(x) >= ALPHABET) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static char lowerCase(char c) {
+        return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * Find the strategies to run over a text.
+     *
+     * @param text the text to be scanned
+     * @return the indexes of the strategies to run
+     */
+    BitSet select(CharSequence text) {
+        BitSet retval = (BitSet) always.clone();
+        if (anchored == 0) {
+            return retval;
+        }
+
+        BitSet seen = new BitSet(strategies.length);
+        int row = 0;
+        for (int x = 0, length = text.length(); x < length; x++) {
+            char c = text.charAt(x);
+            if (c >= ALPHABET) {
+                // no anchor spans a character outside the alphabet
+                row = 0;
+                continue;
+            }
+            row = transitions[row + lowerCase(c)];
+            BitSet found = matches[row / ALPHABET];
+            if (found != null && !contains(seen, found)) {
+                seen.or(found);
+                if (seen.cardinality() == anchored) {
+                    break;
+                }
+            }
+        }
+        retval.or(seen);
+        return retval;
+    }
+
+    private static boolean contains(BitSet set, BitSet subset) {
+        for (int index = subset.nextSetBit(0); index >= 0; index = subset.nextSetBit(index + 1)) {
+            if (!set.get(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of strategies selected from
+     */
+    int size() {
+        return strategies.length;
+    }
+
+    /**
+     * @param index the index of a strategy
+     * @return the strategy
+     */
+    DetectionStrategy getStrategy(int index) {
+        return strategies[index];
+    }
+
+}
@@ -1,6 +1,8 @@
 package coyote.commons.security.scanner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -12,6 +14,9 @@ import java.util.regex.Pattern;
  */
 public class CicdTokenStrategy implements DetectionStrategy {
 
+    // Token prefixes, the Slack host and the Jira keyword
+    private static final List<String> ANCHORS = Arrays.asList("ghp_", "gho_", "ghu_", "ghs_", "ghr_", "hooks.slack.com", "ATATT3", "jira");
+
     // GitHub token (e.g., Personal Access Token, OAuth, Server-to-server)
     private static final Pattern GITHUB_TOKEN_PATTERN = Pattern.compile("\\b(?:ghp|gho|ghu|ghs|ghr)_[a-zA-Z0-9]{36}\\b");
 
@@ -47,4 +52,9 @@ public class CicdTokenStrategy implements DetectionStrategy {
             issues.add(new ScanIssue(matcher.start(), issueNature));
         }
     }
+
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
 }
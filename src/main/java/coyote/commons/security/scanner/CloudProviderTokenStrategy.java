@@ -1,6 +1,8 @@
 package coyote.commons.security.scanner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -12,6 +14,9 @@ import java.util.regex.Pattern;
  */
 public class CloudProviderTokenStrategy implements DetectionStrategy {
 
+    // Key prefixes and the keywords each pattern requires
+    private static final List<String> ANCHORS = Arrays.asList("AKIA", "ASIA", "AROA", "AIDA", "AGPA", "ANPA", "secret_key", "secret_access_key", "service_account", "private_key", "Endpoint");
+
     // AWS Access Key ID: 20 character alphanumeric starting with common prefixes
     private static final Pattern AWS_ACCESS_KEY_PATTERN = Pattern.compile("\\b(?:AKIA|ASIA|AROA|AIDA|AGPA|ANPA)[A-Z0-9]{16}\\b");
 
@@ -51,4 +56,9 @@ public class CloudProviderTokenStrategy implements DetectionStrategy {
             issues.add(new ScanIssue(matcher.start(), issueNature));
         }
     }
+
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
 }
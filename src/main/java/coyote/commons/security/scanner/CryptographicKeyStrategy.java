@@ -1,6 +1,8 @@
 package coyote.commons.security.scanner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -12,6 +14,9 @@ import java.util.regex.Pattern;
  */
 public class CryptographicKeyStrategy implements DetectionStrategy {
 
+    // Every key boundary names a private key
+    private static final List<String> ANCHORS = Arrays.asList("PRIVATE KEY");
+
     // Matches various private key boundaries, e.g., BEGIN PRIVATE KEY, BEGIN RSA PRIVATE KEY, etc.
     private static final Pattern PRIVATE_KEY_PATTERN = Pattern.compile("-----BEGIN [A-Z0-9 ]*PRIVATE KEY[A-Z0-9 ]*-----");
 
@@ -35,4 +40,9 @@ public class CryptographicKeyStrategy implements DetectionStrategy {
 
         return issues;
     }
+
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
 }
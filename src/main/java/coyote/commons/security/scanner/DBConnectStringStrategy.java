@@ -1,6 +1,8 @@
 package coyote.commons.security.scanner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -12,6 +14,9 @@ import java.util.regex.Pattern;
  */
 public class DBConnectStringStrategy implements DetectionStrategy {
 
+    // URI and JDBC strings have a scheme separator, ODBC strings a driver or provider
+    private static final List<String> ANCHORS = Arrays.asList("://", "Driver", "Provider");
+
     // Matches URI-style credentials: protocol://username:password@
     private static final Pattern URI_CREDENTIALS_PATTERN = Pattern.compile("(?i)(?:mongodb(?:\\+srv)?|jdbc:[a-z0-9]+|amqp|redis|postgres(?:ql)?|mysql)://[^:/\\s\"'\n\r]+:[^@\\s\"'\n\r]+@");
 
@@ -47,4 +52,9 @@ public class DBConnectStringStrategy implements DetectionStrategy {
             issues.add(new ScanIssue(matcher.start(), issueNature));
         }
     }
+
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
 }
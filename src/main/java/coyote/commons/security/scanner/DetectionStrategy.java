@@ -1,5 +1,7 @@
 package coyote.commons.security.scanner;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -27,4 +29,21 @@ public interface DetectionStrategy {
      */
     List<ScanIssue> analyze(String fileContent);
 
+
+    /**
+     * Returns the anchors of this strategy: literal strings, compared without
+     * regard to ASCII case, at least one of which appears in any text this
+     * strategy can report an issue in. The scanner only runs the strategy over
+     * text containing one of its anchors, so they must be chosen so nothing
+     * detectable is missed.
+     *
+     * <p>The default of no anchors runs the strategy over all text, which is
+     * what a strategy matching text without any fixed literal needs.
+     *
+     * @return the anchors of this strategy, empty to always run it
+     */
+    default Collection<String> getAnchors() {
+        return Collections.emptyList();
+    }
+
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package coyote.commons.security.scanner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,6 +19,9 @@ import java.util.regex.Pattern;
  */
 public class EntropyStrategy implements DetectionStrategy {
 
+    // Values are only checked when assigned
+    private static final List<String> ANCHORS = Arrays.asList(":", "=");
+
     // Matches assignments like: variable = "value" or "key": "value"
     // Group 1: The opening quote (if any)
     // Group 2: The assigned string value (at least 16 characters for meaningful entropy)
@@ -91,4 +96,9 @@ public class EntropyStrategy implements DetectionStrategy {
         
         return entropy;
     }
+
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
 }
@@ -1,6 +1,8 @@
 package coyote.commons.security.scanner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -10,6 +12,9 @@ import java.util.regex.Pattern;
  * It uses a regular expression to find common password-related keywords followed by assignment operators.
  */
 public class PasswordStrategy implements DetectionStrategy {
+    // Every match starts with one of the keywords
+    private static final List<String> ANCHORS = Arrays.asList("password", "passwd", "secret", "pwd");
+
     // Looks for patterns like password=value or "password": "value"
     private static final Pattern PASSWORD_PATTERN = Pattern.compile(
             "(?i)\\b(password|passwd|secret|pwd)\\s*[:=]\\s*[\"']?([^\"'\\s>]+)[\"']?",
@@ -32,4 +37,9 @@ public class PasswordStrategy implements DetectionStrategy {
         }
         return issues;
     }
-}
\ No newline at end of file
+
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
+}
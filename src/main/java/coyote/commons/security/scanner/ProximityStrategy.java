@@ -1,6 +1,8 @@
 package coyote.commons.security.scanner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -12,6 +14,9 @@ import java.util.regex.Pattern;
  */
 public class ProximityStrategy implements DetectionStrategy {
 
+    // Tokens are only reported near one of the anchor keywords
+    private static final List<String> ANCHORS = Arrays.asList("secret", "token", "bearer", "identity", "salt");
+
     // Anchor keywords indicating potential secrets
     private static final Pattern ANCHOR_PATTERN = Pattern.compile(
             "(?i)\\b(secret|token|bearer|identity|salt)\\b"
@@ -89,4 +94,9 @@ public class ProximityStrategy implements DetectionStrategy {
         
         return entropy >= BASE64_ENTROPY_THRESHOLD;
     }
+
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
 }
@@ -0,0 +1,177 @@
+package coyote.commons.security.scanner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The results of scanning a file or directory tree: the issues found in each
+ * file, the files which could not be read and the time spent in each
+ * detection strategy.
+ */
+public class ScanReport {
+    private final Map<Path, List<ScanIssue>> issues;
+    private final Map<Path, IOException> errors;
+    private final long fileCount;
+    private final long byteCount;
+    private final long elapsed;
+    private final long selectionTime;
+    private final List<Timing> timings;
+
+    ScanReport(Map<Path, List<ScanIssue>> issues, Map<Path, IOException> errors, long fileCount, long byteCount, long elapsed, long selectionTime, List<Timing> timings) {
+        this.issues = Collections.unmodifiableMap(issues);
+        this.errors = Collections.unmodifiableMap(errors);
+        this.fileCount = fileCount;
+        this.byteCount = byteCount;
+        this.elapsed = elapsed;
+        this.selectionTime = selectionTime;
+        this.timings = Collections.unmodifiableList(timings);
+    }
+
+    /**
+     * Gets the issues found in each file, for the files with any issues.
+     *
+     * <p>The offset of each issue is the character position in the file where
+     * the issue starts, or {@link Integer#MAX_VALUE} if the position is past
+     * what an {@code int} can hold.
+     *
+     * @return the issues of each file in order of their offset, by path
+     */
+    public Map<Path, List<ScanIssue>> getIssues() {
+        return issues;
+    }
+
+    /**
+     * Gets the issues found in a file.
+     *
+     * @param path the path of the file
+     * @return the issues found, empty if there were none or the file was not scanned
+     */
+    public List<ScanIssue> getIssues(Path path) {
+        return issues.getOrDefault(path, Collections.emptyList());
+    }
+
+    /**
+     * @return the number of issues found in all the files
+     */
+    public int getIssueCount() {
+        int retval = 0;
+        for (List<ScanIssue> list : issues.values()) {
+            retval += list.size();
+        }
+        return retval;
+    }
+
+    /**
+     * @return the files and directories which could not be read and why, by path
+     */
+    public Map<Path, IOException> getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return the number of files scanned
+     */
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * @return the number of bytes in all the files scanned
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * @return the time the scan took in nanoseconds
+     */
+    public long getElapsedTime() {
+        return elapsed;
+    }
+
+    /**
+     * @return the time spent finding which strategies to run in nanoseconds, summed over all threads
+     */
+    public long getSelectionTime() {
+        return selectionTime;
+    }
+
+    /**
+     * @return the time spent in each strategy, in the order the strategies were added to the scanner
+     */
+    public List<Timing> getTimings() {
+        return timings;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append("Scanned ").append(fileCount).append(" files (").append(byteCount).append(" bytes) in ");
+        b.append(TimeUnit.NANOSECONDS.toMillis(elapsed)).append(" ms: ");
+        b.append(getIssueCount()).append(" issues in ").append(issues.size()).append(" files, ");
+        b.append(errors.size()).append(" errors");
+        b.append(System.lineSeparator()).append("  Strategy selection: ").append(TimeUnit.NANOSECONDS.toMillis(selectionTime)).append(" ms");
+        for (Timing timing : timings) {
+            b.append(System.lineSeparator()).append("  ").append(timing);
+        }
+        return b.toString();
+    }
+
+    /**
+     * The time spent in one detection strategy over a scan.
+     *
+     * <p>Times are summed over all the threads of the scan, so they can add up
+     * to more than the elapsed time. A strategy which scans text itself, like
+     * {@link DecoderStrategy}, includes the time of the strategies it runs.
+     */
+    public static class Timing {
+        private final DetectionStrategy strategy;
+        private final long runs;
+        private final long skips;
+        private final long time;
+
+        Timing(DetectionStrategy strategy, long runs, long skips, long time) {
+            this.strategy = strategy;
+            this.runs = runs;
+            this.skips = skips;
+            this.time = time;
+        }
+
+        /**
+         * @return the strategy timed
+         */
+        public DetectionStrategy getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * @return the number of texts the strategy was run over
+         */
+        public long getRuns() {
+            return runs;
+        }
+
+        /**
+         * @return the number of texts the strategy was not run over because none of its anchors appeared
+         */
+        public long getSkips() {
+            return skips;
+        }
+
+        /**
+         * @return the time spent in the strategy in nanoseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        @Override
+        public String toString() {
+            return strategy.getClass().getSimpleName() + ": " + TimeUnit.NANOSECONDS.toMillis(time) + " ms, " + runs + " runs, " + skips + " skipped";
+        }
+    }
+}
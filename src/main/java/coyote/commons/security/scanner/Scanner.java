@@ -1,14 +1,42 @@
 package coyote.commons.security.scanner;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 
 /**
  * A security scanning engine that analyzes file content for vulnerabilities
  * using multiple registered {@link DetectionStrategy} instances.
+ *
+ * <p>Before any strategy is run, one pass over the content finds the anchors
+ * of all the strategies (see {@link DetectionStrategy#getAnchors()}) and
+ * only the strategies with an anchor in the content, or with no anchors at
+ * all, are run.
+ *
+ * <p>Files and directory trees are scanned in parallel on a fork/join pool,
+ * a chunk at a time, without reading whole files into memory.
+ *
+ * <p>Strategies should all be added before scanning starts; scanning is
+ * otherwise safe from many threads at once.
  */
 public class Scanner {
+    /** The default number of bytes of a file scanned at a time */
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /** The default number of bytes either side of a chunk scanned with it */
+    public static final int DEFAULT_OVERLAP = 4 * 1024;
+
     private final List<DetectionStrategy> strategies;
+    private volatile AnchorMatcher matcher;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int overlap = DEFAULT_OVERLAP;
+    private ForkJoinPool pool = null;
 
     /**
      * Constructs a new {@code Scanner} with an empty list of detection
@@ -16,6 +44,7 @@ public class Scanner {
      */
     public Scanner() {
         this.strategies = new ArrayList<>();
+        this.matcher = new AnchorMatcher(strategies);
     }
 
     /**
@@ -27,7 +56,58 @@ public class Scanner {
         if (strategy != null) {
             strategy.setScanner(this);
             this.strategies.add(strategy);
+            this.matcher = new AnchorMatcher(strategies);
+        }
+    }
+
+    /**
+     * Sets the number of bytes of a file scanned at a time.
+     *
+     * <p>Larger files are split into chunks scanned in parallel, each with
+     * the overlap either side of it.
+     *
+     * @param size the size of a chunk in bytes
+     * @throws IllegalArgumentException if the size is not positive, or too large to be decoded with its overlap
+     */
+    public void setChunkSize(int size) {
+        checkChunk(size, overlap);
+        this.chunkSize = size;
+    }
+
+    /**
+     * Sets the number of bytes either side of each chunk of a file scanned
+     * with it.
+     *
+     * <p>Issues longer than the overlap may be missed when they cross from one
+     * chunk to the next.
+     *
+     * @param overlap the overlap in bytes
+     * @throws IllegalArgumentException if the overlap is negative, or too large to be decoded with a chunk
+     */
+    public void setOverlap(int overlap) {
+        checkChunk(chunkSize, overlap);
+        this.overlap = overlap;
+    }
+
+    private static void checkChunk(int size, int overlap) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + size);
         }
+        if (overlap < 0) {
+            throw new IllegalArgumentException("Overlap must not be negative: " + overlap);
+        }
+        if ((long) size + 2L * overlap + 3 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Chunk size " + size + " with overlap " + overlap + " is too large");
+        }
+    }
+
+    /**
+     * Sets the pool files are scanned in.
+     *
+     * @param pool the pool to use, null for the common pool
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
 
 
@@ -38,16 +118,78 @@ public class Scanner {
      * @return a list of all {@link ScanIssue} objects found by the registered strategies
      */
     public List<ScanIssue> scan(String fileContent) {
-        List<ScanIssue> allIssues = new ArrayList<>();
         if (fileContent == null || fileContent.isEmpty()) {
-            return allIssues;
+            return new ArrayList<>();
+        }
+        return analyze(matcher, fileContent, null);
+    }
+
+    /**
+     * Scans a file, or every regular file in a directory tree.
+     *
+     * @param path the file or directory to scan
+     * @return the issues found in each file and the time spent in each strategy
+     * @throws IOException if the path does not exist
+     * @see #scan(Path, Predicate)
+     */
+    public ScanReport scan(Path path) throws IOException {
+        return scan(path, null);
+    }
+
+    /**
+     * Scans a file, or the regular files in a directory tree accepted by a
+     * filter.
+     *
+     * <p>Files are read as UTF-8. Symbolic links are not followed below the
+     * given path. Files and directories which cannot be read are recorded in
+     * the report and the scan carries on.
+     *
+     * @param path   the file or directory to scan
+     * @param filter decides which files are scanned, null to scan them all
+     * @return the issues found in each file and the time spent in each strategy
+     * @throws IOException if the path does not exist
+     */
+    public ScanReport scan(Path path, Predicate<Path> filter) throws IOException {
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException(path.toString());
+        }
+        TreeScan scan = new TreeScan(matcher, chunkSize, overlap, filter);
+        return scan.run((pool != null) ? pool : ForkJoinPool.commonPool(), path);
+    }
+
+    /**
+     * Runs the strategies with an anchor in some text over it.
+     *
+     * @param matcher selects the strategies to run
+     * @param text    the text to scan
+     * @param timer   records the time spent in each strategy, may be null
+     * @return the issues found, by each strategy in turn
+     */
+    static List<ScanIssue> analyze(AnchorMatcher matcher, String text, StrategyTimer timer) {
+        List<ScanIssue> allIssues = new ArrayList<>();
+        long start = (timer != null) ? System.nanoTime() : 0;
+        BitSet selected = matcher.select(text);
+        if (timer != null) {
+            timer.selected(System.nanoTime() - start);
         }
 
-        for (DetectionStrategy strategy : strategies) {
-            allIssues.addAll(strategy.analyze(fileContent));
+        for (int index = 0; index < matcher.size(); index++) {
+            if (!selected.get(index)) {
+                if (timer != null) {
+                    timer.skipped(index);
+                }
+                continue;
+            }
+            if (timer != null) {
+                start = System.nanoTime();
+                allIssues.addAll(matcher.getStrategy(index).analyze(text));
+                timer.ran(index, System.nanoTime() - start);
+            } else {
+                allIssues.addAll(matcher.getStrategy(index).analyze(text));
+            }
         }
 
         return allIssues;
     }
 
-}
\ No newline at end of file
+}
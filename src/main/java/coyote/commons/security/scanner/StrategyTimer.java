@@ -0,0 +1,76 @@
+package coyote.commons.security.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals the time spent in each detection strategy, and in selecting them,
+ * across all the threads of a scan.
+ */
+final class StrategyTimer {
+    private final AnchorMatcher matcher;
+    private final LongAdder[] times;
+    private final LongAdder[] runs;
+    private final LongAdder[] skips;
+    private final LongAdder prefilter = new LongAdder();
+
+    /**
+     * @param matcher selects the strategies being timed
+     */
+    StrategyTimer(AnchorMatcher matcher) {
+        this.matcher = matcher;
+        times = newAdders(matcher.size());
+        runs = newAdders(matcher.size());
+        skips = newAdders(matcher.size());
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] retval = new LongAdder[count];
+        for (int x = 0; x < count; x++) {
+            retval[x] = new LongAdder();
+        }
+        return retval;
+    }
+
+    /**
+     * @param nanos the time taken to select the strategies for a text
+     */
+    void selected(long nanos) {
+        prefilter.add(nanos);
+    }
+
+    /**
+     * @param index the index of the strategy run over a text
+     * @param nanos the time it took
+     */
+    void ran(int index, long nanos) {
+        runs[index].increment();
+        times[index].add(nanos);
+    }
+
+    /**
+     * @param index the index of the strategy not run over a text
+     */
+    void skipped(int index) {
+        skips[index].increment();
+    }
+
+    /**
+     * @return the time spent selecting strategies in nanoseconds
+     */
+    long getSelectionTime() {
+        return prefilter.sum();
+    }
+
+    /**
+     * @return the totals for each strategy, in the order they are run
+     */
+    List<ScanReport.Timing> getTimings() {
+        List<ScanReport.Timing> retval = new ArrayList<>(matcher.size());
+        for (int x = 0; x < matcher.size(); x++) {
+            retval.add(new ScanReport.Timing(matcher.getStrategy(x), runs[x].sum(), skips[x].sum(), times[x].sum()));
+        }
+        return retval;
+    }
+}
@@ -0,0 +1,267 @@
+package coyote.commons.security.scanner;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * One scan of a file or directory tree, run as fork/join tasks so idle
+ * threads steal directories, files and chunks of large files from busy ones.
+ *
+ * <p>Files are read as UTF-8 in chunks, mapped into memory rather than
+ * copied once they are large enough. Each chunk is decoded along with the
+ * bytes either side of it, up to the overlap, so anything shorter than the
+ * overlap is seen whole by the chunk it starts in and has the context before
+ * it that regular expressions look behind at. Only issues starting in the
+ * chunk itself are kept, so nothing is reported twice. Chunk boundaries are
+ * moved forward past UTF-8 continuation bytes so no character is split.
+ *
+ * <p>The strategies to run are selected for each chunk, with its overlap,
+ * from the anchors found in it.
+ */
+final class TreeScan {
+    // Files and chunks smaller than this are read into the heap, which is
+    // cheaper than mapping them
+    private static final int MAP_THRESHOLD = 64 * 1024;
+
+    // The most bytes a UTF-8 boundary is moved forward
+    private static final int MAX_CONTINUATION = 3;
+
+    private final AnchorMatcher matcher;
+    private final int chunkSize;
+    private final int overlap;
+    private final Predicate<Path> filter;
+    private final StrategyTimer timer;
+    private final Map<Path, List<ScanIssue>> issues = new ConcurrentHashMap<>();
+    private final Map<Path, IOException> errors = new ConcurrentHashMap<>();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * @param matcher   selects the strategies to run
+     * @param chunkSize the number of bytes of a file scanned at a time
+     * @param overlap   the number of bytes either side of a chunk scanned with it
+     * @param filter    decides which files are scanned, null for all of them
+     */
+    TreeScan(AnchorMatcher matcher, int chunkSize, int overlap, Predicate<Path> filter) {
+        this.matcher = matcher;
+        this.chunkSize = chunkSize;
+        this.overlap = overlap;
+        this.filter = filter;
+        this.timer = new StrategyTimer(matcher);
+    }
+
+    /**
+     * Scan a file or all the files under a directory.
+     *
+     * @param pool the pool to run the scan in
+     * @param root the file or directory to scan
+     * @return what was found
+     */
+    ScanReport run(ForkJoinPool pool, Path root) {
+        long start = System.nanoTime();
+        pool.invoke(new PathTask(root, true));
+        return new ScanReport(new TreeMap<>(issues), new TreeMap<>(errors), files.sum(), bytes.sum(), System.nanoTime() - start, timer.getSelectionTime(), timer.getTimings());
+    }
+
+    private void scanFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            files.increment();
+            bytes.add(size);
+            if (size == 0) {
+                return;
+            }
+
+            List<ChunkTask> tasks = new ArrayList<>();
+            for (long start = 0; start < size; start += chunkSize) {
+                tasks.add(new ChunkTask(channel, size, start));
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            // chunks only know the offsets of their issues from their own start
+            List<ScanIssue> found = new ArrayList<>();
+            long base = 0;
+            for (ChunkTask task : tasks) {
+                Chunk chunk = task.join();
+                for (ScanIssue issue : chunk.issues) {
+                    long offset = Math.min(base + issue.getOffset(), Integer.MAX_VALUE);
+                    found.add(new ScanIssue((int) offset, issue.getNatureOfIssue()));
+                }
+                base += chunk.length;
+            }
+            if (!found.isEmpty()) {
+                found.sort(Comparator.comparingInt(ScanIssue::getOffset));
+                issues.put(path, found);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Read part of a file.
+     *
+     * @return a buffer holding the bytes from the start, which is shorter than
+     * asked for if the file has been truncated
+     */
+    private static ByteBuffer read(FileChannel channel, long start, int length) throws IOException {
+        if (length >= MAP_THRESHOLD) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        }
+        ByteBuffer retval = ByteBuffer.allocate(length);
+        while (retval.hasRemaining()) {
+            if (channel.read(retval, start + retval.position()) < 0) {
+                break;
+            }
+        }
+        retval.flip();
+        return retval;
+    }
+
+    /**
+     * @return the position moved forward past any UTF-8 continuation bytes
+     */
+    private static int align(ByteBuffer buffer, int position) {
+        int retval = Math.min(position, buffer.limit());
+        for (int x = 0; x < MAX_CONTINUATION && retval < buffer.limit() && (buffer.get(retval) & 0xC0) == 0x80; x++) {
+            retval++;
+        }
+        return retval;
+    }
+
+    /**
+     * The issues found in a chunk of a file.
+     */
+    private static final class Chunk {
+        // the number of characters in the chunk, not counting the overlap
+        final int length;
+        // the issues starting in the chunk, at offsets from its start
+        final List<ScanIssue> issues;
+
+        Chunk(int length, List<ScanIssue> issues) {
+            this.length = length;
+            this.issues = issues;
+        }
+    }
+
+    /**
+     * Scans a directory by scanning each of its entries, or scans a file.
+     */
+    private final class PathTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Path path;
+        private final LinkOption[] options;
+
+        PathTask(Path path, boolean follow) {
+            this.path = path;
+            // links are only followed from the root, so the tree cannot loop
+            this.options = follow ? new LinkOption[0] : new LinkOption[]{LinkOption.NOFOLLOW_LINKS};
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (Files.isDirectory(path, options)) {
+                    List<PathTask> tasks = new ArrayList<>();
+                    try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+                        for (Path entry : entries) {
+                            tasks.add(new PathTask(entry, false));
+                        }
+                    }
+                    invokeAll(tasks);
+                } else if (Files.isRegularFile(path, options) && (filter == null || filter.test(path))) {
+                    scanFile(path);
+                }
+            } catch (IOException e) {
+                errors.put(path, e);
+            } catch (UncheckedIOException e) {
+                errors.put(path, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Decodes one chunk of a file, with the overlap either side, and runs the
+     * selected strategies over it.
+     */
+    private final class ChunkTask extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+        private final FileChannel channel;
+        private final long size;
+        private final long start;
+
+        ChunkTask(FileChannel channel, long size, long start) {
+            this.channel = channel;
+            this.size = size;
+            this.start = start;
+        }
+
+        @Override
+        protected Chunk compute() {
+            try {
+                return scan();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Chunk scan() throws IOException {
+            long end = Math.min(size, start + chunkSize);
+            long from = Math.max(0, start - overlap);
+            long to = Math.min(size, end + overlap + MAX_CONTINUATION);
+            ByteBuffer buffer = read(channel, from, (int) (to - from));
+
+            // every boundary is found the same way by the chunks either side of it
+            int leadStart = (from == 0) ? 0 : align(buffer, 0);
+            int chunkStart = (start == 0) ? 0 : align(buffer, (int) (start - from));
+            int chunkEnd = (end == size) ? buffer.limit() : align(buffer, (int) (end - from));
+            int trailEnd = (end + overlap >= size) ? buffer.limit() : align(buffer, (int) (end + overlap - from));
+
+            CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+            // UTF-8 never decodes to more characters than it has bytes
+            CharBuffer text = CharBuffer.allocate(trailEnd - leadStart);
+            buffer.limit(chunkStart);
+            buffer.position(leadStart);
+            decoder.decode(buffer, text, false);
+            int lead = text.position();
+            buffer.limit(chunkEnd);
+            decoder.decode(buffer, text, false);
+            int trail = text.position();
+            buffer.limit(trailEnd);
+            decoder.decode(buffer, text, true);
+            decoder.flush(text);
+            text.flip();
+
+            List<ScanIssue> found = new ArrayList<>();
+            for (ScanIssue issue : Scanner.analyze(matcher, text.toString(), timer)) {
+                if (issue.getOffset() >= lead && issue.getOffset() < trail) {
+                    found.add(new ScanIssue(issue.getOffset() - lead, issue.getNatureOfIssue()));
+                }
+            }
+            return new Chunk(trail - lead, found);
+        }
+    }
+}
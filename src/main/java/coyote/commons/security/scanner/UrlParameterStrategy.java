@@ -1,6 +1,8 @@
 package coyote.commons.security.scanner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -12,6 +14,9 @@ import java.util.regex.Pattern;
  */
 public class UrlParameterStrategy implements DetectionStrategy {
 
+    // Each sensitive key contains one of these
+    private static final List<String> ANCHORS = Arrays.asList("token", "api", "pass", "secret", "auth", "jwt", "session", "credential", "client_");
+
     // Matches strings that look like URLs or URIs containing a query string.
     // Group 1: The query string portion after the '?' (excluding URL fragments starting with '#')
     private static final Pattern URL_WITH_QUERY_PATTERN = Pattern.compile(
@@ -61,4 +66,9 @@ public class UrlParameterStrategy implements DetectionStrategy {
     private boolean isSensitiveKey(String key) {
         return SENSITIVE_KEY_PATTERN.matcher(key).matches();
     }
+
+    @Override
+    public Collection<String> getAnchors() {
+        return ANCHORS;
+    }
 }
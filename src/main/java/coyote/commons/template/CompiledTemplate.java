@@ -0,0 +1,603 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+
+package coyote.commons.template;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+
+import coyote.commons.StringParser;
+import coyote.commons.StringUtil;
+
+
+/**
+ * A template which has been parsed once into an immutable program which can
+ * be resolved any number of times, by any number of threads.
+ *
+ * <p>The program is a list of segments; literal text which is copied as is
+ * and tags which are resolved against the symbol table and object cache
+ * passed to each resolution. Symbol references have their keys and formats
+ * split out in advance and method calls have their object key, method name
+ * and arguments parsed in advance with the method itself looked up once per
+ * class of object and invoked through a {@code MethodHandle}.</p>
+ *
+ * <p>Resolving a compiled template produces exactly the same result as
+ * parsing the text with {@link Template#convertToString(Template,
+ * SymbolTable, Hashtable, boolean)}.</p>
+ *
+ * <p>Compiled templates are normally obtained through
+ * {@link Template#compile(String)} which caches them by their text.</p>
+ */
+public final class CompiledTemplate {
+  private static final String CLOSE = "#]";
+  private static final char CP = ')';
+  private static final char DOT = '.';
+  private static final String[] EMPTY_ARGS = new String[0];
+  private static final char OP = '(';
+  private static final String OPEN = "[#";
+  private static final char PIPE = '|';
+  private static final char VAR = '$';
+  private static final String VAR_PREFIX = String.valueOf(VAR);
+
+  /** The type all method handles are adapted to: (Object target, String[] args)Object */
+  private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, String[].class);
+
+  private final String text;
+  private final Segment[] segments;
+
+
+
+
+  private CompiledTemplate(final String text, final Segment[] segments) {
+    this.text = text;
+    this.segments = segments;
+  }
+
+
+
+
+  /**
+   * Parse the given template text into a program.
+   *
+   * @param text the template text
+   *
+   * @return the compiled template
+   *
+   * @throws IllegalArgumentException if the text could not be parsed
+   */
+  public static CompiledTemplate compile(final String text) {
+    final List<Segment> segments = new ArrayList<Segment>();
+    final StringParser parser = new StringParser(text);
+
+    try {
+      while (!parser.eof()) {
+        final String userText = parser.readToPattern(OPEN);
+
+        if (userText != null) {
+          segments.add(new Literal(userText));
+        }
+
+        if (parser.eof()) {
+          break;
+        } else {
+          parser.skip(OPEN.length());
+          final String tag = parser.readToPattern(CLOSE);
+
+          // the template is not complete, the error replaces the remainder
+          if (parser.eof()) {
+            segments.add(new Literal("TEMPLATE ERROR: reached EOF before finding closing delimiter '" + CLOSE + "' at " + parser.getPosition()));
+            break;
+          }
+
+          parser.skip(CLOSE.length());
+
+          if ((tag != null) && (tag.length() > 0)) {
+            segments.add(compileTag(tag));
+          }
+        }
+      }
+    } catch (final IOException ioe) {
+      throw new IllegalArgumentException("Parser error", ioe);
+    }
+
+    return new CompiledTemplate(text, segments.toArray(new Segment[segments.size()]));
+  }
+
+
+
+
+  /**
+   * Parse the contents of a single tag (the text between the delimiters).
+   *
+   * @param tag the contents of the tag
+   *
+   * @return the compiled tag
+   */
+  static Tag compileTag(final String tag) {
+    final List<Op> ops = new ArrayList<Op>();
+    final StringParser parser = new StringParser(tag);
+    Invocation invocation = null;
+
+    try {
+      while (!parser.eof()) {
+        final String token = parser.readToken();
+
+        if ((token == null) || (token.length() < 1)) {
+          break;
+        }
+
+        if (token.startsWith(VAR_PREFIX)) {
+          final int boundry = token.indexOf(PIPE);
+          if (boundry > 0) {
+            ops.add(new SymbolRef(token.substring(1, boundry), token.substring(boundry + 1)));
+          } else {
+            ops.add(new SymbolRef(token.substring(1), null));
+          }
+        } else if (tag.lastIndexOf(OP) != -1) {
+          // method calls always use the entire tag, parse it only once
+          if (invocation == null) {
+            invocation = new Invocation(tag);
+          }
+          ops.add(new MethodCall(token, invocation));
+        } else {
+          ops.add(new ObjectRef(token));
+        }
+      }
+    } catch (final Exception ex) {
+      ops.add(new Failure(ex));
+    }
+
+    return new Tag(ops.toArray(new Op[ops.size()]));
+  }
+
+
+
+
+  /**
+   * Resolve this template with the given symbol table.
+   *
+   * @param symbols the symbol table to use in resolving the variables
+   * @param cache the class cache to use when looking up object references,
+   *        may be null
+   * @param preprocess true to leave unresolved variables in place, false
+   *        replaces unresolved variables with an empty string.
+   *
+   * @return the resolved template
+   */
+  public String resolve(SymbolTable symbols, final Hashtable<?, ?> cache, final boolean preprocess) {
+    if (symbols == null) {
+      symbols = new SymbolTable();
+    }
+    final StringBuilder buffer = new StringBuilder(text.length() + 16);
+    for (final Segment segment : segments) {
+      segment.append(buffer, symbols, cache, preprocess);
+    }
+    return buffer.toString();
+  }
+
+
+
+
+  /**
+   * @return the text from which this template was compiled
+   */
+  public String getText() {
+    return text;
+  }
+
+
+
+
+  /**
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return text;
+  }
+
+
+
+
+  /**
+   * One part of a compiled template.
+   */
+  interface Segment {
+    void append(StringBuilder out, SymbolTable symbols, Hashtable<?, ?> cache, boolean preprocess);
+  }
+
+
+
+
+  /**
+   * One token within a tag. Exceptions end the resolution of the tag.
+   */
+  private interface Op {
+    void append(StringBuilder out, SymbolTable symbols, Hashtable<?, ?> cache, boolean preprocess) throws Exception;
+  }
+
+
+
+
+  /**
+   * Text copied to the output unchanged.
+   */
+  private static final class Literal implements Segment {
+    private final String value;
+
+
+
+
+    Literal(final String value) {
+      this.value = value;
+    }
+
+
+
+
+    @Override
+    public void append(final StringBuilder out, final SymbolTable symbols, final Hashtable<?, ?> cache, final boolean preprocess) {
+      out.append(value);
+    }
+  }
+
+
+
+
+  /**
+   * The compiled contents of a tag.
+   */
+  static final class Tag implements Segment {
+    private final Op[] ops;
+
+
+
+
+    Tag(final Op[] ops) {
+      this.ops = ops;
+    }
+
+
+
+
+    @Override
+    public void append(final StringBuilder out, final SymbolTable symbols, final Hashtable<?, ?> cache, final boolean preprocess) {
+      try {
+        for (final Op op : ops) {
+          op.append(out, symbols, cache, preprocess);
+        }
+      } catch (final Exception ex) {
+        System.out.println("Template Processing Error:" + ex.getClass().getSimpleName() + ":" + ex.getMessage());
+      }
+    }
+  }
+
+
+
+
+  /**
+   * A variable reference with an optional format.
+   */
+  private static final class SymbolRef implements Op {
+    private final String key;
+    private final String format;
+    private final String markup;
+
+
+
+
+    SymbolRef(final String key, final String format) {
+      this.key = key;
+      this.format = format;
+      if (format != null) {
+        markup = OPEN + VAR + key + PIPE + format + CLOSE;
+      } else {
+        markup = OPEN + VAR + key + CLOSE;
+      }
+    }
+
+
+
+
+    @Override
+    public void append(final StringBuilder out, final SymbolTable symbols, final Hashtable<?, ?> cache, final boolean preprocess) {
+      if (format != null) {
+        if (!preprocess || symbols.containsKey(key)) {
+          out.append(symbols.getString(key, format));
+        } else {
+          out.append(markup);
+        }
+      } else {
+        if (!preprocess || symbols.containsKey(key) || symbols.containsLiteral(key)) {
+          out.append(symbols.getString(key));
+        } else {
+          out.append(markup);
+        }
+      }
+    }
+  }
+
+
+
+
+  /**
+   * A reference to an object whose string value is used.
+   */
+  private static final class ObjectRef implements Op {
+    private final String name;
+    private final String markup;
+
+
+
+
+    ObjectRef(final String name) {
+      this.name = name;
+      markup = OPEN + name + CLOSE;
+    }
+
+
+
+
+    @Override
+    public void append(final StringBuilder out, final SymbolTable symbols, final Hashtable<?, ?> cache, final boolean preprocess) {
+      final Object obj = Template.get(name, cache);
+      if (obj != null) {
+        out.append(obj.toString());
+      } else if (preprocess) {
+        out.append(markup);
+      }
+    }
+  }
+
+
+
+
+  /**
+   * A token of a tag containing a method call.
+   */
+  private static final class MethodCall implements Op {
+    private final Invocation invocation;
+    private final String markup;
+
+
+
+
+    MethodCall(final String token, final Invocation invocation) {
+      this.invocation = invocation;
+      markup = OPEN + token + CLOSE;
+    }
+
+
+
+
+    @Override
+    public void append(final StringBuilder out, final SymbolTable symbols, final Hashtable<?, ?> cache, final boolean preprocess) throws Exception {
+      if (!invocation.append(out, symbols, cache) && preprocess) {
+        out.append(markup);
+      }
+    }
+  }
+
+
+
+
+  /**
+   * A failure encountered while parsing a tag, raised each time the tag is
+   * resolved so the output matches that of a template parsed on each call.
+   */
+  private static final class Failure implements Op {
+    private final Exception exception;
+
+
+
+
+    Failure(final Exception exception) {
+      this.exception = exception;
+    }
+
+
+
+
+    @Override
+    public void append(final StringBuilder out, final SymbolTable symbols, final Hashtable<?, ?> cache, final boolean preprocess) throws Exception {
+      throw exception;
+    }
+  }
+
+
+
+
+  /**
+   * The parsed form of a method call on a named object.
+   */
+  private static final class Invocation {
+    private final String objectKey;
+    private final String methodName;
+    private final String[] arguments;
+    private final boolean[] variables;
+    private final Exception failure;
+    private volatile Binding binding = null;
+
+
+
+
+    Invocation(final String tag) {
+      String key = null;
+      String name = null;
+      String[] args = EMPTY_ARGS;
+      Exception error = null;
+
+      try {
+        final String body = tag.substring(0, tag.lastIndexOf(OP));
+        // the last dotted token is always assumed to be a method name
+        int indx = body.lastIndexOf(DOT);
+        key = body.substring(0, indx);
+        final String methodToken = tag.substring(indx + 1);
+
+        // parse out the method to call - It should be within parentheses
+        indx = methodToken.indexOf(OP);
+        if (indx != -1) {
+          name = methodToken.substring(0, indx);
+          String params = methodToken.substring(indx + 1);
+
+          // parse to the closing parentheses
+          indx = params.indexOf(CP);
+          if (indx != -1) {
+            params = params.substring(0, indx);
+          }
+
+          if (StringUtil.isNotBlank(params)) {
+            // split the argument portion into separate strings by commas
+            // ignoring any spaces
+            args = params.split(",\\s*");
+          }
+        }
+      } catch (final Exception ex) {
+        error = ex;
+      }
+
+      objectKey = key;
+      methodName = name;
+      failure = error;
+      arguments = args;
+      variables = new boolean[args.length];
+      for (int x = 0; x < args.length; x++) {
+        if (StringUtil.isNotBlank(args[x]) && (args[x].charAt(0) == VAR)) {
+          variables[x] = true;
+          args[x] = args[x].substring(1);
+        } else {
+          args[x] = unquote(args[x]);
+        }
+      }
+    }
+
+
+
+
+    /**
+     * Handle quoted values especially empty string arguments: ""
+     */
+    private static String unquote(final String arg) {
+      if ((arg.length() > 1) && (arg.indexOf('"') > -1)) {
+        final String qval = StringUtil.getQuotedValue(arg);
+        if (qval != null) {
+          return qval;
+        }
+      }
+      return arg;
+    }
+
+
+
+
+    /**
+     * Call the method on the object with the key in the cache.
+     *
+     * @return true if the object was found, false if it was not
+     */
+    boolean append(final StringBuilder out, final SymbolTable symbols, final Hashtable<?, ?> cache) throws Exception {
+      if (failure != null) {
+        throw failure;
+      }
+
+      final Object obj = Template.get(objectKey, cache);
+      if (obj == null) {
+        return false;
+      }
+
+      // resolve the arguments which reference variables
+      final String[] args = (arguments.length > 0) ? new String[arguments.length] : EMPTY_ARGS;
+      for (int x = 0; x < args.length; x++) {
+        args[x] = variables[x] ? unquote(symbols.getString(arguments[x])) : arguments[x];
+      }
+
+      if (StringUtil.isNotBlank(methodName)) {
+        Binding bound = binding;
+        if ((bound == null) || (bound.type != obj.getClass())) {
+          bound = new Binding(obj.getClass(), methodName, args.length);
+          binding = bound;
+        }
+        bound.invoke(out, obj, args);
+      }
+      return true;
+    }
+  }
+
+
+
+
+  /**
+   * A method looked up for a particular class of object.
+   */
+  private static final class Binding {
+    private final Class<?> type;
+    private final Method method;
+    private final MethodHandle handle;
+
+
+
+
+    Binding(final Class<?> type, final String name, final int arity) {
+      this.type = type;
+
+      // the method with the correct number of string arguments
+      final Class<?>[] cArg = new Class<?>[arity];
+      for (int x = 0; x < arity; x++) {
+        cArg[x] = String.class;
+      }
+
+      Method mthd = null;
+      try {
+        mthd = type.getMethod(name, cArg);
+      } catch (final Exception e1) {
+        // silently ignore
+      }
+      method = mthd;
+
+      MethodHandle hndl = null;
+      if (mthd != null) {
+        try {
+          hndl = MethodHandles.lookup().unreflect(mthd).asSpreader(String[].class, arity).asType(INVOKER_TYPE);
+        } catch (final Exception e) {
+          // not accessible as a handle, reflection will report the problem
+        }
+      }
+      handle = hndl;
+    }
+
+
+
+
+    void invoke(final StringBuilder out, final Object obj, final String[] args) {
+      if (method != null) {
+        try {
+          final Object returned;
+          if (handle != null) {
+            returned = (Object)handle.invokeExact(obj, args);
+          } else {
+            returned = method.invoke(obj, (Object[])args);
+          }
+
+          // If we received a return value, append it
+          if (returned != null) {
+            out.append(returned.toString());
+          }
+        } catch (final Throwable e) {
+          System.out.println("Template Class Error:" + e.getClass().getSimpleName() + ":" + e.getMessage());
+        }
+      }
+    }
+  }
+
+}
@@ -9,11 +9,13 @@
 package coyote.commons.template;
 
 import java.io.IOException;
-import java.lang.reflect.Method;
 import java.util.Hashtable;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import coyote.commons.StringParser;
-import coyote.commons.StringUtil;
 
 
 /**
@@ -53,28 +55,126 @@ import coyote.commons.StringUtil;
  * allows templates to call into generic, sharable facilities such as Data
  * Access Objects (DAO), data repositories, and any other specialized object
  * that is designed to present data in a string format.</p>
+ *
+ * <p>The static {@code resolve} and {@code preProcess} methods compile the
+ * text into a {@link CompiledTemplate} once and keep the most recently used
+ * programs in a bounded cache, so text resolved repeatedly (such as in each
+ * row of a transform) is only parsed the first time it is seen.</p>
+ *
+ * <p>Objects can also be made visible to templates resolved on a particular
+ * thread by binding a scope to that thread with {@link #setScope(Map)}. This
+ * allows several components, such as transform engines running in the same
+ * JVM, to each give their templates access to their own objects under the
+ * same names without replacing each other's objects in the static cache.</p>
  */
 public class Template extends StringParser {
   private static final String CLOSE = "#]";
-  private static final char CP = ')';
-  private static final char DOT = '.';
-  private static final String[] EMPTY_ARGS = new String[0];
-
-  private static final char OP = '(';
   private static final String OPEN = "[#";
-  private static final char PIPE = '|';
-  private static Hashtable<String, Object> staticCache = new Hashtable<String, Object>();
+  private static final Map<String, Object> staticCache = new ConcurrentHashMap<String, Object>();
+  private static final ThreadLocal<Map<String, Object>> scope = new ThreadLocal<Map<String, Object>>();
   private static SymbolTable symbols = new SymbolTable();
-  private static final char VAR = '$';
-  private static final String VAR_PREFIX = String.valueOf(VAR);
   private final Hashtable<String, Object> classCache = new Hashtable<String, Object>();
 
+  /** The maximum number of compiled templates kept in the program cache */
+  public static final int PROGRAM_CACHE_SIZE = 512;
+
+  /** Compiled templates keyed by their text */
+  private static final Map<String, Program> programCache = new ConcurrentHashMap<String, Program>();
+
+  /** The text of the cached programs in the order they are considered for eviction */
+  private static final Queue<String> programClock = new ConcurrentLinkedQueue<String>();
+
+
+
+
+  /**
+   * A cached program and whether it was used since the clock last passed it.
+   */
+  private static final class Program {
+    final CompiledTemplate template;
+    volatile boolean used = false;
+
+
+
+
+    Program(final CompiledTemplate template) {
+      this.template = template;
+    }
+  }
+
+
 
 
   /**
-   * Get the object with the given name from the given cache or the static cache.
+   * Compile the given template text into a reusable program.
+   *
+   * <p>Programs are cached by their text so repeated calls with the same text
+   * return the same program without parsing the text again. Finding a cached
+   * program takes no lock. When the cache is full, programs are evicted in 
+   * the order they were cached, except that programs used since the clock 
+   * last passed them are given another turn, so programs in use stay cached
+   * much as they would with least recently used eviction.</p>
+   *
+   * @param text the template text
    *
-   * <p>The given cache takes precedence over the static cache.</p>
+   * @return the compiled template
+   *
+   * @throws IllegalArgumentException if the text could not be parsed
+   */
+  public static CompiledTemplate compile(final String text) {
+    Program program = programCache.get(text);
+    if (program != null) {
+      // only write when it changes so hits do not contend on the flag
+      if (!program.used) {
+        program.used = true;
+      }
+      return program.template;
+    }
+
+    program = new Program(CompiledTemplate.compile(text));
+    final Program cached = programCache.putIfAbsent(text, program);
+    if (cached != null) {
+      return cached.template;
+    }
+    programClock.offer(text);
+    evictPrograms();
+    return program.template;
+  }
+
+
+
+
+  /**
+   * Advance the clock over the cached programs, giving those used since it
+   * last passed them another turn and evicting the rest, until the cache is
+   * back within its size.
+   */
+  private static void evictPrograms() {
+    while (programCache.size() > PROGRAM_CACHE_SIZE) {
+      final String text = programClock.poll();
+      if (text == null) {
+        return;
+      }
+      final Program program = programCache.get(text);
+      if (program != null) {
+        if (program.used) {
+          program.used = false;
+          programClock.offer(text);
+        } else {
+          programCache.remove(text, program);
+        }
+      }
+    }
+  }
+
+
+
+  /**
+   * Get the object with the given name from the given cache, the scope bound
+   * to the current thread or the static cache.
+   *
+   * <p>The given cache takes precedence over the thread scope which takes
+   * precedence over the static cache.</p>
    *
    * @param name The name of the object to retrieve.
    * @param cache The cache to check. takes precedence over the static cache.
@@ -85,6 +185,10 @@ public class Template extends StringParser {
     Object retval = null;
     if ((name != null) && (name.length() > 0)) {
       if (cache != null) retval = cache.get(name);
+      if (retval == null) {
+        final Map<String, Object> objects = scope.get();
+        if (objects != null) retval = objects.get(name);
+      }
       if( retval == null) retval = staticCache.get(name);
     }
     return retval;
@@ -93,6 +197,45 @@ public class Template extends StringParser {
 
 
 
+  /**
+   * Bind a scope of named objects to the current thread for use in template
+   * resolution.
+   *
+   * <p>Objects in the scope take precedence over those in the static cache
+   * for all templates resolved on this thread. The map is referenced, not
+   * copied, so changes to it are seen by later resolutions; it should be
+   * thread-safe if it is bound to more than one thread.</p>
+   *
+   * <p>Callers should restore the returned scope when they are done so
+   * scopes can be nested.</p>
+   *
+   * @param objects the objects to bind, null removes the current scope
+   *
+   * @return the scope previously bound to this thread, may be null
+   */
+  public static Map<String, Object> setScope(final Map<String, Object> objects) {
+    final Map<String, Object> retval = scope.get();
+    if (objects != null) {
+      scope.set(objects);
+    } else {
+      scope.remove();
+    }
+    return retval;
+  }
+
+
+
+
+  /**
+   * @return the scope of objects bound to the current thread, may be null
+   */
+  public static Map<String, Object> getScope() {
+    return scope.get();
+  }
+
+
+
+
   /**
    * Resolve the template string with the given symbol table but leave the
    * unresolved variables in the template.
@@ -110,7 +253,7 @@ public class Template extends StringParser {
    */
   public static String preProcess(final String text, final SymbolTable symbols) {
     if ((symbols != null) && (text != null)) {
-      return new Template(text, symbols).preProcess();
+      return compile(text).resolve(symbols, null, true);
     } else {
       return text;
     }
@@ -194,7 +337,7 @@ public class Template extends StringParser {
    */
   public static String resolve(final String text, final SymbolTable symbols) {
     if ((symbols != null) && (text != null)) {
-      return new Template(text, symbols).convertToString();
+      return compile(text).resolve(symbols, null, false);
     } else {
       return text;
     }
@@ -216,180 +359,8 @@ public class Template extends StringParser {
    * @return a string representing the data behind the given tag.
    */
   public static String resolve(final String tag, final SymbolTable symbols, final Hashtable cache, final boolean preprocess) {
-    final StringBuffer retval = new StringBuffer();
-
-    final StringParser parser = new StringParser(tag);
-
-    try {
-      while (!parser.eof()) {
-        final String token = parser.readToken();
-
-        if ((token == null) || (token.length() < 1)) {
-          break;
-        }
-
-        if (token.startsWith(VAR_PREFIX)) {
-          // if the token contains a vertical pipe character, split the token into the variable key and the format string.
-          final int boundry = token.indexOf(PIPE);
-          if (boundry > 0) {
-            final String key = token.substring(1, boundry);
-            final String format = token.substring(boundry + 1);
-            if (preprocess) {
-              if (symbols.containsKey(key)) {
-                retval.append(symbols.getString(key, format));
-              } else {
-                retval.append(OPEN);
-                retval.append(VAR);
-                retval.append(key);
-                retval.append(PIPE);
-                retval.append(format);
-                retval.append(CLOSE);
-              }
-            } else {
-              retval.append(symbols.getString(key, format));
-            }
-          } else {
-            if (preprocess) {
-              final String key = token.substring(1);
-              if (symbols.containsKey(key)) {
-                retval.append(symbols.getString(key));
-              } else if (symbols.containsLiteral(key)) {
-                retval.append(symbols.getString(key));
-              } else {
-                retval.append(OPEN);
-                retval.append(VAR);
-                retval.append(key);
-                retval.append(CLOSE);
-              }
-            } else {
-              retval.append(symbols.getString(token.substring(1)));
-            }
-          }
-        } else {
-          // Must be a class; use the entire tag when parsing
-          int pindx = tag.lastIndexOf(OP);
-
-          if (pindx != -1) {
-            // looks like a method
-            String body = tag.substring(0,pindx);
-            // the last dotted token is always assumed to be a method name
-            int indx = body.lastIndexOf(DOT);
-            // we have an object key and a method
-            final String objectKey = body.substring(0, indx);
-            final String methodToken = tag.substring(indx + 1);
-            String methodName = null;
-            String[] arguments = EMPTY_ARGS;
-
-            // get the object by the key
-            final Object obj = Template.get(objectKey,cache);
-
-            if (obj != null) {
-              // parse out the method to call - It should be within parentheses
-              indx = methodToken.indexOf(OP);
-              if (indx != -1) {
-                methodName = methodToken.substring(0, indx);
-                String args = methodToken.substring(indx + 1);
-
-                // parse to the closing parentheses
-                indx = args.indexOf(CP);
-                if (indx != -1) {
-                  args = args.substring(0, indx);
-                }
-
-                if (StringUtil.isNotBlank(args)) {
-                  // split the argument portion into separate strings by commas
-                  // ignoring any spaces
-                  arguments = args.split(",\\s*");
-                }
-              }
-
-              // if the arguments start with a $, resolve them to their values
-              for (int x = 0; x < arguments.length; x++) {
-                if (StringUtil.isNotBlank(arguments[x]) && (arguments[x].charAt(0) == VAR)) {
-                  arguments[x] = symbols.getString(arguments[x].substring(1));
-                }
-
-                // Handle quoted values especially empty string arguments: ""
-                if ((arguments[x].length() > 1) && (arguments[x].indexOf('"') > -1)) {
-                  final String qval = StringUtil.getQuotedValue(arguments[x]);
-                  if (qval != null) {
-                    arguments[x] = qval;
-                  }
-                }
-
-              }
-              if (StringUtil.isNotBlank(methodName)) {
-                // reflect into the object to see if there is the named method
-                // with the correct number of string arguments
-
-                Method method = null;
-                Object returned = null;
-
-                // setup the argument signature
-                final Class<?>[] cArg = new Class[arguments.length];
-                for (int x = 0; x < arguments.length; x++) {
-                  cArg[x] = arguments[x].getClass();;
-                }
-
-                // find the method with the argument signature
-                try {
-                  method = obj.getClass().getMethod(methodName, cArg);
-                } catch (final Exception e1) {
-                  // silently ignore e1.printStackTrace();
-                }
-
-                // if we found a method matching the signature
-                if (method != null) {
-                  // invoke the method
-                  try {
-                    returned = method.invoke(obj, (Object[])arguments);
-
-                    // If we received a return value, append it
-                    if (returned != null) {
-                      retval.append(returned.toString());
-                    }
-                  } catch (final Exception e) {
-                    System.out.println("Template Class Error:" + e.getClass().getSimpleName() + ":" + e.getMessage());
-                  }
-
-                } // if we found a method with the signature
-
-              } // if we have a method name to call
-
-            } else {
-              if (preprocess) {
-                retval.append(OPEN);
-                retval.append(token);
-                retval.append(CLOSE);
-              }
-            } // if object with the name is found
-
-          } else {
-            // we just have an object
-
-            // get the object by the key
-            final Object obj = Template.get(token,cache);
-
-            // If we have an object with that name call its toString method
-            if (obj != null) {
-              retval.append(obj.toString());
-            } else{
-              if (preprocess) {
-                retval.append(OPEN);
-                retval.append(token);
-                retval.append(CLOSE);
-              }
-            }
-
-          } // object key
-
-        } // variable or object token?
-
-      } // while parser not EOF
-    } catch (final Exception ex) {
-      System.out.println("Template Processing Error:" + ex.getClass().getSimpleName() + ":" + ex.getMessage());
-    }
-
+    final StringBuilder retval = new StringBuilder();
+    CompiledTemplate.compileTag(tag).append(retval, symbols, cache, preprocess);
     return retval.toString();
   }
 
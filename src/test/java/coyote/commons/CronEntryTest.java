@@ -19,9 +19,15 @@ import org.junit.jupiter.api.Test;
 import java.text.DecimalFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
 import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -839,4 +845,61 @@ public class CronEntryTest {
 
   }
 
+
+
+
+
+  @Test
+  public void nextTimeMatchesMinuteByMinuteSearch() throws ParseException {
+    String[] patterns = { "30 2 * * 0", "0 0 1 * *", "5,35 */6 * 3-5 *", "0 12 13 * 5", "59 23 31 * *", "*/20 9-17 * * 1-5" };
+    ZonedDateTime[] starts = { ZonedDateTime.of(2023, 1, 15, 11, 57, 0, 0, ZoneOffset.UTC), ZonedDateTime.of(2024, 2, 28, 23, 59, 30, 0, ZoneOffset.UTC), ZonedDateTime.of(2023, 12, 31, 23, 59, 0, 0, ZoneOffset.UTC) };
+    for (String pattern : patterns) {
+      CronEntry subject = CronEntry.parse(pattern);
+      for (ZonedDateTime start : starts) {
+        // step a minute at a time, as a calendar would be stepped
+        LocalDateTime expected = start.toLocalDateTime().withSecond(0).plusMinutes(1);
+        while (!subject.mayRunAt(expected)) {
+          expected = expected.plusMinutes(1);
+        }
+        assertEquals(expected.atZone(ZoneOffset.UTC), subject.getNextTime(start), pattern + " after " + start);
+      }
+    }
+  }
+
+
+
+
+  @Test
+  public void nextTimeOfRarePatterns() throws ParseException {
+    // February 29th on a Monday only comes round every few decades
+    CronEntry subject = CronEntry.parse("0 12 29 2 1");
+    ZonedDateTime next = subject.getNextTime(ZonedDateTime.of(2024, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+    assertEquals(ZonedDateTime.of(2044, 2, 29, 12, 0, 0, 0, ZoneOffset.UTC), next);
+    assertEquals(DayOfWeek.MONDAY, next.getDayOfWeek());
+
+    // February 30th never comes
+    subject = CronEntry.parse("0 0 30 2 *");
+    assertNull(subject.getNextTime(ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)));
+    Calendar cal = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+    cal.setTimeInMillis(0);
+    assertEquals(Long.MAX_VALUE, subject.getNextTime(cal));
+  }
+
+
+
+
+  @Test
+  public void nextTimes() throws ParseException {
+    // every 15 minutes in working hours, from late on a Friday
+    CronEntry subject = CronEntry.parse("*/15 9-17 * * 1-5");
+    List<ZonedDateTime> times = subject.getNextTimes(ZonedDateTime.of(2024, 3, 1, 17, 20, 0, 0, ZoneOffset.UTC), 4);
+    assertEquals(4, times.size());
+    assertEquals(ZonedDateTime.of(2024, 3, 1, 17, 30, 0, 0, ZoneOffset.UTC), times.get(0));
+    assertEquals(ZonedDateTime.of(2024, 3, 1, 17, 45, 0, 0, ZoneOffset.UTC), times.get(1));
+    assertEquals(ZonedDateTime.of(2024, 3, 4, 9, 0, 0, 0, ZoneOffset.UTC), times.get(2));
+    assertEquals(ZonedDateTime.of(2024, 3, 4, 9, 15, 0, 0, ZoneOffset.UTC), times.get(3));
+
+    assertTrue(CronEntry.parse("0 0 30 2 *").getNextTimes(ZonedDateTime.now(), 3).isEmpty());
+  }
+
 }
@@ -0,0 +1,129 @@
+/*
+ *
+ */
+package coyote.commons.dataframe;
+
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Date;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests fields behave the same in every retention mode.
+ */
+public class DataFieldRetentionTest {
+
+    private static final Object[] VALUES = {"text", "", (short) 3, (short) 200, (short) -3000, 12, 40000, -12, 4000000000L, -5L,
+            new BigInteger("18446744073709551615"), 1.5F, 2.25D, 0.1D, true, new Date(1234567890L), URI.create("http://coyote.systems/"),
+            new DataFrame().set("a", 1), new Object[]{"one", 2}};
+
+
+    @AfterEach
+    public void reset() {
+        DataField.setRetention(null);
+    }
+
+
+    /**
+     * Capture the object, string and encoded values of a field for each value.
+     */
+    private Object[][] capture() {
+        Object[][] retval = new Object[VALUES.length][];
+        for (int x = 0; x < VALUES.length; x++) {
+            DataField field = new DataField("Field", VALUES[x]);
+            Object obj = field.getObjectValue();
+            retval[x] = new Object[]{obj == null ? null : obj.getClass(), field.getStringValue(), field.getStringValue(), field.getBytes(),
+                    field.isNull(), field.getLength(), field.toString(), ((DataField) field.clone()).getStringValue()};
+        }
+        return retval;
+    }
+
+
+    @Test
+    public void sameResults() {
+        Object[][] expected = capture();
+        for (DataField.Retention mode : DataField.Retention.values()) {
+            DataField.setRetention(mode);
+            Object[][] actual = capture();
+            for (int x = 0; x < VALUES.length; x++) {
+                assertArrayEquals(expected[x], actual[x], mode + " " + VALUES[x]);
+            }
+        }
+    }
+
+
+    @Test
+    public void serialization() {
+        for (DataField.Retention mode : DataField.Retention.values()) {
+            DataField.setRetention(mode);
+            DataFrame frame = new DataFrame().set("name", "Bob").set("age", 42).set("size", 1.75D).set("active", true).set("id", 9876543210L);
+            DataFrame copy = new DataFrame(frame.getBytes());
+            assertEquals("Bob", copy.getAsString("name"), mode.name());
+            assertEquals(42, copy.getObject("age"), mode.name());
+            assertEquals(1.75D, copy.getObject("size"), mode.name());
+            assertEquals(Boolean.TRUE, copy.getObject("active"), mode.name());
+            assertEquals(9876543210L, copy.getObject("id"), mode.name());
+            assertArrayEquals(frame.getBytes(), copy.getBytes(), mode.name());
+        }
+    }
+
+
+    @Test
+    public void decodedOnce() {
+        DataField.setRetention(DataField.Retention.DECODED);
+        DataField field = new DataField("name", "value");
+        assertSame(field.getObjectValue(), field.getObjectValue());
+        assertSame(field.getObjectValue(), field.getStringValue());
+
+        // mutable values are never shared
+        field = new DataField("date", new Date());
+        assertNotSame(field.getObjectValue(), field.getObjectValue());
+        field = new DataField("frame", new DataFrame().set("a", 1));
+        assertNotSame(field.getObjectValue(), field.getObjectValue());
+    }
+
+
+    @Test
+    public void nativeValues() {
+        DataField.setRetention(DataField.Retention.NATIVE);
+        String text = "value";
+        DataField field = new DataField("name", text);
+        assertSame(text, field.getObjectValue());
+        assertNull(field.value);
+        assertEquals(5, field.getLength());
+        assertNotNull(field.value);
+        assertSame(text, field.getObjectValue());
+
+        // only the types known to decode to an equal object are held natively
+        field = new DataField("big", BigInteger.TEN);
+        assertNotNull(field.value);
+        assertEquals(BigInteger.TEN, field.getObjectValue());
+        field = new DataField("empty", "");
+        assertNull(field.getObjectValue());
+        assertTrue(field.isNull());
+    }
+
+
+    @Test
+    public void overwrite() throws DataFrameException {
+        for (DataField.Retention mode : DataField.Retention.values()) {
+            DataField.setRetention(mode);
+            DataFrame frame = new DataFrame().set("field", "text");
+            assertEquals("text", frame.getAsString("field"));
+            frame.put("field", 123);
+            assertEquals(123, frame.getAsInt("field"), mode.name());
+            assertEquals("123", frame.getField("field").getStringValue(), mode.name());
+            frame.put((Object) "field", 2.5D);
+            assertEquals(2.5D, frame.getAsDouble("field"), mode.name());
+            assertEquals("2.5", frame.getField("field").getStringValue(), mode.name());
+            frame.put("field", new byte[0]);
+            assertTrue(frame.getField("field").isNull(), mode.name());
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ *
+ */
+package coyote.commons.dataframe;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Compares named field lookups on narrow and wide frames with and without
+ * the name index.
+ *
+ * <p>The {@code scan} frames are backed by a plain ArrayList through
+ * {@code setFields()} which is how every frame performed lookups before the
+ * index was added.
+ *
+ * <p>Run with:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main DataFrameLookupBenchmark</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataFrameLookupBenchmark {
+
+  @Param({"10", "250"})
+  int width;
+
+  @Param({"index", "scan"})
+  String lookup;
+
+  private DataFrame frame;
+  private String first;
+  private String last;
+  private String lastUpper;
+  private String missing;
+
+
+
+
+  @Setup
+  public void setup() {
+    frame = new DataFrame();
+    for (int x = 0; x < width; x++) {
+      frame.add("COLUMN_" + x, "value" + x);
+    }
+    if ("scan".equals(lookup)) {
+      frame.setFields(new ArrayList<>(frame.getFields()));
+    }
+    first = "COLUMN_0";
+    last = "COLUMN_" + (width - 1);
+    lastUpper = last.toLowerCase();
+    missing = "NO_SUCH_COLUMN";
+  }
+
+
+
+
+  @Benchmark
+  public DataField getFirst() {
+    return frame.getField(first);
+  }
+
+
+
+
+  @Benchmark
+  public DataField getLast() {
+    return frame.getField(last);
+  }
+
+
+
+
+  @Benchmark
+  public DataField getIgnoreCase() {
+    return frame.getFieldIgnoreCase(lastUpper);
+  }
+
+
+
+
+  @Benchmark
+  public boolean containsMissing() {
+    return frame.contains(missing);
+  }
+
+
+
+
+  @Benchmark
+  public int putExisting() {
+    return frame.put(last, "updated");
+  }
+
+
+
+
+  /**
+   * Simulates a transform reading every column of a row by name.
+   */
+  @Benchmark
+  public void readRow(Blackhole hole) {
+    for (int x = 0; x < width; x++) {
+      hole.consume(frame.getAsString("COLUMN_" + x));
+    }
+  }
+
+}
@@ -0,0 +1,207 @@
+/*
+ *
+ */
+package coyote.commons.dataframe;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the name index backing wide frames.
+ */
+public class FieldListTest {
+
+  private static final int WIDTH = 200;
+
+
+
+
+  private DataFrame wideFrame() {
+    DataFrame retval = new DataFrame();
+    for (int x = 0; x < WIDTH; x++) {
+      retval.add("Field" + x, x);
+    }
+    return retval;
+  }
+
+
+
+
+  @Test
+  public void lookup() throws DataFrameException {
+    DataFrame frame = wideFrame();
+    for (int x = 0; x < WIDTH; x++) {
+      assertTrue(frame.contains("Field" + x));
+      assertEquals(x, frame.getAsInt("Field" + x));
+      assertNotNull(frame.getFieldIgnoreCase("FIELD" + x));
+      assertTrue(frame.containsIgnoreCase("field" + x));
+    }
+    assertFalse(frame.contains("field1"));
+    assertFalse(frame.contains("Field" + WIDTH));
+    assertFalse(frame.contains(null));
+    assertNull(frame.getField(null));
+  }
+
+
+
+
+  @Test
+  public void duplicates() throws DataFrameException {
+    DataFrame frame = wideFrame();
+    frame.add("Field10", "duplicate");
+    frame.add("FIELD20", "duplicate");
+    assertEquals(10, frame.getAsInt("Field10"));
+    assertEquals(20, frame.getFieldIgnoreCase("field20").getObjectValue());
+    assertEquals("duplicate", frame.getAsString("FIELD20"));
+
+    // removing the first occurrence exposes the second
+    frame.getFields().remove(10);
+    assertEquals("duplicate", frame.getAsString("Field10"));
+  }
+
+
+
+
+  @Test
+  public void appendsAndRemoves() throws DataFrameException {
+    DataFrame frame = wideFrame();
+    assertTrue(frame.contains("Field5"));
+    for (int x = WIDTH; x < WIDTH * 2; x++) {
+      assertFalse(frame.contains("Field" + x));
+      frame.put("Field" + x, x);
+      assertTrue(frame.contains("Field" + x));
+      assertEquals(x, frame.getField(x).getObjectValue());
+    }
+
+    frame.remove("Field0");
+    assertFalse(frame.contains("Field0"));
+    assertEquals(1, frame.getAsInt("Field1"));
+    assertEquals("Field1", frame.getField(0).getName());
+
+    frame.put("Field1", null);
+    assertFalse(frame.contains("Field1"));
+    assertEquals(2, frame.getAsInt("Field2"));
+
+    frame.removeAll("Field2");
+    assertFalse(frame.contains("Field2"));
+
+    frame.getFields().add(0, new DataField("Inserted", true));
+    assertEquals("Inserted", frame.getField(0).getName());
+    assertEquals(3, frame.getAsInt("Field3"));
+
+    frame.getFields().set(1, new DataField("Replaced", false));
+    assertTrue(frame.contains("Replaced"));
+    assertFalse(frame.contains("Field3"));
+
+    frame.clear();
+    assertFalse(frame.contains("Inserted"));
+  }
+
+
+
+
+  @Test
+  public void renames() throws DataFrameException {
+    DataFrame frame = wideFrame();
+    assertTrue(frame.contains("Field50"));
+    frame.getField("Field50").setName("Renamed");
+    assertFalse(frame.contains("Field50"));
+    assertTrue(frame.contains("Renamed"));
+    assertTrue(frame.containsIgnoreCase("RENAMED"));
+    assertEquals(50, frame.getAsInt("Renamed"));
+
+    // renaming a later field to an earlier name does not change the first occurrence
+    frame.getField("Field60").setName("Field40");
+    assertEquals(40, frame.getAsInt("Field40"));
+  }
+
+
+
+
+  @Test
+  public void renamesOnlyInvalidateTheirOwnList() throws Exception {
+    DataFrame frame = wideFrame();
+    DataFrame other = wideFrame();
+    assertTrue(frame.contains("Field1"));
+    assertTrue(other.contains("Field1"));
+    java.lang.reflect.Field index = FieldList.class.getDeclaredField("index");
+    index.setAccessible(true);
+    Object before = index.get(other.getFields());
+
+    for (int x = 0; x < 100; x++) {
+      frame.getField(x % 2 == 0 ? "Field1" : "Renamed").setName(x % 2 == 0 ? "Renamed" : "Field1");
+      assertTrue(frame.contains(x % 2 == 0 ? "Renamed" : "Field1"));
+      assertTrue(other.contains("Field1"));
+    }
+    assertSame(before, index.get(other.getFields()));
+  }
+
+
+
+
+  @Test
+  public void sharedFields() throws DataFrameException {
+    DataFrame frame = wideFrame();
+    DataFrame other = wideFrame();
+    DataField field = new DataField("Shared", 1);
+    frame.add(field);
+    assertTrue(frame.contains("Shared"));
+    other.add(field);
+    assertTrue(other.contains("Shared"));
+
+    // a rename is seen by both lists holding the field
+    field.setName("Moved");
+    assertFalse(frame.contains("Shared"));
+    assertFalse(other.contains("Shared"));
+    assertEquals(1, frame.getAsInt("Moved"));
+    assertEquals(1, other.getAsInt("Moved"));
+    field.setName("Again");
+    assertTrue(frame.containsIgnoreCase("AGAIN"));
+    assertTrue(other.contains("Again"));
+  }
+
+
+
+
+  @Test
+  public void clones() {
+    DataFrame frame = wideFrame();
+    assertTrue(frame.contains("Field1"));
+    DataFrame copy = (DataFrame)frame.clone();
+    copy.getField("Field1").setName("Copy");
+    assertTrue(frame.contains("Field1"));
+    assertTrue(copy.contains("Copy"));
+    assertFalse(copy.contains("Field1"));
+  }
+
+
+
+
+  @Test
+  public void setFields() {
+    DataFrame frame = wideFrame();
+    ArrayList<DataField> list = new ArrayList<>(frame.getFields());
+    DataFrame other = new DataFrame();
+    other.setFields(list);
+    assertTrue(other.contains("Field99"));
+    list.remove(99);
+    assertFalse(other.contains("Field99"));
+  }
+
+
+
+
+  @Test
+  public void fold() {
+    assertEquals("abc", FieldList.fold("ABC"));
+    String name = "alreadyfolded";
+    assertSame(name, FieldList.fold(name));
+    assertEquals(FieldList.fold("STRASSE"), FieldList.fold("strasse"));
+    assertEquals(FieldList.fold("İ"), FieldList.fold("İ"));
+  }
+
+}
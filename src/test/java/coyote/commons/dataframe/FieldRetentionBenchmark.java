@@ -0,0 +1,128 @@
+/*
+ *
+ */
+package coyote.commons.dataframe;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Measures reading values from a frame in each field retention mode.
+ *
+ * <p>The {@code read} benchmarks access the same row repeatedly as several
+ * transforms, validators and writers would. The {@code build} benchmarks
+ * create and serialize a new row each time, which is where
+ * {@link DataField.Retention#NATIVE} defers encoding.
+ *
+ * <p>Run with the GC profiler to see allocation per operation:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main FieldRetentionBenchmark -prof gc</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldRetentionBenchmark {
+
+  @Param({"ENCODED", "DECODED", "NATIVE"})
+  DataField.Retention retention;
+
+  private DataFrame frame;
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    DataField.setRetention(retention);
+    frame = row(0);
+  }
+
+
+
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    DataField.setRetention(null);
+  }
+
+
+
+
+  private static DataFrame row(final int id) {
+    return new DataFrame()
+        .set("Id", id)
+        .set("Count", -1234567)
+        .set("Name", "Widget Assembly")
+        .set("Description", "A somewhat longer description of the widget assembly")
+        .set("Total", 123456789012L)
+        .set("Active", true);
+  }
+
+
+
+
+  @Benchmark
+  public int readInt() throws DataFrameException {
+    return frame.getAsInt("Count");
+  }
+
+
+
+
+  @Benchmark
+  public String readString() {
+    return frame.getAsString("Description");
+  }
+
+
+
+
+  @Benchmark
+  public void readRow(final Blackhole hole) throws DataFrameException {
+    hole.consume(frame.getAsInt("Id"));
+    hole.consume(frame.getAsInt("Count"));
+    hole.consume(frame.getAsString("Name"));
+    hole.consume(frame.getAsString("Description"));
+    hole.consume(frame.getAsLong("Total"));
+    hole.consume(frame.getAsBoolean("Active"));
+  }
+
+
+
+
+  @Benchmark
+  public void buildAndRead(final Blackhole hole) throws DataFrameException {
+    final DataFrame row = row(7);
+    for (int x = 0; x < 3; x++) {
+      hole.consume(row.getAsInt("Count"));
+      hole.consume(row.getAsString("Description"));
+    }
+  }
+
+
+
+
+  @Benchmark
+  public byte[] buildAndSerialize() {
+    return row(7).getBytes();
+  }
+
+}
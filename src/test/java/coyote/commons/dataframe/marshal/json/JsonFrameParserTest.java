@@ -0,0 +1,159 @@
+/*
+ *
+ */
+package coyote.commons.dataframe.marshal.json;
+
+import coyote.commons.dataframe.DataFrame;
+import coyote.commons.dataframe.marshal.ParseException;
+import coyote.commons.dataframe.selector.FrameSelector;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests pulling frames from the parser one at a time.
+ */
+public class JsonFrameParserTest {
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = JsonFrameParserTest.class.getClassLoader().getResourceAsStream(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+
+    private static List<DataFrame> drain(JsonFrameParser parser, FrameSelector selector) throws IOException {
+        List<DataFrame> retval = new ArrayList<>();
+        for (DataFrame frame = parser.next(selector); frame != null; frame = parser.next(selector)) {
+            retval.add(frame);
+        }
+        return retval;
+    }
+
+
+    private static void assertSameFrames(List<DataFrame> expected, List<DataFrame> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int x = 0; x < expected.size(); x++) {
+            assertEquals(expected.get(x).toString(), actual.get(x).toString());
+        }
+    }
+
+
+    @Test
+    public void nextMatchesParse() throws IOException {
+        String json = "{\"a\":1} [1,2,,3] {\"b\":{\"c\":true}}";
+        List<DataFrame> expected = new JsonFrameParser(json).parse();
+        assertEquals(3, expected.size());
+        assertSameFrames(expected, drain(new JsonFrameParser(json), null));
+
+        assertNull(new JsonFrameParser("").next());
+        assertNull(new JsonFrameParser("  \n ").next());
+        JsonFrameParser parser = new JsonFrameParser("{} x");
+        assertNotNull(parser.next());
+        assertThrows(ParseException.class, parser::next);
+    }
+
+
+    @Test
+    public void selectorsMatchFrameSelector() throws IOException {
+        String json = resource("nvdcve.json");
+        DataFrame root = new JsonFrameParser(json).parse().get(0);
+        String[] patterns = {"CVE_Items.*.cve", "CVE_Items.*", "CVE_Items", ">", "*.*.*.*", "CVE_Items.*.impact.>", "nothing.matches"};
+        for (String pattern : patterns) {
+            List<DataFrame> expected = new FrameSelector(pattern, "path").select(root);
+            List<DataFrame> actual = drain(new JsonFrameParser(json), new FrameSelector(pattern, "path"));
+            assertSameFrames(expected, actual);
+            expected = new FrameSelector(pattern).select(root);
+            actual = drain(new JsonFrameParser(json), new FrameSelector(pattern));
+            assertSameFrames(expected, actual);
+        }
+    }
+
+
+    @Test
+    public void rootArray() throws Exception {
+        String json = "[ {\"id\":0, \"tags\":[\"a\",\"b\"]}, null, 5, {\"id\":3, \"sub\":{\"x\":1}},[ ],]";
+        DataFrame root = new JsonFrameParser(json).parse().get(0);
+        for (String pattern : new String[]{"*", "*.*", ">"}) {
+            assertSameFrames(new FrameSelector(pattern, "path").select(root), drain(new JsonFrameParser(json), new FrameSelector(pattern, "path")));
+        }
+
+        List<DataFrame> frames = drain(new JsonFrameParser(json), new FrameSelector("*", "path"));
+        assertEquals(3, frames.size());
+        assertEquals("[3]", frames.get(1).getAsString("path"));
+        assertEquals(1, frames.get(1).getAsFrame("sub").getAsInt("x"));
+    }
+
+
+    @Test
+    public void malformed() {
+        FrameSelector selector = new FrameSelector("*");
+        assertThrows(ParseException.class, () -> drain(new JsonFrameParser("[{\"a\":1} {\"b\":2}]"), selector));
+        assertThrows(ParseException.class, () -> drain(new JsonFrameParser("{\"a\" 1}"), selector));
+        assertThrows(ParseException.class, () -> drain(new JsonFrameParser("[{\"a\":1}"), selector));
+        assertThrows(ParseException.class, () -> drain(new JsonFrameParser("[1] 2"), selector));
+    }
+
+
+    /**
+     * Streams far more records than would be practical to hold at once.
+     */
+    @Test
+    public void largeArray() throws Exception {
+        final int count = 200_000;
+        JsonFrameParser parser = new JsonFrameParser(new RecordReader(count), 8192);
+        FrameSelector selector = new FrameSelector("*");
+        int seen = 0;
+        for (DataFrame frame = parser.next(selector); frame != null; frame = parser.next(selector)) {
+            assertEquals(seen, frame.getAsInt("id"));
+            seen++;
+        }
+        assertEquals(count, seen);
+    }
+
+
+    /**
+     * Generates a JSON array of records without holding the text in memory.
+     */
+    private static class RecordReader extends Reader {
+        private final int limit;
+        private int record = 0;
+        private Reader current = new StringReader("[");
+        private boolean done = false;
+
+        RecordReader(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            int read = current.read(cbuf, off, len);
+            while (read == -1 && !done) {
+                if (record < limit) {
+                    String prefix = (record == 0) ? "" : ",";
+                    current = new StringReader(prefix + "{\"id\":" + record + ",\"name\":\"Record " + record + "\",\"values\":[1,2,3]}");
+                    record++;
+                } else {
+                    current = new StringReader("]");
+                    done = true;
+                }
+                read = current.read(cbuf, off, len);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ *
+ */
+package coyote.commons.i13n;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the concurrent statboard reports as the default one does and loses
+ * no updates when used from many threads.
+ */
+public class ConcurrentStatBoardTest {
+    private static final int THREADS = 8;
+    private static final int UPDATES = 20000;
+
+
+    private static void exercise(StatBoard board) {
+        board.enableTiming(true);
+        board.enableGauges(true);
+        board.increment("Requests");
+        board.increment("Requests");
+        board.increase("Bytes", 1024);
+        board.decrease("Bytes", 24);
+        board.decrement("Queue");
+        board.getCounter("Bytes").setUnits("b");
+        board.setState("Mode", "active");
+        board.setState("Load", 0.5D);
+        board.updateGauge("Rate", 5);
+        board.startTimer("Idle");
+        board.startTimer("Work").stop();
+        board.disableTimer("Disabled");
+    }
+
+
+    @Test
+    public void sameOutput() {
+        StatBoard expected = new StatBoardImpl();
+        StatBoard actual = new ConcurrentStatBoard();
+        exercise(expected);
+        exercise(actual);
+
+        assertEquals(expected.getCounterCount(), actual.getCounterCount());
+        for (String name : new String[]{"Requests", "Bytes", "Queue"}) {
+            assertEquals(expected.getCounter(name).toString(), actual.getCounter(name).toString());
+            assertEquals(expected.getCounter(name).getUpdateCount(), actual.getCounter(name).getUpdateCount());
+        }
+        assertEquals(expected.getState("Mode").toString(), actual.getState("Mode").toString());
+        assertEquals(expected.getStateCount(), actual.getStateCount());
+        assertEquals(expected.getGaugeCount(), actual.getGaugeCount());
+
+        for (String name : new String[]{"Idle", "Work", "Disabled"}) {
+            String exp = expected.getTimerMaster(name).toString();
+            String act = actual.getTimerMaster(name).toString();
+            // access times are taken from the clock
+            assertEquals(exp.substring(0, exp.indexOf("First Access")), act.substring(0, act.indexOf("First Access")));
+        }
+
+        Counter before = actual.resetCounter("Requests");
+        assertEquals(2, before.getValue());
+        assertEquals(2, before.getMaxValue());
+        assertEquals(0, actual.getCounter("Requests").getValue());
+        assertEquals(0, actual.getCounter("Requests").getUpdateCount());
+    }
+
+
+    @Test
+    public void concurrentUpdates() throws Exception {
+        final StatBoard board = new ConcurrentStatBoard();
+        board.enableTiming(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int x = 0; x < THREADS; x++) {
+            threads.add(new Thread(() -> {
+                for (int y = 0; y < UPDATES; y++) {
+                    board.increment("Hits");
+                    board.increase("Total", 2);
+                    board.decrement("Down");
+                    board.startTimer("Timer").stop();
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        long count = (long) THREADS * UPDATES;
+        Counter hits = board.getCounter("Hits");
+        assertEquals(count, hits.getValue());
+        assertEquals(count, hits.getMaxValue());
+        assertEquals(count, hits.getUpdateCount());
+        assertEquals(count * 2, board.getCounter("Total").getValue());
+        assertEquals(-count, board.getCounter("Down").getMinValue());
+
+        TimingMaster master = board.getTimerMaster("Timer");
+        assertEquals(0, master.getCurrentActive());
+        assertEquals(count, master.toFrame().getAsLong("Hits"));
+        assertTrue(master.toFrame().getAsLong("Max Active") <= THREADS);
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ *
+ */
+package coyote.commons.i13n;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the most frequent values are found, with counts within their error,
+ * among many distinct values.
+ */
+public class HeavyHittersTest {
+
+    @Test
+    public void findsFrequentValues() {
+        HeavyHitters summary = HeavyHitters.withError(0.01);
+        for (int x = 0; x < 100000; x++) {
+            if (x % 10 == 0) {
+                summary.add("tenth");
+            } else if (x % 20 == 1) {
+                summary.add("twentieth");
+            } else {
+                summary.add("unique" + x);
+            }
+        }
+        assertEquals(100000, summary.getCount());
+        assertTrue(summary.size() <= 100);
+        assertTrue(summary.getMaximumError() <= 100000 / 101);
+
+        Map<String, Long> top = summary.getTop(2);
+        assertEquals("[tenth, twentieth]", top.keySet().toString());
+        assertEquals(10000, top.get("tenth"), summary.getMaximumError());
+        assertTrue(top.get("tenth") <= 10000);
+        assertEquals(5000, top.get("twentieth"), summary.getMaximumError());
+    }
+
+
+    @Test
+    public void exact() {
+        HeavyHitters summary = new HeavyHitters(Integer.MAX_VALUE);
+        for (int x = 0; x < 1000; x++) {
+            summary.add("v" + (x % 300));
+        }
+        assertEquals(300, summary.size());
+        assertEquals(0, summary.getMaximumError());
+        assertEquals(4L, summary.getTop(300).get("v0"));
+    }
+
+
+    @Test
+    public void merges() {
+        HeavyHitters first = new HeavyHitters(10);
+        HeavyHitters second = new HeavyHitters(10);
+        for (int x = 0; x < 1000; x++) {
+            first.add((x % 2 == 0) ? "common" : "first" + x);
+            second.add((x % 4 == 0) ? "common" : "second" + x);
+        }
+        first.merge(second);
+        assertEquals(2000, first.getCount());
+        assertTrue(first.size() <= 10);
+        Map<String, Long> top = first.getTop(1);
+        assertEquals(750, top.get("common"), first.getMaximumError());
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ *
+ */
+package coyote.commons.i13n;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the distinct value estimates and merging of the sketch.
+ */
+public class HyperLogLogTest {
+
+    @Test
+    public void estimates() {
+        HyperLogLog sketch = HyperLogLog.withError(0.01);
+        assertEquals(14, sketch.getPrecision());
+        assertEquals(0, sketch.estimate());
+
+        for (int x = 0; x < 100; x++) {
+            sketch.add("value" + x);
+            sketch.add("value" + x);
+        }
+        assertEquals(100, sketch.estimate(), 2);
+
+        // within three standard errors
+        for (int x = 100; x < 1000000; x++) {
+            sketch.add("value" + x);
+        }
+        assertEquals(1000000, sketch.estimate(), 1000000 * 3 * sketch.getError());
+    }
+
+
+    @Test
+    public void merges() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (int x = 0; x < 60000; x++) {
+            first.add("key" + x);
+            second.add("key" + (x + 30000));
+        }
+        first.merge(second);
+        assertEquals(90000, first.estimate(), 90000 * 3 * first.getError());
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(10)));
+    }
+
+
+    @Test
+    public void limitsPrecision() {
+        assertEquals(HyperLogLog.MIN_PRECISION, HyperLogLog.withError(0.5).getPrecision());
+        assertEquals(HyperLogLog.MAX_PRECISION, HyperLogLog.withError(0.0001).getPrecision());
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(30));
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.withError(0));
+    }
+
+}
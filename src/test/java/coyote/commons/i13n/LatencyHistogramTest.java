@@ -0,0 +1,103 @@
+/*
+ *
+ */
+package coyote.commons.i13n;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the bucketing, percentiles and interval arithmetic of the histogram.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void buckets() {
+        for (long value = 0; value < LatencyHistogram.SUB_BUCKETS; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.highestValueOf((int) value));
+        }
+
+        // every value lies within its bucket and within about 3% of its bound
+        long[] samples = {64, 65, 127, 128, 129, 1000, 1023, 1024, 123456789L, 1L << 40, Long.MAX_VALUE};
+        for (long value : samples) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index < LatencyHistogram.BUCKETS);
+            long high = LatencyHistogram.highestValueOf(index);
+            assertTrue(high >= value, "bucket for " + value + " ends at " + high);
+            assertTrue((high - value) <= value / 32, "bucket for " + value + " ends at " + high);
+            assertTrue(LatencyHistogram.highestValueOf(index - 1) < value);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.indexOf(Long.MAX_VALUE));
+    }
+
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+
+        for (int x = 1; x <= 1000; x++) {
+            histogram.record(x);
+        }
+        histogram.record(-5);
+        assertEquals(1001, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        assertEquals(500, histogram.getValueAtPercentile(50), 500 / 32);
+        assertEquals(990, histogram.getValueAtPercentile(99), 990 / 32);
+        assertEquals(1000, histogram.getValueAtPercentile(100), 1000 / 32);
+    }
+
+
+    @Test
+    public void intervals() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        for (int x = 0; x < 100; x++) {
+            first.record(10);
+            second.record(1000);
+        }
+
+        LatencyHistogram merged = first.copy();
+        merged.add(second);
+        assertEquals(200, merged.getCount());
+        assertEquals(10, merged.getValueAtPercentile(50));
+        assertTrue(merged.getValueAtPercentile(51) >= 1000);
+
+        merged.subtract(first);
+        assertEquals(100, merged.getCount());
+        assertTrue(merged.getValueAtPercentile(1) >= 1000);
+
+        LatencyHistogram before = merged.reset();
+        assertEquals(100, before.getCount());
+        assertEquals(0, merged.getCount());
+    }
+
+
+    @Test
+    public void timerIntervals() {
+        StatBoard board = new StatBoardImpl();
+        board.enableTiming(true);
+        assertEquals(0, board.getTimerPercentile("Missing", 50));
+        assertNull(board.getTimerIntervalHistogram("Missing"));
+
+        board.startTimer("Work").stop();
+        TimingMaster master = board.getTimerMaster("Work");
+        master.increase(100);
+        assertEquals(2, board.getTimerIntervalHistogram("Work").getCount());
+        assertEquals(0, board.getTimerIntervalHistogram("Work").getCount());
+
+        master.increase(200);
+        LatencyHistogram interval = board.getTimerIntervalHistogram("Work");
+        assertEquals(1, interval.getCount());
+        assertEquals(200, interval.getValueAtPercentile(50), 200 / 32);
+        assertEquals(3, master.getHistogram().getCount());
+        assertEquals(200, board.getTimerPercentile("Work", 100), 200 / 32);
+
+        assertTrue(master.toString().contains("P99="));
+        assertTrue(master.toFrame().contains("P99.9"));
+    }
+
+}
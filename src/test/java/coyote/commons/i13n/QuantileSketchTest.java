@@ -0,0 +1,80 @@
+/*
+ *
+ */
+package coyote.commons.i13n;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the quantiles of the sketch stay within their rank error in fixed
+ * memory.
+ */
+public class QuantileSketchTest {
+
+    @Test
+    public void quantiles() {
+        QuantileSketch sketch = QuantileSketch.withError(0.01);
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+
+        // a shuffled permutation, so the rank of each value is the value
+        int count = 200000;
+        int[] values = new int[count];
+        for (int x = 0; x < count; x++) {
+            values[x] = x;
+        }
+        Random random = new Random(7);
+        for (int x = count - 1; x > 0; x--) {
+            int y = random.nextInt(x + 1);
+            int value = values[x];
+            values[x] = values[y];
+            values[y] = value;
+        }
+        for (int value : values) {
+            sketch.add(value);
+        }
+
+        assertEquals(count, sketch.getCount());
+        assertTrue(sketch.getRetained() < 3 * 270 + 64, "retained " + sketch.getRetained());
+        assertEquals(0, sketch.getQuantile(0));
+        assertEquals(count - 1, sketch.getQuantile(1));
+        for (double rank : new double[]{0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99}) {
+            assertEquals(rank * count, sketch.getQuantile(rank), 0.01 * count, "rank " + rank);
+        }
+    }
+
+
+    @Test
+    public void exact() {
+        QuantileSketch sketch = new QuantileSketch(Integer.MAX_VALUE);
+        for (int x = 1000; x > 0; x--) {
+            sketch.add(x);
+        }
+        assertEquals(1000, sketch.getRetained());
+        assertEquals(0, sketch.getError());
+        assertEquals(500, sketch.getQuantile(0.5));
+        assertEquals(990, sketch.getQuantile(0.99));
+    }
+
+
+    @Test
+    public void merges() {
+        QuantileSketch low = new QuantileSketch(200);
+        QuantileSketch high = new QuantileSketch(200);
+        for (int x = 0; x < 50000; x++) {
+            low.add(x);
+            high.add(50000 + x);
+        }
+        low.merge(high);
+        assertEquals(100000, low.getCount());
+        assertEquals(0, low.getMinimum());
+        assertEquals(99999, low.getMaximum());
+        assertEquals(50000, low.getQuantile(0.5), 0.015 * 100000);
+        assertEquals(90000, low.getQuantile(0.9), 0.015 * 100000);
+    }
+
+}
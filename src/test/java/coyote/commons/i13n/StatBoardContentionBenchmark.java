@@ -0,0 +1,79 @@
+/*
+ *
+ */
+package coyote.commons.i13n;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures many threads updating the same counters and timers on one board.
+ *
+ * <p>All threads share one board and hit the same few names, as the request
+ * handlers of a server do. Compare the {@code default} and
+ * {@code concurrent} boards at different thread counts with {@code -t}:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main StatBoardContentionBenchmark -t 16</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class StatBoardContentionBenchmark {
+
+  @Param({"default", "concurrent"})
+  String board;
+
+  private StatBoard stats;
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    stats = "concurrent".equals(board) ? new ConcurrentStatBoard() : new StatBoardImpl();
+    stats.enableTiming(true);
+  }
+
+
+
+
+  @Benchmark
+  public long increment() {
+    return stats.increment("Requests");
+  }
+
+
+
+
+  @Benchmark
+  public long increase() {
+    return stats.increase("Bytes", 512);
+  }
+
+
+
+
+  @Benchmark
+  public void timer() {
+    stats.startTimer("Request").stop();
+  }
+
+}
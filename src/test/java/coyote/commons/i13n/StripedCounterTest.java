@@ -0,0 +1,106 @@
+/*
+ *
+ */
+package coyote.commons.i13n;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests striped counters track their extremes on every update by default and
+ * only observe them on read when created untracked.
+ */
+public class StripedCounterTest {
+    private static final int THREADS = 4;
+    private static final int UPDATES = 10000;
+
+
+    @Test
+    public void observedExtremes() {
+        StripedCounter counter = new StripedCounter("observed", false);
+        assertFalse(counter.isTracked());
+        counter.increase(10);
+        counter.decrease(4);
+        // the 10 was never read
+        assertEquals(6, counter.getMaxValue());
+        assertEquals(0, counter.getMinValue());
+        assertEquals(2, counter.getUpdateCount());
+
+        counter.decrease(16);
+        assertEquals(-10, counter.getValue());
+        counter.increment();
+        assertEquals(-10, counter.getMinValue());
+        assertEquals(6, counter.getMaxValue());
+        assertEquals("observed=-9[min=-10:max=6]", counter.toString());
+
+        // updates approximate from the last value observed
+        assertEquals(-8, counter.increment());
+        assertEquals(-6, counter.increase(3));
+
+        Counter before = counter.reset();
+        assertEquals(-5, before.getValue());
+        assertEquals(-10, before.getMinValue());
+        assertEquals(6, before.getMaxValue());
+        assertEquals(0, counter.getValue());
+        assertEquals(0, counter.getMinValue());
+        assertEquals(0, counter.getMaxValue());
+        assertEquals(1, counter.increment());
+    }
+
+
+    @Test
+    public void trackedExtremes() {
+        StripedCounter counter = new StripedCounter("tracked");
+        assertTrue(counter.isTracked());
+        assertEquals(10, counter.increase(10));
+        assertEquals(6, counter.decrease(4));
+        assertEquals(6, counter.getValue());
+        assertEquals(10, counter.getMaxValue());
+        assertEquals(0, counter.getMinValue());
+
+        assertEquals(-1, counter.decrease(7));
+        assertEquals(0, counter.increment());
+        assertEquals(-1, counter.getMinValue());
+
+        StripedCounter copy = (StripedCounter) counter.clone();
+        assertTrue(copy.isTracked());
+        assertEquals(counter.toString(), copy.toString());
+
+        Counter before = counter.reset();
+        assertEquals(10, before.getMaxValue());
+        assertEquals(-1, before.getMinValue());
+        assertEquals(0, counter.getMaxValue());
+    }
+
+
+    @Test
+    public void concurrentUpdates() throws Exception {
+        final StripedCounter observed = new StripedCounter("observed", false);
+        final StripedCounter tracked = new StripedCounter("tracked");
+        List<Thread> threads = new ArrayList<>();
+        for (int x = 0; x < THREADS; x++) {
+            threads.add(new Thread(() -> {
+                for (int y = 0; y < UPDATES; y++) {
+                    observed.increment();
+                    tracked.increment();
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        long count = (long) THREADS * UPDATES;
+        assertEquals(count, observed.getValue());
+        assertEquals(count, observed.getMaxValue());
+        assertEquals(count, observed.getUpdateCount());
+        assertEquals(count, tracked.getValue());
+        assertEquals(count, tracked.getMaxValue());
+        assertEquals(count, tracked.getUpdateCount());
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ *
+ */
+package coyote.commons.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures many threads borrowing from and returning to one pool of H2
+ * connections, with more threads than connections.
+ *
+ * <p>{@code borrow} only borrows and returns a connection, {@code query} runs
+ * a trivial query on it as well. The queued pool opens extra connections
+ * rather than wait, so it is not limited to the size of the pool as the other
+ * two are:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main ConnectionPoolBenchmark -t 16</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class ConnectionPoolBenchmark {
+
+  private static final int SIZE = 4;
+
+  @Param({"queued", "blocking", "managed"})
+  String pool;
+
+  private ConnectionPool connections;
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    final JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:poolbench;DB_CLOSE_DELAY=-1");
+    dataSource.setUser("sa");
+    dataSource.setPassword("");
+    switch (pool) {
+      case "queued":
+        connections = new QueuedConnectionPool(dataSource, SIZE, SIZE, true, Connection.TRANSACTION_READ_COMMITTED, false, null);
+        break;
+      case "blocking":
+        connections = new BlockingQueuedConnectionPool(dataSource, SIZE, true, Connection.TRANSACTION_READ_COMMITTED, false, null);
+        break;
+      default:
+        connections = new ManagedConnectionPool(dataSource, SIZE, SIZE, true, Connection.TRANSACTION_READ_COMMITTED, false, null);
+        break;
+    }
+  }
+
+
+
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (connections instanceof ManagedConnectionPool) {
+      ((ManagedConnectionPool)connections).close();
+    }
+  }
+
+
+
+
+  @Benchmark
+  public void borrow() throws Exception {
+    final Connection connection = connections.borrowConnection();
+    connections.returnConnection(connection);
+  }
+
+
+
+
+  @Benchmark
+  public boolean query() throws Exception {
+    final Connection connection = connections.borrowConnection();
+    try (Statement statement = connection.createStatement()) {
+      return statement.execute("SELECT 1");
+    } finally {
+      connections.returnConnection(connection);
+    }
+  }
+
+}
@@ -0,0 +1,197 @@
+package coyote.commons.jdbc.datasource;
+
+import coyote.commons.i13n.StatBoard;
+import coyote.commons.i13n.StatBoardImpl;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.sql.Connection;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class ManagedConnectionPoolTest {
+
+    private JdbcDataSource dataSource;
+    private ManagedConnectionPool pool;
+
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+        // a housekeeping interval long enough for the tests to run it themselves
+        pool = new ManagedConnectionPool(dataSource, 2, 4, true, Connection.TRANSACTION_READ_COMMITTED, false, null, 3600000);
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        pool.close();
+    }
+
+
+    @Test
+    public void opensTheMinimumAndReusesConnections() throws Exception {
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(2, pool.getTotalCount());
+
+        final Connection connection = pool.borrowConnection();
+        assertEquals(1, pool.getActiveCount());
+        pool.returnConnection(connection);
+        assertEquals(0, pool.getActiveCount());
+
+        // the most recently returned connection is lent first
+        assertSame(connection, pool.borrowConnection());
+        assertEquals(2, pool.getTotalCount());
+        assertEquals(2, pool.getWaitHistogram().getCount());
+    }
+
+
+    @Test
+    public void timesOutWhenExhausted() throws Exception {
+        pool.setBorrowTimeout(100);
+        for (int x = 0; x < 4; x++) {
+            pool.borrowConnection();
+        }
+        assertEquals(4, pool.getTotalCount());
+        assertThrows(SQLTimeoutException.class, () -> pool.borrowConnection());
+        assertEquals(1, pool.getTimeoutCount());
+    }
+
+
+    @Test
+    public void waitingBorrowersGetReturnedConnections() throws Exception {
+        final Connection[] borrowed = new Connection[4];
+        for (int x = 0; x < borrowed.length; x++) {
+            borrowed[x] = pool.borrowConnection();
+        }
+        final CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.borrowConnection();
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (pool.getWaiterCount() == 0 && !waiting.isDone()) {
+            Thread.sleep(1);
+        }
+        pool.returnConnection(borrowed[2]);
+        assertSame(borrowed[2], waiting.get(5, TimeUnit.SECONDS));
+    }
+
+
+    @Test
+    public void discardsBrokenConnections() throws Exception {
+        pool.setValidationInterval(0);
+        final Connection connection = pool.borrowConnection();
+        pool.returnConnection(connection);
+        // as if the database had gone away while the connection was idle
+        connection.close();
+
+        final Connection replacement = pool.borrowConnection();
+        assertNotSame(connection, replacement);
+        assertFalse(replacement.isClosed());
+        assertEquals(1, pool.getDiscardedCount());
+        // the other idle connection was lent in its place
+        assertEquals(1, pool.getTotalCount());
+    }
+
+
+    @Test
+    public void validatesWithATestQuery() throws Exception {
+        pool.setValidationInterval(0);
+        pool.setValidationQuery("SELECT 1");
+        final Connection connection = pool.borrowConnection();
+        pool.returnConnection(connection);
+        assertSame(connection, pool.borrowConnection());
+
+        pool.setValidationQuery("SELECT * FROM NO_SUCH_TABLE");
+        pool.returnConnection(connection);
+        assertNotSame(connection, pool.borrowConnection());
+    }
+
+
+    @Test
+    public void evictsIdleConnectionsDownToTheMinimum() throws Exception {
+        final Connection[] borrowed = new Connection[4];
+        for (int x = 0; x < borrowed.length; x++) {
+            borrowed[x] = pool.borrowConnection();
+        }
+        for (final Connection connection : borrowed) {
+            pool.returnConnection(connection);
+        }
+        assertEquals(4, pool.getIdleCount());
+
+        pool.setIdleTimeout(1);
+        Thread.sleep(10);
+        pool.housekeep();
+        assertEquals(2, pool.getIdleCount());
+        assertEquals(2, pool.getTotalCount());
+    }
+
+
+    @Test
+    public void retiresConnectionsPastTheirLifetime() throws Exception {
+        pool.setMaxLifetime(1);
+        final Connection connection = pool.borrowConnection();
+        Thread.sleep(10);
+        pool.returnConnection(connection);
+        assertTrue(connection.isClosed());
+
+        // the idle ones are replaced by the housekeeper, the borrow may have
+        // retired some already depending on how quickly it ran
+        pool.housekeep();
+        assertEquals(2, pool.getIdleCount());
+        assertTrue(pool.getDiscardedCount() >= 2);
+    }
+
+
+    @Test
+    public void reportsLeakedConnections() throws Exception {
+        pool.setLeakDetectionThreshold(1);
+        final Connection connection = pool.borrowConnection();
+        Thread.sleep(10);
+        pool.housekeep();
+        assertEquals(1, pool.getLeakCount());
+        // reported once only
+        pool.housekeep();
+        assertEquals(1, pool.getLeakCount());
+        pool.returnConnection(connection);
+    }
+
+
+    @Test
+    public void exportsMetricsToAStatBoard() throws Exception {
+        final StatBoard board = new StatBoardImpl();
+        pool.setStatBoard(board, "TestPool");
+        pool.borrowConnection();
+        pool.exportMetrics();
+        assertEquals(1L, board.getState("TestPool.Active").getValue());
+        assertEquals(1L, board.getState("TestPool.Idle").getValue());
+        assertEquals(0L, board.getState("TestPool.Waiters").getValue());
+        assertEquals(1L, board.getState("TestPool.WaitCount").getValue());
+    }
+
+
+    @Test
+    public void poolsConnectionsForADataSource() throws Exception {
+        final PoolingDataSource pooling = new PoolingDataSource(dataSource, pool);
+        try (Connection connection = pooling.getConnection()) {
+            connection.createStatement().execute("SELECT 1");
+            assertEquals(1, pool.getActiveCount());
+        }
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(2, pool.getIdleCount());
+    }
+
+}
@@ -0,0 +1,91 @@
+package coyote.commons.jdbc.datasource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Checks the queued pools do not lend broken or expired connections.
+ */
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class QueuedConnectionPoolTest {
+
+    private JdbcDataSource dataSource;
+
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:queuedtest;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        dataSource.setPassword("");
+    }
+
+
+    @Test
+    public void queuedPoolDiscardsBrokenConnections() throws Exception {
+        final QueuedConnectionPool pool = new QueuedConnectionPool(dataSource, 1, 2, true, Connection.TRANSACTION_READ_COMMITTED, false, null);
+        pool.setValidationInterval(0);
+        final Connection first = pool.borrowConnection();
+        pool.returnConnection(first);
+        first.close();
+
+        final Connection second = pool.borrowConnection();
+        assertNotSame(first, second);
+        assertTrue(second.isValid(1));
+        pool.returnConnection(second);
+        assertSame(second, pool.borrowConnection());
+    }
+
+
+    @Test
+    public void queuedPoolRetiresOldConnections() throws Exception {
+        final QueuedConnectionPool pool = new QueuedConnectionPool(dataSource, 1, 2, true, Connection.TRANSACTION_READ_COMMITTED, false, null);
+        final Connection first = pool.borrowConnection();
+        pool.setMaxLifetime(1);
+        Thread.sleep(5);
+        pool.returnConnection(first);
+        assertTrue(first.isClosed());
+        assertNotSame(first, pool.borrowConnection());
+    }
+
+
+    @Test
+    public void blockingPoolReplacesBrokenConnections() throws Exception {
+        final BlockingQueuedConnectionPool pool = new BlockingQueuedConnectionPool(dataSource, 1, true, Connection.TRANSACTION_READ_COMMITTED, false, null);
+        pool.setValidationInterval(0);
+        final Connection first = pool.borrowConnection();
+        pool.returnConnection(first);
+        first.close();
+
+        // the pool keeps its size by opening a new connection in place of the broken one
+        final Connection second = pool.borrowConnection();
+        assertNotSame(first, second);
+        assertTrue(second.isValid(1));
+        pool.returnConnection(second);
+        assertSame(second, pool.borrowConnection());
+    }
+
+
+    @Test
+    public void blockingPoolReplacesOldConnections() throws Exception {
+        final BlockingQueuedConnectionPool pool = new BlockingQueuedConnectionPool(dataSource, 1, true, Connection.TRANSACTION_READ_COMMITTED, false, null);
+        final Connection first = pool.borrowConnection();
+        pool.setMaxLifetime(1);
+        Thread.sleep(5);
+        pool.returnConnection(first);
+        assertTrue(first.isClosed());
+
+        pool.setMaxLifetime(0);
+        final Connection second = pool.borrowConnection();
+        assertNotSame(first, second);
+        assertFalse(second.isClosed());
+    }
+}
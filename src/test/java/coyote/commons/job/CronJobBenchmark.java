@@ -0,0 +1,67 @@
+/*
+ *
+ */
+package coyote.commons.job;
+
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures calculating the next execution time of many cron jobs, as the
+ * {@link Scheduler} does each time a repeating job runs.
+ *
+ * <p>The jobs use a mix of frequent, daily, monthly and rare patterns; each
+ * operation finds the next time of every job:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main CronJobBenchmark</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CronJobBenchmark {
+
+  private static final int JOBS = 5000;
+
+  private static final String[] PATTERNS = {"* * * * *", "*/15 * * * *", "5,35 */6 * * *", "30 2 * * 0", "0 9-17 * * 1-5", "0 0 1 * *", "0 12 13 * 5", "59 23 31 12 *"};
+
+  private final CronJob[] jobs = new CronJob[JOBS];
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() throws ParseException {
+    for (int x = 0; x < JOBS; x++) {
+      jobs[x] = new CronJob(PATTERNS[x % PATTERNS.length]);
+    }
+  }
+
+
+
+
+  @Benchmark
+  public long nextExecutionTimes() {
+    long retval = 0;
+    for (final CronJob job : jobs) {
+      retval += job.getNextExecutionTime();
+    }
+    return retval;
+  }
+
+}
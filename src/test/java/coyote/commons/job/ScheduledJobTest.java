@@ -160,6 +160,7 @@ public class ScheduledJobTest {
         assertFalse(job.isCancelled());
     }
 
+    @SuppressWarnings("deprecation")
     @Test
     public void testJobLinking() {
         ScheduledJob job1 = new ScheduledJob();
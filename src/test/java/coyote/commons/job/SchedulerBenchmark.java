@@ -0,0 +1,89 @@
+/*
+ *
+ */
+package coyote.commons.job;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures scheduling, rescheduling and cancelling jobs in a scheduler which
+ * already holds many jobs.
+ *
+ * <p>The scheduler is not started, so only the job list is measured. Each
+ * {@code reschedule} moves a random job to a new time, as a repeating job is
+ * after it runs, and each {@code cancel} removes a random job and schedules
+ * it again:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main SchedulerBenchmark</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchedulerBenchmark {
+
+  private static final long HOUR = Scheduler.HOUR_INTERVAL;
+
+  @Param({"1000", "100000"})
+  int jobs;
+
+  private final Random random = new Random(5);
+  private Scheduler scheduler;
+  private ScheduledJob[] scheduled;
+  private long now;
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    now = System.currentTimeMillis();
+    scheduler = new Scheduler();
+    scheduled = new ScheduledJob[jobs];
+    for (int x = 0; x < jobs; x++) {
+      scheduled[x] = new ScheduledJob().setName("probe" + x).setExecutionInterval(random.nextInt(60) * 1000L);
+      scheduled[x].setExecutionTime(now + (long)(random.nextDouble() * HOUR));
+      scheduler.schedule(scheduled[x]);
+    }
+  }
+
+
+
+
+  @Benchmark
+  public ScheduledJob reschedule() {
+    final ScheduledJob job = scheduled[random.nextInt(jobs)];
+    scheduler.remove(job);
+    job.setExecutionTime(now + (long)(random.nextDouble() * HOUR));
+    scheduler.schedule(job);
+    return job;
+  }
+
+
+
+
+  @Benchmark
+  public ScheduledJob cancel() {
+    final ScheduledJob job = scheduler.remove(scheduled[random.nextInt(jobs)]);
+    scheduler.schedule(job);
+    return job;
+  }
+
+}
@@ -1,9 +1,18 @@
 package coyote.commons.job;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -67,4 +76,100 @@ public class SchedulerTest {
         
         assertEquals(3, executionCount.get(), "Job should have been executed three times");
     }
+
+    @Test
+    public void testJobsKeepTheirOrder() {
+        Scheduler scheduler = new Scheduler();
+        Random random = new Random(3);
+        List<ScheduledJob> jobs = new ArrayList<>();
+        for (int x = 0; x < 2000; x++) {
+            ScheduledJob job = new ScheduledJob().setName(Integer.toString(x));
+            job.setExecutionTime(random.nextInt(100));
+            scheduler.schedule(job);
+            jobs.add(job);
+        }
+        // remove some and move others, then check they come out in order
+        for (int x = 0; x < 2000; x += 3) {
+            scheduler.remove(jobs.get(x));
+        }
+        for (int x = 1; x < 2000; x += 3) {
+            jobs.get(x).setExecutionTime(random.nextInt(100));
+            scheduler.schedule(jobs.get(x));
+        }
+        assertEquals(2000 - 667, scheduler.getJobCount());
+
+        ScheduledJob previous = null;
+        for (int x = 0; x < 2000 - 667; x++) {
+            ScheduledJob job = scheduler.getNextJob();
+            if (previous != null) {
+                assertTrue(previous.getExecutionTime() <= job.getExecutionTime());
+                if (previous.getExecutionTime() == job.getExecutionTime()) {
+                    // jobs with the same time run in the order they were scheduled
+                    assertTrue(previous.queueSequence < job.queueSequence);
+                }
+            }
+            assertSame(job, scheduler.remove(job));
+            previous = job;
+        }
+        assertNull(scheduler.getNextJob());
+        assertEquals(0, scheduler.getJobCount());
+        assertTrue(scheduler.dump().contains("Next: null"));
+    }
+
+    @Test
+    public void testWaitRechecksTheTimeOfTheNextJob() throws InterruptedException {
+        final Scheduler scheduler = new Scheduler();
+        final ScheduledJob job = new ScheduledJob().setName("moved");
+        job.setExecutionTime(System.currentTimeMillis() + 40);
+        scheduler.schedule(job);
+
+        // wait for the job in another thread, then move it later while it waits
+        Thread worker = new Thread(scheduler::doWork);
+        worker.start();
+        Thread.sleep(10);
+        job.setExecutionTime(System.currentTimeMillis() + 10000);
+        scheduler.schedule(job);
+        worker.join(2000);
+
+        assertFalse(worker.isAlive());
+        assertEquals(1, scheduler.getJobCount());
+        assertSame(job, scheduler.getNextJob());
+    }
+
+
+    @Test
+    public void testBoundedExecutorSkipsJobsWhenFull() throws InterruptedException {
+        Scheduler scheduler = new Scheduler();
+        scheduler.setMaximumThreads(1);
+        scheduler.setQueueSize(1);
+        scheduler.initialize();
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executionCount = new AtomicInteger(0);
+        for (int x = 0; x < 4; x++) {
+            scheduler.schedule(new ScheduledJob(() -> {
+                executionCount.incrementAndGet();
+                try {
+                    release.await(2, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }).setExecutionTime(System.currentTimeMillis()));
+        }
+        Thread schedulerThread = scheduler.daemonize();
+
+        long start = System.currentTimeMillis();
+        while (scheduler.getJobCount() > 0 && (System.currentTimeMillis() - start < 2000)) {
+            Thread.sleep(20);
+        }
+        release.countDown();
+        Thread.sleep(200);
+        scheduler.shutdown();
+        schedulerThread.join(1000);
+
+        // one ran, one waited for the thread and the other two were skipped
+        assertEquals(0, scheduler.getJobCount());
+        assertEquals(2, executionCount.get());
+        assertFalse(schedulerThread.isAlive());
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.log;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares the cost to the logging thread of appending to a file directly
+ * and through the asynchronous appender.
+ *
+ * <p>{@code throughput} reports events per microsecond and
+ * {@code latency} samples the time of each call so the tail percentiles show
+ * how long a logging thread can be held up:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main AppenderBenchmark -t 4</pre>
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AppenderBenchmark {
+
+  @Param({"file", "async"})
+  String appender;
+
+  private File file;
+  private FileAppender logger;
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    file = File.createTempFile("appender", ".log");
+    if ("async".equals(appender)) {
+      final AsyncAppender async = new AsyncAppender(file, Log.INFO_EVENTS, false);
+      // write every event, as the file appender does
+      async.setOverflow(AsyncAppender.Overflow.BLOCK);
+      logger = async;
+    } else {
+      logger = new FileAppender(file, Log.INFO_EVENTS, false);
+    }
+  }
+
+
+
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    logger.terminate();
+    file.delete();
+  }
+
+
+
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void throughput() {
+    logger.append(Log.INFO, "Processed request for /api/resource in 12ms", null);
+  }
+
+
+
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public void latency() {
+    logger.append(Log.INFO, "Processed request for /api/resource in 12ms", null);
+  }
+
+}
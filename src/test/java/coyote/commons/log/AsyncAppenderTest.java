@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.log;
+
+import coyote.commons.cfg.Config;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the asynchronous appender writes every queued event and its ring
+ * reports overflow correctly.
+ */
+public class AsyncAppenderTest {
+    private static final int THREADS = 4;
+    private static final int EVENTS = 5000;
+
+    @TempDir
+    Path tempDir;
+
+
+    @Test
+    public void ring() {
+        EventRing ring = new EventRing(3);
+        assertEquals(4, ring.capacity());
+        assertTrue(ring.isEmpty());
+        assertNull(ring.poll());
+
+        for (int x = 0; x < 4; x++) {
+            assertTrue(ring.offer("e" + x));
+        }
+        assertFalse(ring.offer("full"));
+        assertEquals("e0", ring.poll());
+        assertTrue(ring.offer("e4"));
+        for (int x = 1; x <= 4; x++) {
+            assertEquals("e" + x, ring.poll());
+        }
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+    }
+
+
+    @Test
+    public void writesAllEvents() throws Exception {
+        File file = tempDir.resolve("async.log").toFile();
+        final AsyncAppender appender = new AsyncAppender(file, Log.INFO_EVENTS, false);
+        appender.setCapacity(16);
+        appender.setOverflow(AsyncAppender.Overflow.BLOCK);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int id = t;
+            threads.add(new Thread(() -> {
+                for (int x = 0; x < EVENTS; x++) {
+                    appender.append(Log.INFO, "event " + id + ":" + x, null);
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        appender.terminate();
+
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(THREADS * EVENTS, lines.size());
+        Set<String> events = new HashSet<>();
+        for (String line : lines) {
+            events.add(line.substring(line.lastIndexOf("| ") + 2));
+        }
+        assertEquals(THREADS * EVENTS, events.size());
+        assertEquals(0, appender.getDroppedCount());
+    }
+
+
+    private static Thread writerOf(File file) {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("AsyncAppender-" + file.getName())) {
+                return thread;
+            }
+        }
+        return null;
+    }
+
+
+    @Test
+    public void idleWriterSleepsUntilWoken() throws Exception {
+        File file = tempDir.resolve("idle.log").toFile();
+        AsyncAppender appender = new AsyncAppender(file, Log.INFO_EVENTS, false);
+        appender.append(Log.INFO, "first", null);
+        Thread writer = writerOf(file);
+        assertNotNull(writer);
+
+        // without events the writer waits without a timeout
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, writer.getState());
+        assertEquals(1, Files.readAllLines(file.toPath()).size());
+
+        appender.append(Log.INFO, "second", null);
+        while (Files.readAllLines(file.toPath()).size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(2, Files.readAllLines(file.toPath()).size());
+
+        appender.terminate();
+        assertFalse(writer.isAlive());
+    }
+
+
+    @Test
+    public void terminateWhileAppending() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            File file = tempDir.resolve("terminate" + round + ".log").toFile();
+            final AsyncAppender appender = new AsyncAppender(file, Log.INFO_EVENTS, false);
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int x = 0; x < 200; x++) {
+                        appender.append(Log.INFO, "event " + x, null);
+                    }
+                }));
+            }
+            for (int t = 0; t < 2; t++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    appender.terminate();
+                }));
+            }
+            for (Thread thread : threads) thread.start();
+            start.countDown();
+            for (Thread thread : threads) thread.join();
+
+            appender.terminate();
+            // terminate returns only once the writer thread has finished
+            Thread writer = writerOf(file);
+            assertTrue(writer == null || !writer.isAlive(), "writer still running after terminate");
+            for (String line : Files.readAllLines(file.toPath())) {
+                assertTrue(line.contains("event "), line);
+            }
+        }
+    }
+
+
+    @Test
+    public void threshold() {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setThreshold(Log.ERROR);
+        assertThrows(IllegalArgumentException.class, () -> appender.setThreshold("CUSTOM"));
+        assertEquals(AsyncAppender.Overflow.DROP, appender.getOverflow());
+        appender.setOverflow(AsyncAppender.Overflow.BLOCK);
+        appender.setOverflow(null);
+        assertEquals(AsyncAppender.Overflow.DROP, appender.getOverflow());
+        assertThrows(IllegalArgumentException.class, () -> appender.setCapacity(0));
+    }
+
+
+    @Test
+    public void invalidConfiguration() {
+        File file = tempDir.resolve("config.log").toFile();
+        AsyncAppender appender = new AsyncAppender();
+        Config config = new Config();
+        config.put(Logger.TARGET_TAG, file.toURI().toString());
+        config.put(AsyncAppender.THRESHOLD_TAG, "CUSTOM");
+        config.put(AsyncAppender.CAPACITY_TAG, "many");
+        appender.setConfig(config);
+        // reported rather than thrown, leaving the defaults in place
+        appender.initialize();
+        assertEquals(AsyncAppender.DEFAULT_CAPACITY, appender.getCapacity());
+        appender.terminate();
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.log;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the allocation of logging an event to a file.
+ *
+ * <p>{@code pattern} logs through {@code Log.appendf(category, pattern, args)}
+ * and should only allocate the finished message, as {@code gc.alloc.rate.norm}
+ * shows; {@code string} is the same event built by concatenation; {@code disabled}
+ * is a pattern event for a category nobody logs:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main LogFormatBenchmark -prof gc</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogFormatBenchmark {
+
+  private static final String LOGGER = "benchmark";
+
+  private File file;
+  private FileAppender appender;
+  private String path = "/api/resource";
+  private Integer status = 42;
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    file = File.createTempFile("format", ".log");
+    appender = new FileAppender(file, Log.INFO_EVENTS, false);
+    Log.removeAllLoggers();
+    Log.addLogger(LOGGER, appender);
+  }
+
+
+
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    Log.removeLogger(LOGGER);
+    file.delete();
+  }
+
+
+
+
+  @Benchmark
+  public void pattern() {
+    Log.appendf(Log.INFO, "Request for {0} returned {1}", path, status);
+  }
+
+
+
+
+  @Benchmark
+  public void string() {
+    Log.append(Log.INFO, "Request for " + path + " returned " + status);
+  }
+
+
+
+
+  @Benchmark
+  public void disabled() {
+    Log.appendf(Log.TRACE, "Request for {0} returned {1}", path, status);
+  }
+
+}
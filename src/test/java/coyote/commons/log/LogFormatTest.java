@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the buffer-based formatting path produces what the string-based one
+ * does.
+ */
+public class LogFormatTest {
+
+    @Test
+    public void substitute() {
+        assertEquals("a 1 b true c", substitute("a {0} b {1} c", 1, true));
+        assertEquals("x y x", substitute("{1} {0} {1}", "y", "x"));
+        assertEquals("{2} {} {a} {0", substitute("{2} {} {a} {0", "z"));
+        assertEquals("null 7", substitute("{0} {1}", null, 7L));
+        assertEquals("{0}", substitute("{0}"));
+    }
+
+
+    private static String substitute(String pattern, Object... args) {
+        StringBuilder message = Log.substitute(pattern, args, args.length);
+        String retval = message.toString();
+        message.setLength(0);
+        return retval;
+    }
+
+
+    @Test
+    public void timestamp() {
+        SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS zzz");
+        CachedTimestamp timestamp = new CachedTimestamp();
+        long now = System.currentTimeMillis();
+        for (long time : new long[]{now, now + 1, now + 999, now + 1000, now + 86_400_000L, 5, 0}) {
+            assertEquals(expected.format(new Date(time)), timestamp.append(new StringBuilder(), time).toString());
+        }
+    }
+
+
+    @Test
+    public void encodingWriter() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int x = 0; x < 600; x++) {
+            // multibyte characters and surrogate pairs which straddle the buffers
+            text.append("aé€😀");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncodingWriter writer = new EncodingWriter(out, StandardCharsets.UTF_8);
+        writer.append(text);
+        writer.write(text.toString(), 1, text.length() - 1);
+        writer.write('z');
+        writer.flush();
+        assertEquals(text.toString() + text.substring(1) + "z", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        writer.close();
+        assertThrows(IOException.class, () -> writer.append(text));
+        assertThrows(IOException.class, () -> writer.write('z'));
+    }
+
+
+    @Test
+    public void formatters() {
+        Exception cause = new IllegalStateException("broken");
+        for (Formatter formatter : new Formatter[]{new DefaultFormatter(), new ConsoleFormatter()}) {
+            StringBuilder buffer = new StringBuilder();
+            formatter.format(buffer, new StringBuilder("built event"), Log.INFO, null);
+            String text = buffer.toString();
+            assertTrue(text.contains("INFO | "), text);
+            assertTrue(text.endsWith("built event" + System.lineSeparator()) || text.endsWith("built event\n"), text);
+
+            String plain = formatter.format("event", Log.WARN, cause);
+            buffer.setLength(0);
+            formatter.format(buffer, "event", Log.WARN, cause);
+            // only the timing columns may differ
+            assertEquals(plain.substring(plain.lastIndexOf("| ")), buffer.substring(buffer.lastIndexOf("| ")));
+        }
+    }
+
+
+    @Test
+    public void patterns() {
+        final List<Object> events = new ArrayList<>();
+        Log.addLogger("patterns", new NullAppender(Log.INFO_EVENTS) {
+            @Override
+            public void append(final String category, final Object event, final Throwable cause) {
+                // kept as given, as a queuing appender would
+                events.add(event);
+            }
+        });
+        try {
+            // the pattern methods never take a call meant for append
+            Log.append("INFO", "some text", null);
+            Log.append(Log.INFO_EVENTS, "more text", null);
+            Log.appendf(Log.INFO, "{0} of {1}", "one", 2);
+            Log.appendf(Log.INFO_EVENTS, "{0}{1}{2}{3}", "a", 'b', true, 4L);
+            Log.appendf(Log.DEBUG, "{0} is not logged", "this");
+        } finally {
+            Log.removeLogger("patterns");
+        }
+        assertEquals(4, events.size());
+        assertEquals("some text", events.get(0).toString());
+        assertEquals("more text", events.get(1).toString());
+        assertEquals("one of 2", events.get(2).toString());
+        assertEquals("abtrue4", events.get(3).toString());
+    }
+
+
+    @Test
+    public void consoleAppender() {
+        StringWriter out = new StringWriter();
+        ConsoleAppender appender = new ConsoleAppender(out, Log.INFO_EVENTS);
+        appender.append(Log.INFO, "first", null);
+        appender.append(Log.INFO, new StringBuilder("second"), null);
+        assertTrue(out.toString().contains("INFO | first"));
+        assertTrue(out.toString().contains("INFO | second"));
+    }
+
+}
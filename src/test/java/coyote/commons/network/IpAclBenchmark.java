@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.network;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures checking addresses against a block list of random networks, from
+ * one thread and from four sharing the same ACL:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main IpAclBenchmark</pre>
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+public class IpAclBenchmark {
+
+  private static final int ADDRESSES = 4096;
+
+  @Param( { "10", "1000", "100000" } )
+  int rules;
+
+  @Param( { "false", "true" } )
+  boolean longest;
+
+  private IpAcl acl;
+  private IpAddress[] addresses;
+
+
+
+
+  @Setup( Level.Trial )
+  public void setup() throws IpAddressException {
+    final Random random = new Random( 7 );
+    acl = new IpAcl( IpAcl.ALLOW );
+    acl.setLongestMatch( longest );
+    for ( int x = 0; x < rules; x++ ) {
+      acl.add( new IpNetwork( random.nextInt( 224 ) + "." + random.nextInt( 256 ) + "." + random.nextInt( 256 ) + "." + random.nextInt( 256 ) + "/" + ( 16 + random.nextInt( 17 ) ) ), IpAcl.DENY );
+    }
+    addresses = new IpAddress[ADDRESSES];
+    for ( int x = 0; x < ADDRESSES; x++ ) {
+      addresses[x] = new IpAddress( random.nextInt( 224 ) + "." + random.nextInt( 256 ) + "." + random.nextInt( 256 ) + "." + random.nextInt( 256 ) );
+    }
+  }
+
+
+
+
+  @Benchmark
+  public boolean allows() {
+    return acl.allows( addresses[ThreadLocalRandom.current().nextInt( ADDRESSES )] );
+  }
+
+
+
+
+  @Benchmark
+  @Threads( 4 )
+  public boolean allowsShared() {
+    return acl.allows( addresses[ThreadLocalRandom.current().nextInt( ADDRESSES )] );
+  }
+
+}
@@ -11,6 +11,9 @@ package coyote.commons.network;
 import org.junit.jupiter.api.Test;
 
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -274,4 +277,124 @@ public class IpAclTest {
       fail("Could not construct: " + ex.getMessage());
     }
   }
+
+
+
+
+  @Test
+  public void testLongestMatch() throws Exception {
+    IpAcl acl = new IpAcl( IpAcl.DENY );
+    acl.setLongestMatch( true );
+    acl.add( "192.168/16", true );
+    acl.add( "192.168.100/24", false );
+    acl.add( "192.168.100.23/32", true );
+
+    assertTrue( acl.allows( "192.168.23.100" ) );
+    assertFalse( acl.allows( "192.168.100.22" ) );
+    assertTrue( acl.allows( "192.168.100.23" ) );
+    assertFalse( acl.allows( "10.8.107.12" ) );
+
+    // the same rules in first match order only ever use the /16
+    acl.setLongestMatch( false );
+    assertTrue( acl.allows( "192.168.100.22" ) );
+  }
+
+
+
+
+  @Test
+  public void testIp6() throws Exception {
+    IpAcl acl = new IpAcl( IpAcl.ALLOW );
+    IpAddress network = new IpAddress( InetAddress.getByName( "2001:db8::" ) );
+    acl.add( new IpNetwork( network, new IpAddress( IpNetwork.getOctets( 48 ) ) ), IpAcl.DENY );
+    acl.add( "10/8", IpAcl.DENY );
+
+    assertFalse( acl.allows( InetAddress.getByName( "2001:db8:0:1::5" ) ) );
+    assertTrue( acl.allows( InetAddress.getByName( "2001:db8:1::5" ) ) );
+    assertTrue( acl.allows( InetAddress.getByName( "::1" ) ) );
+    assertFalse( acl.allows( InetAddress.getByName( "10.1.2.3" ) ) );
+    assertTrue( acl.allows( InetAddress.getByName( "11.1.2.3" ) ) );
+  }
+
+
+
+
+  @Test
+  public void testOrderIsKept() throws Exception {
+    IpAcl acl = new IpAcl( IpAcl.DENY );
+    acl.add( "192.168.100/24", false );
+    acl.add( "10/8", true );
+    acl.add( "192.168/16", true );
+    acl.add( "10/8", false );
+    assertEquals( "DEFAULT:DENY;192.168.100/24:DENY;10/8:ALLOW;192.168/16:ALLOW;10/8:DENY", acl.toString() );
+    assertEquals( 4, acl.size() );
+
+    IpAcl other = new IpAcl();
+    other.add( "172.16/12", false );
+    other.append( acl );
+    assertEquals( "DEFAULT:ALLOW;172.16/12:DENY;192.168.100/24:DENY;10/8:ALLOW;192.168/16:ALLOW;10/8:DENY", other.toString() );
+    assertTrue( other.allows( "10.1.1.1" ) );
+  }
+
+
+
+
+  /**
+   * Check random rules, including masks which are not prefixes, against
+   * checking every rule in turn.
+   */
+  @Test
+  public void testMatchesLinearCheck() throws Exception {
+    Random random = new Random( 42 );
+    for ( int round = 0; round < 2; round++ ) {
+      boolean longest = round == 1;
+      IpAcl acl = new IpAcl( IpAcl.DENY );
+      acl.setLongestMatch( longest );
+      List<IpNetwork> networks = new ArrayList<>();
+      List<Boolean> allowed = new ArrayList<>();
+      for ( int i = 0; i < 500; i++ ) {
+        IpNetwork network;
+        if ( i % 50 == 0 ) {
+          network = new IpNetwork( "10." + random.nextInt( 4 ) + ".0.7", "255.252.0.255" );
+        } else {
+          network = new IpNetwork( "10." + random.nextInt( 4 ) + "." + random.nextInt( 4 ) + "." + random.nextInt( 256 ) + "/" + ( 8 + random.nextInt( 25 ) ) );
+        }
+        boolean allow = random.nextBoolean();
+        networks.add( network );
+        allowed.add( allow );
+        acl.add( network, allow );
+      }
+
+      for ( int i = 0; i < 5000; i++ ) {
+        IpAddress address = new IpAddress( "10." + random.nextInt( 4 ) + "." + random.nextInt( 4 ) + "." + random.nextInt( 256 ) );
+        int match = -1;
+        for ( int x = 0; x < networks.size(); x++ ) {
+          if ( networks.get( x ).contains( address ) ) {
+            if ( match < 0 ) {
+              match = x;
+            } else if ( longest && bits( networks.get( x ) ) > bits( networks.get( match ) ) ) {
+              match = x;
+            }
+            if ( !longest ) {
+              break;
+            }
+          }
+        }
+        boolean expected = ( match < 0 ) ? IpAcl.DENY : allowed.get( match );
+        assertEquals( expected, acl.allows( address ), address + " longest=" + longest );
+      }
+    }
+  }
+
+
+
+
+  private static int bits( IpNetwork network ) {
+    int retval = 0;
+    for ( short octet : network.getNetMask().getOctets() ) {
+      retval += Integer.bitCount( octet );
+    }
+    return retval;
+  }
+
 }
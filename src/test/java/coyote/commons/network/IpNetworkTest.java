@@ -135,4 +135,20 @@ public class IpNetworkTest {
     assertFalse(network.contains("10.2.3.5"));
   }
 
+
+
+
+  /**
+   * Test method for {@link coyote.commons.network.IpNetwork#getPrefixLength()}.
+   */
+  @Test
+  public void testGetPrefixLength() throws IpAddressException {
+    assertEquals( 16, new IpNetwork( "192.168/16" ).getPrefixLength() );
+    assertEquals( 0, new IpNetwork( "0/0" ).getPrefixLength() );
+    assertEquals( 32, new IpNetwork( "10.1.2.3" ).getPrefixLength() );
+    assertEquals( 22, new IpNetwork( "150.10.8.0", "255.255.252.0" ).getPrefixLength() );
+    assertEquals( -1, new IpNetwork( "150.10.8.0", "255.0.255.0" ).getPrefixLength() );
+    assertEquals( -1, new IpNetwork( "150.10.8.0", "255.255.250.0" ).getPrefixLength() );
+  }
+
 }
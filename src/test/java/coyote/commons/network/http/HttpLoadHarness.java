@@ -0,0 +1,331 @@
+package coyote.commons.network.http;
+
+import coyote.commons.NetUtil;
+import coyote.commons.i13n.LatencyHistogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Load test of the HTTPD executors with many concurrent keep-alive
+ * connections.
+ *
+ * <p>A single client thread opens the given number of connections and keeps
+ * exactly one request outstanding on each (a closed loop), sending the next
+ * request on a connection as soon as its response arrives. After a warm up,
+ * the requests per second and the latency of every request are recorded and
+ * reported for each combination of executor and connection count.
+ *
+ * <p>This is not a unit test. Run it with:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) coyote.commons.network.http.HttpLoadHarness [executors] [connections] [seconds]
+ * </pre>
+ * where executors is a comma separated list of {@code default},
+ * {@code pooled} and {@code virtual} (default all three), connections a
+ * comma separated list of connection counts (default 1000,10000,50000) and
+ * seconds the length of each measurement (default 10).
+ *
+ * <p>Each connection uses a file descriptor on both the client and server
+ * side, so {@code ulimit -n} must be more than twice the connection count.
+ * More than about 28,000 connections to one port exhausts the ephemeral
+ * ports of a single address, so above 20,000 connections the client binds
+ * its sockets to several loopback addresses, which works on Linux. The
+ * default executor needs a thread for each connection and may fail to start
+ * them all; the virtual executor is skipped on runtimes without virtual
+ * threads.
+ */
+public class HttpLoadHarness {
+
+    private static final byte[] REQUEST = "GET /load HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+    private static final byte[] CONTENT_LENGTH = "content-length:".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_PENDING_CONNECTS = 256;
+    private static final int CONNECTIONS_PER_ADDRESS = 20000;
+    private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+
+    public static void main(final String[] args) throws Exception {
+        final String[] executors = (args.length > 0 ? args[0] : "default,pooled,virtual").split(",");
+        final String[] counts = (args.length > 1 ? args[1] : "1000,10000,50000").split(",");
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        for (final String executor : executors) {
+            for (final String count : counts) {
+                final int connections = Integer.parseInt(count.trim());
+                final Executor runner = createExecutor(executor.trim(), connections);
+                if (runner == null) {
+                    System.out.printf("%-8s %,7d connections: not supported by this runtime%n", executor, connections);
+                    continue;
+                }
+                try {
+                    run(executor, runner, connections, seconds);
+                } catch (final IOException e) {
+                    System.out.printf("%-8s %,7d connections: failed - %s%n", executor, connections, e);
+                }
+            }
+        }
+    }
+
+
+    private static Executor createExecutor(final String name, final int connections) {
+        switch (name) {
+            case "default":
+                return new DefaultExecutor();
+            case "pooled":
+                final PooledExecutor pooled = new PooledExecutor();
+                pooled.setMaxConnections(connections);
+                return pooled;
+            case "virtual":
+                return VirtualThreadExecutor.isSupported() ? new VirtualThreadExecutor() : null;
+            default:
+                throw new IllegalArgumentException("Unknown executor '" + name + "', expected default, pooled or virtual");
+        }
+    }
+
+
+    private static void run(final String name, final Executor executor, final int connections, final int seconds) throws IOException {
+        final int port = NetUtil.getNextAvailablePort(7628);
+        final HTTPD server = new HTTPD(port) {
+            @Override
+            public Response serve(final HTTPSession session) {
+                return Response.createFixedLengthResponse("OK");
+            }
+        };
+        // every connection comes from the same address, which would otherwise
+        // be refused as a denial of service
+        server.dosTable.setLimit(Short.MAX_VALUE);
+        server.dosTable.setDuration(1);
+        server.setAsyncRunner(executor);
+        server.start(0);
+
+        final Client client = new Client(port, connections);
+        try {
+            client.run(TimeUnit.SECONDS.toNanos(seconds));
+        } finally {
+            client.close();
+            server.stop();
+        }
+
+        final double elapsed = client.measured / 1e9;
+        System.out.printf("%-8s %,7d connections: %,10.0f req/s  p50 %,8d us  p99 %,8d us  p99.9 %,8d us  connected %,d  errors %,d%n", name, connections, client.latency.getCount() / elapsed, client.latency.getValueAtPercentile(50), client.latency.getValueAtPercentile(99), client.latency.getValueAtPercentile(99.9), client.connected, client.errors);
+    }
+
+
+    /**
+     * One client connection with one request outstanding.
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final ByteBuffer input = ByteBuffer.allocate(1024);
+        final ByteBuffer output = ByteBuffer.wrap(REQUEST);
+        long sent;
+
+
+        Connection(final SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+
+    /**
+     * The closed loop client, all connections served by one selector.
+     */
+    private static final class Client {
+        final int port;
+        final int connections;
+        final Selector selector;
+        final List<Connection> open = new ArrayList<>();
+        LatencyHistogram latency = new LatencyHistogram();
+        int pending = 0;
+        int started = 0;
+        int connected = 0;
+        long errors = 0;
+        long measured = 0;
+
+
+        Client(final int port, final int connections) throws IOException {
+            this.port = port;
+            this.connections = connections;
+            selector = Selector.open();
+        }
+
+
+        void run(final long duration) throws IOException {
+            long measureStart = 0;
+            final long giveUp = System.nanoTime() + duration + TimeUnit.SECONDS.toNanos(60);
+            while (true) {
+                connectMore();
+                selector.select(10);
+                for (final SelectionKey key : selector.selectedKeys()) {
+                    final Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            connection.channel.finishConnect();
+                            pending--;
+                            connected++;
+                            send(connection, key);
+                        } else if (key.isWritable()) {
+                            send(connection, key);
+                        } else if (key.isReadable()) {
+                            receive(connection, key);
+                        }
+                    } catch (final IOException e) {
+                        if (key.isConnectable()) {
+                            pending--;
+                        }
+                        errors++;
+                        key.cancel();
+                        connection.channel.close();
+                    }
+                }
+                selector.selectedKeys().clear();
+
+                final long now = System.nanoTime();
+                if (measureStart == 0) {
+                    if (started == connections && pending == 0) {
+                        // all connected; warm up before measuring
+                        measureStart = now + WARMUP_NANOS;
+                    } else if (now > giveUp) {
+                        throw new IOException("Gave up connecting after " + connected + " connections");
+                    }
+                } else if (now < measureStart) {
+                    latency = new LatencyHistogram();
+                } else if (now - measureStart >= duration) {
+                    measured = now - measureStart;
+                    return;
+                }
+            }
+        }
+
+
+        void connectMore() throws IOException {
+            while (started < connections && pending < MAX_PENDING_CONNECTS) {
+                final SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                if (connections > CONNECTIONS_PER_ADDRESS) {
+                    channel.bind(new InetSocketAddress("127.0.0." + (1 + started / CONNECTIONS_PER_ADDRESS), 0));
+                }
+                final Connection connection = new Connection(channel);
+                open.add(connection);
+                started++;
+                if (channel.connect(new InetSocketAddress("127.0.0.1", port))) {
+                    connected++;
+                    send(connection, channel.register(selector, 0, connection));
+                } else {
+                    pending++;
+                    channel.register(selector, SelectionKey.OP_CONNECT, connection);
+                }
+            }
+        }
+
+
+        void send(final Connection connection, final SelectionKey key) throws IOException {
+            if (connection.output.position() == 0) {
+                connection.sent = System.nanoTime();
+            }
+            connection.channel.write(connection.output);
+            if (connection.output.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+            } else {
+                connection.output.clear();
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+
+        void receive(final Connection connection, final SelectionKey key) throws IOException {
+            final ByteBuffer input = connection.input;
+            if (connection.channel.read(input) < 0) {
+                throw new IOException("Connection closed by server");
+            }
+            final int length = responseLength(input);
+            if (length > 0) {
+                latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - connection.sent));
+                input.flip();
+                input.position(length);
+                input.compact();
+                send(connection, key);
+            }
+        }
+
+
+        /**
+         * @return the length of the complete response at the start of the
+         * buffer or zero if the response is not complete.
+         */
+        static int responseLength(final ByteBuffer input) {
+            final byte[] data = input.array();
+            final int limit = input.position();
+            final int end = indexOf(data, limit, HEADER_END, 0);
+            if (end < 0) {
+                return 0;
+            }
+            int bodyLength = 0;
+            final int header = indexOfIgnoreCase(data, end, CONTENT_LENGTH);
+            if (header >= 0) {
+                for (int x = header + CONTENT_LENGTH.length; x < end && data[x] != '\r'; x++) {
+                    if (data[x] >= '0' && data[x] <= '9') {
+                        bodyLength = (bodyLength * 10) + (data[x] - '0');
+                    }
+                }
+            }
+            final int total = end + HEADER_END.length + bodyLength;
+            return total <= limit ? total : 0;
+        }
+
+
+        static int indexOf(final byte[] data, final int limit, final byte[] target, final int from) {
+            outer:
+            for (int x = from; x <= limit - target.length; x++) {
+                for (int y = 0; y < target.length; y++) {
+                    if (data[x + y] != target[y]) {
+                        continue outer;
+                    }
+                }
+                return x;
+            }
+            return -1;
+        }
+
+
+        static int indexOfIgnoreCase(final byte[] data, final int limit, final byte[] target) {
+            outer:
+            for (int x = 0; x <= limit - target.length; x++) {
+                for (int y = 0; y < target.length; y++) {
+                    if (Character.toLowerCase(data[x + y]) != target[y]) {
+                        continue outer;
+                    }
+                }
+                return x;
+            }
+            return -1;
+        }
+
+
+        void close() {
+            for (final Connection connection : open) {
+                try {
+                    connection.channel.close();
+                } catch (final IOException ignore) {
+                    // closing anyway
+                }
+            }
+            try {
+                selector.close();
+            } catch (final IOException ignore) {
+                // closing anyway
+            }
+        }
+    }
+
+}
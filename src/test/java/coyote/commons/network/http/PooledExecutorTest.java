@@ -0,0 +1,181 @@
+package coyote.commons.network.http;
+
+import coyote.commons.NetUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class PooledExecutorTest {
+
+    private static final String REQUEST = "GET /test HTTP/1.1\r\nHost: localhost\r\n\r\n";
+
+    private final int port = NetUtil.getNextAvailablePort(7528);
+    private PooledExecutor executor;
+    private HTTPD server;
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        executor = new PooledExecutor(2, 16);
+        server = new HTTPD(port) {
+            @Override
+            public Response serve(final HTTPSession session) {
+                return Response.createFixedLengthResponse("OK " + session.getUri());
+            }
+        };
+        server.setAsyncRunner(executor);
+        server.start(0);
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+
+    @Test
+    public void servesKeepAliveRequests() throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            final OutputStream out = socket.getOutputStream();
+            final InputStream in = socket.getInputStream();
+            for (int x = 0; x < 100; x++) {
+                out.write(REQUEST.getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                assertEquals("OK /test", readResponse(in));
+            }
+            assertEquals(1, executor.getConnectionCount());
+        }
+    }
+
+
+    @Test
+    public void servesPipelinedRequests() throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            final OutputStream out = socket.getOutputStream();
+            out.write((REQUEST + REQUEST.replace("/test", "/two") + REQUEST.replace("/test", "/three")).getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            final InputStream in = socket.getInputStream();
+            assertEquals("OK /test", readResponse(in));
+            assertEquals("OK /two", readResponse(in));
+            assertEquals("OK /three", readResponse(in));
+        }
+    }
+
+
+    @Test
+    public void servesManyIdleConnectionsWithFewWorkers() throws IOException {
+        final Socket[] sockets = new Socket[20];
+        try {
+            for (int x = 0; x < sockets.length; x++) {
+                sockets[x] = new Socket("localhost", port);
+            }
+            // two workers, yet every connection is served in turn
+            for (int round = 0; round < 3; round++) {
+                for (final Socket socket : sockets) {
+                    socket.getOutputStream().write(REQUEST.getBytes(StandardCharsets.US_ASCII));
+                    assertEquals("OK /test", readResponse(socket.getInputStream()));
+                }
+            }
+        } finally {
+            for (final Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void closesIdleConnections() throws Exception {
+        executor.setIdleTimeout(100);
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.getOutputStream().write(REQUEST.getBytes(StandardCharsets.US_ASCII));
+            final InputStream in = socket.getInputStream();
+            assertEquals("OK /test", readResponse(in));
+            assertEquals(-1, in.read());
+        }
+        assertEquals(1, executor.getTimedOutCount());
+        // the socket is closed just before the executor forgets it
+        for (int x = 0; x < 100 && executor.getConnectionCount() > 0; x++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.getConnectionCount());
+    }
+
+
+    @Test
+    public void rejectsConnectionsOverTheLimit() throws IOException {
+        executor.setMaxConnections(1);
+        try (Socket first = new Socket("localhost", port); Socket second = new Socket("localhost", port)) {
+            first.getOutputStream().write(REQUEST.getBytes(StandardCharsets.US_ASCII));
+            assertEquals("OK /test", readResponse(first.getInputStream()));
+            assertEquals(-1, second.getInputStream().read());
+            assertEquals(1, executor.getRejectedCount());
+        }
+    }
+
+
+    @Test
+    public void virtualThreadsWhereSupported() throws IOException {
+        if (!VirtualThreadExecutor.isSupported()) {
+            assertThrows(UnsupportedOperationException.class, VirtualThreadExecutor::new);
+            return;
+        }
+        server.stop();
+        server.setAsyncRunner(new VirtualThreadExecutor());
+        server.start(0);
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.getOutputStream().write(REQUEST.getBytes(StandardCharsets.US_ASCII));
+            assertEquals("OK /test", readResponse(socket.getInputStream()));
+        }
+    }
+
+
+    /**
+     * Read one response from the stream and return its body.
+     */
+    static String readResponse(final InputStream in) throws IOException {
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int matched = 0;
+        while (matched < 4) {
+            final int b = in.read();
+            if (b == -1) {
+                throw new IOException("Connection closed in response header");
+            }
+            header.write(b);
+            matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        int length = 0;
+        for (final String line : header.toString("US-ASCII").split("\r\n")) {
+            if (line.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(line.substring(15).trim());
+            }
+        }
+        final byte[] body = new byte[length];
+        int read = 0;
+        while (read < length) {
+            final int count = in.read(body, read, length - read);
+            if (count == -1) {
+                throw new IOException("Connection closed in response body");
+            }
+            read += count;
+        }
+        return new String(body, StandardCharsets.US_ASCII);
+    }
+
+}
@@ -0,0 +1,259 @@
+package coyote.commons.network.http;
+
+import coyote.commons.NetUtil;
+import coyote.commons.network.http.responder.StaticContent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+@Timeout(value = 20, unit = TimeUnit.SECONDS)
+public class StaticContentTest {
+
+    @TempDir
+    Path root;
+
+    private final int port = NetUtil.getNextAvailablePort(7628);
+    private final StaticContent content = new StaticContent(16, 1024, 60000);
+    private HTTPD server;
+    private Socket socket;
+    private byte[] large;
+    private byte[] small;
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        large = new byte[300 * 1024];
+        new Random(7).nextBytes(large);
+        Files.write(root.resolve("large.bin"), large);
+        small = "a small page, small enough to keep in memory".getBytes(StandardCharsets.US_ASCII);
+        Files.write(root.resolve("small.txt"), small);
+
+        server = new HTTPD(port) {
+            @Override
+            public Response serve(final HTTPSession session) {
+                try {
+                    final Response response = content.serve(new File(root.toFile(), session.getUri()), Status.OK, "application/octet-stream", session);
+                    return (response != null) ? response : Response.createFixedLengthResponse(Status.NOT_FOUND, "text/plain", "not found");
+                } catch (final IOException e) {
+                    return Response.createFixedLengthResponse(Status.INTERNAL_ERROR, "text/plain", e.getMessage());
+                }
+            }
+        };
+        server.start(0);
+        socket = new Socket("localhost", port);
+    }
+
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        socket.close();
+        server.stop();
+    }
+
+
+    @Test
+    public void servesWholeFiles() throws IOException {
+        // several requests on one connection, the large file from the file and the small one from memory
+        for (int x = 0; x < 3; x++) {
+            Reply reply = request("GET /large.bin");
+            assertEquals(200, reply.status);
+            assertArrayEquals(large, reply.body);
+            assertEquals("bytes", reply.headers.get("accept-ranges"));
+            assertTrue(reply.headers.get("etag").startsWith("W/\""));
+            assertNotNull(reply.headers.get("last-modified"));
+
+            reply = request("GET /small.txt");
+            assertEquals(200, reply.status);
+            assertArrayEquals(small, reply.body);
+        }
+        assertEquals(404, request("GET /missing.bin").status);
+    }
+
+
+    @Test
+    public void headRequestsHaveNoBody() throws IOException {
+        final Reply reply = request("HEAD /large.bin");
+        assertEquals(200, reply.status);
+        assertEquals(String.valueOf(large.length), reply.headers.get("content-length"));
+        assertEquals(0, reply.body.length);
+        // the connection is still in step
+        assertArrayEquals(small, request("GET /small.txt").body);
+    }
+
+
+    @Test
+    public void answersConditionalRequests() throws IOException {
+        final Reply reply = request("GET /large.bin");
+        final String etag = reply.headers.get("etag");
+        final String lastModified = reply.headers.get("last-modified");
+
+        Reply conditional = request("GET /large.bin", "If-None-Match: \"other\", " + etag);
+        assertEquals(304, conditional.status);
+        assertEquals(0, conditional.body.length);
+        assertEquals(etag, conditional.headers.get("etag"));
+
+        assertEquals(304, request("GET /large.bin", "If-Modified-Since: " + lastModified).status);
+        assertEquals(200, request("GET /large.bin", "If-None-Match: \"other\"").status);
+        assertEquals(200, request("GET /large.bin", "If-Modified-Since: Thu, 01 Jan 1970 00:00:00 GMT").status);
+    }
+
+
+    @Test
+    public void servesSingleRanges() throws IOException {
+        Reply reply = request("GET /large.bin", "Range: bytes=100-199");
+        assertEquals(206, reply.status);
+        assertEquals("bytes 100-199/" + large.length, reply.headers.get("content-range"));
+        assertArrayEquals(Arrays.copyOfRange(large, 100, 200), reply.body);
+
+        reply = request("GET /large.bin", "Range: bytes=-10");
+        assertEquals(206, reply.status);
+        assertArrayEquals(Arrays.copyOfRange(large, large.length - 10, large.length), reply.body);
+
+        reply = request("GET /small.txt", "Range: bytes=2-");
+        assertEquals(206, reply.status);
+        assertArrayEquals(Arrays.copyOfRange(small, 2, small.length), reply.body);
+    }
+
+
+    @Test
+    public void servesMultipleRanges() throws IOException {
+        final Reply reply = request("GET /large.bin", "Range: bytes=0-9, 1000-1009");
+        assertEquals(206, reply.status);
+        final String type = reply.headers.get("content-type");
+        assertTrue(type.startsWith("multipart/byteranges; boundary="));
+        final String boundary = type.substring(type.indexOf('=') + 1);
+        final String body = new String(reply.body, StandardCharsets.ISO_8859_1);
+        assertTrue(body.startsWith("--" + boundary + "\r\n"));
+        assertTrue(body.contains("Content-Range: bytes 0-9/" + large.length + "\r\n\r\n" + new String(large, 0, 10, StandardCharsets.ISO_8859_1) + "\r\n--" + boundary));
+        assertTrue(body.contains("Content-Range: bytes 1000-1009/" + large.length + "\r\n\r\n" + new String(large, 1000, 10, StandardCharsets.ISO_8859_1)));
+        assertTrue(body.endsWith("\r\n--" + boundary + "--\r\n"));
+    }
+
+
+    @Test
+    public void rejectsUnsatisfiableRanges() throws IOException {
+        final Reply reply = request("GET /large.bin", "Range: bytes=" + large.length + "-");
+        assertEquals(416, reply.status);
+        assertEquals("bytes */" + large.length, reply.headers.get("content-range"));
+        // ranges not understood are ignored
+        assertEquals(200, request("GET /large.bin", "Range: lines=1-2").status);
+    }
+
+
+    @Test
+    public void sendsWholeFileWhenIfRangeDoesNotMatch() throws IOException {
+        final Reply reply = request("GET /large.bin");
+        // weak tags never match an If-Range
+        Reply ranged = request("GET /large.bin", "Range: bytes=0-9", "If-Range: " + reply.headers.get("etag"));
+        assertEquals(200, ranged.status);
+        assertEquals(large.length, ranged.body.length);
+
+        ranged = request("GET /large.bin", "Range: bytes=0-9", "If-Range: " + reply.headers.get("last-modified"));
+        assertEquals(206, ranged.status);
+        assertEquals(10, ranged.body.length);
+    }
+
+
+    @Test
+    public void servesPrecompressedSiblings() throws IOException {
+        final byte[] compressed = "not really compressed".getBytes(StandardCharsets.US_ASCII);
+        Files.write(root.resolve("page.html"), "<html></html>".getBytes(StandardCharsets.US_ASCII));
+        Files.write(root.resolve("page.html.gz"), compressed);
+
+        Reply reply = request("GET /page.html", "Accept-Encoding: deflate, gzip");
+        assertEquals(200, reply.status);
+        assertEquals("gzip", reply.headers.get("content-encoding"));
+        assertEquals("Accept-Encoding", reply.headers.get("vary"));
+        assertArrayEquals(compressed, reply.body);
+
+        reply = request("GET /page.html");
+        assertNull(reply.headers.get("content-encoding"));
+        assertEquals("Accept-Encoding", reply.headers.get("vary"));
+        assertEquals("<html></html>", new String(reply.body, StandardCharsets.US_ASCII));
+    }
+
+
+    @Test
+    public void parsesRanges() {
+        assertArrayEquals(new long[]{0, 10}, StaticContent.parseRanges("bytes=0-9", 100));
+        assertArrayEquals(new long[]{90, 10}, StaticContent.parseRanges("bytes=90-200", 100));
+        assertArrayEquals(new long[]{0, 100}, StaticContent.parseRanges("bytes=-500", 100));
+        assertArrayEquals(new long[0], StaticContent.parseRanges("bytes=100-", 100));
+        assertNull(StaticContent.parseRanges("bytes=9-1", 100));
+        assertNull(StaticContent.parseRanges("bytes=a-b", 100));
+        final StringBuilder many = new StringBuilder("bytes=0-0");
+        for (int x = 1; x <= StaticContent.MAX_RANGES; x++) {
+            many.append(',').append(x).append('-').append(x);
+        }
+        assertNull(StaticContent.parseRanges(many.toString(), 100));
+    }
+
+
+    private Reply request(final String requestLine, final String... headers) throws IOException {
+        final StringBuilder request = new StringBuilder(requestLine).append(" HTTP/1.1\r\nHost: localhost\r\n");
+        for (final String header : headers) {
+            request.append(header).append("\r\n");
+        }
+        socket.getOutputStream().write(request.append("\r\n").toString().getBytes(StandardCharsets.US_ASCII));
+        final InputStream in = socket.getInputStream();
+
+        final Reply reply = new Reply();
+        final String status = readLine(in);
+        reply.status = Integer.parseInt(status.split(" ")[1]);
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            final int colon = line.indexOf(':');
+            reply.headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon + 1).trim());
+        }
+        int length = Integer.parseInt(reply.headers.get("content-length"));
+        if (requestLine.startsWith("HEAD")) {
+            length = 0;
+        }
+        reply.body = new byte[length];
+        int read = 0;
+        while (read < length) {
+            final int count = in.read(reply.body, read, length - read);
+            assertTrue(count > 0, "connection closed in the body");
+            read += count;
+        }
+        return reply;
+    }
+
+
+    private static String readLine(final InputStream in) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            assertTrue(c >= 0, "connection closed in the headers");
+            if (c != '\r') {
+                line.write(c);
+            }
+        }
+        return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+
+    private static final class Reply {
+        int status;
+        final Map<String, String> headers = new HashMap<>();
+        byte[] body;
+    }
+
+}
@@ -0,0 +1,84 @@
+package coyote.commons.network.http.responder;
+
+import coyote.commons.network.http.HTTP;
+import coyote.commons.network.http.HTTPSession;
+import coyote.commons.network.http.Method;
+import coyote.commons.network.http.MockSession;
+import coyote.commons.network.http.Response;
+import coyote.commons.network.http.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class AbstractFileResponderTest {
+
+    private static final HTTPSession GET = new MockSession() {
+        @Override
+        public Method getMethod() {
+            return Method.GET;
+        }
+    };
+
+    @TempDir
+    Path root;
+
+
+    private File page() throws IOException {
+        final Path page = root.resolve("page.html");
+        Files.write(page, "<html></html>".getBytes(StandardCharsets.US_ASCII));
+        return page.toFile();
+    }
+
+
+    @Test
+    public void filesAreServedAsStaticContent() throws IOException {
+        for (AbstractFileResponder responder : new AbstractFileResponder[]{new FileResponder(), new StaticPageResponder(), new Unchanged()}) {
+            final Response response = responder.serveFile(page(), GET);
+            assertEquals(Status.OK, response.getStatus());
+            assertNotNull(response.getHeader(HTTP.HDR_ETAG), responder.getClass().getName());
+        }
+    }
+
+
+    @SuppressWarnings("deprecation")
+    @Test
+    public void overriddenStreamsAreStillUsed() throws IOException {
+        for (AbstractFileResponder responder : new AbstractFileResponder[]{new Streamed(), new StreamedSubclass()}) {
+            Streamed.opened.set(0);
+            final Response response = responder.serveFile(page(), GET);
+            assertEquals(1, Streamed.opened.get(), responder.getClass().getName());
+            assertEquals(Status.OK, response.getStatus());
+            assertNull(response.getHeader(HTTP.HDR_ETAG));
+            response.getData().close();
+        }
+    }
+
+
+    public static class Unchanged extends StaticPageResponder {}
+
+
+    public static class Streamed extends FileResponder {
+        static final AtomicInteger opened = new AtomicInteger();
+
+        @Override
+        @Deprecated
+        protected BufferedInputStream fileToInputStream(final File file) throws IOException {
+            opened.incrementAndGet();
+            return super.fileToInputStream(file);
+        }
+    }
+
+
+    public static class StreamedSubclass extends Streamed {}
+
+}
@@ -0,0 +1,116 @@
+package coyote.commons.network.http.responder;
+
+import coyote.commons.network.http.HTTPSession;
+import coyote.commons.network.http.Method;
+import coyote.commons.network.http.MockSession;
+import coyote.commons.network.http.Response;
+import coyote.commons.network.http.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class ResponderLifecycleTest {
+
+    private static final HTTPSession GET = new MockSession() {
+        @Override
+        public Method getMethod() {
+            return Method.GET;
+        }
+    };
+
+
+    @Test
+    public void threadSafeRespondersAreCreatedOnce() throws Exception {
+        SharedResponder.created.set(0);
+        final Resource resource = new Resource("/shared", 100, SharedResponder.class, null);
+        for (int x = 0; x < 10; x++) {
+            final Response response = resource.process(Collections.emptyMap(), GET);
+            assertEquals(Status.OK, response.getStatus());
+        }
+        assertEquals(1, SharedResponder.created.get());
+    }
+
+
+    @Test
+    public void otherRespondersAreCreatedForEachRequest() throws Exception {
+        PerRequestResponder.created.set(0);
+        final Resource resource = new Resource("/each", 100, PerRequestResponder.class, null);
+        for (int x = 0; x < 10; x++) {
+            assertEquals(Status.OK, resource.process(Collections.emptyMap(), GET).getStatus());
+        }
+        assertEquals(10, PerRequestResponder.created.get());
+    }
+
+
+    @Test
+    public void subclassesAreNotSharedUnlessAnnotated() throws Exception {
+        PerRequestResponder.created.set(0);
+        SharedResponder.created.set(0);
+        final Resource resource = new Resource("/sub", 100, SharedSubclass.class, null);
+        resource.process(Collections.emptyMap(), GET);
+        resource.process(Collections.emptyMap(), GET);
+        assertEquals(2, SharedResponder.created.get());
+    }
+
+
+    @Test
+    public void uncreatableRespondersReportAnError() throws Exception {
+        final Resource resource = new Resource("/interface", 100, Responder.class, null);
+        assertEquals(Status.INTERNAL_ERROR, resource.process(Collections.emptyMap(), GET).getStatus());
+    }
+
+
+    @ThreadSafe
+    public static class SharedResponder extends DefaultResponder {
+        static final AtomicInteger created = new AtomicInteger();
+
+
+        public SharedResponder() {
+            created.incrementAndGet();
+        }
+
+
+        @Override
+        public Response get(final Resource resource, final Map<String, String> urlParams, final HTTPSession session) {
+            return Response.createFixedLengthResponse("shared");
+        }
+
+
+        @Override
+        public Status getStatus() {
+            return Status.OK;
+        }
+
+
+        @Override
+        public String getText() {
+            return "shared";
+        }
+
+
+        @Override
+        public String getMimeType() {
+            return "text/plain";
+        }
+    }
+
+
+    public static class SharedSubclass extends SharedResponder {
+    }
+
+
+    public static class PerRequestResponder extends SharedSubclass {
+        static final AtomicInteger created = new AtomicInteger();
+
+
+        public PerRequestResponder() {
+            created.incrementAndGet();
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.network.http.responder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares finding the resource for a request with the routing table to the
+ * linear search of every resource's regular expression it replaced.
+ *
+ * <p>The routes are a mix of literal, parameter, wildcard and regular
+ * expression routes. {@code last} requests the lowest priority route and
+ * {@code notFound} a URI no route matches, both of which the linear search
+ * must try every route for:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main RouterBenchmark -prof gc</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int routes;
+
+  private List<Resource> mappings;
+  private RoutingTable table;
+  private String last;
+  private String notFound = "nowhere/to/be/found";
+
+
+
+
+  @Setup
+  public void setup() {
+    mappings = new ArrayList<>();
+    for (int x = 0; x < routes; x++) {
+      final String uri;
+      switch (x % 4) {
+        case 0:
+          uri = "api/v1/resource" + x;
+          break;
+        case 1:
+          uri = "api/v1/resource" + x + "/:id";
+          break;
+        case 2:
+          uri = "static" + x + "/(.)+";
+          break;
+        default:
+          uri = "api/v2/item" + x + "/\\d+";
+          break;
+      }
+      mappings.add(new Resource(uri, 100 + x, GeneralResponder.class, null));
+    }
+    Collections.sort(mappings, (o1, o2) -> o1.priority - o2.priority);
+    table = new RoutingTable(mappings);
+    final int tail = routes - 3;
+    last = "api/v1/resource" + tail + "/42";
+  }
+
+
+
+
+  @Benchmark
+  public Map<String, String> linearLast() {
+    return linear(last);
+  }
+
+
+
+
+  @Benchmark
+  public Map<String, String> linearNotFound() {
+    return linear(notFound);
+  }
+
+
+
+
+  @Benchmark
+  public Map.Entry<Resource, Map<String, String>> tableLast() {
+    return table.route(last);
+  }
+
+
+
+
+  @Benchmark
+  public Map.Entry<Resource, Map<String, String>> tableNotFound() {
+    return table.route(notFound);
+  }
+
+
+
+
+  /**
+   * The search UriRouter made before the routing table.
+   */
+  private Map<String, String> linear(final String request) {
+    for (final Resource resource : mappings) {
+      final Map<String, String> params = resource.matchPattern(request);
+      if (params != null) {
+        return params;
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,157 @@
+package coyote.commons.network.http.responder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+public class RoutingTableTest {
+
+    private static final String[] ROUTES = {
+            "",
+            "user",
+            "user/:id",
+            "user/help",
+            "user/:id/photos/:photo",
+            "general/:param1/:param2",
+            "browse/(.)+",
+            "files/.*",
+            "docs/index.html",
+            "api/v1/:resource",
+            "api/v1/items/\\d+",
+            "api/v(1|2)/status",
+            "(?i)CaseLess/path",
+            "a/:x/b",
+            "odd/colon:name",
+            ":any/tail",
+            "opt/?ional",
+            "repeat/x+",
+    };
+
+    private static final String[] REQUESTS = {
+            "", "user", "user/", "user/42", "user/help", "user/42/photos/7", "user/4/2/photos/7",
+            "general/a/b", "general/a/b/c", "general/a", "browse/", "browse/a/b/c.txt", "files", "files/",
+            "files/x/y", "docs/index.html", "docs/indexXhtml", "docs/index.htm", "api/v1/things",
+            "api/v1/items/12", "api/v1/items/x", "api/v2/status", "api/v1/status", "caseless/PATH",
+            "a/1/b", "a/1/2/b", "a/b", "odd/colon:name", "odd/colon:other", "x/tail", "x/y/tail",
+            "optional", "opt/ional", "repeat/xxx", "repeat/", "unknown/route", "user/a b",
+    };
+
+
+    @Test
+    public void findsWhatALinearSearchFinds() {
+        final List<Resource> mappings = new ArrayList<>();
+        for (int x = 0; x < ROUTES.length; x++) {
+            mappings.add(new Resource(ROUTES[x], 100 + x, GeneralResponder.class, null));
+        }
+        assertSameAsLinear(mappings, REQUESTS);
+
+        // and again with the priorities reversed
+        final List<Resource> reversed = new ArrayList<>();
+        for (int x = 0; x < ROUTES.length; x++) {
+            reversed.add(new Resource(ROUTES[x], 100 - x, GeneralResponder.class, null));
+        }
+        assertSameAsLinear(reversed, REQUESTS);
+    }
+
+
+    @Test
+    public void findsWhatALinearSearchFindsForRandomRoutes() {
+        final Random random = new Random(42);
+        final String[] parts = {"a", "b", "ab", ":p", ":q", ".*", "(.)+", "a.b", "x+", "[ab]"};
+        final List<Resource> mappings = new ArrayList<>();
+        for (int x = 0; x < 200; x++) {
+            mappings.add(new Resource(randomPath(random, parts), random.nextInt(50), GeneralResponder.class, null));
+        }
+        final String[] literals = {"a", "b", "ab", "aab", "xx", "a.b", "axb", ""};
+        final String[] requests = new String[2000];
+        for (int x = 0; x < requests.length; x++) {
+            requests[x] = randomPath(random, literals);
+        }
+        assertSameAsLinear(mappings, requests);
+    }
+
+
+    @Test
+    public void mappingsAreReadOnly() {
+        final UriRouter router = new UriRouter();
+        final List<Resource> mappings = router.getMappings();
+        router.addRoute("user/:id", 100, GeneralResponder.class, null);
+        assertEquals(1, mappings.size());
+        assertThrows(UnsupportedOperationException.class, () -> mappings.add(new Resource("other", 100, GeneralResponder.class, null)));
+        assertThrows(UnsupportedOperationException.class, () -> mappings.remove(0));
+        assertThrows(UnsupportedOperationException.class, mappings::clear);
+        router.removeRoute("user/:id");
+        assertTrue(mappings.isEmpty());
+    }
+
+
+    @Test
+    public void compilesPlainRoutesOnly() {
+        assertNotNull(RoutePattern.compile("user/:id"));
+        assertNotNull(RoutePattern.compile("browse/(.)+"));
+        assertNotNull(RoutePattern.compile("docs/index.html"));
+        assertNull(RoutePattern.compile("api/v(1|2)/status"));
+        assertNull(RoutePattern.compile("items/\\d+"));
+        assertNull(RoutePattern.compile("files/.*?"));
+        // a group beside a parameter would shift the parameters in Resource.match
+        assertNull(RoutePattern.compile("user/:id/(.)+"));
+    }
+
+
+    @Test
+    public void prefixesAreWholeLiteralSegments() {
+        assertEquals("api/v1/", RoutePattern.prefixOf("api/v1/:resource"));
+        assertEquals("api/", RoutePattern.prefixOf("api/v(1|2)/status".replace("|", "")));
+        assertEquals("", RoutePattern.prefixOf("api/v(1|2)/status"));
+        assertEquals("", RoutePattern.prefixOf("opt/?ional"));
+        assertEquals("repeat/", RoutePattern.prefixOf("repeat/x+"));
+        assertEquals("", RoutePattern.prefixOf(":any/tail"));
+        assertEquals("docs/", RoutePattern.prefixOf("docs/index.html"));
+    }
+
+
+    private static void assertSameAsLinear(final List<Resource> mappings, final String[] requests) {
+        Collections.sort(mappings, (o1, o2) -> o1.priority - o2.priority);
+        final RoutingTable table = new RoutingTable(mappings);
+        for (final String request : requests) {
+            Resource expected = null;
+            Map<String, String> expectedParams = null;
+            for (final Resource resource : mappings) {
+                expectedParams = resource.matchPattern(request);
+                if (expectedParams != null) {
+                    expected = resource;
+                    break;
+                }
+            }
+            final Map.Entry<Resource, Map<String, String>> route = table.route(request);
+            if (expected == null) {
+                assertNull(route, "'" + request + "' should not be routed");
+            } else {
+                assertNotNull(route, "'" + request + "' should be routed to " + expected);
+                assertSame(expected, route.getKey(), "'" + request + "'");
+                assertEquals(expectedParams, route.getValue(), "'" + request + "'");
+            }
+        }
+    }
+
+
+    private static String randomPath(final Random random, final String[] parts) {
+        final StringBuilder b = new StringBuilder();
+        final int segments = random.nextInt(4);
+        for (int x = 0; x < segments; x++) {
+            if (x > 0) {
+                b.append('/');
+            }
+            b.append(parts[random.nextInt(parts.length)]);
+        }
+        return b.toString();
+    }
+
+}
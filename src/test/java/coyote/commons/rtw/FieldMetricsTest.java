@@ -0,0 +1,65 @@
+/*
+ *
+ */
+package coyote.commons.rtw;
+
+import coyote.commons.dataframe.DataFrame;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the field metrics in their estimated and exact modes.
+ */
+public class FieldMetricsTest {
+
+    @Test
+    public void estimates() {
+        DataSetMetrics schema = new DataSetMetrics();
+        schema.setEstimation(false, 0.01, 3);
+        sample(schema, 100000);
+
+        FieldMetrics id = schema.getMetric("Id");
+        assertFalse(id.isExact());
+        assertEquals(100000, id.getUniqueValues(), 100000 * 3 * id.getUniqueValuesError());
+        assertEquals(50000, id.getNumericQuantile(0.5), 100000 * 0.01);
+
+        FieldMetrics code = schema.getMetric("Code");
+        assertEquals(7, code.getUniqueValues());
+        assertEquals("C0", code.getTopValues(3).keySet().iterator().next());
+        assertEquals(3, code.getTopValues(3).size());
+        assertEquals(2, code.getStringLengthQuantile(0.5));
+        assertTrue(Double.isNaN(code.getNumericQuantile(0.5)));
+    }
+
+
+    @Test
+    public void exact() {
+        DataSetMetrics schema = new DataSetMetrics();
+        schema.setEstimation(true, 0.01, 0);
+        sample(schema, 1000);
+
+        FieldMetrics id = schema.getMetric("Id");
+        assertTrue(id.isExact());
+        assertEquals(1000, id.getUniqueValues());
+        assertEquals(0, id.getUniqueValuesError());
+        assertEquals(0, id.getQuantileError());
+        assertEquals(499, id.getNumericQuantile(0.5));
+        assertEquals(1000, schema.getMetric("Code").getTopValues(10).values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(0.001F, id.getCoincidence(), 0.0001F);
+    }
+
+
+    /**
+     * Ids are unique and codes repeat, C0 most often.
+     */
+    private static void sample(DataSetMetrics schema, int count) {
+        for (int x = 0; x < count; x++) {
+            schema.sample(new DataFrame() //
+                    .set("Id", x) //
+                    .set("Code", "C" + ((x % 3 == 0) ? 0 : x % 7)));
+        }
+    }
+
+}
@@ -0,0 +1,255 @@
+package coyote.commons.rtw;
+
+import coyote.commons.cfg.Config;
+import coyote.commons.dataframe.DataFrame;
+import coyote.commons.dataframe.marshal.JSONMarshaler;
+import coyote.commons.rtw.context.ContextKey;
+import coyote.commons.rtw.context.TransactionContext;
+import coyote.commons.rtw.reader.AbstractFrameReader;
+import coyote.commons.rtw.transform.AbstractFrameTransform;
+import coyote.commons.rtw.transform.Counter;
+import coyote.commons.rtw.writer.AbstractFrameWriter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelPipelineTest {
+
+    private static final int FRAMES = 500;
+
+
+    private TransformEngine createEngine(Config parallel, CollectingWriter writer, FrameTransform... transforms) {
+        TransformEngine engine = new DefaultTransformEngine();
+        engine.setName("ParallelTest");
+        engine.setReader(new SequenceReader(FRAMES));
+        for (FrameTransform transform : transforms) {
+            engine.addTransformer(transform);
+        }
+        engine.addWriter(writer);
+        engine.setParallel(parallel);
+        return engine;
+    }
+
+
+    @Test
+    public void orderedWrites() throws Exception {
+        Config cfg = new Config();
+        cfg.put("workers", 4);
+        cfg.put("queue", 16);
+        CollectingWriter writer = new CollectingWriter();
+        TransformEngine engine = createEngine(cfg, writer, new SlowTransform());
+        engine.contextInit();
+        engine.run();
+
+        assertFalse(engine.getContext().isInError(), engine.getContext().getErrorMessage());
+        assertEquals(FRAMES, writer.frames.size());
+        for (int x = 0; x < FRAMES; x++) {
+            assertEquals(x, writer.frames.get(x).getAsInt("seq"));
+            assertTrue(writer.frames.get(x).getAsBoolean("slow"));
+        }
+        assertNotNull(engine.getContext().get(ContextKey.PIPELINE_METRICS));
+        engine.close();
+    }
+
+
+    @Test
+    public void unorderedWrites() throws Exception {
+        Config cfg = new Config();
+        cfg.put("workers", 4);
+        cfg.put("ordered", false);
+        CollectingWriter writer = new CollectingWriter();
+        TransformEngine engine = createEngine(cfg, writer, new SlowTransform());
+        engine.contextInit();
+        engine.run();
+
+        assertFalse(engine.getContext().isInError());
+        assertEquals(FRAMES, writer.frames.size());
+        Set<Integer> seen = new HashSet<>();
+        for (DataFrame frame : writer.frames) {
+            seen.add(frame.getAsInt("seq"));
+        }
+        assertEquals(FRAMES, seen.size());
+        engine.close();
+    }
+
+
+    @Test
+    public void singleThreadedComponents() throws Exception {
+        Config cfg = new Config();
+        cfg.put("workers", 8);
+        CollectingWriter writer = new CollectingWriter();
+        ThreadRecorder recorder = new ThreadRecorder();
+        TransformEngine engine = createEngine(cfg, writer, new SlowTransform(), recorder);
+        engine.contextInit();
+        engine.run();
+
+        assertFalse(engine.getContext().isInError());
+        assertEquals(FRAMES, writer.frames.size());
+        assertEquals(1, recorder.threads.size());
+        assertEquals(FRAMES, recorder.calls);
+        engine.close();
+    }
+
+
+    @Test
+    public void confinedComponentsSeeTheirOwnTransaction() throws Exception {
+        Config cfg = new Config();
+        cfg.put("workers", 4);
+        cfg.put("queue", 16);
+        Config counterCfg = new Config();
+        counterCfg.put(ConfigTag.FIELD, "count");
+        counterCfg.put(ConfigTag.CONDITION, "islast");
+        Counter counter = new PassingCounter();
+        counter.setConfiguration(counterCfg);
+        CollectingWriter writer = new CollectingWriter();
+        RowChecker worker = new RowChecker();
+        RowChecker confined = new ConfinedRowChecker();
+        TransformEngine engine = createEngine(cfg, writer, new SlowTransform(), worker, counter, confined);
+        engine.contextInit();
+        engine.run();
+
+        assertFalse(engine.getContext().isInError(), engine.getContext().getErrorMessage());
+        assertEquals(FRAMES, writer.frames.size());
+        for (int x = 0; x < FRAMES; x++) {
+            assertEquals(x == FRAMES - 1, writer.frames.get(x).contains("count"), "frame " + x);
+        }
+        assertEquals(FRAMES, worker.checked.get());
+        assertEquals(0, worker.mismatches.get());
+        assertEquals(FRAMES, confined.checked.get());
+        assertEquals(0, confined.mismatches.get());
+        assertEquals(FRAMES, ((Number) engine.getContext().getSymbols().get(Symbols.CURRENT_FRAME)).intValue());
+        engine.close();
+    }
+
+
+    @Test
+    public void factoryConfiguration() {
+        String json = "{\"parallel\": {\"workers\": 2, \"queue\": 8, \"ordered\": true}}";
+        DataFrame cfg = JSONMarshaler.marshal(json).get(0);
+        TransformEngine engine = TransformEngineFactory.getInstance(cfg);
+        assertNotNull(engine);
+
+        json = "{\"parallel\": \"fast\"}";
+        DataFrame badcfg = JSONMarshaler.marshal(json).get(0);
+        assertThrows(RTWConfigurationException.class, () -> TransformEngineFactory.getInstance(badcfg));
+    }
+
+
+
+
+    /**
+     * Generates a fixed number of frames with a sequence number.
+     */
+    private static class SequenceReader extends AbstractFrameReader {
+        private final int limit;
+        private int count = 0;
+
+        SequenceReader(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public DataFrame read(TransactionContext context) {
+            DataFrame retval = new DataFrame().set("seq", count++);
+            context.setLastFrame(count >= limit);
+            return retval;
+        }
+
+        @Override
+        public boolean eof() {
+            return count >= limit;
+        }
+    }
+
+
+    /**
+     * Simulates a CPU bound transform taking a variable amount of time.
+     */
+    private static class SlowTransform extends AbstractFrameTransform {
+        @Override
+        public DataFrame process(DataFrame frame) {
+            long end = System.nanoTime() + ThreadLocalRandom.current().nextInt(50_000);
+            while (System.nanoTime() < end) {
+                Thread.yield();
+            }
+            frame.put("slow", true);
+            return frame;
+        }
+    }
+
+
+    /**
+     * Records the threads on which it was called; not safe for concurrent use.
+     */
+    private static class ThreadRecorder extends AbstractFrameTransform implements SingleThreaded {
+        final Set<String> threads = new HashSet<>();
+        int calls = 0;
+
+        @Override
+        public DataFrame process(DataFrame frame) {
+            threads.add(Thread.currentThread().getName());
+            calls++;
+            return frame;
+        }
+    }
+
+
+    /**
+     * Counts the frames whose sequence does not match the row and frame
+     * symbol the context gives the thread processing them, or which cannot see
+     * the symbols of the engine.
+     */
+    private static class RowChecker extends AbstractFrameTransform {
+        final AtomicInteger checked = new AtomicInteger();
+        final AtomicInteger mismatches = new AtomicInteger();
+
+        @Override
+        public DataFrame process(DataFrame frame) {
+            long row = ((Number) frame.getObject("seq")).longValue() + 1;
+            Object symbol = getContext().getSymbols().get(Symbols.CURRENT_FRAME);
+            if (getContext().getRow() != row || !(symbol instanceof Number) || ((Number) symbol).longValue() != row
+                    || getContext().getTransaction().getWorkingFrame() != frame
+                    || !"ParallelTest".equals(getContext().getSymbols().getString(Symbols.JOB_NAME))) {
+                mismatches.incrementAndGet();
+            }
+            checked.incrementAndGet();
+            return frame;
+        }
+    }
+
+
+    /**
+     * A counter which passes on the frames its condition rejects rather than
+     * dropping them.
+     */
+    private static class PassingCounter extends Counter {
+        @Override
+        public DataFrame process(DataFrame frame) throws TransformException {
+            DataFrame retval = super.process(frame);
+            return (retval != null) ? retval : frame;
+        }
+    }
+
+
+    private static class ConfinedRowChecker extends RowChecker implements SingleThreaded {
+    }
+
+
+    private static class CollectingWriter extends AbstractFrameWriter {
+        final List<DataFrame> frames = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void write(DataFrame frame) {
+            frames.add(frame);
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+package coyote.commons.rtw.aggregate;
+
+import coyote.commons.cfg.Config;
+import coyote.commons.dataframe.DataFrame;
+import coyote.commons.rtw.ConfigTag;
+import coyote.commons.rtw.context.TransactionContext;
+import coyote.commons.rtw.context.TransformContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Sorts and groups ten times more frames than the memory budget allows,
+ * checking the results match those produced in memory.
+ */
+public class SpillingAggregatorTest {
+
+    private static final String BUDGET = "16K";
+
+    @TempDir
+    File directory;
+
+
+    @Test
+    public void sortsTenTimesTheBudget() throws Exception {
+        final List<DataFrame> frames = frames(500);
+        assertTrue(encodedSize(frames) >= 10 * FrameSorter.parseSize(BUDGET));
+
+        final DataFrame cfg = new DataFrame().set(ConfigTag.FIELD, "Symbol").set(ConfigTag.MODE, "descend");
+        final List<DataFrame> expected = aggregate(new Sort(), cfg, frames);
+
+        final Sort sort = new Sort();
+        final List<DataFrame> spilled = aggregate(sort, spilling(cfg), frames);
+        assertTrue(directory.list().length >= 10, "frames were not spilled");
+        assertSameFrames(expected, spilled);
+        for (int x = 1; x < spilled.size(); x++) {
+            assertTrue(spilled.get(x - 1).getAsString("Symbol").compareTo(spilled.get(x).getAsString("Symbol")) >= 0);
+        }
+
+        sort.close();
+        assertEquals(0, directory.list().length);
+    }
+
+
+    @Test
+    public void groupsTenTimesTheBudget() throws Exception {
+        final List<DataFrame> frames = frames(40);
+
+        // the frames of each key in the order first seen
+        DataFrame cfg = new DataFrame().set("Key", "Symbol");
+        assertSameFrames(aggregate(new Grouping(), cfg, frames), aggregate(new Grouping(), spilling(cfg), frames));
+
+        // sorted by key, keeping only the last few of each
+        cfg = new DataFrame().set("Key", "Symbol").set(ConfigTag.SORT, "ascend_ci").set(ConfigTag.LIMIT, 7);
+        final List<DataFrame> expected = aggregate(new Grouping(), cfg, frames);
+        assertEquals(2 * 40 * 7, expected.size());
+        assertSameFrames(expected, aggregate(new Grouping(), spilling(cfg), frames));
+    }
+
+
+    @Test
+    public void parsesSizes() {
+        assertEquals(0, FrameSorter.parseSize(" "));
+        assertEquals(512, FrameSorter.parseSize("512"));
+        assertEquals(16 * 1024, FrameSorter.parseSize("16k"));
+        assertEquals(64L * 1024 * 1024, FrameSorter.parseSize("64MB"));
+        assertEquals(2L * 1024 * 1024 * 1024, FrameSorter.parseSize("2G"));
+        assertThrows(NumberFormatException.class, () -> FrameSorter.parseSize("lots"));
+    }
+
+
+    /**
+     * @return a copy of the configuration with the memory budget
+     */
+    private DataFrame spilling(final DataFrame cfg) {
+        return ((DataFrame) cfg.clone()).set(ConfigTag.MEMORY, BUDGET).set(ConfigTag.DIRECTORY, directory.getAbsolutePath());
+    }
+
+
+    /**
+     * Frames in a random order with repeated symbols, numbered in order.
+     */
+    private static List<DataFrame> frames(final int symbols) {
+        final Random random = new Random(11);
+        final List<DataFrame> retval = new ArrayList<>();
+        for (int x = 0; x < 2000; x++) {
+            retval.add(new DataFrame() //
+                    .set("Seq", x) //
+                    .set("Symbol", ((x & 1) == 0 ? "sym" : "SYM") + random.nextInt(symbols)) //
+                    .set("Price", random.nextDouble() * 100) //
+                    .set("Note", "a note long enough to make the frame take some room"));
+        }
+        return retval;
+    }
+
+
+    private static long encodedSize(final List<DataFrame> frames) {
+        long retval = 0;
+        for (final DataFrame frame : frames) {
+            retval += frame.getBytes().length;
+        }
+        return retval;
+    }
+
+
+    /**
+     * Pass the frames through a newly configured aggregator one at a time, as
+     * the engine does.
+     */
+    private static List<DataFrame> aggregate(final AbstractFrameAggregator aggregator, final DataFrame cfg, final List<DataFrame> frames) throws Exception {
+        aggregator.setConfiguration(new Config(cfg));
+        final TransformContext context = new TransformContext();
+        aggregator.open(context);
+        final TransactionContext txnContext = new TransactionContext(context);
+        List<DataFrame> retval = null;
+        for (int x = 0; x < frames.size(); x++) {
+            txnContext.setLastFrame(x == frames.size() - 1);
+            retval = aggregator.process(Collections.singletonList(frames.get(x)), txnContext);
+            assertFalse(txnContext.isInError(), txnContext.getErrorMessage());
+        }
+        return retval;
+    }
+
+
+    private static void assertSameFrames(final List<DataFrame> expected, final List<DataFrame> actual) {
+        assertEquals(expected.size(), actual.size());
+        int x = 0;
+        for (final DataFrame frame : actual) {
+            assertEquals(expected.get(x).getAsString("Seq"), frame.getAsString("Seq"), "frame " + x);
+            assertEquals(expected.get(x).getAsString("Symbol"), frame.getAsString("Symbol"), "frame " + x);
+            x++;
+        }
+    }
+
+}
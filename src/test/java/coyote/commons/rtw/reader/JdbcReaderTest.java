@@ -25,6 +25,9 @@ import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -184,4 +187,199 @@ public class JdbcReaderTest {
     }
   }
 
+  @Test
+  public void streamsLargeResults() throws Exception {
+    assertEquals(20000, readAll(new DataFrame() //
+        .set(ConfigTag.SOURCE, "jdbc:h2:mem:streaming") //
+        .set(ConfigTag.DRIVER, JDBC_DRIVER) //
+        .set(ConfigTag.USERNAME, USER) //
+        .set(ConfigTag.PASSWORD, PASS) //
+        .set(ConfigTag.FETCH_SIZE, 100) //
+        .set(ConfigTag.QUERY, "SELECT X, 'row ' || X AS LABEL FROM SYSTEM_RANGE(1, 20000)")));
+  }
+
+
+
+
+  @Test
+  public void streamsWithACursor() throws Exception {
+    assertEquals(500, readAll(new DataFrame() //
+        .set(ConfigTag.SOURCE, "jdbc:h2:mem:cursor") //
+        .set(ConfigTag.DRIVER, JDBC_DRIVER) //
+        .set(ConfigTag.USERNAME, USER) //
+        .set(ConfigTag.PASSWORD, PASS) //
+        .set(ConfigTag.CURSOR, true) //
+        .set(ConfigTag.QUERY, "SELECT X FROM SYSTEM_RANGE(1, 500)")));
+  }
+
+
+
+
+  @Test
+  public void readsEmptyResults() throws Exception {
+    assertEquals(0, readAll(new DataFrame() //
+        .set(ConfigTag.SOURCE, "jdbc:h2:mem:empty") //
+        .set(ConfigTag.DRIVER, JDBC_DRIVER) //
+        .set(ConfigTag.USERNAME, USER) //
+        .set(ConfigTag.PASSWORD, PASS) //
+        .set(ConfigTag.QUERY, "SELECT X FROM SYSTEM_RANGE(1, 0)")));
+  }
+
+
+
+
+  @Test
+  public void readsPartitionsByRange() throws Exception {
+    final TransformContext context = new TransformContext();
+    assertEquals(5000, readPartitions(context, new DataFrame() //
+        .set(ConfigTag.SOURCE, "jdbc:h2:mem:ranges") //
+        .set(ConfigTag.DRIVER, JDBC_DRIVER) //
+        .set(ConfigTag.USERNAME, USER) //
+        .set(ConfigTag.PASSWORD, PASS) //
+        .set(ConfigTag.PARTITIONS, 4) //
+        .set(ConfigTag.PARTITION_COLUMN, "X") //
+        .set(ConfigTag.QUERY, "SELECT X, 'row ' || X AS LABEL FROM SYSTEM_RANGE(1, 5000)")));
+    long total = 0;
+    for (int x = 0; x < 4; x++) {
+      total += (Long)context.get("JdbcReader.Partition." + x);
+    }
+    assertEquals(5000, total);
+
+    // given bounds narrower than the keys still read every row
+    assertEquals(5000, readPartitions(new TransformContext(), new DataFrame() //
+        .set(ConfigTag.SOURCE, "jdbc:h2:mem:ranges") //
+        .set(ConfigTag.DRIVER, JDBC_DRIVER) //
+        .set(ConfigTag.USERNAME, USER) //
+        .set(ConfigTag.PASSWORD, PASS) //
+        .set(ConfigTag.PARTITIONS, 3) //
+        .set(ConfigTag.PARTITION_COLUMN, "X") //
+        .set(ConfigTag.LOWER_BOUND, "1000") //
+        .set(ConfigTag.UPPER_BOUND, "2000") //
+        .set(ConfigTag.QUERY, "SELECT X FROM SYSTEM_RANGE(1, 5000)")));
+  }
+
+
+
+
+  @Test
+  public void readsPartitionsByModulo() throws Exception {
+    assertEquals(5000, readPartitions(new TransformContext(), new DataFrame() //
+        .set(ConfigTag.SOURCE, "jdbc:h2:mem:modulo") //
+        .set(ConfigTag.DRIVER, JDBC_DRIVER) //
+        .set(ConfigTag.USERNAME, USER) //
+        .set(ConfigTag.PASSWORD, PASS) //
+        .set(ConfigTag.PARTITIONS, 3) //
+        .set(ConfigTag.PARTITION_COLUMN, "X") //
+        .set(ConfigTag.PARTITION_MODE, "modulo") //
+        .set(ConfigTag.FETCH_SIZE, 100) //
+        .set(ConfigTag.QUERY, "SELECT X FROM SYSTEM_RANGE(1, 5000)")));
+  }
+
+
+
+
+  @Test
+  public void readsEmptyPartitions() throws Exception {
+    assertEquals(0, readPartitions(new TransformContext(), new DataFrame() //
+        .set(ConfigTag.SOURCE, "jdbc:h2:mem:nopartitions") //
+        .set(ConfigTag.DRIVER, JDBC_DRIVER) //
+        .set(ConfigTag.USERNAME, USER) //
+        .set(ConfigTag.PASSWORD, PASS) //
+        .set(ConfigTag.PARTITIONS, 4) //
+        .set(ConfigTag.PARTITION_COLUMN, "X") //
+        .set(ConfigTag.QUERY, "SELECT X FROM SYSTEM_RANGE(1, 0)")));
+  }
+
+
+
+
+  @Test
+  public void closesPartitionsEarly() throws Exception {
+    final TransformContext context = new TransformContext();
+    final JdbcReader reader = new JdbcReader();
+    reader.setConfiguration(new Config(new DataFrame() //
+        .set(ConfigTag.SOURCE, "jdbc:h2:mem:earlyclose") //
+        .set(ConfigTag.DRIVER, JDBC_DRIVER) //
+        .set(ConfigTag.USERNAME, USER) //
+        .set(ConfigTag.PASSWORD, PASS) //
+        .set(ConfigTag.PARTITIONS, 4) //
+        .set(ConfigTag.PARTITION_COLUMN, "X") //
+        .set(ConfigTag.QUERY, "SELECT X FROM SYSTEM_RANGE(1, 1000000)")));
+    reader.open(context);
+    assertNotNull(reader.read(new TransactionContext(context)));
+
+    final long start = System.nanoTime();
+    reader.close();
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "close waited for the partitions to time out");
+    for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith(JdbcReader.class.getSimpleName() + "-")) {
+        // the pool has terminated, its threads may only be exiting
+        thread.join(1000);
+        assertFalse(thread.isAlive(), thread.getName() + " still running");
+      }
+    }
+  }
+
+
+
+
+  /**
+   * Read every frame of a partitioned reader, which come in no particular
+   * order, checking each key is read once.
+   */
+  private static int readPartitions(final TransformContext context, final DataFrame cfg) throws Exception {
+    final JdbcReader reader = new JdbcReader();
+    try {
+      reader.setConfiguration(new Config(cfg));
+      reader.open(context);
+      assertFalse(context.isInError(), context.getErrorMessage());
+
+      final TransactionContext txncontext = new TransactionContext(context);
+      final Set<String> keys = new HashSet<>();
+      while (!reader.eof()) {
+        final DataFrame frame = reader.read(txncontext);
+        assertNotNull(frame);
+        assertTrue(keys.add(frame.getObject("X").toString()));
+        assertEquals(reader.eof(), txncontext.isLastFrame());
+      }
+      assertFalse(context.isInError(), context.getErrorMessage());
+      for (int x = 1; x <= keys.size(); x++) {
+        assertTrue(keys.contains(String.valueOf(x)));
+      }
+      return keys.size();
+    } finally {
+      reader.close();
+    }
+  }
+
+
+
+
+  /**
+   * Read every frame the configured reader produces, checking only the last
+   * is marked as the last frame.
+   */
+  private static int readAll(final DataFrame cfg) throws Exception {
+    final JdbcReader reader = new JdbcReader();
+    try {
+      reader.setConfiguration(new Config(cfg));
+      final TransformContext context = new TransformContext();
+      reader.open(context);
+      assertFalse(context.isInError(), context.getErrorMessage());
+
+      final TransactionContext txncontext = new TransactionContext(context);
+      int count = 0;
+      while (!reader.eof()) {
+        final DataFrame frame = reader.read(txncontext);
+        assertNotNull(frame);
+        count++;
+        assertEquals(reader.eof(), txncontext.isLastFrame());
+        assertEquals(String.valueOf(count), frame.getObject("X").toString());
+      }
+      return count;
+    } finally {
+      reader.close();
+    }
+  }
+
 }
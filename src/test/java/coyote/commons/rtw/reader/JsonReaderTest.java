@@ -0,0 +1,154 @@
+package coyote.commons.rtw.reader;
+
+import coyote.commons.FileUtil;
+import coyote.commons.cfg.Config;
+import coyote.commons.dataframe.DataFrame;
+import coyote.commons.rtw.ConfigTag;
+import coyote.commons.rtw.RTW;
+import coyote.commons.rtw.context.TransactionContext;
+import coyote.commons.rtw.context.TransformContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonReaderTest {
+    private static final int RECORDS = 1000;
+
+    private File testDir;
+    private File source;
+
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        testDir = Files.createTempDirectory("jrt").toFile();
+        source = new File(testDir, "export.json");
+        try (Writer writer = Files.newBufferedWriter(source.toPath(), StandardCharsets.ISO_8859_1)) {
+            writer.write("[\n");
+            for (int x = 0; x < RECORDS; x++) {
+                if (x > 0) writer.write(",\n");
+                writer.write("{\"id\":" + x + ",\"name\":\"Record " + x + "\",\"address\":{\"city\":\"Town " + x + "\"}}");
+            }
+            writer.write("\n]");
+        }
+    }
+
+
+    @AfterEach
+    public void tearDown() {
+        FileUtil.deleteDirectory(testDir);
+    }
+
+
+    private List<DataFrame> readAll(DataFrame cfg) throws Exception {
+        JsonReader reader = new JsonReader();
+        reader.setConfiguration(new Config(cfg.set(ConfigTag.SOURCE, source.getAbsolutePath())));
+        TransformContext context = new TransformContext();
+        reader.open(context);
+        assertFalse(context.isInError(), context.getErrorMessage());
+
+        List<DataFrame> retval = new ArrayList<>();
+        TransactionContext txnContext = new TransactionContext(context);
+        while (!reader.eof()) {
+            retval.add(reader.read(txnContext));
+        }
+        assertTrue(txnContext.isLastFrame());
+        reader.close();
+        return retval;
+    }
+
+
+    @Test
+    public void streamSelected() throws Exception {
+        List<DataFrame> frames = readAll(new DataFrame().set(ConfigTag.SELECTOR, "*"));
+        assertEquals(RECORDS, frames.size());
+        for (int x = 0; x < RECORDS; x++) {
+            DataFrame frame = frames.get(x);
+            assertEquals(x, frame.getAsInt("id"));
+            assertEquals("Town " + x, frame.getAsString("address.city"));
+            assertEquals("[" + x + "]", frame.getAsString(RTW.DEFAULT_FRAMEPATH_NAME));
+        }
+    }
+
+
+    @Test
+    public void sameAsPreload() throws Exception {
+        for (String pattern : new String[]{"*", "*.address", ">"}) {
+            List<DataFrame> streamed = readAll(new DataFrame().set(ConfigTag.SELECTOR, pattern).set(ConfigTag.FLATTEN, false));
+            List<DataFrame> preloaded = readAll(new DataFrame().set(ConfigTag.SELECTOR, pattern).set(ConfigTag.FLATTEN, false).set(ConfigTag.PRELOAD, true));
+            assertEquals(preloaded.size(), streamed.size());
+            for (int x = 0; x < streamed.size(); x++) {
+                assertEquals(preloaded.get(x).toString(), streamed.get(x).toString());
+            }
+        }
+    }
+
+
+    @Test
+    public void sameAsPreloadForEveryRootValue() throws Exception {
+        String data = "{\"group\":\"a\",\"items\":[{\"id\":1},{\"id\":2,\"tags\":{}}]}\n"
+                + "[{\"id\":3},{\"id\":4,\"child\":{\"id\":5}}]\n"
+                + "{\"group\":\"b\",\"items\":[{\"id\":6}]}";
+        Files.write(source.toPath(), data.getBytes(StandardCharsets.ISO_8859_1));
+        for (String pattern : new String[]{"*", "items.*", "items.*.tags", ">", "[1].child"}) {
+            List<DataFrame> streamed = readAll(new DataFrame().set(ConfigTag.SELECTOR, pattern));
+            List<DataFrame> preloaded = readAll(new DataFrame().set(ConfigTag.SELECTOR, pattern).set(ConfigTag.PRELOAD, true));
+            assertFalse(streamed.isEmpty(), pattern);
+            assertEquals(preloaded.size(), streamed.size(), pattern);
+            for (int x = 0; x < streamed.size(); x++) {
+                assertEquals(preloaded.get(x).toString(), streamed.get(x).toString(), pattern);
+            }
+        }
+        assertEquals(3, readAll(new DataFrame().set(ConfigTag.SELECTOR, "items.*").set(ConfigTag.PRELOAD, true)).size());
+    }
+
+
+    @Test
+    public void emptySource() throws Exception {
+        Files.write(source.toPath(), new byte[0]);
+        for (boolean preload : new boolean[]{false, true}) {
+            JsonReader reader = new JsonReader();
+            reader.setConfiguration(new Config(new DataFrame().set(ConfigTag.SOURCE, source.getAbsolutePath()).set(ConfigTag.SELECTOR, "*").set(ConfigTag.PRELOAD, preload)));
+            TransformContext context = new TransformContext();
+            reader.open(context);
+            assertFalse(context.isInError(), context.getErrorMessage());
+            assertTrue(reader.eof());
+            reader.close();
+        }
+    }
+
+
+    @Test
+    public void noSelector() throws Exception {
+        List<DataFrame> frames = readAll(new DataFrame());
+        assertEquals(1, frames.size());
+        assertEquals(RECORDS * 3, frames.get(0).size());
+    }
+
+
+    @Test
+    public void malformed() throws Exception {
+        Files.write(source.toPath(), "[{\"id\":0},{\"id\":1} {\"id\":2}]".getBytes(StandardCharsets.ISO_8859_1));
+        JsonReader reader = new JsonReader();
+        reader.setConfiguration(new Config(new DataFrame().set(ConfigTag.SOURCE, source.getAbsolutePath()).set(ConfigTag.SELECTOR, "*")));
+        TransformContext context = new TransformContext();
+        reader.open(context);
+        TransactionContext txnContext = new TransactionContext(context);
+        assertNotNull(reader.read(txnContext));
+        assertFalse(context.isInError());
+        assertNotNull(reader.read(txnContext));
+        assertTrue(context.isInError());
+        assertTrue(reader.eof());
+        reader.close();
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ *
+ */
+package coyote.commons.rtw.writer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import coyote.commons.cfg.Config;
+import coyote.commons.dataframe.DataFrame;
+import coyote.commons.rtw.ConfigTag;
+import coyote.commons.rtw.context.TransformContext;
+
+
+/**
+ * Measures writing rows to an H2 table through a {@link JdbcWriter} in each
+ * of its batch modes.
+ *
+ * <p>Each operation opens a writer, writes {@code ROWS} rows in batches of
+ * {@code BATCH} and closes it. {@code batch} is the original JDBC batch,
+ * {@code multirow} inserts each batch with multi-row INSERT statements and
+ * the {@code pipeline} modes write batches on a background thread:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main JdbcWriterBenchmark</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JdbcWriterBenchmark {
+
+  private static final String URL = "jdbc:h2:mem:writerbench;DB_CLOSE_DELAY=-1";
+  private static final int ROWS = 10000;
+  private static final int BATCH = 500;
+
+  @Param({"batch", "multirow", "pipeline", "multirow-pipeline"})
+  String mode;
+
+  private final DataFrame[] frames = new DataFrame[ROWS];
+  private Connection connection;
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() throws SQLException {
+    for (int x = 0; x < ROWS; x++) {
+      frames[x] = new DataFrame().set("ID", x).set("NAME", "name " + x).set("AMOUNT", x * 1.5d).set("ACTIVE", (x & 1) == 0);
+    }
+    // keeps the database open between writers
+    connection = DriverManager.getConnection(URL, "sa", "");
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("CREATE SCHEMA IF NOT EXISTS BENCH");
+      stmt.execute("CREATE TABLE IF NOT EXISTS BENCH.ROWS (ID INT, NAME VARCHAR(32), AMOUNT DOUBLE, ACTIVE BOOLEAN)");
+    }
+  }
+
+
+
+
+  @TearDown(Level.Iteration)
+  public void truncate() throws SQLException {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("TRUNCATE TABLE BENCH.ROWS");
+    }
+  }
+
+
+
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("DROP TABLE BENCH.ROWS");
+    }
+    connection.close();
+  }
+
+
+
+
+  @Benchmark
+  public TransformContext write() throws Exception {
+    final DataFrame cfg = new DataFrame() //
+        .set(ConfigTag.TARGET, URL) //
+        .set(ConfigTag.DRIVER, "org.h2.Driver") //
+        .set(ConfigTag.USERNAME, "sa") //
+        .set(ConfigTag.PASSWORD, "") //
+        .set(ConfigTag.SCHEMA, "BENCH") //
+        .set(ConfigTag.TABLE, "ROWS") //
+        .set(ConfigTag.BATCH, BATCH) //
+        .set(ConfigTag.MULTIROW, mode.startsWith("multirow")) //
+        .set(ConfigTag.PIPELINE, mode.endsWith("pipeline") ? 2 : 0);
+    final TransformContext context = new TransformContext();
+    final JdbcWriter writer = new JdbcWriter();
+    writer.setConfiguration(new Config(cfg));
+    writer.open(context);
+    for (final DataFrame frame : frames) {
+      writer.write(frame);
+    }
+    writer.close();
+    if (context.isInError()) {
+      throw new IllegalStateException(context.getErrorMessage());
+    }
+    return context;
+  }
+
+}
@@ -15,11 +15,18 @@ import coyote.commons.dataframe.marshal.JSONMarshaler;
 import coyote.commons.log.ConsoleAppender;
 import coyote.commons.log.Log;
 import coyote.commons.rtw.ConfigTag;
+import coyote.commons.rtw.context.TransformContext;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * 
@@ -137,4 +144,82 @@ public class JdbcWriterTest {
 
   }
 
+
+
+
+  @Test
+  public void writesMultiRowBatchesInTheBackground() throws Exception {
+    final String url = "jdbc:h2:mem:multirow;DB_CLOSE_DELAY=-1";
+    final TransformContext context = write(new DataFrame() //
+        .set(ConfigTag.TARGET, url) //
+        .set(ConfigTag.BATCH, 100) //
+        .set(ConfigTag.MULTIROW, true) //
+        .set(ConfigTag.AUTO_ADJUST, true) //
+        .set(ConfigTag.PIPELINE, 2), 2550, -1);
+    assertFalse(context.isInError(), context.getErrorMessage());
+
+    try (Connection conn = DriverManager.getConnection(url, USER, PASS); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*), SUM(ID), COUNT(DISTINCT NAME) FROM " + SCHEMA + "." + TABLE)) {
+      assertTrue(rs.next());
+      assertEquals(2550, rs.getLong(1));
+      assertEquals(2550L * 2549 / 2, rs.getLong(2));
+      assertEquals(2550, rs.getLong(3));
+    }
+  }
+
+
+
+
+  @Test
+  public void commitsEachBatch() throws Exception {
+    final String url = "jdbc:h2:mem:commits;DB_CLOSE_DELAY=-1";
+    try (Connection conn = DriverManager.getConnection(url, USER, PASS); Statement stmt = conn.createStatement()) {
+      stmt.execute("CREATE SCHEMA " + SCHEMA);
+      stmt.execute("CREATE TABLE " + SCHEMA + "." + TABLE + " (ID INT PRIMARY KEY, NAME VARCHAR(32))");
+    }
+
+    // the third batch repeats a key, failing however many times it is tried
+    final TransformContext context = write(new DataFrame() //
+        .set(ConfigTag.TARGET, url) //
+        .set(ConfigTag.BATCH, 100) //
+        .set(ConfigTag.PIPELINE, 1) //
+        .set(ConfigTag.RETRY, 1), 500, 250);
+    assertTrue(context.isInError());
+
+    try (Connection conn = DriverManager.getConnection(url, USER, PASS); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + SCHEMA + "." + TABLE)) {
+      assertTrue(rs.next());
+      assertEquals(200, rs.getLong(1));
+    }
+  }
+
+
+
+
+  /**
+   * Write numbered frames with a JDBC writer.
+   *
+   * @param cfg the configuration of the writer, less the connection details
+   * @param count the number of frames to write
+   * @param duplicate the number of the frame which repeats the key of the one before it, -1 for none
+   *
+   * @return the context the writer used
+   */
+  private static TransformContext write(final DataFrame cfg, final int count, final int duplicate) throws Exception {
+    cfg.set(ConfigTag.DRIVER, "org.h2.Driver") //
+        .set(ConfigTag.USERNAME, USER) //
+        .set(ConfigTag.PASSWORD, PASS) //
+        .set(ConfigTag.SCHEMA, SCHEMA) //
+        .set(ConfigTag.TABLE, TABLE) //
+        .set(ConfigTag.AUTO_CREATE, true);
+    final TransformContext context = new TransformContext();
+    final JdbcWriter writer = new JdbcWriter();
+    writer.setConfiguration(new Config(cfg));
+    writer.open(context);
+    assertFalse(context.isInError(), context.getErrorMessage());
+    for (int x = 0; x < count && context.isNotInError(); x++) {
+      writer.write(new DataFrame().set("ID", (x == duplicate) ? x - 1 : x).set("NAME", "name " + x));
+    }
+    writer.close();
+    return context;
+  }
+
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.security;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import coyote.commons.network.IpAddress;
+import coyote.commons.network.IpAddressException;
+import coyote.commons.network.IpNetwork;
+
+
+/**
+ * Measures checking requests from random addresses, some in limited
+ * networks, against the rate limiter and the operation frequency table it
+ * replaces, from one thread and from four sharing the same limiter:<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main RateLimiterBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@SuppressWarnings("deprecation")
+public class RateLimiterBenchmark {
+
+  private static final int NETWORKS = 8;
+
+  @Param({"100", "10000"})
+  int addresses;
+
+  private RateLimiter limiter;
+  private OperationFrequency frequency;
+  private IpAddress[] clients;
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() throws IpAddressException {
+    final Random random = new Random(7);
+    limiter = new RateLimiter();
+    frequency = new OperationFrequency();
+    for (int x = 0; x < NETWORKS; x++) {
+      final IpNetwork network = new IpNetwork("10." + x + ".0.0/16");
+      limiter.addNetwork(network, 10000, 1000);
+      frequency.addNetwork(network, Short.MAX_VALUE, 1000);
+    }
+    clients = new IpAddress[addresses];
+    for (int x = 0; x < addresses; x++) {
+      clients[x] = new IpAddress(((x % 4 == 0) ? 10 : 11 + random.nextInt(200)) + "." + random.nextInt(NETWORKS * 2) + "." + random.nextInt(256) + "." + random.nextInt(256));
+    }
+  }
+
+
+
+
+  @Benchmark
+  public boolean limiter() {
+    return limiter.check(clients[ThreadLocalRandom.current().nextInt(addresses)]);
+  }
+
+
+
+
+  @Benchmark
+  @Threads(4)
+  public boolean limiterShared() {
+    return limiter.check(clients[ThreadLocalRandom.current().nextInt(addresses)]);
+  }
+
+
+
+
+  @Benchmark
+  public boolean frequency() {
+    return frequency.check(clients[ThreadLocalRandom.current().nextInt(addresses)]);
+  }
+
+
+
+
+  @Benchmark
+  @Threads(4)
+  public boolean frequencyShared() {
+    return frequency.check(clients[ThreadLocalRandom.current().nextInt(addresses)]);
+  }
+
+}
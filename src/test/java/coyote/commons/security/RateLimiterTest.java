@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026 Stephan D. Cote' - All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the MIT License which accompanies this distribution, and is
+ * available at http://creativecommons.org/licenses/MIT/
+ */
+package coyote.commons.security;
+
+import coyote.commons.network.IpAddress;
+import coyote.commons.network.IpNetwork;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ *
+ */
+public class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(1000));
+    private final RateLimiter limiter = new RateLimiter(now::get);
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static int count(RateLimiter limiter, IpAddress addr, int requests) {
+        int retval = 0;
+        for (int x = 0; x < requests; x++) {
+            if (limiter.check(addr)) {
+                retval++;
+            }
+        }
+        return retval;
+    }
+
+    @Test
+    public void testBurstThenRefill() throws Exception {
+        IpAddress addr = new IpAddress("192.168.1.10");
+        limiter.setLimit(10);
+        limiter.setDuration(1000);
+
+        assertEquals(10, count(limiter, addr, 20));
+        assertFalse(limiter.check(addr));
+
+        // one request comes back every 100ms
+        advance(99);
+        assertFalse(limiter.check(addr));
+        advance(1);
+        assertTrue(limiter.check(addr));
+        assertFalse(limiter.check(addr));
+
+        advance(1000);
+        assertEquals(10, count(limiter, addr, 20));
+    }
+
+    @Test
+    public void testAddressesAreIndependent() throws Exception {
+        limiter.setLimit(3);
+        assertEquals(3, count(limiter, new IpAddress("10.0.0.1"), 5));
+        assertEquals(3, count(limiter, new IpAddress("10.0.0.2"), 5));
+        assertTrue(limiter.check(InetAddress.getByName("10.0.0.3")));
+        assertEquals(2, count(limiter, new IpAddress("10.0.0.3"), 5));
+        assertEquals(3, limiter.getAddressCount());
+    }
+
+    @Test
+    public void testAddressLimit() throws Exception {
+        IpAddress addr = new IpAddress("10.0.0.1");
+        limiter.setLimit(2);
+        limiter.addAddress(addr, 5, 1000);
+        assertEquals(5, count(limiter, addr, 10));
+        assertEquals(2, count(limiter, new IpAddress("10.0.0.2"), 10));
+
+        // the limit of the address outlives its requests
+        advance(10000);
+        limiter.check(new IpAddress("10.0.0.3"));
+        assertEquals(1, limiter.getAddressCount());
+        assertEquals(5, count(limiter, addr, 10));
+    }
+
+    @Test
+    public void testNetworkAggregate() throws Exception {
+        limiter.setLimit(4);
+        limiter.addNetwork(new IpNetwork("192.168.100.0/24"), 6, 1000);
+        assertEquals(1, limiter.getNetworkCount());
+
+        assertEquals(4, count(limiter, new IpAddress("192.168.100.1"), 10));
+        assertEquals(2, count(limiter, new IpAddress("192.168.100.2"), 10));
+        assertEquals(0, count(limiter, new IpAddress("192.168.100.3"), 10));
+        // outside the network only the limit of the address applies
+        assertEquals(4, count(limiter, new IpAddress("192.168.101.1"), 10));
+
+        advance(1000);
+        assertEquals(4, count(limiter, new IpAddress("192.168.100.3"), 10));
+    }
+
+    @Test
+    public void testIp6() throws Exception {
+        limiter.setLimit(2);
+        IpAddress network = new IpAddress(InetAddress.getByName("2001:db8::"));
+        IpAddress mask = new IpAddress(InetAddress.getByName("ffff:ffff::"));
+        limiter.addNetwork(new IpNetwork(network, mask), 3, 1000);
+        assertEquals(2, count(limiter, new IpAddress(InetAddress.getByName("2001:db8::1")), 5));
+        assertEquals(1, count(limiter, new IpAddress(InetAddress.getByName("2001:db8:0:1::2")), 5));
+        assertEquals(2, count(limiter, new IpAddress(InetAddress.getByName("2001:db9::1")), 5));
+        // the same low bits as an IPv4 address are a different address
+        assertEquals(2, count(limiter, new IpAddress("0.0.0.1"), 5));
+    }
+
+    @Test
+    public void testIdleAddressesExpire() throws Exception {
+        limiter.setLimit(5);
+        limiter.setDuration(500);
+        for (int x = 0; x < 100; x++) {
+            assertEquals(5, count(limiter, new IpAddress("10.0.1." + x), 5));
+        }
+        assertEquals(100, limiter.getAddressCount());
+
+        // not yet refilled
+        advance(400);
+        limiter.check(new IpAddress("10.0.2.1"));
+        assertEquals(101, limiter.getAddressCount());
+
+        advance(200);
+        limiter.check(new IpAddress("10.0.2.1"));
+        assertEquals(1, limiter.getAddressCount());
+
+        // far enough ahead to pass over the whole wheel
+        advance(TimeUnit.HOURS.toMillis(1));
+        limiter.check(new IpAddress("10.0.2.2"));
+        assertEquals(1, limiter.getAddressCount());
+    }
+
+    @Test
+    public void testLimits() {
+        assertEquals(RateLimiter.DEFAULT_LIMIT, limiter.getLimit());
+        assertEquals(RateLimiter.DEFAULT_DURATION, limiter.getDuration());
+        assertThrows(IllegalArgumentException.class, () -> limiter.setLimit(0));
+        assertThrows(IllegalArgumentException.class, () -> limiter.setDuration(0));
+    }
+
+    @Test
+    public void testConcurrentChecksNeverOverAdmit() throws Exception {
+        final IpAddress addr = new IpAddress("10.1.1.1");
+        limiter.setLimit(1000);
+        limiter.setDuration(1000);
+        final AtomicInteger allowed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int x = 0; x < 4; x++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int y = 0; y < 1000; y++) {
+                    if (limiter.check(addr)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(1000, allowed.get());
+    }
+
+}
@@ -0,0 +1,83 @@
+package coyote.commons.security.scanner;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link AnchorMatcher}.
+ */
+public class AnchorMatcherTest {
+
+    private static DetectionStrategy anchored(String... anchors) {
+        return new DetectionStrategy() {
+            @Override
+            public List<ScanIssue> analyze(String fileContent) {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public Collection<String> getAnchors() {
+                return Arrays.asList(anchors);
+            }
+        };
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet retval = new BitSet();
+        for (int index : indexes) {
+            retval.set(index);
+        }
+        return retval;
+    }
+
+    @Test
+    public void testOverlappingAnchors() {
+        AnchorMatcher matcher = new AnchorMatcher(Arrays.asList(anchored("he"), anchored("she"), anchored("his"), anchored("hers")));
+
+        assertEquals(bits(0, 1, 3), matcher.select("ushers"));
+        assertEquals(bits(2), matcher.select("this"));
+        assertEquals(bits(), matcher.select("hi s"));
+        assertEquals(bits(0, 1, 2, 3), matcher.select("shishers"));
+    }
+
+    @Test
+    public void testCaseIsIgnored() {
+        AnchorMatcher matcher = new AnchorMatcher(Arrays.asList(anchored("PRIVATE KEY"), anchored("secret")));
+
+        assertEquals(bits(0), matcher.select("-----BEGIN rsa Private Key-----"));
+        assertEquals(bits(1), matcher.select("SECRET=1"));
+    }
+
+    @Test
+    public void testStrategiesWithoutAnchorsAreAlwaysSelected() {
+        AnchorMatcher matcher = new AnchorMatcher(Arrays.asList(anchored(), anchored("token"), anchored("sécret"), anchored("")));
+
+        assertEquals(bits(0, 2, 3), matcher.select(""));
+        assertEquals(bits(0, 1, 2, 3), matcher.select("a token"));
+    }
+
+    @Test
+    public void testCharactersOutsideTheAlphabetBreakAnchors() {
+        AnchorMatcher matcher = new AnchorMatcher(Arrays.asList(anchored("secret")));
+
+        assertEquals(bits(), matcher.select("secéret"));
+        assertEquals(bits(0), matcher.select("ésecreté"));
+    }
+
+    @Test
+    public void testStrategiesWithAnchorsInCommon() {
+        AnchorMatcher matcher = new AnchorMatcher(Arrays.asList(anchored("secret", "pwd"), anchored("secret", "token")));
+
+        assertEquals(bits(0, 1), matcher.select("the secret"));
+        assertEquals(bits(0), matcher.select("pwd"));
+        assertEquals(bits(1), matcher.select("tokens"));
+    }
+
+}
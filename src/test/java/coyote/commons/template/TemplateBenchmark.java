@@ -0,0 +1,108 @@
+/*
+ *
+ */
+package coyote.commons.template;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures resolving a template by parsing its text on each call against
+ * resolving its compiled program.
+ *
+ * <p>The {@code parsed} benchmarks go through a new {@code Template} for
+ * each resolution as {@link Template#resolve(String, SymbolTable)} did
+ * before templates were compiled. The {@code compiled} benchmarks go through
+ * the program cache as the static methods do now.
+ *
+ * <p>Run with the GC profiler to see allocation per resolution
+ * ({@code gc.alloc.rate.norm}):<pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main TemplateBenchmark -prof gc</pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+
+  private static final String FIELD = "[#$Source.Name#]-[#$Source.Id#]";
+  private static final String METHOD = "Row [#$Id|000000#] for [#Helper.upper($Name)#] at [#Helper.path(data, out)#]";
+
+  private final SymbolTable symbols = new SymbolTable();
+
+
+
+
+  @Setup(Level.Trial)
+  public void setup() {
+    symbols.put("Source.Name", "Widget");
+    symbols.put("Source.Id", "42");
+    symbols.put("Id", 42);
+    symbols.put("Name", "Widget Assembly");
+    Template.putStatic("Helper", new Helper());
+  }
+
+
+
+
+  @Benchmark
+  public String parsedField() throws TemplateException {
+    return Template.convertToString(new Template(FIELD), symbols, null, false);
+  }
+
+
+
+
+  @Benchmark
+  public String compiledField() {
+    return Template.resolve(FIELD, symbols);
+  }
+
+
+
+
+  @Benchmark
+  public String parsedMethod() throws TemplateException {
+    return Template.convertToString(new Template(METHOD), symbols, null, false);
+  }
+
+
+
+
+  @Benchmark
+  public String compiledMethod() {
+    return Template.resolve(METHOD, symbols);
+  }
+
+
+
+
+  public static class Helper {
+    public String upper(final String text) {
+      return text.toUpperCase();
+    }
+
+
+
+
+    public String path(final String dir, final String name) {
+      return dir + "/" + name;
+    }
+  }
+
+}
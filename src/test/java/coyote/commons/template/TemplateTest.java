@@ -16,6 +16,13 @@ package coyote.commons.template;
 
 import java.net.URI;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import coyote.commons.UriUtil;
 import coyote.commons.CipherUtil;
@@ -274,6 +281,144 @@ public class TemplateTest {
 
   }
 
+
+
+  /**
+   * Compiled templates must resolve exactly as the text parsed on each call.
+   */
+  @Test
+  public void compiledMatchesParsed() throws TemplateException {
+    Template.putStatic("Thing", new Thing());
+    String[] texts = {
+        "",
+        "plain text",
+        "[#$Greeting#] [#$One|0.0#] [#$Missing#] [#$Missing|0.00#]",
+        "[#$Greeting #] [# $One#] [#$#]",
+        "[#Thing.hello()#] [#Thing.tupper(\"Boo\")#] [#Thing.tupper($Greeting)#]",
+        "[#Thing.tupper(hello, something)#] [#NoThing.hello()#] [#Thing#]",
+        "[#hello()#] after a bad call",
+        "[#$Greeting#] unterminated [#$One",
+        "[##] [#Thing.hello() $Greeting#]"
+    };
+    for (String text : texts) {
+      for (boolean preprocess : new boolean[]{false, true}) {
+        String expected = Template.convertToString(new Template(text), symbols, null, preprocess);
+        assertEquals(expected, Template.compile(text).resolve(symbols, null, preprocess), text);
+      }
+    }
+  }
+
+
+
+
+  @Test
+  public void compiledCache() {
+    String text = "[#$Greeting#] again";
+    CompiledTemplate program = Template.compile(text);
+    assertSame(program, Template.compile(text));
+    assertEquals("Hello World! again", program.resolve(symbols, null, false));
+
+    Template.putStatic("Thing", new Thing());
+    Hashtable<String, Object> cache = new Hashtable<String, Object>();
+    cache.put("Thing", new Thing2());
+    program = Template.compile("[#Thing.hello()#]");
+    assertEquals("Hello2", program.resolve(symbols, cache, false));
+    assertEquals("Hello", program.resolve(symbols, null, false));
+    assertEquals("Hello2", program.resolve(symbols, cache, false));
+
+    // a program used since the clock last passed gets one more turn
+    for (int x = 0; x <= 2 * Template.PROGRAM_CACHE_SIZE; x++) {
+      Template.compile("[#$Greeting#] " + x);
+    }
+    assertNotSame(program, Template.compile("[#Thing.hello()#]"));
+
+    // while a program keeps being used it stays cached
+    program = Template.compile("[#$Greeting#] in use");
+    for (int x = 0; x <= 3 * Template.PROGRAM_CACHE_SIZE; x++) {
+      Template.compile("[#$Greeting#] other " + x);
+      assertSame(program, Template.compile("[#$Greeting#] in use"));
+    }
+  }
+
+
+  @Test
+  public void scope() {
+    Template.putStatic("Scoped", new Thing());
+    Hashtable<String, Object> cache = new Hashtable<String, Object>();
+    cache.put("Scoped", new Thing2());
+    String text = "[#Scoped.hello()#]";
+    assertNull(Template.getScope());
+    assertEquals("Hello", Template.resolve(text, symbols));
+
+    Map<String, Object> outer = new HashMap<String, Object>();
+    outer.put("Scoped", new Named("outer"));
+    assertNull(Template.setScope(outer));
+    assertSame(outer, Template.getScope());
+    try {
+      assertEquals("outer", Template.resolve(text, symbols));
+      assertEquals("outer", Template.compile(text).resolve(symbols, null, false));
+      assertEquals("Hello2", Template.compile(text).resolve(symbols, cache, false));
+
+      // nested scopes restore the one they replaced
+      Map<String, Object> inner = new HashMap<String, Object>();
+      inner.put("Scoped", new Named("inner"));
+      Map<String, Object> previous = Template.setScope(inner);
+      assertSame(outer, previous);
+      assertEquals("inner", Template.resolve(text, symbols));
+      Template.setScope(previous);
+      assertEquals("outer", Template.resolve(text, symbols));
+    } finally {
+      assertSame(outer, Template.setScope(null));
+    }
+    assertNull(Template.getScope());
+    assertEquals("Hello", Template.resolve(text, symbols));
+  }
+
+
+
+
+  /**
+   * Threads resolving at the same time each see only their own scope.
+   */
+  @Test
+  public void scopePerThread() throws Exception {
+    final int threads = 4;
+    final CyclicBarrier barrier = new CyclicBarrier(threads);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      Future<?>[] results = new Future<?>[threads];
+      for (int x = 0; x < threads; x++) {
+        final String name = "thread" + x;
+        results[x] = pool.submit(() -> {
+          assertNull(Template.getScope());
+          Map<String, Object> objects = new HashMap<String, Object>();
+          objects.put("Scoped", new Named(name));
+          Template.setScope(objects);
+          try {
+            for (int y = 0; y < 100; y++) {
+              // every thread has bound its scope before any resolves
+              barrier.await();
+              assertEquals(name, Template.resolve("[#Scoped.hello()#]", symbols));
+              assertEquals(name, Template.compile("[#Scoped.hello()#]").resolve(symbols, null, false));
+            }
+          } finally {
+            Template.setScope(null);
+          }
+          return null;
+        });
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertNull(Template.getScope());
+  }
+
+
+
+
   /**
    * The objects which can be placed in templates have few limitations. 
    * Only methods which take strings as arguments are called.
@@ -302,6 +447,16 @@ public class TemplateTest {
 
   }
 
+  class Named {
+    private final String name;
+    Named(String name) {
+      this.name = name;
+    }
+    public String hello() {
+      return name;
+    }
+  }
+
   class Thing2 {
     Thing2() {}
     public String hello() {